@@ -1,6 +1,7 @@
 plugins {
     `maven-publish`
     id("hytale-mod") version "0.+"
+    alias(libs.plugins.jmh)
 }
 
 group = "br.com.leonardson"
@@ -18,6 +19,26 @@ dependencies {
     compileOnly(libs.jetbrains.annotations)
     compileOnly(libs.jspecify)
     implementation("org.xerial:sqlite-jdbc:3.47.1.0")
+
+    // Gson ships with the server jar, which is compileOnly
+    jmhImplementation(libs.gson)
+    testImplementation(libs.gson)
+
+    testImplementation(platform(libs.junit.bom))
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
+
+tasks.named<Test>("test") {
+    useJUnitPlatform()
+}
+
+// Tests, benchmarks and loadSim load plugin classes that use server APIs such as HytaleLogger
+configurations.named("testRuntimeClasspath") {
+    extendsFrom(configurations.compileOnly.get())
+}
+configurations.named("jmhRuntimeClasspath") {
+    extendsFrom(configurations.compileOnly.get())
 }
 
 hytale {
@@ -31,6 +52,21 @@ hytale {
     // updateChannel = "pre-release"
 }
 
+// Storage benchmarks: ./gradlew jmh (-PjmhIncludes=ShopStorageBenchmark.getShop to narrow)
+jmh {
+    includes = listOf(findProperty("jmhIncludes")?.toString() ?: ".*")
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+}
+
+// Headless registry load simulation: ./gradlew loadSim --args="--players 200 --shops 500 --threads 8"
+tasks.register<JavaExec>("loadSim") {
+    group = "verification"
+    description = "Runs the ShopRegistry load simulation and prints latency and lock-wait stats."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "br.com.leonardson.taleshop.sim.LoadSimulation"
+}
+
 java {
     toolchain {
         languageVersion = JavaLanguageVersion.of(javaVersion)
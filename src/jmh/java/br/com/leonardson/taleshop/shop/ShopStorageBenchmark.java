@@ -0,0 +1,229 @@
+package br.com.leonardson.taleshop.shop;
+
+import br.com.leonardson.taleshop.shop.trade.Trade;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the JSON and SQLite shop storage backends on pre-seeded datasets.
+ * <p>
+ * Run with {@code ./gradlew jmh}; the Gradle config enables the GC profiler, so every result also
+ * reports bytes allocated per operation. Datasets are written straight to disk before the backend
+ * is opened, so seeding 100k shops does not go through 100k full-file rewrites. Combinations
+ * above {@value #MAX_SEEDED_TRADES} trades in total (100k shops with 500 trades each) would not
+ * seed or fit in the heap, so their trials fail fast in setup and JMH moves on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ShopStorageBenchmark {
+    private static final int SHOPS_PER_OWNER = 10;
+    private static final int DISTINCT_ITEMS = 300;
+    private static final long MAX_SEEDED_TRADES = 10_000_000L;
+
+    @Param({"json", "sqlite"})
+    public String backend;
+
+    @Param({"1000", "10000", "100000"})
+    public int shops;
+
+    @Param({"1", "20", "500"})
+    public int tradesPerShop;
+
+    private Path dataDirectory;
+    private ShopStorage storage;
+    private SplittableRandom random;
+    private int created;
+    private int updates;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        if (tradesPerShop > ShopRegistry.MAX_TRADES) {
+            throw new IllegalArgumentException("tradesPerShop exceeds MAX_TRADES");
+        }
+        if ((long) shops * tradesPerShop > MAX_SEEDED_TRADES) {
+            throw new IllegalArgumentException("Skipping " + shops + " shops x " + tradesPerShop
+                + " trades: more than " + MAX_SEEDED_TRADES + " seeded trades");
+        }
+        dataDirectory = Files.createTempDirectory("taleshop-bench");
+        random = new SplittableRandom(42);
+        if ("json".equals(backend)) {
+            seedJson();
+            storage = new JsonShopStorage(dataDirectory);
+        } else {
+            // Let the backend create its schema, then bulk load through a separate connection
+            new SqliteShopStorage(dataDirectory).close();
+            seedSqlite();
+            storage = new SqliteShopStorage(dataDirectory);
+        }
+        // One shop below the trade cap for the add/remove benchmark
+        storage.createShop(ownerId(0), "Owner 0", "scratch");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.close();
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Shop getShop() {
+        int shop = random.nextInt(shops);
+        return storage.getShop(ownerId(shop / SHOPS_PER_OWNER), shopName(shop));
+    }
+
+    @Benchmark
+    public Shop findShopByTraderUuid() {
+        return storage.findShopByTraderUuid(traderUuid(random.nextInt(shops)));
+    }
+
+    @Benchmark
+    public List<Shop> listAllShops() {
+        return storage.listAllShops();
+    }
+
+    @Benchmark
+    public Shop createShop() {
+        // Grows the dataset by one shop per call; negligible against the seeded size
+        int index = created++;
+        return storage.createShop(ownerId(index % (shops / SHOPS_PER_OWNER)), "Owner", "bench-" + index);
+    }
+
+    /**
+     * Adds a trade and removes it again so the scratch shop never reaches the trade cap.
+     */
+    @Benchmark
+    public Trade addTrade() {
+        Trade trade = storage.addTrade(ownerId(0), "scratch", itemId(1), 1, itemId(2), 1);
+        storage.removeTrade(ownerId(0), "scratch", trade.id());
+        return trade;
+    }
+
+    @Benchmark
+    public void updateTrade() {
+        int shop = random.nextInt(shops);
+        int quantity = 1 + (updates++ & 63);
+        storage.updateTrade(ownerId(shop / SHOPS_PER_OWNER), shopName(shop), 1,
+            itemId(shop % DISTINCT_ITEMS), quantity, itemId((shop + 1) % DISTINCT_ITEMS), quantity);
+    }
+
+    private void seedJson() throws IOException {
+        Path file = dataDirectory.resolve("shops.json");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject().name("shops").beginArray();
+            for (int shop = 0; shop < shops; shop++) {
+                int owner = shop / SHOPS_PER_OWNER;
+                writer.beginObject()
+                    .name("ownerId").value(ownerId(owner))
+                    .name("ownerName").value("Owner " + owner)
+                    .name("name").value(shopName(shop))
+                    .name("traderUuid").value(traderUuid(shop))
+                    .name("trades").beginArray();
+                for (int trade = 1; trade <= tradesPerShop; trade++) {
+                    writer.beginObject()
+                        .name("id").value(trade)
+                        .name("inputItemId").value(itemId(shop + trade))
+                        .name("inputQuantity").value(trade)
+                        .name("outputItemId").value(itemId(shop + trade + 1))
+                        .name("outputQuantity").value(1)
+                        .endObject();
+                }
+                writer.endArray().endObject();
+            }
+            writer.endArray().endObject();
+        }
+    }
+
+    private void seedSqlite() throws SQLException {
+        String url = "jdbc:sqlite:" + dataDirectory.resolve("shops.db").toAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url)) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement shopStmt = connection.prepareStatement(
+                     "INSERT INTO shops (id, owner_id, name, display_name, owner_name, trader_uuid) VALUES (?, ?, ?, ?, ?, ?)");
+                 PreparedStatement tradeStmt = connection.prepareStatement(
+                     "INSERT INTO trades (shop_id, trade_id, input_item_id, input_quantity, output_item_id, output_quantity) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int shop = 0; shop < shops; shop++) {
+                    int owner = shop / SHOPS_PER_OWNER;
+                    long shopId = shop + 1L;
+                    shopStmt.setLong(1, shopId);
+                    shopStmt.setString(2, ownerId(owner));
+                    shopStmt.setString(3, shopName(shop).toLowerCase(Locale.ROOT));
+                    shopStmt.setString(4, shopName(shop));
+                    shopStmt.setString(5, "Owner " + owner);
+                    shopStmt.setString(6, traderUuid(shop));
+                    shopStmt.addBatch();
+                    for (int trade = 1; trade <= tradesPerShop; trade++) {
+                        tradeStmt.setLong(1, shopId);
+                        tradeStmt.setInt(2, trade);
+                        tradeStmt.setString(3, itemId(shop + trade));
+                        tradeStmt.setInt(4, trade);
+                        tradeStmt.setString(5, itemId(shop + trade + 1));
+                        tradeStmt.setInt(6, 1);
+                        tradeStmt.addBatch();
+                    }
+                    if (shop % 1000 == 999) {
+                        shopStmt.executeBatch();
+                        tradeStmt.executeBatch();
+                    }
+                }
+                shopStmt.executeBatch();
+                tradeStmt.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    private static String ownerId(int owner) {
+        return new UUID(0x7a1e5b0000000000L, owner).toString();
+    }
+
+    private static String shopName(int shop) {
+        return "Shop " + shop;
+    }
+
+    private static String traderUuid(int shop) {
+        return new UUID(0x7ade700000000000L, shop).toString();
+    }
+
+    private static String itemId(int index) {
+        return "Item_" + (index % DISTINCT_ITEMS);
+    }
+}
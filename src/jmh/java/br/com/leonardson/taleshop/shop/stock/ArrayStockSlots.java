@@ -0,0 +1,71 @@
+package br.com.leonardson.taleshop.shop.stock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * In-memory {@link StockSlots} standing in for a chest or inventory container.
+ * Add semantics follow the server's: top up matching stacks first, then fill empty slots.
+ */
+public final class ArrayStockSlots implements StockSlots {
+    private final String[] itemIds;
+    private final int[] quantities;
+    private final int maxStack;
+
+    public ArrayStockSlots(int capacity, int maxStack) {
+        this.itemIds = new String[capacity];
+        this.quantities = new int[capacity];
+        this.maxStack = maxStack;
+    }
+
+    public void set(int slot, @Nullable String itemId, int quantity) {
+        itemIds[slot] = quantity > 0 ? itemId : null;
+        quantities[slot] = itemId == null ? 0 : quantity;
+    }
+
+    @Override
+    public int capacity() {
+        return itemIds.length;
+    }
+
+    @Nullable
+    @Override
+    public String itemId(short slot) {
+        return itemIds[slot];
+    }
+
+    @Override
+    public int quantity(short slot) {
+        return quantities[slot];
+    }
+
+    @Override
+    public void remove(short slot, int quantity) {
+        int left = quantities[slot] - Math.min(quantity, quantities[slot]);
+        quantities[slot] = left;
+        if (left == 0) {
+            itemIds[slot] = null;
+        }
+    }
+
+    @Override
+    public int add(@Nonnull String itemId, int quantity) {
+        int remaining = quantity;
+        for (int slot = 0; slot < itemIds.length && remaining > 0; slot++) {
+            if (itemId.equals(itemIds[slot])) {
+                int moved = Math.min(remaining, maxStack - quantities[slot]);
+                quantities[slot] += moved;
+                remaining -= moved;
+            }
+        }
+        for (int slot = 0; slot < itemIds.length && remaining > 0; slot++) {
+            if (itemIds[slot] == null) {
+                int moved = Math.min(remaining, maxStack);
+                itemIds[slot] = itemId;
+                quantities[slot] = moved;
+                remaining -= moved;
+            }
+        }
+        return remaining;
+    }
+}
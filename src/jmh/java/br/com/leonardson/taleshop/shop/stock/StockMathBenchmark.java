@@ -0,0 +1,136 @@
+package br.com.leonardson.taleshop.shop.stock;
+
+import br.com.leonardson.taleshop.shop.trade.ItemHistogram;
+import br.com.leonardson.taleshop.shop.trade.ItemIds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the buyer page's stock math on in-memory containers.
+ * <p>
+ * {@code buildRowsHistogram} is what rendering the trade grid costs today; {@code buildRowsScan}
+ * is the previous per-trade rescan, kept as a baseline. The rest cover one trade click.
+ * Allocation per operation is reported by the GC profiler configured in the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockMathBenchmark {
+    private static final int MAX_STACK = 64;
+    private static final int DISTINCT_ITEMS = 40;
+
+    @Param({"1", "4", "16"})
+    public int chests;
+
+    @Param({"27", "54"})
+    public int capacity;
+
+    @Param({"0.25", "0.75", "1.0"})
+    public double fillRatio;
+
+    @Param({"1", "20", "500"})
+    public int trades;
+
+    private final StockMath stockMath = new StockMath(itemId -> MAX_STACK);
+    private List<StockSlots> stock;
+    private StockSlots player;
+    private String[] inputItems;
+    private String[] outputItems;
+    private int[] inputHandles;
+    private int[] outputHandles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        String[] items = new String[DISTINCT_ITEMS];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = "Item_" + i;
+        }
+
+        stock = new ArrayList<>(chests);
+        for (int chest = 0; chest < chests; chest++) {
+            stock.add(fill(new ArrayStockSlots(capacity, MAX_STACK), items, random));
+        }
+        player = fill(new ArrayStockSlots(36, MAX_STACK), items, random);
+
+        inputItems = new String[trades];
+        outputItems = new String[trades];
+        inputHandles = new int[trades];
+        outputHandles = new int[trades];
+        for (int trade = 0; trade < trades; trade++) {
+            inputItems[trade] = items[random.nextInt(items.length)];
+            outputItems[trade] = items[random.nextInt(items.length)];
+            inputHandles[trade] = ItemIds.handle(inputItems[trade]);
+            outputHandles[trade] = ItemIds.handle(outputItems[trade]);
+        }
+        // Guarantee stock for the first trade so executeTrade always moves items
+        ((ArrayStockSlots) stock.get(0)).set(0, outputItems[0], MAX_STACK / 2);
+    }
+
+    private ArrayStockSlots fill(ArrayStockSlots slots, String[] items, SplittableRandom random) {
+        for (int slot = 0; slot < slots.capacity(); slot++) {
+            if (random.nextDouble() < fillRatio) {
+                slots.set(slot, items[random.nextInt(items.length)], 1 + random.nextInt(MAX_STACK));
+            }
+        }
+        return slots;
+    }
+
+    @Benchmark
+    public void buildRowsHistogram(Blackhole blackhole) {
+        ItemHistogram playerItems = ItemHistogram.of(player);
+        ItemHistogram stockItems = ItemHistogram.of(stock);
+        for (int trade = 0; trade < trades; trade++) {
+            blackhole.consume(playerItems.count(inputHandles[trade]));
+            blackhole.consume(stockItems.count(outputHandles[trade]));
+        }
+    }
+
+    @Benchmark
+    public void buildRowsScan(Blackhole blackhole) {
+        for (int trade = 0; trade < trades; trade++) {
+            blackhole.consume(stockMath.count(player, inputItems[trade]));
+            blackhole.consume(stockMath.count(stock, outputItems[trade]));
+        }
+    }
+
+    @Benchmark
+    public int countStock() {
+        return stockMath.count(stock, outputItems[0]);
+    }
+
+    @Benchmark
+    public boolean hasSpaceFor() {
+        return stockMath.hasSpaceFor(stock, inputItems[0], MAX_STACK);
+    }
+
+    /**
+     * The container moves of one trade click, undone afterwards so the dataset stays fixed.
+     */
+    @Benchmark
+    public int executeTrade() {
+        stockMath.remove(stock, outputItems[0], 1);
+        int leftover = stockMath.add(stock, inputItems[0], 1);
+        stockMath.remove(stock, inputItems[0], 1 - leftover);
+        return leftover + stockMath.add(stock, outputItems[0], 1);
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.leonardson.taleshop.sim;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples for one operation on one thread. Recorders from all workers are
+ * merged once the run ends, so recording never contends.
+ */
+final class LatencyRecorder {
+    private long[] samples = new long[4096];
+    private int size;
+    private long errors;
+
+    void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    void recordError() {
+        errors++;
+    }
+
+    void mergeFrom(LatencyRecorder other) {
+        if (size + other.size > samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(samples.length * 2, size + other.size));
+        }
+        System.arraycopy(other.samples, 0, samples, size, other.size);
+        size += other.size;
+        errors += other.errors;
+    }
+
+    int count() {
+        return size;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * Sorts the samples in place; call once, after merging.
+     */
+    void seal() {
+        Arrays.sort(samples, 0, size);
+    }
+
+    long percentile(double fraction) {
+        if (size == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * size) - 1;
+        return samples[Math.max(0, Math.min(size - 1, index))];
+    }
+}
@@ -0,0 +1,347 @@
+package br.com.leonardson.taleshop.sim;
+
+import br.com.leonardson.taleshop.config.PluginConfig;
+import br.com.leonardson.taleshop.shop.Shop;
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.stock.StockMath;
+import br.com.leonardson.taleshop.shop.stock.StockSlots;
+import br.com.leonardson.taleshop.shop.trade.ItemHistogram;
+import br.com.leonardson.taleshop.shop.trade.ItemIds;
+import br.com.leonardson.taleshop.shop.trade.Trade;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Headless load simulation for {@link ShopRegistry}.
+ * <p>
+ * N virtual players spread over T worker threads run randomized open/buy/edit/spawn sequences
+ * against M shops. Registry calls go straight to the real registry and storage; container work
+ * runs on a simulated world thread ({@link SimWorld}). At the end it prints throughput,
+ * p50/p99/p999 latency per operation and how long workers were blocked on monitors, which in
+ * practice is the {@code synchronized} registry and storage methods.
+ * <p>
+ * Run with {@code ./gradlew loadSim --args="--players 200 --shops 500 --threads 8"}.
+ */
+public final class LoadSimulation {
+    private static final int SHOPS_PER_OWNER = 5;
+    private static final int CHESTS_PER_SHOP = 2;
+    private static final int CHEST_CAPACITY = 27;
+    private static final int DISTINCT_ITEMS = 60;
+
+    enum Operation {
+        OPEN(50), BUY(35), EDIT(10), SPAWN(5);
+
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private final Options options;
+    private final String[] items = new String[DISTINCT_ITEMS];
+    private final StockMath stockMath = new StockMath(itemId -> SimWorld.MAX_STACK);
+    private ShopRegistry registry;
+    private SimWorld world;
+
+    private LoadSimulation(Options options) {
+        this.options = options;
+        for (int i = 0; i < items.length; i++) {
+            items[i] = ItemIds.canonical("Item_" + i);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadSimulation(Options.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        Path dataDirectory = Files.createTempDirectory("taleshop-sim");
+        PluginConfig config = new PluginConfig();
+        config.setStorageBackend(options.backend);
+        registry = new ShopRegistry(dataDirectory, config);
+        world = new SimWorld(options.shops, CHESTS_PER_SHOP, CHEST_CAPACITY, items, options.seed);
+        try {
+            seed();
+            report(drive());
+        } finally {
+            world.close();
+            registry.close();
+            deleteRecursively(dataDirectory);
+        }
+    }
+
+    private void seed() {
+        SplittableRandom random = new SplittableRandom(options.seed);
+        for (int shop = 0; shop < options.shops; shop++) {
+            registry.createShop(ownerId(shop), "Owner " + shop / SHOPS_PER_OWNER, shopName(shop));
+            for (int trade = 0; trade < options.tradesPerShop; trade++) {
+                registry.addTrade(ownerId(shop), shopName(shop),
+                    items[random.nextInt(items.length)], 1 + random.nextInt(8),
+                    items[random.nextInt(items.length)], 1 + random.nextInt(8));
+            }
+        }
+        System.out.printf(Locale.ROOT, "Seeded %d shops x %d trades (%s backend)%n",
+            options.shops, options.tradesPerShop, options.backend);
+    }
+
+    private RunResult drive() throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean contentionMonitoring = threads.isThreadContentionMonitoringSupported();
+        if (contentionMonitoring) {
+            threads.setThreadContentionMonitoringEnabled(true);
+        }
+
+        List<Worker> workers = new ArrayList<>(options.threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + options.durationSeconds * 1_000_000_000L;
+        for (int i = 0; i < options.threads; i++) {
+            Worker worker = new Worker(i, start, deadline, contentionMonitoring ? threads : null);
+            workers.add(worker);
+            worker.thread.start();
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+        return new RunResult(workers, System.nanoTime() - began, contentionMonitoring);
+    }
+
+    private final class Worker implements Runnable {
+        final Thread thread;
+        final Map<Operation, LatencyRecorder> latencies = new EnumMap<>(Operation.class);
+        private final CountDownLatch start;
+        private final long deadline;
+        private final ThreadMXBean threads;
+        private final SplittableRandom random;
+        private final int firstPlayer;
+        private final int playerCount;
+        long blockedMillis;
+        long blockedCount;
+
+        Worker(int index, CountDownLatch start, long deadline, ThreadMXBean threads) {
+            this.thread = new Thread(this, "Sim-Worker-" + index);
+            this.start = start;
+            this.deadline = deadline;
+            this.threads = threads;
+            this.random = new SplittableRandom(options.seed + 31L * (index + 1));
+            // Players are split evenly across workers; each worker plays its own players
+            int perWorker = options.players / options.threads;
+            this.firstPlayer = index * perWorker;
+            this.playerCount = index == options.threads - 1 ? options.players - firstPlayer : perWorker;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyRecorder());
+            }
+        }
+
+        @Override
+        public void run() {
+            start.awaitUninterruptibly();
+            long blockedBefore = blockedTime();
+            long countBefore = blockedCount();
+            while (System.nanoTime() < deadline) {
+                int player = firstPlayer + random.nextInt(Math.max(1, playerCount));
+                Operation operation = pick();
+                long began = System.nanoTime();
+                try {
+                    perform(operation, player);
+                    latencies.get(operation).record(System.nanoTime() - began);
+                } catch (RuntimeException ex) {
+                    latencies.get(operation).recordError();
+                }
+                if (options.thinkMillis > 0) {
+                    try {
+                        Thread.sleep(options.thinkMillis);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            }
+            blockedMillis = blockedTime() - blockedBefore;
+            blockedCount = blockedCount() - countBefore;
+        }
+
+        private Operation pick() {
+            int roll = random.nextInt(100);
+            for (Operation operation : Operation.values()) {
+                roll -= operation.weight;
+                if (roll < 0) {
+                    return operation;
+                }
+            }
+            return Operation.OPEN;
+        }
+
+        private void perform(Operation operation, int player) {
+            int shopIndex = random.nextInt(options.shops);
+            String ownerId = ownerId(shopIndex);
+            String shopName = shopName(shopIndex);
+            switch (operation) {
+                case OPEN -> {
+                    Shop shop = registry.getShop(ownerId, shopName);
+                    List<StockSlots> chests = world.chests(shopIndex);
+                    world.execute(() -> {
+                        ItemHistogram stock = ItemHistogram.of(chests);
+                        int visible = 0;
+                        for (Trade trade : shop.trades()) {
+                            visible += stock.count(trade.outputItem());
+                        }
+                        return visible;
+                    });
+                }
+                case BUY -> {
+                    Shop shop = registry.getShop(ownerId, shopName);
+                    Trade trade = shop.findTrade(1 + random.nextInt(Math.max(1, options.tradesPerShop)));
+                    if (trade == null) {
+                        return;
+                    }
+                    List<StockSlots> chests = world.chests(shopIndex);
+                    world.execute(() -> {
+                        if (stockMath.count(chests, trade.outputItemId()) < trade.outputQuantity()
+                            || !stockMath.hasSpaceFor(chests, trade.inputItemId(), trade.inputQuantity())) {
+                            return false;
+                        }
+                        stockMath.remove(chests, trade.outputItemId(), trade.outputQuantity());
+                        stockMath.add(chests, trade.inputItemId(), trade.inputQuantity());
+                        return true;
+                    });
+                }
+                case EDIT -> registry.updateTrade(ownerId, shopName,
+                    1 + random.nextInt(Math.max(1, options.tradesPerShop)),
+                    items[random.nextInt(items.length)], 1 + random.nextInt(8),
+                    items[random.nextInt(items.length)], 1 + random.nextInt(8));
+                case SPAWN -> {
+                    String traderUuid = new UUID(player, random.nextLong()).toString();
+                    registry.setTraderUuid(ownerId, shopName, traderUuid);
+                    // The entity system looks the shop up when the trader loads
+                    registry.findShopByTraderUuid(traderUuid);
+                    if (random.nextBoolean()) {
+                        registry.clearTraderUuidIfMatches(ownerId, shopName, traderUuid);
+                    }
+                }
+            }
+        }
+
+        private long blockedTime() {
+            if (threads == null) {
+                return 0;
+            }
+            ThreadInfo info = threads.getThreadInfo(thread.threadId());
+            return info == null ? 0 : Math.max(0, info.getBlockedTime());
+        }
+
+        private long blockedCount() {
+            if (threads == null) {
+                return 0;
+            }
+            ThreadInfo info = threads.getThreadInfo(thread.threadId());
+            return info == null ? 0 : info.getBlockedCount();
+        }
+    }
+
+    private record RunResult(List<Worker> workers, long elapsedNanos, boolean contentionMonitoring) {
+    }
+
+    private void report(RunResult result) {
+        double seconds = result.elapsedNanos() / 1e9;
+        System.out.printf(Locale.ROOT, "%d players, %d threads, %.1fs%n", options.players, options.threads, seconds);
+        System.out.printf(Locale.ROOT, "%-6s %10s %10s %10s %10s %10s %8s%n",
+            "op", "count", "ops/s", "p50 us", "p99 us", "p999 us", "errors");
+
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyRecorder merged = new LatencyRecorder();
+            for (Worker worker : result.workers()) {
+                merged.mergeFrom(worker.latencies.get(operation));
+            }
+            merged.seal();
+            total += merged.count();
+            System.out.printf(Locale.ROOT, "%-6s %10d %10.0f %10.1f %10.1f %10.1f %8d%n",
+                operation.name().toLowerCase(Locale.ROOT), merged.count(), merged.count() / seconds,
+                merged.percentile(0.50) / 1e3, merged.percentile(0.99) / 1e3, merged.percentile(0.999) / 1e3,
+                merged.errors());
+        }
+        System.out.printf(Locale.ROOT, "total  %10d %10.0f%n", total, total / seconds);
+
+        if (!result.contentionMonitoring()) {
+            System.out.println("Lock wait: thread contention monitoring not supported by this JVM");
+            return;
+        }
+        long blockedMillis = 0;
+        long blockedCount = 0;
+        for (Worker worker : result.workers()) {
+            blockedMillis += worker.blockedMillis;
+            blockedCount += worker.blockedCount;
+        }
+        double workerMillis = result.elapsedNanos() / 1e6 * result.workers().size();
+        System.out.printf(Locale.ROOT, "Lock wait: %d ms over %d blocks (%.1f%% of worker time)%n",
+            blockedMillis, blockedCount, workerMillis == 0 ? 0 : 100.0 * blockedMillis / workerMillis);
+    }
+
+    private static String ownerId(int shop) {
+        return new UUID(0x5100000000000000L, shop / SHOPS_PER_OWNER).toString();
+    }
+
+    private static String shopName(int shop) {
+        return "Shop " + shop;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static final class Options {
+        int players = 100;
+        int shops = 200;
+        int tradesPerShop = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int durationSeconds = 30;
+        int thinkMillis = 0;
+        long seed = 1;
+        PluginConfig.StorageBackend backend = PluginConfig.StorageBackend.JSON;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--players" -> options.players = Integer.parseInt(value);
+                    case "--shops" -> options.shops = Integer.parseInt(value);
+                    case "--trades" -> options.tradesPerShop = Math.min(ShopRegistry.MAX_TRADES, Integer.parseInt(value));
+                    case "--threads" -> options.threads = Integer.parseInt(value);
+                    case "--duration" -> options.durationSeconds = Integer.parseInt(value);
+                    case "--think" -> options.thinkMillis = Integer.parseInt(value);
+                    case "--seed" -> options.seed = Long.parseLong(value);
+                    case "--backend" -> options.backend = PluginConfig.StorageBackend.valueOf(value.toUpperCase(Locale.ROOT));
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (options.players < 1 || options.shops < 1 || options.threads < 1) {
+                throw new IllegalArgumentException("players, shops and threads must be at least 1");
+            }
+            options.threads = Math.min(options.threads, options.players);
+            return options;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.leonardson.taleshop.sim;
+
+import br.com.leonardson.taleshop.shop.stock.ArrayStockSlots;
+import br.com.leonardson.taleshop.shop.stock.StockSlots;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Local stand-in for a game world: a single world thread that owns every shop's stock chests,
+ * mirroring how the server only touches containers from inside {@code World.execute}.
+ */
+final class SimWorld implements AutoCloseable {
+    static final int MAX_STACK = 64;
+
+    private final ExecutorService worldThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Sim-World");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<List<StockSlots>> chestsByShop = new ArrayList<>();
+
+    SimWorld(int shops, int chestsPerShop, int chestCapacity, String[] items, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int shop = 0; shop < shops; shop++) {
+            List<StockSlots> chests = new ArrayList<>(chestsPerShop);
+            for (int chest = 0; chest < chestsPerShop; chest++) {
+                ArrayStockSlots slots = new ArrayStockSlots(chestCapacity, MAX_STACK);
+                for (int slot = 0; slot < chestCapacity; slot++) {
+                    if (random.nextInt(4) != 0) {
+                        slots.set(slot, items[random.nextInt(items.length)], 1 + random.nextInt(MAX_STACK));
+                    }
+                }
+                chests.add(slots);
+            }
+            chestsByShop.add(chests);
+        }
+    }
+
+    /**
+     * Chests of a shop. Only touch them from a task passed to {@link #execute(Supplier)}.
+     */
+    List<StockSlots> chests(int shop) {
+        return chestsByShop.get(shop);
+    }
+
+    <T> T execute(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, worldThread).join();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        worldThread.shutdownNow();
+        worldThread.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
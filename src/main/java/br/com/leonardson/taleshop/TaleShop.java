@@ -11,15 +11,34 @@ import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import br.com.leonardson.taleshop.config.PluginConfig;
 import br.com.leonardson.taleshop.config.PluginConfigManager;
 import br.com.leonardson.taleshop.interaction.TraderMessageInteraction;
+import br.com.leonardson.taleshop.metrics.MetricsReporter;
+import br.com.leonardson.taleshop.metrics.ShopMetrics;
+import br.com.leonardson.taleshop.metrics.TickProfiler;
+import br.com.leonardson.taleshop.shop.ShopBackups;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.TraderComponentProfile;
+import br.com.leonardson.taleshop.shop.TraderIndex;
 import br.com.leonardson.taleshop.shop.TraderInteractableSystem;
+import br.com.leonardson.taleshop.shop.TraderReconciler;
+import br.com.leonardson.taleshop.shop.TraderSpawner;
 import br.com.leonardson.taleshop.shop.command.ShopCommands;
+import br.com.leonardson.taleshop.shop.journal.TradeJournal;
+import br.com.leonardson.taleshop.shop.sales.SalesRollups;
 
 public class TaleShop extends JavaPlugin {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     private static TaleShop instance;
     private ShopRegistry shopRegistry;
     private PluginConfigManager configManager;
+    private TraderIndex traderIndex;
+    private TraderReconciler traderReconciler;
+    private TraderSpawner traderSpawner;
+    private ShopMetrics metrics;
+    private MetricsReporter metricsReporter;
+    private TickProfiler tickProfiler;
+    private TradeJournal tradeJournal;
+    private SalesRollups salesRollups;
+    private ShopBackups shopBackups;
 
     public TaleShop(JavaPluginInit init) {
         super(init);
@@ -35,6 +54,30 @@ public class TaleShop extends JavaPlugin {
         return shopRegistry;
     }
 
+    public TraderIndex getTraderIndex() {
+        return traderIndex;
+    }
+
+    public TraderSpawner getTraderSpawner() {
+        return traderSpawner;
+    }
+
+    public ShopMetrics getMetrics() {
+        return metrics;
+    }
+
+    public TickProfiler getTickProfiler() {
+        return tickProfiler;
+    }
+
+    public TradeJournal getTradeJournal() {
+        return tradeJournal;
+    }
+
+    public SalesRollups getSalesRollups() {
+        return salesRollups;
+    }
+
     public PluginConfig getPluginConfig() {
         return configManager != null ? configManager.getConfig() : null;
     }
@@ -48,16 +91,33 @@ public class TaleShop extends JavaPlugin {
         LOGGER.atInfo().log("Storage Backend: %s", cfg.getStorageBackend());
         LOGGER.atInfo().log("Storage Distance Mode: %s", cfg.getStorageDistanceMode());
         LOGGER.atInfo().log("Fixed Storage Distance: %d blocks", cfg.getFixedStorageDistance());
+        LOGGER.atInfo().log("Metrics Dump Interval: %d seconds", cfg.getMetricsDumpIntervalSeconds());
+        LOGGER.atInfo().log("Slow Operation Threshold: %d ms", cfg.getSlowOperationThresholdMillis());
+        LOGGER.atInfo().log("Backup Interval: %d minutes, keeping %d", cfg.getBackupIntervalMinutes(), cfg.getBackupsToKeep());
         
-        shopRegistry = new ShopRegistry(ShopRegistry.resolveDataDirectory(this), cfg);
+        metrics = new ShopMetrics();
+        metricsReporter = new MetricsReporter(metrics, ShopRegistry.resolveDataDirectory(this), cfg.getMetricsDumpIntervalSeconds());
+        tickProfiler = new TickProfiler(cfg.getSlowOperationThresholdMillis());
+        shopRegistry = new ShopRegistry(ShopRegistry.resolveDataDirectory(this), cfg, metrics);
+        shopBackups = new ShopBackups(ShopRegistry.resolveDataDirectory(this), cfg, shopRegistry);
+        tradeJournal = new TradeJournal(ShopRegistry.resolveDataDirectory(this));
+        salesRollups = new SalesRollups(ShopRegistry.resolveDataDirectory(this));
+        salesRollups.load(tradeJournal);
+        tradeJournal.addListener(salesRollups);
+        shopRegistry.addListener(salesRollups);
+        shopRegistry.addListener(tradeJournal);
+        traderSpawner = new TraderSpawner(shopRegistry, tickProfiler);
         // Commands
-        this.getCommandRegistry().registerCommand(new ShopCommands(shopRegistry));
+        this.getCommandRegistry().registerCommand(new ShopCommands(shopRegistry, traderSpawner, metricsReporter, tickProfiler, shopBackups, tradeJournal));
 
         // Interactions
         this.getCodecRegistry(Interaction.CODEC)
              .register("TraderMessageInteraction", TraderMessageInteraction.class, TraderMessageInteraction.CODEC);
 
-        this.getEntityStoreRegistry().registerSystem(new TraderInteractableSystem(shopRegistry));
+        // Resolve trader component types once instead of per spawn / chunk load
+        TraderComponentProfile.resolve();
+        traderIndex = new TraderIndex(ShopRegistry.resolveDataDirectory(this));
+        this.getEntityStoreRegistry().registerSystem(new TraderInteractableSystem(shopRegistry, traderIndex, tickProfiler));
     }
 
     @Override
@@ -70,9 +130,32 @@ public class TaleShop extends JavaPlugin {
             getIdentifier().toString(),
             List.of(TraderMessageInteraction.ROOT)
         );
+
+        // Reconcile shop traders against the loaded world entities
+        traderReconciler = new TraderReconciler(shopRegistry, traderIndex);
+        traderReconciler.start();
+        metricsReporter.start();
+        tradeJournal.start();
+        salesRollups.start();
+        shopBackups.start();
         
         // Add shutdown hook to close database connection
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (traderReconciler != null) {
+                traderReconciler.stop();
+            }
+            if (metricsReporter != null) {
+                metricsReporter.stop();
+            }
+            if (salesRollups != null) {
+                salesRollups.stop();
+            }
+            if (tradeJournal != null) {
+                tradeJournal.close();
+            }
+            if (shopBackups != null) {
+                shopBackups.stop();
+            }
             if (shopRegistry != null) {
                 shopRegistry.close();
             }
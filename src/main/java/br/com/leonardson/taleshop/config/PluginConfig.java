@@ -5,7 +5,8 @@ import javax.annotation.Nonnull;
 public class PluginConfig {
     public enum StorageBackend {
         JSON,
-        SQLITE
+        SQLITE,
+        LOG
     }
 
     public enum StorageDistanceMode {
@@ -16,6 +17,10 @@ public class PluginConfig {
     private StorageBackend storageBackend = StorageBackend.JSON;
     private StorageDistanceMode storageDistanceMode = StorageDistanceMode.FIXED;
     private int fixedStorageDistance = 2;
+    private int metricsDumpIntervalSeconds = 300;
+    private int slowOperationThresholdMillis = 5;
+    private int backupIntervalMinutes = 360;
+    private int backupsToKeep = 8;
 
     public PluginConfig() {
     }
@@ -32,6 +37,22 @@ public class PluginConfig {
         return storageBackend;
     }
 
+    public int getMetricsDumpIntervalSeconds() {
+        return metricsDumpIntervalSeconds;
+    }
+
+    public int getSlowOperationThresholdMillis() {
+        return slowOperationThresholdMillis;
+    }
+
+    public int getBackupIntervalMinutes() {
+        return backupIntervalMinutes;
+    }
+
+    public int getBackupsToKeep() {
+        return backupsToKeep;
+    }
+
     public void setStorageDistanceMode(@Nonnull StorageDistanceMode mode) {
         this.storageDistanceMode = mode;
     }
@@ -44,6 +65,25 @@ public class PluginConfig {
         this.storageBackend = backend;
     }
 
+    public void setMetricsDumpIntervalSeconds(int seconds) {
+        // 0 disables the periodic dump
+        this.metricsDumpIntervalSeconds = Math.max(0, seconds);
+    }
+
+    public void setSlowOperationThresholdMillis(int millis) {
+        // 0 disables slow operation logging
+        this.slowOperationThresholdMillis = Math.max(0, millis);
+    }
+
+    public void setBackupIntervalMinutes(int minutes) {
+        // 0 disables scheduled backups
+        this.backupIntervalMinutes = Math.max(0, minutes);
+    }
+
+    public void setBackupsToKeep(int count) {
+        this.backupsToKeep = Math.max(1, count);
+    }
+
     public boolean isUsingFixedDistance() {
         return storageDistanceMode == StorageDistanceMode.FIXED;
     }
@@ -59,4 +99,8 @@ public class PluginConfig {
     public boolean isUsingSqliteStorage() {
         return storageBackend == StorageBackend.SQLITE;
     }
+
+    public boolean isUsingLogStorage() {
+        return storageBackend == StorageBackend.LOG;
+    }
 }
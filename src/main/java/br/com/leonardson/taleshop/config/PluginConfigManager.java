@@ -37,6 +37,10 @@ public class PluginConfigManager {
                     config.setStorageBackend(parseBackend(data.StorageBackend));
                     config.setStorageDistanceMode(parseMode(data.StorageDistanceMode));
                     config.setFixedStorageDistance(data.FixedStorageDistance);
+                    config.setMetricsDumpIntervalSeconds(data.MetricsDumpIntervalSeconds);
+                    config.setSlowOperationThresholdMillis(data.SlowOperationThresholdMillis);
+                    config.setBackupIntervalMinutes(data.BackupIntervalMinutes);
+                    config.setBackupsToKeep(data.BackupsToKeep);
                     LOGGER.atInfo().log("Loaded configuration from: %s", configPath);
                 } else {
                     LOGGER.atInfo().log("Config file is empty, using defaults");
@@ -58,6 +62,10 @@ public class PluginConfigManager {
             data.StorageBackend = config.getStorageBackend().name();
             data.StorageDistanceMode = config.getStorageDistanceMode().name();
             data.FixedStorageDistance = config.getFixedStorageDistance();
+            data.MetricsDumpIntervalSeconds = config.getMetricsDumpIntervalSeconds();
+            data.SlowOperationThresholdMillis = config.getSlowOperationThresholdMillis();
+            data.BackupIntervalMinutes = config.getBackupIntervalMinutes();
+            data.BackupsToKeep = config.getBackupsToKeep();
             
             try (Writer writer = Files.newBufferedWriter(configPath)) {
                 GSON.toJson(data, writer);
@@ -95,5 +103,9 @@ public class PluginConfigManager {
         String StorageBackend = "JSON";
         String StorageDistanceMode = "FIXED";
         int FixedStorageDistance = 2;
+        int MetricsDumpIntervalSeconds = 300;
+        int SlowOperationThresholdMillis = 5;
+        int BackupIntervalMinutes = 360;
+        int BackupsToKeep = 8;
     }
 }
@@ -0,0 +1,23 @@
+package br.com.leonardson.taleshop.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    void reset() {
+        count.reset();
+    }
+}
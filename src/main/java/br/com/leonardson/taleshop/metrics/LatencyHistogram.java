@@ -0,0 +1,98 @@
+package br.com.leonardson.taleshop.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size log-linear latency histogram in microseconds, in the spirit of HdrHistogram.
+ * <p>
+ * Values below 16us get their own bucket; above that every power of two is split into 16
+ * sub-buckets, so a reported percentile is within ~6% of the real value. Recording never
+ * allocates and is safe from any thread.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Highest tracked value is 2^31 us (~35 minutes); anything above lands in the last bucket
+    private static final int MAX_MAGNITUDE = 31;
+    static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos) / 1_000;
+        counts.incrementAndGet(indexOf(micros));
+        totalNanos.add(Math.max(0, nanos));
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Adds this histogram's buckets to {@code target}, which must be {@link #BUCKETS} long.
+     */
+    void addTo(long[] target) {
+        for (int i = 0; i < BUCKETS; i++) {
+            target[i] += counts.get(i);
+        }
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.reset();
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Highest value, in microseconds, that falls into bucket {@code index}.
+     */
+    static long highestValueAt(int index) {
+        return lowestValueAt(index + 1) - 1;
+    }
+
+    private static long lowestValueAt(int index) {
+        int group = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (group == 0) {
+            return sub;
+        }
+        return (long) (SUB_BUCKETS + sub) << (group - 1);
+    }
+
+    /**
+     * Value at {@code percentile} (0-100) of merged bucket counts, in microseconds.
+     */
+    static long valueAtPercentile(long[] buckets, double percentile) {
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return highestValueAt(i);
+            }
+        }
+        return highestValueAt(buckets.length - 1);
+    }
+}
@@ -0,0 +1,165 @@
+package br.com.leonardson.taleshop.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Writes {@link ShopMetrics} snapshots to {@code metrics.json} in the plugin data directory and
+ * logs a one-line summary, on a fixed interval and on demand.
+ */
+public class MetricsReporter {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String DUMP_FILE = "metrics.json";
+    private static final int TOP_SHOPS = 10;
+
+    private final ShopMetrics metrics;
+    private final Path dumpFile;
+    private final int intervalSeconds;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param intervalSeconds seconds between periodic dumps; 0 disables them
+     */
+    public MetricsReporter(@Nonnull ShopMetrics metrics, @Nonnull Path dataDirectory, int intervalSeconds) {
+        this.metrics = metrics;
+        this.dumpFile = dataDirectory.resolve(DUMP_FILE);
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null || intervalSeconds <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TaleShop-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::periodicDump, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void periodicDump() {
+        try {
+            ShopMetrics.Snapshot snapshot = dump();
+            LOGGER.atInfo().log("Metrics: %s", summaryLine(snapshot));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.atWarning().log("Failed to write metrics dump: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the current snapshot to the dump file.
+     */
+    @Nonnull
+    public ShopMetrics.Snapshot dump() throws IOException {
+        ShopMetrics.Snapshot snapshot = metrics.snapshot(TOP_SHOPS);
+        Files.createDirectories(dumpFile.getParent());
+        Path tempFile = dumpFile.resolveSibling(DUMP_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile)) {
+            GSON.toJson(toJson(snapshot), writer);
+        }
+        Files.move(tempFile, dumpFile, StandardCopyOption.REPLACE_EXISTING);
+        return snapshot;
+    }
+
+    @Nonnull
+    public Path getDumpFile() {
+        return dumpFile;
+    }
+
+    @Nonnull
+    public static String summaryLine(@Nonnull ShopMetrics.Snapshot snapshot) {
+        Map<String, Long> counters = snapshot.counters();
+        long executed = counters.getOrDefault("trade.executed", 0L);
+        long failed = 0;
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            if (entry.getKey().startsWith("trade.failed.")) {
+                failed += entry.getValue();
+            }
+        }
+        ShopMetrics.TimerSnapshot buyerPage = snapshot.timers().get("page.build.buyer");
+        return String.format(Locale.ROOT, "%d trades, %d failed, buyer page mean %.0fus (%d builds)",
+            executed, failed,
+            buyerPage == null ? 0.0 : buyerPage.meanMicros(),
+            buyerPage == null ? 0L : buyerPage.count());
+    }
+
+    /**
+     * Human readable report, one entry per line, for the admin command.
+     */
+    @Nonnull
+    public static List<String> formatLines(@Nonnull ShopMetrics.Snapshot snapshot) {
+        List<String> lines = new ArrayList<>();
+        long seconds = Math.max(1, (snapshot.atMillis() - snapshot.sinceMillis()) / 1000);
+        lines.add("TaleShop metrics over the last " + seconds + "s: " + summaryLine(snapshot));
+        snapshot.counters().forEach((name, value) -> lines.add("  " + name + " = " + value));
+        snapshot.cacheHitRatios().forEach((name, ratio) ->
+            lines.add(String.format(Locale.ROOT, "  %s hit ratio = %.1f%%", name, ratio * 100)));
+        snapshot.timers().forEach((name, timer) -> lines.add(String.format(Locale.ROOT,
+            "  %s: %d x, mean %.0fus, max %.0fus, total %.1fms",
+            name, timer.count(), timer.meanMicros(), timer.maxMicros(), timer.totalMillis())));
+        if (!snapshot.topShops().isEmpty()) {
+            lines.add("Most expensive shops:");
+            snapshot.topShops().forEach((shop, timer) -> lines.add(String.format(Locale.ROOT,
+                "  %s: %.1fms over %d ops", shop, timer.totalMillis(), timer.count())));
+        }
+        return lines;
+    }
+
+    private static JsonObject toJson(ShopMetrics.Snapshot snapshot) {
+        JsonObject root = new JsonObject();
+        root.addProperty("since", Instant.ofEpochMilli(snapshot.sinceMillis()).toString());
+        root.addProperty("at", Instant.ofEpochMilli(snapshot.atMillis()).toString());
+
+        JsonObject counters = new JsonObject();
+        snapshot.counters().forEach(counters::addProperty);
+        root.add("counters", counters);
+
+        JsonObject ratios = new JsonObject();
+        snapshot.cacheHitRatios().forEach(ratios::addProperty);
+        root.add("cacheHitRatios", ratios);
+
+        root.add("timers", toJson(snapshot.timers()));
+        root.add("topShops", toJson(snapshot.topShops()));
+        return root;
+    }
+
+    private static JsonObject toJson(Map<String, ShopMetrics.TimerSnapshot> timers) {
+        JsonObject json = new JsonObject();
+        timers.forEach((name, timer) -> {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("count", timer.count());
+            entry.addProperty("meanMicros", timer.meanMicros());
+            entry.addProperty("maxMicros", timer.maxMicros());
+            entry.addProperty("totalMillis", timer.totalMillis());
+            json.add(name, entry);
+        });
+        return json;
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.leonardson.taleshop.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link LatencyHistogram} over a sliding time window.
+ * <p>
+ * The window is split into slices that are recycled round-robin; a slice is cleared the first
+ * time it is written to in a new period, so old samples age out without any background task.
+ */
+public final class RollingHistogram {
+    private final LatencyHistogram[] slices;
+    private final AtomicLongArray sliceEpochs;
+    private final long sliceNanos;
+
+    public RollingHistogram(int windowSeconds, int sliceCount) {
+        if (sliceCount < 1 || windowSeconds < sliceCount) {
+            throw new IllegalArgumentException("Window must be at least one second per slice");
+        }
+        this.slices = new LatencyHistogram[sliceCount];
+        this.sliceEpochs = new AtomicLongArray(sliceCount);
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new LatencyHistogram();
+            sliceEpochs.set(i, Long.MIN_VALUE);
+        }
+        this.sliceNanos = windowSeconds * 1_000_000_000L / sliceCount;
+    }
+
+    public void recordNanos(long nanos) {
+        long epoch = System.nanoTime() / sliceNanos;
+        int index = (int) Math.floorMod(epoch, (long) slices.length);
+        long current = sliceEpochs.get(index);
+        if (current != epoch && sliceEpochs.compareAndSet(index, current, epoch)) {
+            slices[index].reset();
+        }
+        slices[index].recordNanos(nanos);
+    }
+
+    /**
+     * Merges the slices that are still inside the window.
+     */
+    @Nonnull
+    public Snapshot snapshot() {
+        long epoch = System.nanoTime() / sliceNanos;
+        long[] buckets = new long[LatencyHistogram.BUCKETS];
+        long totalNanos = 0;
+        for (int i = 0; i < slices.length; i++) {
+            long sliceEpoch = sliceEpochs.get(i);
+            if (sliceEpoch == Long.MIN_VALUE || epoch - sliceEpoch >= slices.length) {
+                continue;
+            }
+            slices[i].addTo(buckets);
+            totalNanos += slices[i].totalNanos();
+        }
+        return new Snapshot(buckets, totalNanos, sliceNanos * slices.length);
+    }
+
+    public void reset() {
+        for (int i = 0; i < slices.length; i++) {
+            sliceEpochs.set(i, Long.MIN_VALUE);
+            slices[i].reset();
+        }
+    }
+
+    public record Snapshot(long[] buckets, long totalNanos, long windowNanos) {
+        public long count() {
+            long count = 0;
+            for (long bucket : buckets) {
+                count += bucket;
+            }
+            return count;
+        }
+
+        public long percentileMicros(double percentile) {
+            return LatencyHistogram.valueAtPercentile(buckets, percentile);
+        }
+
+        /**
+         * Share of the window's wall-clock time spent in the recorded work, 0-100.
+         */
+        public double busyPercent() {
+            return windowNanos == 0 ? 0 : totalNanos * 100.0 / windowNanos;
+        }
+    }
+}
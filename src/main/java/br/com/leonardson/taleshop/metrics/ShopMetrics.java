@@ -0,0 +1,108 @@
+package br.com.leonardson.taleshop.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Named counters and timers for TaleShop operations.
+ * <p>
+ * Names are dot separated ({@code trade.failed.out_of_stock}, {@code storage.getShop}). Counter
+ * pairs ending in {@code .hit} and {@code .miss} are reported as cache hit ratios. Time spent per
+ * shop is tracked separately so the most expensive shops can be listed.
+ */
+public class ShopMetrics {
+    private static final int MAX_TRACKED_SHOPS = 10_000;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> shopTimers = new ConcurrentHashMap<>();
+    private volatile long startedAtMillis = System.currentTimeMillis();
+
+    @Nonnull
+    public Counter counter(@Nonnull String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    @Nonnull
+    public Timer timer(@Nonnull String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    /**
+     * Attributes {@code nanos} of work (page builds, trades, container scans) to a shop.
+     */
+    public void recordShopTime(@Nonnull String ownerId, @Nonnull String shopName, long nanos) {
+        String key = ownerId + "/" + shopName;
+        Timer timer = shopTimers.get(key);
+        if (timer == null) {
+            if (shopTimers.size() >= MAX_TRACKED_SHOPS) {
+                return;
+            }
+            timer = shopTimers.computeIfAbsent(key, ignored -> new Timer());
+        }
+        timer.record(nanos);
+    }
+
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        timers.values().forEach(Timer::reset);
+        shopTimers.clear();
+        startedAtMillis = System.currentTimeMillis();
+    }
+
+    @Nonnull
+    public Snapshot snapshot(int topShops) {
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.count()));
+
+        Map<String, TimerSnapshot> timerValues = new TreeMap<>();
+        timers.forEach((name, timer) -> {
+            if (timer.count() > 0) {
+                timerValues.put(name, TimerSnapshot.of(timer));
+            }
+        });
+
+        Map<String, Double> hitRatios = new TreeMap<>();
+        counterValues.forEach((name, hits) -> {
+            if (name.endsWith(".hit")) {
+                String cache = name.substring(0, name.length() - ".hit".length());
+                long total = hits + counterValues.getOrDefault(cache + ".miss", 0L);
+                if (total > 0) {
+                    hitRatios.put(cache, (double) hits / total);
+                }
+            }
+        });
+
+        List<Map.Entry<String, Timer>> shops = new ArrayList<>(shopTimers.entrySet());
+        shops.sort(Comparator.comparingLong((Map.Entry<String, Timer> entry) -> entry.getValue().totalNanos()).reversed());
+        Map<String, TimerSnapshot> shopValues = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(topShops, shops.size()); i++) {
+            shopValues.put(shops.get(i).getKey(), TimerSnapshot.of(shops.get(i).getValue()));
+        }
+
+        return new Snapshot(startedAtMillis, System.currentTimeMillis(), counterValues, timerValues, hitRatios, shopValues);
+    }
+
+    public record Snapshot(
+        long sinceMillis,
+        long atMillis,
+        Map<String, Long> counters,
+        Map<String, TimerSnapshot> timers,
+        Map<String, Double> cacheHitRatios,
+        Map<String, TimerSnapshot> topShops
+    ) {
+    }
+
+    public record TimerSnapshot(long count, double meanMicros, double maxMicros, double totalMillis) {
+        static TimerSnapshot of(Timer timer) {
+            return new TimerSnapshot(timer.count(), timer.meanNanos() / 1e3, timer.maxNanos() / 1e3, timer.totalNanos() / 1e6);
+        }
+    }
+}
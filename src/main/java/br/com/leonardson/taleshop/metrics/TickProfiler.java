@@ -0,0 +1,236 @@
+package br.com.leonardson.taleshop.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+/**
+ * Samples how much world-thread time TaleShop work takes.
+ * <p>
+ * Callers take {@link System#nanoTime()} before the work and hand it to {@link #record} after.
+ * Each world keeps a one-minute rolling histogram of those samples; time is also attributed to
+ * the shop and operation so {@code /shop admin perf} can list the worst offenders. Samples above
+ * the slow-operation threshold are logged, at most once per second.
+ * <p>
+ * Offender timers are looked up through maps keyed by world, operation, owner and shop name in
+ * turn, so recording a sample for a shop already seen allocates nothing on the world thread.
+ */
+public final class TickProfiler {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int WINDOW_SECONDS = 60;
+    private static final int WINDOW_SLICES = 6;
+    private static final int MAX_TRACKED_OFFENDERS = 10_000;
+    private static final long SLOW_LOG_INTERVAL_NANOS = 1_000_000_000L;
+    private static final String NO_SHOP = "-";
+
+    public enum Operation {
+        BUYER_PAGE_BUILD("buyer.build"),
+        BUYER_TRADE("buyer.trade"),
+        TRADER_ADDED("trader.added"),
+        TRADER_SPAWN("trader.spawn"),
+        TRADER_DESPAWN("trader.despawn");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private final Map<String, WorldStats> worlds = new ConcurrentHashMap<>();
+    private final AtomicInteger trackedOffenders = new AtomicInteger();
+    private final AtomicLong nextSlowLogAt = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder suppressedSlowLogs = new LongAdder();
+    private volatile long slowThresholdNanos;
+
+    public TickProfiler(int slowThresholdMillis) {
+        setSlowThresholdMillis(slowThresholdMillis);
+    }
+
+    /**
+     * @param millis samples at or above this many milliseconds are logged; 0 disables the log
+     */
+    public void setSlowThresholdMillis(int millis) {
+        this.slowThresholdNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    public long getSlowThresholdMillis() {
+        return slowThresholdNanos / 1_000_000L;
+    }
+
+    /**
+     * Records the time since {@code startNanos} for {@code operation}. {@code ownerId} and
+     * {@code shopName} may be null when the work could not be tied to a shop.
+     */
+    public void record(
+        @Nullable World world,
+        @Nonnull Operation operation,
+        @Nullable String ownerId,
+        @Nullable String shopName,
+        long startNanos
+    ) {
+        long nanos = System.nanoTime() - startNanos;
+        String worldName = worldName(world);
+        WorldStats stats = worlds.get(worldName);
+        if (stats == null) {
+            stats = worlds.computeIfAbsent(worldName, ignored -> new WorldStats());
+        }
+        stats.histogram.recordNanos(nanos);
+
+        boolean attributed = ownerId != null && shopName != null;
+        Timer timer = attributed ? shopTimer(stats, operation, ownerId, shopName) : stats.unattributed.get(operation);
+        if (timer != null) {
+            timer.record(nanos);
+        }
+
+        long threshold = slowThresholdNanos;
+        if (threshold > 0 && nanos >= threshold) {
+            logSlow(worldName, operation, ownerId, shopName, nanos);
+        }
+    }
+
+    /**
+     * The timer for one shop, or null once {@link #MAX_TRACKED_OFFENDERS} shops are tracked and
+     * this one is not among them.
+     */
+    @Nullable
+    private Timer shopTimer(WorldStats stats, Operation operation, String ownerId, String shopName) {
+        Map<String, Map<String, Timer>> owners = stats.shops.get(operation);
+        Map<String, Timer> shops = owners.get(ownerId);
+        Timer timer = shops == null ? null : shops.get(shopName);
+        if (timer != null || trackedOffenders.get() >= MAX_TRACKED_OFFENDERS) {
+            return timer;
+        }
+        if (shops == null) {
+            shops = owners.computeIfAbsent(ownerId, ignored -> new ConcurrentHashMap<>());
+        }
+        return shops.computeIfAbsent(shopName, ignored -> {
+            trackedOffenders.incrementAndGet();
+            return new Timer();
+        });
+    }
+
+    /**
+     * Rolling-window summary per world, busiest world first.
+     */
+    @Nonnull
+    public List<WorldSummary> worlds() {
+        List<WorldSummary> summaries = new ArrayList<>();
+        worlds.forEach((name, stats) -> {
+            RollingHistogram.Snapshot snapshot = stats.histogram.snapshot();
+            if (snapshot.count() > 0) {
+                summaries.add(new WorldSummary(name, snapshot));
+            }
+        });
+        summaries.sort(Comparator.comparingLong((WorldSummary summary) -> summary.snapshot().totalNanos()).reversed());
+        return summaries;
+    }
+
+    /**
+     * Shop and operation pairs that used the most world-thread time since the last reset.
+     */
+    @Nonnull
+    public List<Offender> topOffenders(int limit) {
+        List<Offender> result = new ArrayList<>();
+        worlds.forEach((world, stats) -> {
+            stats.unattributed.forEach((operation, timer) -> addOffender(result, world, operation, NO_SHOP, timer));
+            stats.shops.forEach((operation, owners) -> owners.forEach((ownerId, shops) -> shops.forEach((shopName, timer) ->
+                addOffender(result, world, operation, ownerId + "/" + shopName, timer))));
+        });
+        result.sort(Comparator.comparingLong(Offender::totalNanos).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public void reset() {
+        worlds.values().forEach(WorldStats::reset);
+        trackedOffenders.set(0);
+    }
+
+    private static void addOffender(List<Offender> result, String world, Operation operation, String shop, Timer timer) {
+        if (timer.count() > 0) {
+            result.add(new Offender(world, operation, shop, timer.count(), timer.totalNanos(), timer.maxNanos()));
+        }
+    }
+
+    /**
+     * Logs at most one slow sample per interval. The shop label is only built for samples that
+     * are actually logged.
+     */
+    private void logSlow(String worldName, Operation operation, @Nullable String ownerId, @Nullable String shopName, long nanos) {
+        long now = System.nanoTime();
+        long next = nextSlowLogAt.get();
+        if (next != Long.MIN_VALUE && now - next < 0) {
+            suppressedSlowLogs.increment();
+            return;
+        }
+        if (!nextSlowLogAt.compareAndSet(next, now + SLOW_LOG_INTERVAL_NANOS)) {
+            suppressedSlowLogs.increment();
+            return;
+        }
+        long suppressed = suppressedSlowLogs.sumThenReset();
+        String shop = ownerId != null && shopName != null ? ownerId + "/" + shopName : NO_SHOP;
+        LOGGER.atWarning().log("Slow %s for shop %s in world %s: %.2f ms (threshold %d ms, %d more suppressed)",
+            operation.label(), shop, worldName, nanos / 1_000_000.0, getSlowThresholdMillis(), suppressed);
+    }
+
+    @Nonnull
+    private static String worldName(@Nullable World world) {
+        if (world == null) {
+            return "unknown";
+        }
+        String name = world.getName();
+        return name == null ? "unknown" : name;
+    }
+
+    /**
+     * Everything recorded for one world. Every operation has its entries from the start, so the
+     * world thread only ever looks them up.
+     */
+    private static final class WorldStats {
+        private final RollingHistogram histogram = new RollingHistogram(WINDOW_SECONDS, WINDOW_SLICES);
+        private final Map<Operation, Timer> unattributed = new ConcurrentHashMap<>();
+        private final Map<Operation, Map<String, Map<String, Timer>>> shops = new EnumMap<>(Operation.class);
+
+        private WorldStats() {
+            for (Operation operation : Operation.values()) {
+                unattributed.put(operation, new Timer());
+                shops.put(operation, new ConcurrentHashMap<>());
+            }
+        }
+
+        private void reset() {
+            histogram.reset();
+            unattributed.replaceAll((operation, timer) -> new Timer());
+            shops.values().forEach(Map::clear);
+        }
+    }
+
+    public record WorldSummary(@Nonnull String world, @Nonnull RollingHistogram.Snapshot snapshot) {
+    }
+
+    public record Offender(
+        @Nonnull String world,
+        @Nonnull Operation operation,
+        @Nonnull String shop,
+        long count,
+        long totalNanos,
+        long maxNanos
+    ) {
+    }
+}
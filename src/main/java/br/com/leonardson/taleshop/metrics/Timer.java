@@ -0,0 +1,69 @@
+package br.com.leonardson.taleshop.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Records how often something ran and how long it took. Lock-free; safe to record from world
+ * threads and storage threads at the same time.
+ */
+public final class Timer {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Records the time since {@code startNanos}, as taken from {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public <T> T time(Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            recordSince(start);
+        }
+    }
+
+    public void time(Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            recordSince(start);
+        }
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    public double meanNanos() {
+        long samples = count();
+        return samples == 0 ? 0 : (double) totalNanos() / samples;
+    }
+
+    void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -1,74 +1,334 @@
 package br.com.leonardson.taleshop.shop;
 
+import br.com.leonardson.taleshop.shop.trade.ItemIds;
 import br.com.leonardson.taleshop.shop.trade.Trade;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.hypixel.hytale.logger.HytaleLogger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps every shop in memory and saves them all to {@code shops.bin} (see {@link ShopSnapshot})
+ * on a background thread, at most once every {@value #SAVE_INTERVAL_MILLIS} ms. A change only marks
+ * the shops dirty, so a burst of changes costs one write; {@link #close()} writes whatever is still
+ * unsaved. A crash loses at most the changes of the last interval.
+ * <p>
+ * {@code shops.json} is only read when there is no {@code shops.bin} yet, which imports data
+ * saved by older versions or a hand-edited export, and is otherwise written only by
+ * {@link #exportJson}.
+ * <p>
+ * Each save keeps the file it replaces as {@code shops.bin.prev}. If {@code shops.bin} cannot be
+ * read at startup, that file is loaded instead, or failing that {@code shops.json}, and the
+ * unreadable file is moved aside as {@code shops.bin.corrupt}.
+ */
 public class JsonShopStorage implements ShopStorage {
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final Gson GSON = new GsonBuilder().create();
+    public static final String JSON_FILE = "shops.json";
+    public static final String SNAPSHOT_FILE = "shops.bin";
+    private static final String PREVIOUS_SUFFIX = ".prev";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+    private static final long SAVE_INTERVAL_MILLIS = 1_000;
 
-    private final Path dataDirectory;
     private final Path storageFile;
-    private final Map<String, Map<String, JsonShop>> shopsByOwner = new HashMap<>();
+    private final Path snapshotFile;
+    private final Path previousFile;
+    private final Map<String, NavigableMap<String, JsonShop>> shopsByOwner = new HashMap<>();
+    // Held while writing the snapshot so saves never overlap; taken before the storage lock
+    private final Object saveLock = new Object();
+    private final ScheduledExecutorService saver;
+    // Guarded by this: changes made since the last snapshot was taken
+    private boolean dirty;
 
     public JsonShopStorage(@Nonnull Path dataDirectory) {
-        this.dataDirectory = dataDirectory;
-        this.storageFile = dataDirectory.resolve("shops.json");
+        this.storageFile = dataDirectory.resolve(JSON_FILE);
+        this.snapshotFile = dataDirectory.resolve(SNAPSHOT_FILE);
+        this.previousFile = dataDirectory.resolve(SNAPSHOT_FILE + PREVIOUS_SUFFIX);
         load();
+
+        this.saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TaleShop-ShopSave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(this::periodicSave, SAVE_INTERVAL_MILLIS, SAVE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     private void load() {
+        if (Files.exists(snapshotFile)) {
+            try {
+                ShopSnapshot.read(snapshotFile, this::index);
+            } catch (IOException e) {
+                shopsByOwner.clear();
+                recover(e);
+            }
+            return;
+        }
         if (!Files.exists(storageFile)) {
             return;
         }
-        try (Reader reader = Files.newBufferedReader(storageFile)) {
-            JsonData data = GSON.fromJson(reader, JsonData.class);
-            if (data == null || data.shops == null) {
+        loadJson();
+        save();
+        int shops = shopsByOwner.values().stream().mapToInt(Map::size).sum();
+        LOGGER.atInfo().log("Imported %d shops from %s into %s", shops, JSON_FILE, SNAPSHOT_FILE);
+    }
+
+    /**
+     * Loads the snapshot before the last save, or {@code shops.json}, in place of an unreadable
+     * {@code shops.bin}, which is moved aside and rewritten from what was loaded.
+     */
+    private void recover(IOException failure) {
+        String source = null;
+        if (Files.exists(previousFile)) {
+            try {
+                ShopSnapshot.read(previousFile, this::index);
+                source = previousFile.getFileName().toString();
+            } catch (IOException e) {
+                shopsByOwner.clear();
+                LOGGER.atWarning().log("Failed to read %s: %s", previousFile.getFileName(), e.getMessage());
+            }
+        }
+        if (source == null && Files.exists(storageFile)) {
+            loadJson();
+            source = JSON_FILE;
+        }
+        if (source == null) {
+            throw new RuntimeException("Failed to load shop snapshot", failure);
+        }
+
+        Path corrupt = snapshotFile.resolveSibling(SNAPSHOT_FILE + CORRUPT_SUFFIX);
+        try {
+            Files.move(snapshotFile, corrupt, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to move aside unreadable shop snapshot", e);
+        }
+        save();
+        int shops = shopsByOwner.values().stream().mapToInt(Map::size).sum();
+        LOGGER.atWarning().log("Could not read %s (%s); loaded %d shops from %s instead, so later changes are lost. The unreadable file is kept as %s.",
+            SNAPSHOT_FILE, failure.getMessage(), shops, source, corrupt.getFileName());
+    }
+
+    /**
+     * Streams {@code shops.json} into the index one shop at a time, so only a single shop's
+     * objects exist besides the index itself.
+     */
+    private void loadJson() {
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(storageFile))) {
+            if (Files.size(storageFile) == 0) {
                 return;
             }
-            for (JsonShop shop : data.shops) {
-                if (shop == null || shop.ownerId == null || shop.name == null) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"shops".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
                     continue;
                 }
-                String ownerId = shop.ownerId;
-                String shopKey = normalizeName(shop.name);
-                shopsByOwner.computeIfAbsent(ownerId, key -> new HashMap<>())
-                    .put(shopKey, shop);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    JsonShop shop = GSON.fromJson(reader, JsonShop.class);
+                    if (shop == null || shop.ownerId == null || shop.name == null) {
+                        continue;
+                    }
+                    normalizeTrades(shop);
+                    shopsByOwner.computeIfAbsent(shop.ownerId, key -> new TreeMap<>())
+                        .put(normalizeName(shop.name), shop);
+                }
+                reader.endArray();
             }
-        } catch (IOException e) {
+            reader.endObject();
+        } catch (IOException | JsonParseException e) {
             throw new RuntimeException("Failed to load JSON storage", e);
         }
     }
 
+    private void index(Shop loaded) {
+        JsonShop shop = new JsonShop();
+        shop.ownerId = loaded.ownerId();
+        shop.ownerName = loaded.ownerName();
+        shop.name = loaded.name();
+        shop.traderUuid = loaded.traderUuid();
+        shop.nextTradeId = loaded.nextTradeId();
+        shop.trades = new ArrayList<>(loaded.trades().size());
+        for (Trade trade : loaded.trades()) {
+            shop.trades.add(toJsonTrade(trade));
+        }
+        shopsByOwner.computeIfAbsent(shop.ownerId, key -> new TreeMap<>())
+            .put(normalizeName(shop.name), shop);
+    }
+
     private void save() {
         try {
-            Files.createDirectories(dataDirectory);
-            JsonData data = new JsonData();
-            for (Map<String, JsonShop> ownerShops : shopsByOwner.values()) {
-                data.shops.addAll(ownerShops.values());
+            keepPrevious();
+            ShopSnapshot.write(snapshotFile, shopsView());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save shop snapshot", e);
+        }
+    }
+
+    private void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Writes {@code shops.bin} if anything changed since the last save. The shops are copied under
+     * the storage lock and written outside it, so changes do not wait on the disk. A failed write
+     * leaves the shops dirty for the next attempt.
+     */
+    private void saveIfDirty() {
+        synchronized (saveLock) {
+            List<Shop> shops;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                shops = new ArrayList<>(shopsView());
+                dirty = false;
             }
-            try (Writer writer = Files.newBufferedWriter(storageFile)) {
-                GSON.toJson(data, writer);
+            try {
+                keepPrevious();
+                ShopSnapshot.write(snapshotFile, shops);
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    dirty = true;
+                }
+                throw new RuntimeException("Failed to save shop snapshot", e);
             }
+        }
+    }
+
+    private void periodicSave() {
+        try {
+            saveIfDirty();
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            LOGGER.atWarning().log("Failed to save %s, retrying: %s", SNAPSHOT_FILE, cause.getMessage());
+        }
+    }
+
+    /**
+     * Points {@code shops.bin.prev} at the current snapshot before it is replaced. A hard link
+     * costs no copy; file systems without them get a copy.
+     */
+    private void keepPrevious() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        Files.deleteIfExists(previousFile);
+        try {
+            Files.createLink(previousFile, snapshotFile);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(snapshotFile, previousFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Every shop as a {@link Shop}, converted while iterating instead of copied up front.
+     */
+    private Collection<Shop> shopsView() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Shop> iterator() {
+                return shopsByOwner.values().stream()
+                    .flatMap(ownerShops -> ownerShops.values().stream())
+                    .map(JsonShopStorage.this::toShop)
+                    .iterator();
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (Map<String, JsonShop> ownerShops : shopsByOwner.values()) {
+                    size += ownerShops.size();
+                }
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Writes {@code shops} to {@code file} in the {@code shops.json} format, for any backend.
+     * Shops are written one at a time as they are iterated.
+     */
+    public static void exportJson(@Nonnull Collection<Shop> shops, @Nonnull Path file) {
+        exportJson(shops::forEach, file);
+    }
+
+    /**
+     * Writes the shops {@code forEachShop} feeds, such as {@link ShopStorage#forEachShop}, to
+     * {@code file} as they come, so the whole set is never held in memory at once.
+     */
+    public static void exportJson(@Nonnull Consumer<Consumer<Shop>> forEachShop, @Nonnull Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(tempFile))) {
+                writer.setIndent("  ");
+                writer.setSerializeNulls(false);
+                writer.beginObject().name("shops").beginArray();
+                forEachShop.accept(shop -> {
+                    try {
+                        writeShop(writer, shop);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.endArray().endObject();
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException("Failed to export shops to JSON", e.getCause());
         } catch (IOException e) {
-            throw new RuntimeException("Failed to save JSON storage", e);
+            throw new RuntimeException("Failed to export shops to JSON", e);
         }
     }
 
+    private static void writeShop(JsonWriter writer, Shop shop) throws IOException {
+        writer.beginObject()
+            .name("ownerId").value(shop.ownerId())
+            .name("ownerName").value(shop.ownerName())
+            .name("name").value(shop.name())
+            .name("traderUuid").value(shop.traderUuid())
+            .name("nextTradeId").value(shop.nextTradeId())
+            .name("trades").beginArray();
+        for (Trade trade : shop.trades()) {
+            writer.beginObject()
+                .name("id").value(trade.id())
+                .name("inputItemId").value(trade.inputItemId())
+                .name("inputQuantity").value(trade.inputQuantity())
+                .name("outputItemId").value(trade.outputItemId())
+                .name("outputQuantity").value(trade.outputQuantity())
+                .endObject();
+        }
+        writer.endArray().endObject();
+    }
+
     @Nonnull
     @Override
     public synchronized Shop createShop(@Nonnull String ownerId, @Nonnull String ownerName, @Nonnull String name) {
@@ -81,7 +341,7 @@ public class JsonShopStorage implements ShopStorage {
         }
 
         String shopKey = normalizeName(trimmedName);
-        Map<String, JsonShop> ownerShops = shopsByOwner.computeIfAbsent(ownerId, key -> new HashMap<>());
+        Map<String, JsonShop> ownerShops = shopsByOwner.computeIfAbsent(ownerId, key -> new TreeMap<>());
         JsonShop existing = ownerShops.get(shopKey);
         if (existing != null) {
             return toShop(existing);
@@ -94,7 +354,7 @@ public class JsonShopStorage implements ShopStorage {
         shop.traderUuid = "";
         shop.trades = new ArrayList<>();
         ownerShops.put(shopKey, shop);
-        save();
+        markDirty();
 
         return toShop(shop);
     }
@@ -123,7 +383,7 @@ public class JsonShopStorage implements ShopStorage {
         JsonShop shop = ownerShops.remove(currentKey);
         shop.name = trimmedNew;
         ownerShops.put(newKey, shop);
-        save();
+        markDirty();
 
         return toShop(shop);
     }
@@ -137,7 +397,7 @@ public class JsonShopStorage implements ShopStorage {
         if (ownerShops.isEmpty()) {
             shopsByOwner.remove(ownerId);
         }
-        save();
+        markDirty();
     }
 
     @Nonnull
@@ -162,20 +422,32 @@ public class JsonShopStorage implements ShopStorage {
 
         JsonShop shop = getShopInternal(ownerId, name);
         shop.traderUuid = traderUuid;
-        save();
+        markDirty();
     }
 
     @Override
     public synchronized void clearTraderUuid(@Nonnull String ownerId, @Nonnull String name) {
         JsonShop shop = getShopInternal(ownerId, name);
         shop.traderUuid = "";
-        save();
+        markDirty();
+    }
+
+    @Override
+    public synchronized boolean clearTraderUuidIfMatches(@Nonnull String ownerId, @Nonnull String name, @Nonnull String expectedUuid) {
+        Map<String, JsonShop> ownerShops = shopsByOwner.get(ownerId);
+        JsonShop shop = ownerShops == null ? null : ownerShops.get(normalizeName(name));
+        if (shop == null || !expectedUuid.equals(shop.traderUuid)) {
+            return false;
+        }
+        shop.traderUuid = "";
+        markDirty();
+        return true;
     }
 
     @Nonnull
     @Override
     public synchronized List<Shop> listShops(@Nonnull String ownerId) {
-        Map<String, JsonShop> ownerShops = shopsByOwner.getOrDefault(ownerId, Map.of());
+        Map<String, JsonShop> ownerShops = shopsByOwner.getOrDefault(ownerId, Collections.emptyNavigableMap());
         List<Shop> shops = new ArrayList<>();
         for (JsonShop shop : ownerShops.values()) {
             shops.add(toShop(shop));
@@ -213,6 +485,75 @@ public class JsonShopStorage implements ShopStorage {
         return null;
     }
 
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listShopSummaries(@Nonnull String ownerId) {
+        Map<String, JsonShop> ownerShops = shopsByOwner.getOrDefault(ownerId, Collections.emptyNavigableMap());
+        // Keyed by normalized name, so this is already the order SQLite lists them in
+        List<ShopSummary> summaries = new ArrayList<>(ownerShops.size());
+        for (JsonShop shop : ownerShops.values()) {
+            summaries.add(summarize(shop));
+        }
+        return summaries;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listShopSummaries(@Nonnull String ownerId, @Nullable String afterName, int limit) {
+        NavigableMap<String, JsonShop> ownerShops = shopsByOwner.getOrDefault(ownerId, Collections.emptyNavigableMap());
+        if (afterName != null) {
+            ownerShops = ownerShops.tailMap(normalizeName(afterName), false);
+        }
+        List<ShopSummary> summaries = new ArrayList<>(Math.min(limit, ownerShops.size()));
+        for (JsonShop shop : ownerShops.values()) {
+            if (summaries.size() >= limit) {
+                break;
+            }
+            summaries.add(summarize(shop));
+        }
+        return summaries;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listAllShopSummaries() {
+        List<ShopSummary> summaries = new ArrayList<>();
+        for (Map<String, JsonShop> ownerShops : shopsByOwner.values()) {
+            for (JsonShop shop : ownerShops.values()) {
+                summaries.add(summarize(shop));
+            }
+        }
+        summaries.sort(Comparator.comparing(summary -> normalizeName(summary.name())));
+        return summaries;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized TradePage listTrades(@Nonnull String ownerId, @Nonnull String shopName, int offset, int limit) {
+        List<JsonTrade> trades = getShopInternal(ownerId, shopName).trades;
+        int from = Math.min(Math.max(0, offset), trades.size());
+        int to = Math.min(from + Math.max(0, limit), trades.size());
+        List<Trade> page = new ArrayList<>(to - from);
+        for (JsonTrade trade : trades.subList(from, to)) {
+            page.add(new Trade(trade.id, trade.inputItemId, trade.inputQuantity, trade.outputItemId, trade.outputQuantity));
+        }
+        return new TradePage(page, trades.size());
+    }
+
+    private static ShopSummary summarize(JsonShop shop) {
+        return new ShopSummary(shop.ownerId, shop.name, shop.trades == null ? 0 : shop.trades.size(), shop.traderUuid);
+    }
+
+    @Override
+    public synchronized int countShops() {
+        return shopsView().size();
+    }
+
+    @Override
+    public synchronized void forEachShop(@Nonnull Consumer<Shop> consumer) {
+        shopsView().forEach(consumer);
+    }
+
     @Nonnull
     @Override
     public synchronized Trade addTrade(
@@ -233,15 +574,16 @@ public class JsonShopStorage implements ShopStorage {
             throw new IllegalArgumentException("Shop already has the maximum of " + ShopRegistry.MAX_TRADES + " trades.");
         }
 
-        int tradeId = nextTradeId(shop.trades);
+        int tradeId = nextTradeId(shop);
+        shop.nextTradeId = tradeId + 1;
         JsonTrade trade = new JsonTrade();
         trade.id = tradeId;
-        trade.inputItemId = inputItemId;
+        trade.inputItemId = ItemIds.canonical(inputItemId);
         trade.inputQuantity = inputQuantity;
-        trade.outputItemId = outputItemId;
+        trade.outputItemId = ItemIds.canonical(outputItemId);
         trade.outputQuantity = outputQuantity;
         shop.trades.add(trade);
-        save();
+        markDirty();
 
         return new Trade(tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity);
     }
@@ -266,11 +608,11 @@ public class JsonShopStorage implements ShopStorage {
         if (trade == null) {
             throw new IllegalArgumentException("Trade not found: " + tradeId);
         }
-        trade.inputItemId = inputItemId;
+        trade.inputItemId = ItemIds.canonical(inputItemId);
         trade.inputQuantity = inputQuantity;
-        trade.outputItemId = outputItemId;
+        trade.outputItemId = ItemIds.canonical(outputItemId);
         trade.outputQuantity = outputQuantity;
-        save();
+        markDirty();
     }
 
     @Override
@@ -281,7 +623,7 @@ public class JsonShopStorage implements ShopStorage {
             throw new IllegalArgumentException("Trade not found: " + tradeId);
         }
         shop.trades.remove(trade);
-        save();
+        markDirty();
     }
 
     private JsonShop getShopInternal(String ownerId, String name) {
@@ -303,27 +645,61 @@ public class JsonShopStorage implements ShopStorage {
         List<Trade> trades = new ArrayList<>();
         if (shop.trades != null) {
             for (JsonTrade trade : shop.trades) {
-                if (trade == null) continue;
                 trades.add(new Trade(trade.id, trade.inputItemId, trade.inputQuantity, trade.outputItemId, trade.outputQuantity));
             }
         }
-        trades.sort(Comparator.comparingInt(Trade::id));
-        return new Shop(shop.ownerId, shop.ownerName, shop.name, trades, shop.traderUuid == null ? "" : shop.traderUuid);
+        return new Shop(shop.ownerId, shop.ownerName, shop.name, trades, shop.traderUuid == null ? "" : shop.traderUuid, shop.nextTradeId);
     }
 
-    private int nextTradeId(List<JsonTrade> trades) {
-        int maxId = 0;
-        for (JsonTrade trade : trades) {
-            if (trade != null && trade.id > maxId) {
-                maxId = trade.id;
-            }
+    private static JsonTrade toJsonTrade(Trade trade) {
+        JsonTrade jsonTrade = new JsonTrade();
+        jsonTrade.id = trade.id();
+        jsonTrade.inputItemId = trade.inputItemId();
+        jsonTrade.inputQuantity = trade.inputQuantity();
+        jsonTrade.outputItemId = trade.outputItemId();
+        jsonTrade.outputQuantity = trade.outputQuantity();
+        return jsonTrade;
+    }
+
+    /**
+     * Drops null entries and orders trades by id. New trades always get an id above every
+     * other, so the list stays sorted afterwards and can be searched by id.
+     */
+    private static void normalizeTrades(JsonShop shop) {
+        if (shop.trades == null) {
+            shop.trades = new ArrayList<>();
+            return;
+        }
+        shop.trades.removeIf(trade -> trade == null);
+        shop.trades.sort(Comparator.comparingInt(trade -> trade.id));
+        for (JsonTrade trade : shop.trades) {
+            // Share the id strings with every other loaded trade
+            trade.inputItemId = ItemIds.canonical(trade.inputItemId);
+            trade.outputItemId = ItemIds.canonical(trade.outputItemId);
         }
-        return maxId + 1;
+    }
+
+    /**
+     * The shop's high-water mark, or one past its highest trade for data saved before there was
+     * one, so an id is never given to a second trade.
+     */
+    private int nextTradeId(JsonShop shop) {
+        List<JsonTrade> trades = shop.trades;
+        return Math.max(shop.nextTradeId, trades.isEmpty() ? 1 : trades.get(trades.size() - 1).id + 1);
     }
 
     private JsonTrade findTrade(JsonShop shop, int tradeId) {
-        for (JsonTrade trade : shop.trades) {
-            if (trade != null && trade.id == tradeId) {
+        List<JsonTrade> trades = shop.trades;
+        int low = 0;
+        int high = trades.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            JsonTrade trade = trades.get(mid);
+            if (trade.id < tradeId) {
+                low = mid + 1;
+            } else if (trade.id > tradeId) {
+                high = mid - 1;
+            } else {
                 return trade;
             }
         }
@@ -347,11 +723,54 @@ public class JsonShopStorage implements ShopStorage {
     }
 
     @Override
-    public void close() {
+    public void backup(@Nonnull Path target) {
+        List<Shop> shops;
+        synchronized (this) {
+            shops = new ArrayList<>(shopsView());
+        }
+        try {
+            ShopSnapshot.write(target, shops);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to back up shops", e);
+        }
     }
 
-    private static class JsonData {
-        List<JsonShop> shops = new ArrayList<>();
+    /**
+     * Indexes the shops as they come and writes {@code shops.bin} once at the end, instead of
+     * after every shop.
+     */
+    @Nonnull
+    @Override
+    public BulkLoad bulkLoad() {
+        return new BulkLoad() {
+            @Override
+            public void add(@Nonnull Shop shop) {
+                synchronized (JsonShopStorage.this) {
+                    index(shop);
+                }
+            }
+
+            @Override
+            public void finish() {
+                synchronized (JsonShopStorage.this) {
+                    markDirty();
+                }
+                saveIfDirty();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        saver.shutdown();
+        try {
+            if (!saver.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.atWarning().log("Shop snapshot save still running on close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        saveIfDirty();
     }
 
     private static class JsonShop {
@@ -359,6 +778,7 @@ public class JsonShopStorage implements ShopStorage {
         String ownerName;
         String name;
         String traderUuid;
+        int nextTradeId;
         List<JsonTrade> trades = new ArrayList<>();
     }
 
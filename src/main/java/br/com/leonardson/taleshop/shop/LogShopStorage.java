@@ -0,0 +1,659 @@
+package br.com.leonardson.taleshop.shop;
+
+import br.com.leonardson.taleshop.shop.trade.ItemIds;
+import br.com.leonardson.taleshop.shop.trade.Trade;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Append-only shop storage.
+ * <p>
+ * Every change is written as one small record to the end of a {@link ShopLog} segment and then
+ * applied to an in-memory index, so a write costs one sequential append and reads never touch
+ * the disk. On startup the newest snapshot and the records after it are replayed into the index.
+ * <p>
+ * A background thread syncs the log to disk once a second and, once the records written since
+ * the last snapshot outweigh it (and at least {@value #COMPACT_MIN_BYTES} bytes), writes a new
+ * snapshot of the current shops and drops the older segments. Shops are held as immutable
+ * {@link Shop} values that each change replaces, so the snapshot is taken from a copy of the
+ * index without blocking writes while it is written out.
+ */
+public class LogShopStorage implements ShopStorage {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long SYNC_INTERVAL_MILLIS = 1_000;
+    static final long COMPACT_MIN_BYTES = 1024 * 1024;
+
+    private static final byte CREATE_SHOP = 1;
+    private static final byte RENAME_SHOP = 2;
+    private static final byte DELETE_SHOP = 3;
+    private static final byte SET_TRADER = 4;
+    private static final byte CLEAR_TRADER = 5;
+    private static final byte PUT_TRADE = 6;
+    private static final byte REMOVE_TRADE = 7;
+    private static final byte NEXT_TRADE_ID = 8;
+
+    private final ShopLog log;
+    private final RecordBuffer record = new RecordBuffer();
+    // Owner id -> normalized shop name -> shop, so each owner's shops iterate in name order
+    private final Map<String, TreeMap<String, Shop>> shopsByOwner = new HashMap<>();
+    private final Map<String, Shop> shopsByTrader = new HashMap<>();
+    private final ScheduledExecutorService maintainer;
+
+    public LogShopStorage(@Nonnull Path dataDirectory) {
+        this.log = new ShopLog(dataDirectory);
+        long startedAt = System.nanoTime();
+        int[] replayed = { 0 };
+        log.replay(input -> {
+            replay(input);
+            replayed[0]++;
+        });
+        if (replayed[0] > 0) {
+            LOGGER.atInfo().log("Replayed %d shop log records (%d ms)", replayed[0], (System.nanoTime() - startedAt) / 1_000_000);
+        }
+
+        this.maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TaleShop-ShopLog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintainer.scheduleWithFixedDelay(this::maintain, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Shop createShop(@Nonnull String ownerId, @Nonnull String ownerName, @Nonnull String name) {
+        if (ownerId.isBlank()) {
+            throw new IllegalArgumentException("Owner id is required.");
+        }
+        String trimmedName = name.trim();
+        if (trimmedName.isBlank()) {
+            throw new IllegalArgumentException("Shop name is required.");
+        }
+
+        Shop existing = findShop(ownerId, trimmedName);
+        if (existing != null) {
+            return existing;
+        }
+
+        append(record.start(CREATE_SHOP).string(ownerId).string(trimmedName).string(ownerName));
+        return applyCreate(ownerId, ownerName, trimmedName);
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Shop renameShop(@Nonnull String ownerId, @Nonnull String currentName, @Nonnull String newName) {
+        String trimmedCurrent = currentName.trim();
+        String trimmedNew = newName.trim();
+        if (trimmedCurrent.isBlank() || trimmedNew.isBlank()) {
+            throw new IllegalArgumentException("Shop name is required.");
+        }
+
+        getShopInternal(ownerId, trimmedCurrent);
+        if (!normalizeName(trimmedCurrent).equals(normalizeName(trimmedNew)) && findShop(ownerId, trimmedNew) != null) {
+            throw new IllegalArgumentException("You already have a shop named '" + trimmedNew + "'.");
+        }
+
+        append(record.start(RENAME_SHOP).string(ownerId).string(trimmedCurrent).string(trimmedNew));
+        return applyRename(ownerId, trimmedCurrent, trimmedNew);
+    }
+
+    @Override
+    public synchronized void deleteShop(@Nonnull String ownerId, @Nonnull String name) {
+        getShopInternal(ownerId, name);
+        append(record.start(DELETE_SHOP).string(ownerId).string(name));
+        applyDelete(ownerId, name);
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Shop getShop(@Nonnull String ownerId, @Nonnull String name) {
+        return getShopInternal(ownerId, name);
+    }
+
+    @Nonnull
+    @Override
+    public synchronized String getTraderUuid(@Nonnull String ownerId, @Nonnull String name) {
+        return getShopInternal(ownerId, name).traderUuid();
+    }
+
+    @Override
+    public synchronized void setTraderUuid(@Nonnull String ownerId, @Nonnull String name, @Nonnull String traderUuid) {
+        if (traderUuid.isBlank()) {
+            throw new IllegalArgumentException("Trader uuid is required.");
+        }
+
+        getShopInternal(ownerId, name);
+        append(record.start(SET_TRADER).string(ownerId).string(name).string(traderUuid));
+        applyTrader(ownerId, name, traderUuid);
+    }
+
+    @Override
+    public synchronized void clearTraderUuid(@Nonnull String ownerId, @Nonnull String name) {
+        getShopInternal(ownerId, name);
+        append(record.start(CLEAR_TRADER).string(ownerId).string(name));
+        applyTrader(ownerId, name, "");
+    }
+
+    @Override
+    public synchronized boolean clearTraderUuidIfMatches(@Nonnull String ownerId, @Nonnull String name, @Nonnull String expectedUuid) {
+        Shop shop = findShop(ownerId, name);
+        if (shop == null || !expectedUuid.equals(shop.traderUuid())) {
+            return false;
+        }
+        append(record.start(CLEAR_TRADER).string(ownerId).string(name));
+        applyTrader(ownerId, name, "");
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<Shop> listShops(@Nonnull String ownerId) {
+        TreeMap<String, Shop> ownerShops = shopsByOwner.get(ownerId);
+        return ownerShops == null ? new ArrayList<>() : new ArrayList<>(ownerShops.values());
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<Shop> listAllShops() {
+        List<Shop> shops = new ArrayList<>();
+        for (TreeMap<String, Shop> ownerShops : shopsByOwner.values()) {
+            shops.addAll(ownerShops.values());
+        }
+        shops.sort(Comparator.comparing(Shop::name, String.CASE_INSENSITIVE_ORDER));
+        return shops;
+    }
+
+    @Nullable
+    @Override
+    public synchronized Shop findShopByTraderUuid(@Nonnull String traderUuid) {
+        if (traderUuid.isBlank()) {
+            return null;
+        }
+        return shopsByTrader.get(traderUuid);
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listShopSummaries(@Nonnull String ownerId) {
+        List<ShopSummary> summaries = new ArrayList<>();
+        TreeMap<String, Shop> ownerShops = shopsByOwner.get(ownerId);
+        if (ownerShops != null) {
+            for (Shop shop : ownerShops.values()) {
+                summaries.add(summarize(shop));
+            }
+        }
+        return summaries;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listShopSummaries(@Nonnull String ownerId, @Nullable String afterName, int limit) {
+        List<ShopSummary> summaries = new ArrayList<>();
+        TreeMap<String, Shop> ownerShops = shopsByOwner.get(ownerId);
+        if (ownerShops == null) {
+            return summaries;
+        }
+        Map<String, Shop> page = afterName == null ? ownerShops : ownerShops.tailMap(normalizeName(afterName), false);
+        for (Shop shop : page.values()) {
+            if (summaries.size() >= limit) {
+                break;
+            }
+            summaries.add(summarize(shop));
+        }
+        return summaries;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listAllShopSummaries() {
+        List<ShopSummary> summaries = new ArrayList<>();
+        for (TreeMap<String, Shop> ownerShops : shopsByOwner.values()) {
+            for (Shop shop : ownerShops.values()) {
+                summaries.add(summarize(shop));
+            }
+        }
+        summaries.sort(Comparator.comparing(summary -> normalizeName(summary.name())));
+        return summaries;
+    }
+
+    private static ShopSummary summarize(Shop shop) {
+        return new ShopSummary(shop.ownerId(), shop.name(), shop.trades().size(), shop.traderUuid());
+    }
+
+    @Override
+    public synchronized int countShops() {
+        int count = 0;
+        for (TreeMap<String, Shop> ownerShops : shopsByOwner.values()) {
+            count += ownerShops.size();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void forEachShop(@Nonnull Consumer<Shop> consumer) {
+        for (TreeMap<String, Shop> ownerShops : shopsByOwner.values()) {
+            ownerShops.values().forEach(consumer);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Trade addTrade(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        validateItem(inputItemId, "Input item");
+        validateItem(outputItemId, "Output item");
+        validateQuantity(inputQuantity);
+        validateQuantity(outputQuantity);
+
+        Shop shop = getShopInternal(ownerId, shopName);
+        if (shop.trades().size() >= ShopRegistry.MAX_TRADES) {
+            throw new IllegalArgumentException("Shop already has the maximum of " + ShopRegistry.MAX_TRADES + " trades.");
+        }
+
+        Trade trade = new Trade(shop.nextTradeId(), ItemIds.canonical(inputItemId), inputQuantity, ItemIds.canonical(outputItemId), outputQuantity);
+        append(putTrade(ownerId, shop.name(), trade));
+        applyPutTrade(ownerId, shop.name(), trade);
+        return trade;
+    }
+
+    @Override
+    public synchronized void updateTrade(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        int tradeId,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        validateItem(inputItemId, "Input item");
+        validateItem(outputItemId, "Output item");
+        validateQuantity(inputQuantity);
+        validateQuantity(outputQuantity);
+
+        Shop shop = getShopInternal(ownerId, shopName);
+        if (!shop.hasTrade(tradeId)) {
+            throw new IllegalArgumentException("Trade not found: " + tradeId);
+        }
+
+        Trade trade = new Trade(tradeId, ItemIds.canonical(inputItemId), inputQuantity, ItemIds.canonical(outputItemId), outputQuantity);
+        append(putTrade(ownerId, shop.name(), trade));
+        applyPutTrade(ownerId, shop.name(), trade);
+    }
+
+    @Override
+    public synchronized void removeTrade(@Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
+        Shop shop = getShopInternal(ownerId, shopName);
+        if (!shop.hasTrade(tradeId)) {
+            throw new IllegalArgumentException("Trade not found: " + tradeId);
+        }
+
+        append(record.start(REMOVE_TRADE).string(ownerId).string(shop.name()).integer(tradeId));
+        applyRemoveTrade(ownerId, shop.name(), tradeId);
+    }
+
+    /**
+     * Writes a snapshot of the current shops and deletes the segments it replaces.
+     */
+    void compact() {
+        long sequence;
+        List<Shop> shops;
+        synchronized (this) {
+            sequence = log.startSnapshot();
+            shops = copyShops();
+        }
+
+        long startedAt = System.nanoTime();
+        log.writeSnapshot(sequence, sink -> writeShops(shops, sink));
+        LOGGER.atInfo().log("Compacted shop log to %d shops (%d ms)", shops.size(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    @Override
+    public void backup(@Nonnull Path target) {
+        try {
+            ShopSnapshot.write(target, copyShops());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to back up shops", e);
+        }
+    }
+
+    /**
+     * Replaces the log in {@code dataDirectory} with the shops in a {@link ShopSnapshot} file.
+     * Only for use while no storage has the directory open.
+     */
+    static void restore(@Nonnull Path dataDirectory, @Nonnull Path snapshotFile) throws IOException {
+        List<Shop> shops = new ArrayList<>();
+        ShopSnapshot.read(snapshotFile, shops::add);
+        new ShopLog(dataDirectory).replaceWith(sink -> writeShops(shops, sink));
+    }
+
+    private synchronized List<Shop> copyShops() {
+        List<Shop> shops = new ArrayList<>();
+        for (TreeMap<String, Shop> ownerShops : shopsByOwner.values()) {
+            shops.addAll(ownerShops.values());
+        }
+        return shops;
+    }
+
+    private static void writeShops(List<Shop> shops, ShopLog.RecordSink sink) {
+        RecordBuffer snapshot = new RecordBuffer();
+        for (Shop shop : shops) {
+            writeShop(snapshot, shop, sink);
+        }
+    }
+
+    /**
+     * Writes the records that recreate {@code shop}: a create, its trader, a put per trade and,
+     * when trades with higher ids were removed, the next trade id.
+     */
+    private static void writeShop(RecordBuffer buffer, Shop shop, ShopLog.RecordSink sink) {
+        buffer.start(CREATE_SHOP).string(shop.ownerId()).string(shop.name()).string(shop.ownerName());
+        sink.write(buffer.bytes(), buffer.length());
+        if (!shop.traderUuid().isEmpty()) {
+            buffer.start(SET_TRADER).string(shop.ownerId()).string(shop.name()).string(shop.traderUuid());
+            sink.write(buffer.bytes(), buffer.length());
+        }
+        for (Trade trade : shop.trades()) {
+            buffer.trade(PUT_TRADE, shop.ownerId(), shop.name(), trade);
+            sink.write(buffer.bytes(), buffer.length());
+        }
+        List<Trade> trades = shop.trades();
+        if (shop.nextTradeId() > (trades.isEmpty() ? 1 : trades.get(trades.size() - 1).id() + 1)) {
+            buffer.start(NEXT_TRADE_ID).string(shop.ownerId()).string(shop.name()).integer(shop.nextTradeId());
+            sink.write(buffer.bytes(), buffer.length());
+        }
+    }
+
+    /**
+     * Appends each shop's records like a live write would, but syncs the log only once at the
+     * end; compaction folds them into a snapshot as the log grows.
+     */
+    @Nonnull
+    @Override
+    public BulkLoad bulkLoad() {
+        return new BulkLoad() {
+            @Override
+            public void add(@Nonnull Shop shop) {
+                synchronized (LogShopStorage.this) {
+                    writeShop(record, shop, log::append);
+                    shopsByOwner.computeIfAbsent(shop.ownerId(), key -> new TreeMap<>()).put(normalizeName(shop.name()), shop);
+                    if (!shop.traderUuid().isEmpty()) {
+                        shopsByTrader.put(shop.traderUuid(), shop);
+                    }
+                }
+            }
+
+            @Override
+            public void finish() {
+                synchronized (LogShopStorage.this) {
+                    log.sync();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        maintainer.shutdown();
+        try {
+            if (!maintainer.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.atWarning().log("Shop log compaction still running on close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            log.close();
+        }
+    }
+
+    private void maintain() {
+        try {
+            log.sync();
+            if (log.shouldCompact(COMPACT_MIN_BYTES)) {
+                compact();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Shop log maintenance failed: %s", e.getMessage());
+        }
+    }
+
+    private void append(RecordBuffer buffer) {
+        log.append(buffer.bytes(), buffer.length());
+    }
+
+    private RecordBuffer putTrade(String ownerId, String shopName, Trade trade) {
+        return record.trade(PUT_TRADE, ownerId, shopName, trade);
+    }
+
+    /*
+     * Index updates, shared by the live writes and replay. Replay trusts the log, so these skip
+     * records that no longer apply instead of throwing.
+     */
+
+    private void replay(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        String ownerId = input.readUTF();
+        String name = input.readUTF();
+        switch (type) {
+            case CREATE_SHOP -> {
+                String ownerName = input.readUTF();
+                if (findShop(ownerId, name) == null) {
+                    applyCreate(ownerId, ownerName, name);
+                }
+            }
+            case RENAME_SHOP -> applyRename(ownerId, name, input.readUTF());
+            case DELETE_SHOP -> applyDelete(ownerId, name);
+            case SET_TRADER -> applyTrader(ownerId, name, input.readUTF());
+            case CLEAR_TRADER -> applyTrader(ownerId, name, "");
+            case PUT_TRADE -> applyPutTrade(ownerId, name, new Trade(
+                input.readInt(),
+                ItemIds.canonical(input.readUTF()),
+                input.readInt(),
+                ItemIds.canonical(input.readUTF()),
+                input.readInt()
+            ));
+            case REMOVE_TRADE -> applyRemoveTrade(ownerId, name, input.readInt());
+            case NEXT_TRADE_ID -> applyNextTradeId(ownerId, name, input.readInt());
+            default -> throw new IOException("Unknown shop log record type " + type);
+        }
+    }
+
+    private Shop applyCreate(String ownerId, String ownerName, String name) {
+        Shop shop = new Shop(ownerId, ownerName, name, new ArrayList<>(), "");
+        shopsByOwner.computeIfAbsent(ownerId, key -> new TreeMap<>()).put(normalizeName(name), shop);
+        return shop;
+    }
+
+    @Nullable
+    private Shop applyRename(String ownerId, String currentName, String newName) {
+        TreeMap<String, Shop> ownerShops = shopsByOwner.get(ownerId);
+        Shop shop = ownerShops == null ? null : ownerShops.remove(normalizeName(currentName));
+        if (shop == null) {
+            return null;
+        }
+        Shop renamed = new Shop(ownerId, shop.ownerName(), newName, shop.trades(), shop.traderUuid(), shop.nextTradeId());
+        ownerShops.put(normalizeName(newName), renamed);
+        reindexTrader(shop, renamed);
+        return renamed;
+    }
+
+    private void applyDelete(String ownerId, String name) {
+        TreeMap<String, Shop> ownerShops = shopsByOwner.get(ownerId);
+        Shop shop = ownerShops == null ? null : ownerShops.remove(normalizeName(name));
+        if (shop == null) {
+            return;
+        }
+        if (ownerShops.isEmpty()) {
+            shopsByOwner.remove(ownerId);
+        }
+        reindexTrader(shop, null);
+    }
+
+    private void applyTrader(String ownerId, String name, String traderUuid) {
+        Shop shop = findShop(ownerId, name);
+        if (shop != null) {
+            replace(shop, new Shop(ownerId, shop.ownerName(), shop.name(), shop.trades(), traderUuid, shop.nextTradeId()));
+        }
+    }
+
+    private void applyPutTrade(String ownerId, String shopName, Trade trade) {
+        Shop shop = findShop(ownerId, shopName);
+        if (shop == null) {
+            return;
+        }
+        List<Trade> trades = new ArrayList<>(shop.trades().size() + 1);
+        for (Trade existing : shop.trades()) {
+            if (existing.id() != trade.id()) {
+                trades.add(existing);
+            }
+        }
+        trades.add(trade);
+        replace(shop, new Shop(ownerId, shop.ownerName(), shop.name(), trades, shop.traderUuid(), shop.nextTradeId()));
+    }
+
+    private void applyRemoveTrade(String ownerId, String shopName, int tradeId) {
+        Shop shop = findShop(ownerId, shopName);
+        if (shop == null || !shop.hasTrade(tradeId)) {
+            return;
+        }
+        List<Trade> trades = new ArrayList<>(shop.trades());
+        trades.removeIf(trade -> trade.id() == tradeId);
+        replace(shop, new Shop(ownerId, shop.ownerName(), shop.name(), trades, shop.traderUuid(), shop.nextTradeId()));
+    }
+
+    private void applyNextTradeId(String ownerId, String shopName, int nextTradeId) {
+        Shop shop = findShop(ownerId, shopName);
+        if (shop != null) {
+            replace(shop, new Shop(ownerId, shop.ownerName(), shop.name(), shop.trades(), shop.traderUuid(), nextTradeId));
+        }
+    }
+
+    private void replace(Shop previous, Shop updated) {
+        shopsByOwner.get(updated.ownerId()).put(normalizeName(updated.name()), updated);
+        reindexTrader(previous, updated);
+    }
+
+    private void reindexTrader(Shop previous, @Nullable Shop updated) {
+        if (!previous.traderUuid().isEmpty()) {
+            shopsByTrader.remove(previous.traderUuid(), previous);
+        }
+        if (updated != null && !updated.traderUuid().isEmpty()) {
+            shopsByTrader.put(updated.traderUuid(), updated);
+        }
+    }
+
+    @Nullable
+    private Shop findShop(String ownerId, String name) {
+        TreeMap<String, Shop> ownerShops = shopsByOwner.get(ownerId);
+        return ownerShops == null ? null : ownerShops.get(normalizeName(name));
+    }
+
+    private Shop getShopInternal(String ownerId, String name) {
+        Shop shop = findShop(ownerId, name);
+        if (shop == null) {
+            throw new IllegalArgumentException("Shop not found: " + name);
+        }
+        return shop;
+    }
+
+    private void validateItem(String itemId, String label) {
+        if (itemId == null || itemId.isBlank()) {
+            throw new IllegalArgumentException(label + " id is required.");
+        }
+    }
+
+    private void validateQuantity(int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0.");
+        }
+    }
+
+    private static String normalizeName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Reusable encoder for one record: a type byte followed by the owner id, the shop name and
+     * the fields of that record type.
+     */
+    private static final class RecordBuffer {
+        private final Bytes bytes = new Bytes();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        RecordBuffer start(byte type) {
+            bytes.reset();
+            try {
+                out.writeByte(type);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        RecordBuffer string(String value) {
+            try {
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        RecordBuffer integer(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        RecordBuffer trade(byte type, String ownerId, String shopName, Trade trade) {
+            return start(type).string(ownerId).string(shopName)
+                .integer(trade.id())
+                .string(trade.inputItemId())
+                .integer(trade.inputQuantity())
+                .string(trade.outputItemId())
+                .integer(trade.outputQuantity());
+        }
+
+        byte[] bytes() {
+            return bytes.buffer();
+        }
+
+        int length() {
+            return bytes.size();
+        }
+    }
+
+    private static final class Bytes extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
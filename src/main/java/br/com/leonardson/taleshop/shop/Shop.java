@@ -1,7 +1,11 @@
 package br.com.leonardson.taleshop.shop;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import javax.annotation.Nullable;
 import br.com.leonardson.taleshop.shop.trade.Trade;
 
 public class Shop {
@@ -9,14 +13,30 @@ public class Shop {
     private final String ownerName;
     private final String name;
     private final List<Trade> trades;
+    // Trade ids in ascending order; tradeIds[i] is the id of trades.get(i)
+    private final int[] tradeIds;
     private final String traderUuid;
+    private final int nextTradeId;
 
     public Shop(String ownerId, String ownerName, String name, List<Trade> trades, String traderUuid) {
+        this(ownerId, ownerName, name, trades, traderUuid, 1);
+    }
+
+    /**
+     * @param nextTradeId the shop's trade id high-water mark; raised past the highest trade id
+     *                    if it is not already above it
+     */
+    public Shop(String ownerId, String ownerName, String name, List<Trade> trades, String traderUuid, int nextTradeId) {
         this.ownerId = ownerId;
         this.ownerName = ownerName;
         this.name = name;
-        this.trades = Collections.unmodifiableList(trades);
+        this.trades = Collections.unmodifiableList(sortedById(trades));
+        this.tradeIds = new int[this.trades.size()];
+        for (int i = 0; i < tradeIds.length; i++) {
+            tradeIds[i] = this.trades.get(i).id();
+        }
         this.traderUuid = traderUuid == null ? "" : traderUuid;
+        this.nextTradeId = Math.max(nextTradeId, tradeIds.length == 0 ? 1 : tradeIds[tradeIds.length - 1] + 1);
     }
 
     public String ownerId() {
@@ -31,12 +51,48 @@ public class Shop {
         return name;
     }
 
+    /**
+     * Trades ordered by id.
+     */
     public List<Trade> trades() {
         return trades;
     }
 
+    /**
+     * Looks a trade up by its id without scanning the trade list.
+     */
+    @Nullable
+    public Trade findTrade(int tradeId) {
+        int position = Arrays.binarySearch(tradeIds, tradeId);
+        return position < 0 ? null : trades.get(position);
+    }
+
+    public boolean hasTrade(int tradeId) {
+        return Arrays.binarySearch(tradeIds, tradeId) >= 0;
+    }
+
+    /**
+     * The id the next trade added to this shop will get. Ids are never handed out twice, so
+     * removing the newest trade does not lower it, and a page still showing a removed trade
+     * cannot end up executing a different one.
+     */
+    public int nextTradeId() {
+        return nextTradeId;
+    }
+
     public String traderUuid() {
         return traderUuid;
     }
 
+    private static List<Trade> sortedById(List<Trade> trades) {
+        for (int i = 1; i < trades.size(); i++) {
+            if (trades.get(i - 1).id() > trades.get(i).id()) {
+                List<Trade> sorted = new ArrayList<>(trades);
+                sorted.sort(Comparator.comparingInt(Trade::id));
+                return sorted;
+            }
+        }
+        return trades;
+    }
+
 }
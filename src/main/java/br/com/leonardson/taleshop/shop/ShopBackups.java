@@ -0,0 +1,233 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import br.com.leonardson.taleshop.config.PluginConfig;
+
+/**
+ * Backups of the shop storage in the {@code backups} directory, taken while the server runs.
+ * <p>
+ * Each backend writes a consistent copy through {@link ShopStorage#backup}: a {@code .db} file
+ * for SQLite, and a {@link ShopSnapshot} {@code .bin} file for the JSON and log backends. Backups
+ * are taken every {@code BackupIntervalMinutes} and only the newest {@code BackupsToKeep} are
+ * kept. Backups saved before a backend switch replaced a store ({@code -replaced}) are never
+ * deleted, since they may hold the only copy of those shops.
+ * <p>
+ * A restore replaces the live data, so it is staged as {@code restore-pending} and applied by
+ * {@link #applyPendingRestore} the next time the storage is opened. A staged restore left over
+ * from another backend cannot be applied and is discarded with a warning.
+ */
+public class ShopBackups {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String DIRECTORY = "backups";
+    private static final String PREFIX = "shops-";
+    private static final String PENDING = "restore-pending";
+    private static final String REPLACED = "-replaced";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final Path directory;
+    private final ShopRegistry registry;
+    private final String extension;
+    private final int intervalMinutes;
+    private final int backupsToKeep;
+    private ScheduledExecutorService scheduler;
+
+    public ShopBackups(@Nonnull Path dataDirectory, @Nonnull PluginConfig config, @Nonnull ShopRegistry registry) {
+        this.directory = dataDirectory.resolve(DIRECTORY);
+        this.registry = registry;
+        this.extension = extensionFor(config);
+        this.intervalMinutes = config.getBackupIntervalMinutes();
+        this.backupsToKeep = config.getBackupsToKeep();
+    }
+
+    /**
+     * Takes a backup now and removes the oldest ones beyond {@code BackupsToKeep}.
+     */
+    @Nonnull
+    public synchronized Path backupNow() {
+        Path target = directory.resolve(PREFIX + NAME_FORMAT.format(Instant.now()) + extension);
+        long startedAt = System.nanoTime();
+        registry.backup(target);
+        LOGGER.atInfo().log("Backed up shops to %s (%d ms)", target.getFileName(), (System.nanoTime() - startedAt) / 1_000_000);
+
+        List<Path> backups = list().stream()
+            .filter(path -> !path.getFileName().toString().endsWith(REPLACED + extension))
+            .toList();
+        for (int i = backupsToKeep; i < backups.size(); i++) {
+            try {
+                Files.deleteIfExists(backups.get(i));
+            } catch (IOException e) {
+                LOGGER.atWarning().log("Failed to delete old backup %s: %s", backups.get(i).getFileName(), e.getMessage());
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Backups the current backend can restore, newest first.
+     */
+    @Nonnull
+    public List<Path> list() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(PREFIX) && name.endsWith(extension);
+                })
+                .sorted(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed())
+                .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list shop backups", e);
+        }
+    }
+
+    /**
+     * Stages backup {@code name} to replace the live data on the next start.
+     */
+    @Nonnull
+    public Path stageRestore(@Nonnull String name) {
+        Path backup = list().stream()
+            .filter(path -> path.getFileName().toString().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Backup not found: " + name));
+        Path pending = directory.resolve(PENDING + extension);
+        Path tempFile = pending.resolveSibling(pending.getFileName() + ".tmp");
+        try {
+            Files.copy(backup, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile, pending, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to stage shop backup " + name, e);
+        }
+        LOGGER.atInfo().log("Staged %s to be restored on the next start", name);
+        return backup;
+    }
+
+    /**
+     * Replaces the backend's files with a staged restore, if there is one. Call before the
+     * storage is opened.
+     */
+    public static void applyPendingRestore(@Nonnull Path dataDirectory, @Nonnull PluginConfig config) {
+        discardForeignRestores(dataDirectory, config);
+        Path pending = dataDirectory.resolve(DIRECTORY).resolve(PENDING + extensionFor(config));
+        if (!Files.exists(pending)) {
+            return;
+        }
+        try {
+            if (config.isUsingSqliteStorage()) {
+                // The old WAL must not be replayed into the restored file
+                Files.deleteIfExists(dataDirectory.resolve("shops.db-wal"));
+                Files.deleteIfExists(dataDirectory.resolve("shops.db-shm"));
+                Files.move(pending, dataDirectory.resolve("shops.db"), StandardCopyOption.REPLACE_EXISTING);
+            } else if (config.isUsingLogStorage()) {
+                LogShopStorage.restore(dataDirectory, pending);
+                Files.delete(pending);
+            } else {
+                Files.move(pending, dataDirectory.resolve(JsonShopStorage.SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to restore shop backup", e);
+        }
+        LOGGER.atInfo().log("Restored shops from a staged backup");
+    }
+
+    /**
+     * Deletes restores staged for a backend other than the configured one. The staged file is a
+     * copy, so the backup it came from is still in the directory.
+     */
+    private static void discardForeignRestores(Path dataDirectory, PluginConfig config) {
+        for (PluginConfig.StorageBackend backend : PluginConfig.StorageBackend.values()) {
+            String foreignExtension = extensionFor(backend);
+            if (foreignExtension.equals(extensionFor(config))) {
+                continue;
+            }
+            Path foreign = dataDirectory.resolve(DIRECTORY).resolve(PENDING + foreignExtension);
+            try {
+                if (Files.deleteIfExists(foreign)) {
+                    LOGGER.atWarning().log("Discarded a staged %s restore, which the %s backend cannot read; stage a %s backup instead",
+                        foreignExtension, config.getStorageBackend(), extensionFor(config));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to discard staged restore " + foreign.getFileName(), e);
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (scheduler != null || intervalMinutes <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TaleShop-Backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledBackup, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops scheduled backups, letting one that is running finish.
+     */
+    public void stop() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.atWarning().log("Shop backup still running after %d seconds", STOP_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduledBackup() {
+        try {
+            backupNow();
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Scheduled shop backup failed: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Where to save {@code backend}'s shops before a backend switch replaces them, named like a
+     * regular backup so it can be restored the same way.
+     */
+    @Nonnull
+    static Path replacedStoreBackup(@Nonnull Path dataDirectory, @Nonnull PluginConfig.StorageBackend backend) {
+        return dataDirectory.resolve(DIRECTORY).resolve(PREFIX + NAME_FORMAT.format(Instant.now()) + REPLACED + extensionFor(backend));
+    }
+
+    private static String extensionFor(PluginConfig config) {
+        return extensionFor(config.getStorageBackend());
+    }
+
+    private static String extensionFor(PluginConfig.StorageBackend backend) {
+        return backend == PluginConfig.StorageBackend.SQLITE ? ".db" : ".bin";
+    }
+}
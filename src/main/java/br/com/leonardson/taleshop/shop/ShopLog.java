@@ -0,0 +1,420 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Segment files behind {@link LogShopStorage}.
+ * <p>
+ * Records are appended to {@code shops-<seq>.log} files in the {@code shoplog} directory. Each
+ * file starts with an {@value #HEADER_BYTES}-byte header (magic, version, kind) followed by
+ * frames of {@code int length, int crc32, byte[length] payload}, all big endian. A segment of
+ * kind {@link #KIND_SNAPSHOT} holds the whole state at the moment it was started, so replay
+ * begins at the newest snapshot and every older segment can be deleted.
+ * <p>
+ * A frame cut short by a crash, or one whose checksum does not match, ends replay of that
+ * segment. New records always go to a fresh segment, so nothing valid ever follows a torn tail:
+ * after a restart, and after an append that failed part way, which also cuts its partial frame
+ * off before giving up on the segment.
+ */
+final class ShopLog implements AutoCloseable {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String DIRECTORY = "shoplog";
+    private static final String SEGMENT_PREFIX = "shops-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x54534C31; // "TSL1"
+    private static final short VERSION = 1;
+    static final short KIND_LOG = 0;
+    static final short KIND_SNAPSHOT = 1;
+    static final int HEADER_BYTES = 8;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final CRC32 crc = new CRC32();
+    private FileChannel active;
+    private long nextSequence;
+    private boolean dirty;
+    private boolean closed;
+    private long bytesSinceSnapshot;
+    private long snapshotBytes;
+
+    ShopLog(@Nonnull Path dataDirectory) {
+        this.directory = dataDirectory.resolve(DIRECTORY);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open shop log", e);
+        }
+    }
+
+    /**
+     * Feeds every record from the newest snapshot onwards to {@code consumer}, oldest first,
+     * and removes segments the snapshot made obsolete.
+     */
+    synchronized void replay(@Nonnull RecordConsumer consumer) {
+        deleteTempFiles();
+        List<Path> segments = listSegments();
+        int start = 0;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (kindOf(segments.get(i)) == KIND_SNAPSHOT) {
+                start = i;
+                break;
+            }
+        }
+
+        bytesSinceSnapshot = 0;
+        snapshotBytes = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            if (i < start) {
+                // Left behind by a compaction that finished its snapshot but not the cleanup
+                deleteQuietly(path);
+                continue;
+            }
+            long read = replaySegment(path, consumer);
+            if (i == start && kindOf(path) == KIND_SNAPSHOT) {
+                snapshotBytes = read;
+            } else {
+                bytesSinceSnapshot += read;
+            }
+        }
+        nextSequence = segments.isEmpty() ? 1 : sequenceOf(segments.get(segments.size() - 1)) + 1;
+    }
+
+    /**
+     * Appends one record to the current segment. The write reaches the OS right away, so it
+     * survives the server process dying; {@link #sync()} makes it survive a power loss too.
+     */
+    synchronized void append(@Nonnull byte[] payload, int length) {
+        if (closed) {
+            throw new IllegalStateException("Shop storage is closed.");
+        }
+        long goodBytes = -1;
+        try {
+            FileChannel channel = activeSegment();
+            goodBytes = channel.position();
+            writeFrame(channel, payload, length);
+            dirty = true;
+            bytesSinceSnapshot += FRAME_HEADER_BYTES + length;
+        } catch (IOException e) {
+            abandonActive(goodBytes);
+            throw new RuntimeException("Failed to write shop log", e);
+        }
+    }
+
+    synchronized void sync() {
+        if (!dirty || active == null) {
+            return;
+        }
+        try {
+            active.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to sync shop log", e);
+        }
+    }
+
+    /**
+     * True once the records written since the last snapshot outweigh the snapshot itself.
+     */
+    synchronized boolean shouldCompact(long minBytes) {
+        return bytesSinceSnapshot >= Math.max(minBytes, snapshotBytes);
+    }
+
+    /**
+     * Closes the current segment and reserves the next sequence number for a snapshot. Call
+     * while the caller's state is consistent with everything appended so far; later appends
+     * go to a segment after the snapshot.
+     */
+    synchronized long startSnapshot() {
+        closeActive();
+        bytesSinceSnapshot = 0;
+        return nextSequence++;
+    }
+
+    /**
+     * Writes snapshot {@code sequence} from {@code records} and deletes the segments before it.
+     * Runs without holding the log, so appends carry on while the snapshot is written.
+     */
+    void writeSnapshot(long sequence, @Nonnull SnapshotWriter records) {
+        Path target = directory.resolve(segmentName(sequence));
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        long written;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(channel, KIND_SNAPSHOT);
+                CRC32 snapshotCrc = new CRC32();
+                records.writeTo((payload, length) -> {
+                    try {
+                        writeFrame(channel, snapshotCrc, payload, length);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to write shop log snapshot", e);
+                    }
+                });
+                channel.force(true);
+                written = channel.size() - HEADER_BYTES;
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new RuntimeException("Failed to write shop log snapshot", e);
+        }
+
+        synchronized (this) {
+            snapshotBytes = written;
+        }
+        for (Path segment : listSegments()) {
+            if (sequenceOf(segment) < sequence) {
+                deleteQuietly(segment);
+            }
+        }
+    }
+
+    /**
+     * Replaces every segment with a single snapshot written from {@code records}. The old
+     * segments are only deleted once the snapshot is on disk.
+     */
+    synchronized void replaceWith(@Nonnull SnapshotWriter records) {
+        closeActive();
+        deleteTempFiles();
+        List<Path> segments = listSegments();
+        long sequence = segments.isEmpty() ? 1 : sequenceOf(segments.get(segments.size() - 1)) + 1;
+        writeSnapshot(sequence, records);
+        nextSequence = sequence + 1;
+        bytesSinceSnapshot = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        try {
+            sync();
+        } finally {
+            closeActive();
+        }
+    }
+
+    private long replaySegment(Path path, RecordConsumer consumer) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read shop log segment " + path.getFileName(), e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            LOGGER.atWarning().log("Skipping unreadable shop log segment %s", path.getFileName());
+            return 0;
+        }
+        buffer.position(HEADER_BYTES);
+
+        CRC32 check = new CRC32();
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            if (length < 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) {
+                warnTorn(path, start, bytes.length);
+                return start - HEADER_BYTES;
+            }
+            check.reset();
+            check.update(bytes, buffer.position(), length);
+            if ((int) check.getValue() != expected) {
+                warnTorn(path, start, bytes.length);
+                return start - HEADER_BYTES;
+            }
+            try {
+                consumer.accept(new DataInputStream(new ByteArrayInputStream(bytes, buffer.position(), length)));
+            } catch (IOException e) {
+                LOGGER.atWarning().log("Skipping malformed shop log record in %s at byte %d", path.getFileName(), start);
+            }
+            buffer.position(buffer.position() + length);
+        }
+        if (buffer.hasRemaining()) {
+            warnTorn(path, buffer.position(), bytes.length);
+        }
+        return buffer.position() - HEADER_BYTES;
+    }
+
+    private static void warnTorn(Path path, int offset, int size) {
+        LOGGER.atWarning().log("Shop log segment %s ends with %d unreadable bytes at byte %d; ignoring them",
+            path.getFileName(), size - offset, offset);
+    }
+
+    private FileChannel activeSegment() throws IOException {
+        if (active == null) {
+            Path path = directory.resolve(segmentName(nextSequence++));
+            active = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            writeHeader(active, KIND_LOG);
+        }
+        return active;
+    }
+
+    /**
+     * Drops whatever a failed append left after {@code goodBytes} and closes the segment, so the
+     * next record starts a new one rather than following a frame replay would stop at.
+     */
+    private void abandonActive(long goodBytes) {
+        if (active == null) {
+            return;
+        }
+        if (goodBytes >= 0) {
+            try {
+                active.truncate(goodBytes);
+            } catch (IOException e) {
+                LOGGER.atWarning().log("Failed to cut a partial record off shop log segment: %s", e.getMessage());
+            }
+        }
+        closeActive();
+    }
+
+    private void closeActive() {
+        if (active == null) {
+            return;
+        }
+        try {
+            if (dirty) {
+                active.force(false);
+                dirty = false;
+            }
+            active.close();
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to close shop log segment: %s", e.getMessage());
+        }
+        active = null;
+    }
+
+    private void writeFrame(FileChannel channel, byte[] payload, int length) throws IOException {
+        writeFrame(channel, crc, payload, length);
+    }
+
+    private static void writeFrame(FileChannel channel, CRC32 crc, byte[] payload, int length) throws IOException {
+        crc.reset();
+        crc.update(payload, 0, length);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + length)
+            .putInt(length)
+            .putInt((int) crc.getValue())
+            .put(payload, 0, length)
+            .flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, short kind) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+            .putInt(MAGIC)
+            .putShort(VERSION)
+            .putShort(kind)
+            .flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    private static short kindOf(Path segment) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                return KIND_LOG;
+            }
+            return header.getShort(6);
+        } catch (IOException e) {
+            return KIND_LOG;
+        }
+    }
+
+    /**
+     * The segment files of the log in {@code dataDirectory}, oldest first, without opening it.
+     */
+    @Nonnull
+    static List<Path> segments(@Nonnull Path dataDirectory) {
+        Path directory = dataDirectory.resolve(DIRECTORY);
+        return Files.isDirectory(directory) ? listSegments(directory) : List.of();
+    }
+
+    private List<Path> listSegments() {
+        return listSegments(directory);
+    }
+
+    private static List<Path> listSegments(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted(Comparator.comparingLong(ShopLog::sequenceOf))
+                .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list shop log segments", e);
+        }
+    }
+
+    private void deleteTempFiles() {
+        List<Path> temps = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(TEMP_SUFFIX)).forEach(temps::add);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list shop log segments", e);
+        }
+        temps.forEach(ShopLog::deleteQuietly);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to delete %s: %s", path.getFileName(), e.getMessage());
+        }
+    }
+
+    private static String segmentName(long sequence) {
+        return String.format("%s%013d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(DataInputStream record) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface RecordSink {
+        void write(byte[] payload, int length);
+    }
+
+    @FunctionalInterface
+    interface SnapshotWriter {
+        void writeTo(RecordSink sink);
+    }
+}
@@ -0,0 +1,336 @@
+package br.com.leonardson.taleshop.shop;
+
+import br.com.leonardson.taleshop.config.PluginConfig.StorageBackend;
+import br.com.leonardson.taleshop.shop.trade.Trade;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Opens the configured storage backend and, when {@code StorageBackend} was just switched, copies
+ * every shop over from the backend used before.
+ * <p>
+ * The backend in use is recorded in {@code storage-backend} each time the storage opens. When the
+ * configured backend differs from it, the shops are streamed from the recorded backend into the
+ * new one through {@link ShopStorage#bulkLoad}: the source hands over one shop at a time and the
+ * target writes in batches, so the copy itself never holds more than a shop. If the new backend
+ * still has files from an earlier switch, those shops are out of date; they are saved to the
+ * {@code backups} directory and replaced. Data from before the backend was recorded goes by file
+ * times instead: another backend's store is copied from when it was written after the
+ * configured one's.
+ * <p>
+ * A {@code shops.json} written by {@code /shop admin export} is not a store: it only counts when
+ * nothing else says which backend was in use and there is no {@code shops.bin}, which is how
+ * versions before {@code shops.bin} saved their shops.
+ * <p>
+ * The copy only counts once the new backend reads back the same {@link Checksum} that was
+ * taken while copying. Otherwise its files are deleted and startup fails, so the next start
+ * tries again. The old backend's shops are left as they are, as a fallback.
+ */
+final class ShopMigration {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String BACKEND_FILE = "storage-backend";
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private ShopMigration() {
+    }
+
+    /**
+     * Opens the storage for {@code backend}, first filling it from another backend if it was
+     * just switched to.
+     */
+    @Nonnull
+    static ShopStorage openStorage(@Nonnull Path dataDirectory, @Nonnull StorageBackend backend) {
+        StorageBackend recorded = readBackend(dataDirectory);
+        ShopStorage source = recorded == null ? newestOtherStore(dataDirectory, backend) : recordedStore(dataDirectory, recorded, backend);
+        if (source == null) {
+            ShopStorage target = open(dataDirectory, backend);
+            writeBackend(dataDirectory, backend);
+            return target;
+        }
+
+        String description = (recorded == null ? "the most recently written store" : recorded.toString()) + " to " + backend;
+        ShopStorage target = null;
+        try {
+            if (storeExists(dataDirectory, backend, recorded != null)) {
+                setAside(dataDirectory, backend);
+            }
+            target = openEmpty(dataDirectory, backend);
+            copy(source, target, description);
+        } catch (RuntimeException e) {
+            if (target != null) {
+                target.close();
+            }
+            deleteStore(dataDirectory, backend);
+            throw e;
+        } finally {
+            source.close();
+        }
+        writeBackend(dataDirectory, backend);
+        return target;
+    }
+
+    /**
+     * The store of {@code recorded} when it is not {@code backend} and still has files.
+     */
+    @Nullable
+    private static ShopStorage recordedStore(Path dataDirectory, StorageBackend recorded, StorageBackend backend) {
+        if (recorded == backend || !storeExists(dataDirectory, recorded, true)) {
+            return null;
+        }
+        return open(dataDirectory, recorded);
+    }
+
+    /**
+     * For data saved before the backend was recorded: the most recently written other store that
+     * holds shops and is newer than {@code backend}'s own.
+     */
+    @Nullable
+    private static ShopStorage newestOtherStore(Path dataDirectory, StorageBackend backend) {
+        long own = lastModified(dataDirectory, backend, false);
+        for (StorageBackend other : otherBackends(dataDirectory, backend)) {
+            if (lastModified(dataDirectory, other, false) <= own) {
+                break;
+            }
+            ShopStorage store = open(dataDirectory, other);
+            if (store.countShops() > 0) {
+                return store;
+            }
+            store.close();
+        }
+        return null;
+    }
+
+    /**
+     * Saves the out-of-date shops of {@code backend} as a backup and deletes its files.
+     */
+    private static void setAside(Path dataDirectory, StorageBackend backend) {
+        Path backup = ShopBackups.replacedStoreBackup(dataDirectory, backend);
+        ShopStorage stale = open(dataDirectory, backend);
+        try {
+            Files.createDirectories(backup.getParent());
+            stale.backup(backup);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to back up out-of-date " + backend + " shops", e);
+        } finally {
+            stale.close();
+        }
+        deleteStore(dataDirectory, backend);
+        LOGGER.atInfo().log("Saved out-of-date %s shops to %s before replacing them", backend, backup.getFileName());
+    }
+
+    /**
+     * Opens {@code backend} with no shops. The JSON backend would otherwise import a
+     * {@code shops.json} export, so it is given an empty {@code shops.bin} first.
+     */
+    private static ShopStorage openEmpty(Path dataDirectory, StorageBackend backend) {
+        if (backend == StorageBackend.JSON) {
+            try {
+                ShopSnapshot.write(dataDirectory.resolve(JsonShopStorage.SNAPSHOT_FILE), List.of());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to create shop snapshot", e);
+            }
+        }
+        return open(dataDirectory, backend);
+    }
+
+    private static ShopStorage open(Path dataDirectory, StorageBackend backend) {
+        return switch (backend) {
+            case SQLITE -> new SqliteShopStorage(dataDirectory);
+            case LOG -> new LogShopStorage(dataDirectory);
+            case JSON -> new JsonShopStorage(dataDirectory);
+        };
+    }
+
+    private static void copy(ShopStorage source, ShopStorage target, String description) {
+        int total = source.countShops();
+        LOGGER.atInfo().log("Migrating %d shops from %s", total, description);
+        long startedAt = System.nanoTime();
+
+        Checksum copied = new Checksum();
+        ShopStorage.BulkLoad load = target.bulkLoad();
+        source.forEachShop(shop -> {
+            load.add(shop);
+            copied.accept(shop);
+            if (copied.shops % PROGRESS_INTERVAL == 0) {
+                LOGGER.atInfo().log("Migrated %d/%d shops", copied.shops, total);
+            }
+        });
+        load.finish();
+
+        Checksum stored = new Checksum();
+        target.forEachShop(stored);
+        if (!stored.equals(copied)) {
+            throw new RuntimeException("Shop migration from " + description + " failed verification: copied "
+                + copied + " but read back " + stored);
+        }
+        LOGGER.atInfo().log("Migrated %s from %s (%d ms)", copied, description, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * The backends other than {@code target} that have files, most recently written first.
+     */
+    private static List<StorageBackend> otherBackends(Path dataDirectory, StorageBackend target) {
+        List<StorageBackend> backends = new ArrayList<>();
+        for (StorageBackend backend : StorageBackend.values()) {
+            if (backend != target && storeExists(dataDirectory, backend, false)) {
+                backends.add(backend);
+            }
+        }
+        backends.sort(Comparator.comparingLong((StorageBackend backend) -> lastModified(dataDirectory, backend, false)).reversed());
+        return backends;
+    }
+
+    /**
+     * @param recorded whether the backend in use has been recorded, which rules out
+     *                 {@code shops.json} as a store
+     */
+    private static List<Path> storeFiles(Path dataDirectory, StorageBackend backend, boolean recorded) {
+        return switch (backend) {
+            case SQLITE -> List.of(
+                dataDirectory.resolve("shops.db"),
+                dataDirectory.resolve("shops.db-wal"),
+                dataDirectory.resolve("shops.db-shm")
+            );
+            case LOG -> ShopLog.segments(dataDirectory);
+            case JSON -> {
+                Path snapshot = dataDirectory.resolve(JsonShopStorage.SNAPSHOT_FILE);
+                yield recorded || Files.exists(snapshot) ? List.of(snapshot) : List.of(dataDirectory.resolve(JsonShopStorage.JSON_FILE));
+            }
+        };
+    }
+
+    private static boolean storeExists(Path dataDirectory, StorageBackend backend, boolean recorded) {
+        return lastModified(dataDirectory, backend, recorded) >= 0;
+    }
+
+    /**
+     * When the store of {@code backend} was last written, or -1 if it has no files.
+     */
+    private static long lastModified(Path dataDirectory, StorageBackend backend, boolean recorded) {
+        long newest = -1;
+        for (Path file : storeFiles(dataDirectory, backend, recorded)) {
+            try {
+                if (Files.exists(file)) {
+                    newest = Math.max(newest, Files.getLastModifiedTime(file).toMillis());
+                }
+            } catch (IOException e) {
+                LOGGER.atWarning().log("Failed to read %s: %s", file.getFileName(), e.getMessage());
+            }
+        }
+        return newest;
+    }
+
+    private static void deleteStore(Path dataDirectory, StorageBackend backend) {
+        List<Path> files = new ArrayList<>(storeFiles(dataDirectory, backend, true));
+        if (backend == StorageBackend.JSON) {
+            files.add(dataDirectory.resolve(JsonShopStorage.SNAPSHOT_FILE + ".prev"));
+        }
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.atWarning().log("Failed to delete %s: %s", file.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The backend the storage was last opened with, or null if it was never recorded.
+     */
+    @Nullable
+    private static StorageBackend readBackend(Path dataDirectory) {
+        Path file = dataDirectory.resolve(BACKEND_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return StorageBackend.valueOf(Files.readString(file).trim());
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.atWarning().log("Failed to read %s: %s", BACKEND_FILE, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeBackend(Path dataDirectory, StorageBackend backend) {
+        Path file = dataDirectory.resolve(BACKEND_FILE);
+        Path tempFile = file.resolveSibling(BACKEND_FILE + ".tmp");
+        try {
+            Files.createDirectories(dataDirectory);
+            Files.writeString(tempFile, backend.name());
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to record the storage backend", e);
+        }
+    }
+
+    /**
+     * Order-independent checksum of a set of shops: the sum of a CRC32 over each shop's owner,
+     * name, trader and trades, plus the shop and trade counts.
+     */
+    private static final class Checksum implements Consumer<Shop> {
+        private final CRC32 crc = new CRC32();
+        private int shops;
+        private long trades;
+        private long sum;
+
+        @Override
+        public void accept(Shop shop) {
+            crc.reset();
+            update(shop.ownerId());
+            update(shop.ownerName());
+            update(shop.name().trim());
+            update(shop.traderUuid());
+            update(shop.nextTradeId());
+            for (Trade trade : shop.trades()) {
+                update(trade.id());
+                update(trade.inputItemId());
+                update(trade.inputQuantity());
+                update(trade.outputItemId());
+                update(trade.outputQuantity());
+            }
+            sum += crc.getValue();
+            shops++;
+            trades += shop.trades().size();
+        }
+
+        private void update(String value) {
+            crc.update((value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+            crc.update(0);
+        }
+
+        private void update(int value) {
+            crc.update(value >>> 24);
+            crc.update(value >>> 16);
+            crc.update(value >>> 8);
+            crc.update(value);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Checksum checksum
+                && shops == checksum.shops && trades == checksum.trades && sum == checksum.sum;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(sum);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d shops and %d trades (checksum %016x)", shops, trades, sum);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package br.com.leonardson.taleshop.shop;
 
 import br.com.leonardson.taleshop.config.PluginConfig;
+import br.com.leonardson.taleshop.metrics.ShopMetrics;
 import br.com.leonardson.taleshop.shop.trade.Trade;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 
@@ -11,22 +12,54 @@ import java.lang.reflect.Method;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ShopRegistry {
-    public static final int MAX_TRADES = 20;
+    public static final int MAX_TRADES = 500;
 
+    private final Path dataDirectory;
     private final ShopStorage storage;
+    private final ShopMetrics metrics;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ShopRegistryAsync async;
 
     public ShopRegistry(@Nonnull Path dataDirectory) {
         this(dataDirectory, new PluginConfig());
     }
 
     public ShopRegistry(@Nonnull Path dataDirectory, @Nonnull PluginConfig config) {
-        if (config.isUsingSqliteStorage()) {
-            this.storage = new SqliteShopStorage(dataDirectory);
-        } else {
-            this.storage = new JsonShopStorage(dataDirectory);
-        }
+        this(dataDirectory, config, new ShopMetrics());
+    }
+
+    public ShopRegistry(@Nonnull Path dataDirectory, @Nonnull PluginConfig config, @Nonnull ShopMetrics metrics) {
+        ShopBackups.applyPendingRestore(dataDirectory, config);
+        ShopStorage backend = ShopMigration.openStorage(dataDirectory, config.getStorageBackend());
+        this.dataDirectory = dataDirectory;
+        this.storage = new TimedShopStorage(backend, metrics);
+        this.metrics = metrics;
+        this.async = new ShopRegistryAsync(this);
+    }
+
+    @Nonnull
+    public ShopMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Non-blocking variants of the registry calls for code running on a world thread.
+     */
+    @Nonnull
+    public ShopRegistryAsync async() {
+        return async;
+    }
+
+    /**
+     * Registers a listener for shop renames and deletions, for state kept by shop name outside
+     * the registry.
+     */
+    public void addListener(@Nonnull Listener listener) {
+        listeners.add(listener);
     }
 
     @Nonnull
@@ -48,11 +81,18 @@ public class ShopRegistry {
 
     @Nonnull
     public synchronized Shop renameShop(@Nonnull String ownerId, @Nonnull String currentName, @Nonnull String newName) {
-        return storage.renameShop(ownerId, currentName, newName);
+        Shop renamed = storage.renameShop(ownerId, currentName, newName);
+        for (Listener listener : listeners) {
+            listener.onShopRenamed(ownerId, currentName, renamed.name());
+        }
+        return renamed;
     }
 
     public synchronized void deleteShop(@Nonnull String ownerId, @Nonnull String name) {
         storage.deleteShop(ownerId, name);
+        for (Listener listener : listeners) {
+            listener.onShopDeleted(ownerId, name);
+        }
     }
 
     @Nonnull
@@ -73,6 +113,15 @@ public class ShopRegistry {
         storage.clearTraderUuid(ownerId, name);
     }
 
+    /**
+     * Clears the shop's trader only if it still points at {@code expectedUuid}, so a trader
+     * respawned in the meantime is not unlinked by a stale check. The storage checks and clears
+     * in one write, so this also holds against {@link #setTraderUuidAsync}.
+     */
+    public synchronized boolean clearTraderUuidIfMatches(@Nonnull String ownerId, @Nonnull String name, @Nonnull String expectedUuid) {
+        return storage.clearTraderUuidIfMatches(ownerId, name, expectedUuid);
+    }
+
     @Nonnull
     public synchronized List<Shop> listShops(@Nonnull String ownerId) {
         return storage.listShops(ownerId);
@@ -83,6 +132,36 @@ public class ShopRegistry {
         return storage.listAllShops();
     }
 
+    /**
+     * Like {@link #listShops}, but without the trades: for views that only show trade counts.
+     */
+    @Nonnull
+    public synchronized List<ShopSummary> listShopSummaries(@Nonnull String ownerId) {
+        return storage.listShopSummaries(ownerId);
+    }
+
+    /**
+     * A page of {@link #listShopSummaries(String)} starting after {@code afterName}; see
+     * {@link ShopStorage#listShopSummaries(String, String, int)}.
+     */
+    @Nonnull
+    public synchronized List<ShopSummary> listShopSummaries(@Nonnull String ownerId, @Nullable String afterName, int limit) {
+        return storage.listShopSummaries(ownerId, afterName, limit);
+    }
+
+    /**
+     * One page of a shop's trades; see {@link ShopStorage#listTrades}.
+     */
+    @Nonnull
+    public synchronized TradePage listTrades(@Nonnull String ownerId, @Nonnull String shopName, int offset, int limit) {
+        return storage.listTrades(ownerId, shopName, offset, limit);
+    }
+
+    @Nonnull
+    public synchronized List<ShopSummary> listAllShopSummaries() {
+        return storage.listAllShopSummaries();
+    }
+
     @Nullable
     public synchronized Shop findShopByTraderUuid(@Nonnull String traderUuid) {
         return storage.findShopByTraderUuid(traderUuid);
@@ -116,6 +195,76 @@ public class ShopRegistry {
         storage.removeTrade(ownerId, shopName, tradeId);
     }
 
+    // Async writes skip the registry lock when the storage queues them, since the queue orders
+    // them itself. Otherwise the blocking write runs on the async front's thread pool.
+
+    @Nonnull
+    public CompletableFuture<Void> setTraderUuidAsync(@Nonnull String ownerId, @Nonnull String name, @Nonnull String traderUuid) {
+        if (!storage.queuesWrites()) {
+            return async.submit(() -> {
+                setTraderUuid(ownerId, name, traderUuid);
+                return null;
+            });
+        }
+        return storage.setTraderUuidAsync(ownerId, name, traderUuid);
+    }
+
+    @Nonnull
+    public CompletableFuture<Void> clearTraderUuidAsync(@Nonnull String ownerId, @Nonnull String name) {
+        if (!storage.queuesWrites()) {
+            return async.submit(() -> {
+                clearTraderUuid(ownerId, name);
+                return null;
+            });
+        }
+        return storage.clearTraderUuidAsync(ownerId, name);
+    }
+
+    @Nonnull
+    public CompletableFuture<Trade> addTradeAsync(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        if (!storage.queuesWrites()) {
+            return async.submit(() -> addTrade(ownerId, shopName, inputItemId, inputQuantity, outputItemId, outputQuantity));
+        }
+        return storage.addTradeAsync(ownerId, shopName, inputItemId, inputQuantity, outputItemId, outputQuantity);
+    }
+
+    @Nonnull
+    public CompletableFuture<Void> updateTradeAsync(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        int tradeId,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        if (!storage.queuesWrites()) {
+            return async.submit(() -> {
+                updateTrade(ownerId, shopName, tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity);
+                return null;
+            });
+        }
+        return storage.updateTradeAsync(ownerId, shopName, tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity);
+    }
+
+    @Nonnull
+    public CompletableFuture<Void> removeTradeAsync(@Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
+        if (!storage.queuesWrites()) {
+            return async.submit(() -> {
+                removeTrade(ownerId, shopName, tradeId);
+                return null;
+            });
+        }
+        return storage.removeTradeAsync(ownerId, shopName, tradeId);
+    }
+
     private static Object invokeFirst(Object target, String... methodNames) {
         for (String methodName : methodNames) {
             Method method = findMethod(target.getClass(), methodName);
@@ -144,7 +293,35 @@ public class ShopRegistry {
         return null;
     }
 
-    public synchronized void close() {
-        storage.close();
+    /**
+     * Writes a consistent copy of every shop to {@code target}; see {@link ShopBackups}.
+     */
+    public void backup(@Nonnull Path target) {
+        storage.backup(target);
+    }
+
+    /**
+     * Writes every shop to {@code shops.json} in the data directory, whatever the backend. Shops
+     * are streamed from storage one at a time instead of listed first.
+     */
+    @Nonnull
+    public synchronized Path exportJson() {
+        Path file = dataDirectory.resolve(JsonShopStorage.JSON_FILE);
+        JsonShopStorage.exportJson(storage::forEachShop, file);
+        return file;
+    }
+
+    public void close() {
+        // In-flight async calls need the registry lock to finish
+        async.close();
+        synchronized (this) {
+            storage.close();
+        }
+    }
+
+    public interface Listener {
+        void onShopRenamed(@Nonnull String ownerId, @Nonnull String oldName, @Nonnull String newName);
+
+        void onShopDeleted(@Nonnull String ownerId, @Nonnull String name);
     }
 }
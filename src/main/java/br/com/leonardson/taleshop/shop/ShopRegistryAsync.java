@@ -0,0 +1,160 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import br.com.leonardson.taleshop.shop.trade.Trade;
+
+/**
+ * Non-blocking front for {@link ShopRegistry}, for commands and pages running on a world thread.
+ * <p>
+ * Each call runs on its own virtual thread, or goes straight to the storage's write queue when it
+ * has one, so a slow disk never stalls the tick. Trade and trader writes from
+ * {@link ShopRegistry}'s async methods take the same route. Every returned future completes on the given
+ * world's thread, so callbacks can touch the player, entities and pages directly. A failed call
+ * completes with the exception the blocking method would have thrown, such as
+ * {@link IllegalArgumentException} for an unknown shop.
+ */
+public class ShopRegistryAsync implements AutoCloseable {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final ShopRegistry registry;
+    private final ExecutorService executor;
+
+    public ShopRegistryAsync(@Nonnull ShopRegistry registry) {
+        this.registry = registry;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("TaleShop-Storage-", 0).factory());
+    }
+
+    @Nonnull
+    public CompletableFuture<Shop> createShop(@Nonnull World world, @Nonnull String ownerId, @Nonnull String ownerName, @Nonnull String name) {
+        return supply(world, () -> registry.createShop(ownerId, ownerName, name));
+    }
+
+    @Nonnull
+    public CompletableFuture<Shop> renameShop(@Nonnull World world, @Nonnull String ownerId, @Nonnull String currentName, @Nonnull String newName) {
+        return supply(world, () -> registry.renameShop(ownerId, currentName, newName));
+    }
+
+    @Nonnull
+    public CompletableFuture<Void> deleteShop(@Nonnull World world, @Nonnull String ownerId, @Nonnull String name) {
+        return supply(world, () -> {
+            registry.deleteShop(ownerId, name);
+            return null;
+        });
+    }
+
+    @Nonnull
+    public CompletableFuture<Shop> getShop(@Nonnull World world, @Nonnull String ownerId, @Nonnull String name) {
+        return supply(world, () -> registry.getShop(ownerId, name));
+    }
+
+    @Nonnull
+    public CompletableFuture<List<Shop>> listShops(@Nonnull World world, @Nonnull String ownerId) {
+        return supply(world, () -> registry.listShops(ownerId));
+    }
+
+    @Nonnull
+    public CompletableFuture<Void> clearTraderUuid(@Nonnull World world, @Nonnull String ownerId, @Nonnull String name) {
+        return onWorld(world, registry.clearTraderUuidAsync(ownerId, name));
+    }
+
+    @Nonnull
+    public CompletableFuture<Trade> addTrade(
+        @Nonnull World world,
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return onWorld(world, registry.addTradeAsync(ownerId, shopName, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Nonnull
+    public CompletableFuture<Void> updateTrade(
+        @Nonnull World world,
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        int tradeId,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return onWorld(world, registry.updateTradeAsync(ownerId, shopName, tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Nonnull
+    public CompletableFuture<Void> removeTrade(@Nonnull World world, @Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
+        return onWorld(world, registry.removeTradeAsync(ownerId, shopName, tradeId));
+    }
+
+    /**
+     * Runs {@code call} against the registry on a virtual thread and completes on {@code world}.
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> supply(@Nonnull World world, @Nonnull Supplier<T> call) {
+        return onWorld(world, submit(call));
+    }
+
+    /**
+     * Runs {@code call} on a virtual thread, completing on that thread.
+     */
+    @Nonnull
+    <T> CompletableFuture<T> submit(@Nonnull Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Shop storage is closed."));
+        }
+    }
+
+    /**
+     * Waits for in-flight calls to finish; new calls fail once this returns.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.atWarning().log("Shop storage calls still running after %d seconds", CLOSE_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> CompletableFuture<T> onWorld(World world, CompletableFuture<T> source) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        source.whenComplete((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            try {
+                world.execute(() -> {
+                    if (cause != null) {
+                        result.completeExceptionally(cause);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // World is shutting down; nobody is left to call back
+                result.completeExceptionally(cause != null ? cause : e);
+            }
+        });
+        return result;
+    }
+}
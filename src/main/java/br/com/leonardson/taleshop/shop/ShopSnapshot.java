@@ -0,0 +1,223 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.annotation.Nonnull;
+
+import br.com.leonardson.taleshop.shop.trade.ItemIds;
+import br.com.leonardson.taleshop.shop.trade.Trade;
+
+/**
+ * Compact binary file holding every shop, read at startup instead of parsing JSON.
+ * <p>
+ * Layout, all big endian:
+ * <pre>
+ * int magic, short version, short reserved, int stringCount, int shopCount
+ * stringCount x (int byteLength, UTF-8 bytes)
+ * shopCount x (int recordLength, record)
+ * int crc32 of everything above
+ * </pre>
+ * A record is {@code int ownerId, int ownerName, int name, int traderUuid, int tradeCount}
+ * followed by {@code tradeCount x (int id, int inputItem, int inputQuantity, int outputItem,
+ * int outputQuantity)} and {@code int nextTradeId}, which older files lack. Every string, item
+ * ids included, is an index into the string table, so each distinct id is stored and decoded
+ * once however many trades use it. Readers skip record bytes they do not know, so later versions
+ * can append fields to a record.
+ * <p>
+ * The file is read through a {@link MappedByteBuffer} and shops are built straight from it,
+ * without an intermediate object graph. It is written to a temp file, synced, and moved into
+ * place, and the directory is synced after the move, so a crash leaves the old or the new file
+ * but never a partial one.
+ */
+public final class ShopSnapshot {
+    private static final int MAGIC = 0x54535331; // "TSS1"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int TRADE_BYTES = 20;
+
+    private ShopSnapshot() {
+    }
+
+    /**
+     * Feeds every shop in {@code file} to {@code consumer} and returns how many there were.
+     *
+     * @throws IOException if the file cannot be read, is not a snapshot, or fails its checksum
+     */
+    public static int read(@Nonnull Path file, @Nonnull Consumer<Shop> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 4 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a shop snapshot: " + file.getFileName());
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a shop snapshot: " + file.getFileName());
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new IOException("Unsupported shop snapshot version " + buffer.getShort(4));
+            }
+            int bodyEnd = (int) size - 4;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, bodyEnd));
+            if ((int) crc.getValue() != buffer.getInt(bodyEnd)) {
+                throw new IOException("Shop snapshot checksum mismatch: " + file.getFileName());
+            }
+
+            try {
+                return readBody(buffer.limit(bodyEnd).position(8), consumer);
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt shop snapshot: " + file.getFileName(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code shops} to {@code file}, replacing it atomically and durably.
+     */
+    public static void write(@Nonnull Path file, @Nonnull Collection<Shop> shops) throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Shop shop : shops) {
+            intern(indexes, strings, shop.ownerId());
+            intern(indexes, strings, shop.ownerName());
+            intern(indexes, strings, shop.name());
+            intern(indexes, strings, shop.traderUuid());
+            for (Trade trade : shop.trades()) {
+                intern(indexes, strings, trade.inputItemId());
+                intern(indexes, strings, trade.outputItemId());
+            }
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeInt(strings.size());
+            out.writeInt(shops.size());
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (Shop shop : shops) {
+                out.writeInt(24 + shop.trades().size() * TRADE_BYTES);
+                out.writeInt(indexOf(indexes, shop.ownerId()));
+                out.writeInt(indexOf(indexes, shop.ownerName()));
+                out.writeInt(indexOf(indexes, shop.name()));
+                out.writeInt(indexOf(indexes, shop.traderUuid()));
+                out.writeInt(shop.trades().size());
+                for (Trade trade : shop.trades()) {
+                    out.writeInt(trade.id());
+                    out.writeInt(indexOf(indexes, trade.inputItemId()));
+                    out.writeInt(trade.inputQuantity());
+                    out.writeInt(indexOf(indexes, trade.outputItemId()));
+                    out.writeInt(trade.outputQuantity());
+                }
+                out.writeInt(shop.nextTradeId());
+            }
+            out.flush();
+            int crc = (int) checked.getChecksum().getValue();
+            out.writeInt(crc);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Makes a rename in {@code directory} durable. Not every platform can open a directory
+     * (Windows cannot), and there the rename is left to the file system.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private static int readBody(ByteBuffer buffer, Consumer<Shop> consumer) {
+        int stringCount = buffer.getInt();
+        int shopCount = buffer.getInt();
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            int length = buffer.getInt();
+            strings[i] = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+            buffer.position(buffer.position() + length);
+        }
+        // Item handles, resolved the first time a string is used as an item id
+        int[] handles = new int[stringCount];
+        Arrays.fill(handles, -1);
+
+        for (int s = 0; s < shopCount; s++) {
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            String ownerId = strings[buffer.getInt()];
+            String ownerName = strings[buffer.getInt()];
+            String name = strings[buffer.getInt()];
+            String traderUuid = strings[buffer.getInt()];
+            int tradeCount = buffer.getInt();
+            List<Trade> trades = new ArrayList<>(tradeCount);
+            for (int t = 0; t < tradeCount; t++) {
+                trades.add(new Trade(
+                    buffer.getInt(),
+                    itemHandle(strings, handles, buffer.getInt()),
+                    buffer.getInt(),
+                    itemHandle(strings, handles, buffer.getInt()),
+                    buffer.getInt()
+                ));
+            }
+            // Written since ids stopped being reused; without it the highest trade id decides
+            int nextTradeId = buffer.position() + 4 <= end ? buffer.getInt() : 1;
+            buffer.position(end);
+            consumer.accept(new Shop(ownerId, ownerName, name, trades, traderUuid, nextTradeId));
+        }
+        return shopCount;
+    }
+
+    private static int itemHandle(String[] strings, int[] handles, int index) {
+        int handle = handles[index];
+        if (handle < 0) {
+            handle = ItemIds.handle(strings[index]);
+            handles[index] = handle;
+        }
+        return handle;
+    }
+
+    private static int indexOf(Map<String, Integer> indexes, String value) {
+        return indexes.get(value == null ? "" : value);
+    }
+
+    private static void intern(Map<String, Integer> indexes, List<String> strings, String value) {
+        String key = value == null ? "" : value;
+        if (!indexes.containsKey(key)) {
+            indexes.put(key, strings.size());
+            strings.add(key);
+        }
+    }
+}
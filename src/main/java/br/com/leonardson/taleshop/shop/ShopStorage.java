@@ -4,7 +4,11 @@ import br.com.leonardson.taleshop.shop.trade.Trade;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public interface ShopStorage {
     @Nonnull
@@ -25,15 +29,61 @@ public interface ShopStorage {
 
     void clearTraderUuid(@Nonnull String ownerId, @Nonnull String name);
 
+    /**
+     * Clears the shop's trader only if it still is {@code expectedUuid}, checking and clearing
+     * as one write so a trader linked in between is kept.
+     *
+     * @return whether the trader was cleared; false also when the shop is gone
+     */
+    boolean clearTraderUuidIfMatches(@Nonnull String ownerId, @Nonnull String name, @Nonnull String expectedUuid);
+
     @Nonnull
     List<Shop> listShops(@Nonnull String ownerId);
 
     @Nonnull
     List<Shop> listAllShops();
 
+    /**
+     * The shops of {@code ownerId} sorted by name, as summaries that leave the trades out.
+     */
+    @Nonnull
+    List<ShopSummary> listShopSummaries(@Nonnull String ownerId);
+
+    /**
+     * One page of {@link #listShopSummaries(String)}: at most {@code limit} shops whose names
+     * sort after {@code afterName} (ignoring case), or the first page when it is null. Pass the
+     * last name of a page to get the next one.
+     */
+    @Nonnull
+    List<ShopSummary> listShopSummaries(@Nonnull String ownerId, @Nullable String afterName, int limit);
+
+    @Nonnull
+    List<ShopSummary> listAllShopSummaries();
+
+    /**
+     * At most {@code limit} of the shop's trades in id order, skipping the first {@code offset},
+     * for pages that show a slice of a large shop. The default loads the whole shop.
+     *
+     * @throws IllegalArgumentException if the shop does not exist
+     */
+    @Nonnull
+    default TradePage listTrades(@Nonnull String ownerId, @Nonnull String shopName, int offset, int limit) {
+        List<Trade> trades = getShop(ownerId, shopName).trades();
+        int from = Math.min(Math.max(0, offset), trades.size());
+        return new TradePage(trades.subList(from, Math.min(from + Math.max(0, limit), trades.size())), trades.size());
+    }
+
     @Nullable
     Shop findShopByTraderUuid(@Nonnull String traderUuid);
 
+    int countShops();
+
+    /**
+     * Feeds every shop to {@code consumer}, in no particular order, without building a list of
+     * all of them first.
+     */
+    void forEachShop(@Nonnull Consumer<Shop> consumer);
+
     @Nonnull
     Trade addTrade(
         @Nonnull String ownerId,
@@ -56,5 +106,102 @@ public interface ShopStorage {
 
     void removeTrade(@Nonnull String ownerId, @Nonnull String shopName, int tradeId);
 
+    /*
+     * Async variants of the mutations. Backends with a write queue complete them once the write
+     * is durable and may commit several together; the defaults just run the blocking call.
+     */
+
+    /**
+     * Whether the async mutations hand the write to a queue of their own. When they don't, they
+     * block the calling thread, so callers on a world thread should run them elsewhere.
+     */
+    default boolean queuesWrites() {
+        return false;
+    }
+
+    @Nonnull
+    default CompletableFuture<Void> setTraderUuidAsync(@Nonnull String ownerId, @Nonnull String name, @Nonnull String traderUuid) {
+        return completed(() -> {
+            setTraderUuid(ownerId, name, traderUuid);
+            return null;
+        });
+    }
+
+    @Nonnull
+    default CompletableFuture<Void> clearTraderUuidAsync(@Nonnull String ownerId, @Nonnull String name) {
+        return completed(() -> {
+            clearTraderUuid(ownerId, name);
+            return null;
+        });
+    }
+
+    @Nonnull
+    default CompletableFuture<Trade> addTradeAsync(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return completed(() -> addTrade(ownerId, shopName, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Nonnull
+    default CompletableFuture<Void> updateTradeAsync(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        int tradeId,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return completed(() -> {
+            updateTrade(ownerId, shopName, tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity);
+            return null;
+        });
+    }
+
+    @Nonnull
+    default CompletableFuture<Void> removeTradeAsync(@Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
+        return completed(() -> {
+            removeTrade(ownerId, shopName, tradeId);
+            return null;
+        });
+    }
+
+    /**
+     * Writes a consistent copy of every shop to {@code target} while the storage stays in use.
+     */
+    void backup(@Nonnull Path target);
+
+    /**
+     * Starts filling this storage with shops copied from another one. The storage must be empty
+     * and not yet in use.
+     */
+    @Nonnull
+    BulkLoad bulkLoad();
+
     void close();
+
+    interface BulkLoad {
+        /**
+         * Adds {@code shop} as it is, keeping its trade ids and trader.
+         */
+        void add(@Nonnull Shop shop);
+
+        /**
+         * Makes every added shop durable.
+         */
+        void finish();
+    }
+
+    private static <T> CompletableFuture<T> completed(Supplier<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package br.com.leonardson.taleshop.shop;
+
+/**
+ * What shop lists show about a shop: its name, how many trades it has and its trader, without
+ * loading the trades themselves.
+ */
+public record ShopSummary(String ownerId, String name, int tradeCount, String traderUuid) {
+    public ShopSummary {
+        traderUuid = traderUuid == null ? "" : traderUuid;
+    }
+
+    public boolean hasTrader() {
+        return !traderUuid.isBlank();
+    }
+}
@@ -0,0 +1,297 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Brings a {@code shops.db} up to {@link #LATEST_VERSION}, tracked in {@code PRAGMA user_version}.
+ * <p>
+ * A database that is already current costs one pragma read. A new database gets the latest
+ * schema directly. Older ones run each pending step in order, and the version is bumped after
+ * each step. Every step can be re-run, so a crash part way through a step just repeats it on
+ * the next start. Large tables are copied in {@value #COPY_BATCH}-row chunks, each committed on
+ * its own, with progress logged, so an upgrade never holds one huge transaction open.
+ * <p>
+ * To change the schema, update {@link #createLatestSchema()} and append a step that gets an
+ * existing database to the same shape.
+ */
+final class SqliteMigrations {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    static final int LATEST_VERSION = 4;
+    static final int COPY_BATCH = 5_000;
+
+    private final Connection connection;
+    private final List<Migration> migrations = List.of(
+        new Migration(1, "add shop display names", this::addDisplayNameColumn),
+        new Migration(2, "key shops by integer id", this::migrateToIntegerShopIds),
+        new Migration(3, "track the next trade id per shop", this::addNextTradeIdColumn),
+        new Migration(4, "advance the next trade id on insert", this::addNextTradeIdTrigger)
+    );
+
+    SqliteMigrations(@Nonnull Connection connection) {
+        this.connection = connection;
+    }
+
+    void run() throws SQLException {
+        int version = readUserVersion();
+        if (version >= LATEST_VERSION) {
+            return;
+        }
+        if (version == 0 && !tableExists("shops")) {
+            createLatestSchema();
+            writeUserVersion(LATEST_VERSION);
+            return;
+        }
+
+        for (Migration migration : migrations) {
+            if (migration.version() <= version) {
+                continue;
+            }
+            LOGGER.atInfo().log("Upgrading shop database to v%d: %s", migration.version(), migration.description());
+            long startedAt = System.nanoTime();
+            migration.step().apply();
+            writeUserVersion(migration.version());
+            LOGGER.atInfo().log("Shop database is at v%d (%d ms)", migration.version(), (System.nanoTime() - startedAt) / 1_000_000);
+        }
+    }
+
+    /**
+     * Shops get an integer id and trades hang off it, so trade rows carry no text key and
+     * renaming a shop touches only its own row. {@code next_trade_id} only ever grows, so a
+     * removed trade's id is not given to a new one; a trigger moves it past every inserted trade,
+     * so adding a trade is a single insert.
+     */
+    private void createLatestSchema() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS shops (" +
+                "    id INTEGER PRIMARY KEY," +
+                "    owner_id TEXT NOT NULL," +
+                "    name TEXT NOT NULL," +
+                "    display_name TEXT NOT NULL," +
+                "    owner_name TEXT NOT NULL," +
+                "    trader_uuid TEXT," +
+                "    next_trade_id INTEGER NOT NULL DEFAULT 1," +
+                "    UNIQUE (owner_id, name)" +
+                ")"
+            );
+
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS trades (" +
+                "    shop_id INTEGER NOT NULL REFERENCES shops(id) ON DELETE CASCADE," +
+                "    trade_id INTEGER NOT NULL," +
+                "    input_item_id TEXT NOT NULL," +
+                "    input_quantity INTEGER NOT NULL," +
+                "    output_item_id TEXT NOT NULL," +
+                "    output_quantity INTEGER NOT NULL," +
+                "    PRIMARY KEY (shop_id, trade_id)" +
+                ") WITHOUT ROWID"
+            );
+
+            stmt.execute(
+                "CREATE INDEX IF NOT EXISTS idx_shops_trader_uuid ON shops(trader_uuid)"
+            );
+        }
+        createNextTradeIdTrigger();
+    }
+
+    /**
+     * Only writes the shop row when the new trade id reaches its high-water mark, so bulk loads
+     * that set {@code next_trade_id} up front pay a lookup per trade, not an update.
+     */
+    private void createNextTradeIdTrigger() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(
+                "CREATE TRIGGER IF NOT EXISTS trg_trades_next_trade_id AFTER INSERT ON trades " +
+                "WHEN NEW.trade_id >= (SELECT next_trade_id FROM shops WHERE id = NEW.shop_id) " +
+                "BEGIN " +
+                "    UPDATE shops SET next_trade_id = NEW.trade_id + 1 WHERE id = NEW.shop_id; " +
+                "END"
+            );
+        }
+    }
+
+    /**
+     * v1: the earliest databases had no display name column.
+     */
+    private void addDisplayNameColumn() throws SQLException {
+        if (columnExists("shops", "display_name")) {
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE shops ADD COLUMN display_name TEXT");
+            stmt.execute("UPDATE shops SET display_name = name WHERE display_name IS NULL");
+        }
+    }
+
+    /**
+     * v2: rebuilds the tables keyed by (owner_id, name) text into {@link #createLatestSchema()}.
+     * The old tables are renamed aside, shops are copied in one go, trades in chunks by rowid,
+     * and the old tables are dropped last. Each phase checks what a previous attempt left behind.
+     */
+    private void migrateToIntegerShopIds() throws SQLException {
+        if (!tableExists("trades_v1")) {
+            if (!columnExists("trades", "owner_id")) {
+                // Already on the new layout
+                return;
+            }
+            inTransaction(() -> {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("DROP INDEX IF EXISTS idx_shops_trader_uuid");
+                    stmt.execute("ALTER TABLE trades RENAME TO trades_v1");
+                    stmt.execute("ALTER TABLE shops RENAME TO shops_v1");
+                    createLatestSchema();
+                    stmt.executeUpdate(
+                        "INSERT INTO shops (owner_id, name, display_name, owner_name, trader_uuid) " +
+                        "SELECT owner_id, name, COALESCE(display_name, name), owner_name, trader_uuid FROM shops_v1"
+                    );
+                }
+            });
+        }
+
+        long total = count("trades_v1");
+        long copied = 0;
+        long cursor = 0;
+        String copySql =
+            "INSERT OR IGNORE INTO trades (shop_id, trade_id, input_item_id, input_quantity, output_item_id, output_quantity) " +
+            "SELECT s.id, t.trade_id, t.input_item_id, t.input_quantity, t.output_item_id, t.output_quantity " +
+            "FROM trades_v1 t JOIN shops s ON s.owner_id = t.owner_id AND s.name = t.shop_name " +
+            "WHERE t.rowid > ? AND t.rowid <= ?";
+        while (true) {
+            long from = cursor;
+            long to = nextChunkEnd(from);
+            if (to <= from) {
+                break;
+            }
+            inTransaction(() -> {
+                try (PreparedStatement pstmt = connection.prepareStatement(copySql)) {
+                    pstmt.setLong(1, from);
+                    pstmt.setLong(2, to);
+                    pstmt.executeUpdate();
+                }
+            });
+            copied = Math.min(total, copied + COPY_BATCH);
+            cursor = to;
+            if (total > COPY_BATCH) {
+                LOGGER.atInfo().log("Copied %d/%d trades", copied, total);
+            }
+        }
+
+        inTransaction(() -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE trades_v1");
+                stmt.execute("DROP TABLE shops_v1");
+            }
+        });
+    }
+
+    /**
+     * v3: trade ids used to be one past the highest remaining trade, so the id of a removed
+     * newest trade came back. Starts every shop's high-water mark there.
+     */
+    private void addNextTradeIdColumn() throws SQLException {
+        inTransaction(() -> {
+            try (Statement stmt = connection.createStatement()) {
+                if (!columnExists("shops", "next_trade_id")) {
+                    stmt.execute("ALTER TABLE shops ADD COLUMN next_trade_id INTEGER NOT NULL DEFAULT 1");
+                }
+                stmt.executeUpdate(
+                    "UPDATE shops SET next_trade_id = MAX(next_trade_id, " +
+                    "(SELECT COALESCE(MAX(t.trade_id), 0) + 1 FROM trades t WHERE t.shop_id = shops.id))"
+                );
+            }
+        });
+    }
+
+    /**
+     * v4: adding a trade used to claim the id with an update on the shop and then insert the
+     * trade; the trigger lets the insert do both.
+     */
+    private void addNextTradeIdTrigger() throws SQLException {
+        inTransaction(this::createNextTradeIdTrigger);
+    }
+
+    /**
+     * Rowid of the last row in the next chunk of {@code trades_v1} after {@code afterRowid}.
+     */
+    private long nextChunkEnd(long afterRowid) throws SQLException {
+        String sql = "SELECT MAX(r) FROM (SELECT rowid AS r FROM trades_v1 WHERE rowid > ? ORDER BY rowid LIMIT ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, afterRowid);
+            pstmt.setInt(2, COPY_BATCH);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : afterRowid;
+            }
+        }
+    }
+
+    private void inTransaction(Step body) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            body.apply();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            pstmt.setString(1, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private boolean columnExists(String table, String column) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long count(String table) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private int readUserVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void writeUserVersion(int version) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA user_version = " + version);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void apply() throws SQLException;
+    }
+
+    private record Migration(int version, String description, Step step) {
+    }
+}
@@ -1,6 +1,10 @@
 package br.com.leonardson.taleshop.shop;
 
 import br.com.leonardson.taleshop.shop.trade.Trade;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -8,6 +12,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -19,91 +24,55 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class SqliteShopStorage implements ShopStorage {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String SHOPS_WITH_TRADES =
+        "SELECT s.id AS shop_id, s.owner_id, s.name, s.display_name, s.owner_name, s.trader_uuid, s.next_trade_id, " +
+        "t.trade_id, t.input_item_id, t.input_quantity, t.output_item_id, t.output_quantity " +
+        "FROM shops s LEFT JOIN trades t ON t.shop_id = s.id";
+    // Counts each shop's trades off the (shop_id, trade_id) primary key without reading the rows
+    private static final String SHOP_SUMMARIES =
+        "SELECT s.owner_id, s.name, s.display_name, s.trader_uuid, " +
+        "(SELECT COUNT(*) FROM trades t WHERE t.shop_id = s.id) AS trade_count " +
+        "FROM shops s";
+    private static final int BULK_LOAD_BATCH = 1_000;
+
     private final Path dataDirectory;
     private final Path databaseFile;
+    private final String databaseUrl;
     private Connection connection;
+    private SqliteWriteQueue writeQueue;
 
     public SqliteShopStorage(@Nonnull Path dataDirectory) {
         this.dataDirectory = dataDirectory;
         this.databaseFile = dataDirectory.resolve("shops.db");
+        this.databaseUrl = "jdbc:sqlite:" + databaseFile.toAbsolutePath();
         initializeDatabase();
         migrateFromPropertiesIfNeeded();
+        this.writeQueue = new SqliteWriteQueue(connection, this);
     }
 
     private void initializeDatabase() {
         try {
             Files.createDirectories(dataDirectory);
-            String url = "jdbc:sqlite:" + databaseFile.toAbsolutePath();
-            connection = DriverManager.getConnection(url);
+            connection = DriverManager.getConnection(databaseUrl);
 
             try (Statement stmt = connection.createStatement()) {
                 stmt.execute("PRAGMA foreign_keys = ON");
+                // Readers such as backup() see a snapshot instead of blocking the writer
+                stmt.execute("PRAGMA journal_mode = WAL");
             }
 
-            createTables();
-            ensureDisplayNameColumn();
+            new SqliteMigrations(connection).run();
         } catch (IOException | SQLException e) {
             throw new RuntimeException("Failed to initialize database", e);
         }
     }
 
-    private void createTables() throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(
-                "CREATE TABLE IF NOT EXISTS shops (" +
-                "    owner_id TEXT NOT NULL," +
-                "    name TEXT NOT NULL," +
-                "    display_name TEXT NOT NULL," +
-                "    owner_name TEXT NOT NULL," +
-                "    trader_uuid TEXT," +
-                "    PRIMARY KEY (owner_id, name)" +
-                ")"
-            );
-
-            stmt.execute(
-                "CREATE TABLE IF NOT EXISTS trades (" +
-                "    id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "    owner_id TEXT NOT NULL," +
-                "    shop_name TEXT NOT NULL," +
-                "    trade_id INTEGER NOT NULL," +
-                "    input_item_id TEXT NOT NULL," +
-                "    input_quantity INTEGER NOT NULL," +
-                "    output_item_id TEXT NOT NULL," +
-                "    output_quantity INTEGER NOT NULL," +
-                "    FOREIGN KEY (owner_id, shop_name) REFERENCES shops(owner_id, name) ON DELETE CASCADE," +
-                "    UNIQUE (owner_id, shop_name, trade_id)" +
-                ")"
-            );
-
-            stmt.execute(
-                "CREATE INDEX IF NOT EXISTS idx_shops_trader_uuid ON shops(trader_uuid)"
-            );
-        }
-    }
-
-    private void ensureDisplayNameColumn() throws SQLException {
-        boolean hasDisplayName = false;
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery("PRAGMA table_info(shops)")) {
-            while (rs.next()) {
-                String columnName = rs.getString("name");
-                if ("display_name".equalsIgnoreCase(columnName)) {
-                    hasDisplayName = true;
-                    break;
-                }
-            }
-        }
-
-        if (!hasDisplayName) {
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute("ALTER TABLE shops ADD COLUMN display_name TEXT");
-                stmt.execute("UPDATE shops SET display_name = name WHERE display_name IS NULL");
-            }
-        }
-    }
-
     private void migrateFromPropertiesIfNeeded() {
         Path propertiesFile = dataDirectory.resolve("shops.properties");
         if (!Files.exists(propertiesFile)) {
@@ -196,23 +165,32 @@ public class SqliteShopStorage implements ShopStorage {
     }
 
     private void addTradeInternal(String ownerId, String shopName, int tradeId, String inputItemId, int inputQty, String outputItemId, int outputQty) throws SQLException {
-        String sql = "INSERT OR IGNORE INTO trades (owner_id, shop_name, trade_id, input_item_id, input_quantity, output_item_id, output_quantity) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT OR IGNORE INTO trades (shop_id, trade_id, input_item_id, input_quantity, output_item_id, output_quantity) " +
+                     "SELECT id, ?, ?, ?, ?, ? FROM shops WHERE owner_id = ? AND name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, ownerId);
-            pstmt.setString(2, normalizeName(shopName));
-            pstmt.setInt(3, tradeId);
-            pstmt.setString(4, inputItemId);
-            pstmt.setInt(5, inputQty);
-            pstmt.setString(6, outputItemId);
-            pstmt.setInt(7, outputQty);
+            pstmt.setInt(1, tradeId);
+            pstmt.setString(2, inputItemId);
+            pstmt.setInt(3, inputQty);
+            pstmt.setString(4, outputItemId);
+            pstmt.setInt(5, outputQty);
+            pstmt.setString(6, ownerId);
+            pstmt.setString(7, normalizeName(shopName));
             pstmt.executeUpdate();
         }
     }
 
     @Nonnull
     @Override
-    public synchronized Shop createShop(@Nonnull String ownerId, @Nonnull String ownerName, @Nonnull String name) {
+    public Shop createShop(@Nonnull String ownerId, @Nonnull String ownerName, @Nonnull String name) {
+        return await(createShopAsync(ownerId, ownerName, name));
+    }
+
+    @Nonnull
+    public CompletableFuture<Shop> createShopAsync(@Nonnull String ownerId, @Nonnull String ownerName, @Nonnull String name) {
+        return writeQueue.submit(() -> doCreateShop(ownerId, ownerName, name));
+    }
+
+    private Shop doCreateShop(String ownerId, String ownerName, String name) {
         if (ownerId.isBlank()) {
             throw new IllegalArgumentException("Owner id is required.");
         }
@@ -223,28 +201,25 @@ public class SqliteShopStorage implements ShopStorage {
 
         String normalizedName = normalizeName(trimmedName);
 
-        String checkSql = "SELECT 1 FROM shops WHERE owner_id = ? AND name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(checkSql)) {
-            pstmt.setString(1, ownerId);
-            pstmt.setString(2, normalizedName);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return getShop(ownerId, trimmedName);
-                }
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to check shop existence", e);
-        }
-
-        String sql = "INSERT INTO shops (owner_id, name, display_name, owner_name, trader_uuid) VALUES (?, ?, ?, ?, NULL)";
+        // Creating a shop that already exists returns it; the no-op update makes RETURNING
+        // hand back the existing row instead of nothing
+        String sql = "INSERT INTO shops (owner_id, name, display_name, owner_name, trader_uuid) VALUES (?, ?, ?, ?, NULL) " +
+                     "ON CONFLICT (owner_id, name) DO UPDATE SET owner_name = shops.owner_name " +
+                     "RETURNING id, display_name, owner_name, trader_uuid, next_trade_id, " +
+                     "(SELECT COUNT(*) FROM trades WHERE trades.shop_id = shops.id) AS trade_count";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, ownerId);
             pstmt.setString(2, normalizedName);
             pstmt.setString(3, trimmedName);
             pstmt.setString(4, ownerName);
-            pstmt.executeUpdate();
-
-            return new Shop(ownerId, ownerName, trimmedName, List.of(), "");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                String displayName = rs.getString("display_name");
+                String traderUuid = rs.getString("trader_uuid");
+                int nextTradeId = rs.getInt("next_trade_id");
+                List<Trade> trades = rs.getInt("trade_count") == 0 ? List.of() : loadTrades(rs.getLong("id"));
+                return new Shop(ownerId, rs.getString("owner_name"), displayName == null ? normalizedName : displayName, trades, traderUuid == null ? "" : traderUuid, nextTradeId);
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create shop", e);
         }
@@ -252,7 +227,16 @@ public class SqliteShopStorage implements ShopStorage {
 
     @Nonnull
     @Override
-    public synchronized Shop renameShop(@Nonnull String ownerId, @Nonnull String currentName, @Nonnull String newName) {
+    public Shop renameShop(@Nonnull String ownerId, @Nonnull String currentName, @Nonnull String newName) {
+        return await(renameShopAsync(ownerId, currentName, newName));
+    }
+
+    @Nonnull
+    public CompletableFuture<Shop> renameShopAsync(@Nonnull String ownerId, @Nonnull String currentName, @Nonnull String newName) {
+        return writeQueue.submit(() -> doRenameShop(ownerId, currentName, newName));
+    }
+
+    private Shop doRenameShop(String ownerId, String currentName, String newName) {
         String trimmedCurrent = currentName.trim();
         String trimmedNew = newName.trim();
         if (trimmedCurrent.isBlank() || trimmedNew.isBlank()) {
@@ -262,40 +246,44 @@ public class SqliteShopStorage implements ShopStorage {
         String currentKey = normalizeName(trimmedCurrent);
         String newKey = normalizeName(trimmedNew);
 
-        if (!currentKey.equals(newKey)) {
-            String checkSql = "SELECT 1 FROM shops WHERE owner_id = ? AND name = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(checkSql)) {
-                pstmt.setString(1, ownerId);
-                pstmt.setString(2, newKey);
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        throw new IllegalArgumentException("You already have a shop named '" + trimmedNew + "'.");
-                    }
-                }
-            } catch (SQLException e) {
-                throw new RuntimeException("Failed to check shop name", e);
-            }
-        }
-
-        String sql = "UPDATE shops SET name = ?, display_name = ? WHERE owner_id = ? AND name = ?";
+        // The primary key rejects a name the owner already uses, so there is no separate check
+        String sql = "UPDATE shops SET name = ?, display_name = ? WHERE owner_id = ? AND name = ? " +
+                     "RETURNING id, owner_name, trader_uuid, next_trade_id";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, newKey);
             pstmt.setString(2, trimmedNew);
             pstmt.setString(3, ownerId);
             pstmt.setString(4, currentKey);
-            int updated = pstmt.executeUpdate();
-            if (updated == 0) {
-                throw new IllegalArgumentException("Shop not found: " + currentName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalArgumentException("Shop not found: " + currentName);
+                }
+                String traderUuid = rs.getString("trader_uuid");
+                int nextTradeId = rs.getInt("next_trade_id");
+                return new Shop(ownerId, rs.getString("owner_name"), trimmedNew, loadTrades(rs.getLong("id")), traderUuid == null ? "" : traderUuid, nextTradeId);
             }
-
-            return getShop(ownerId, newKey);
         } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                throw new IllegalArgumentException("You already have a shop named '" + trimmedNew + "'.");
+            }
             throw new RuntimeException("Failed to rename shop", e);
         }
     }
 
     @Override
-    public synchronized void deleteShop(@Nonnull String ownerId, @Nonnull String name) {
+    public void deleteShop(@Nonnull String ownerId, @Nonnull String name) {
+        await(deleteShopAsync(ownerId, name));
+    }
+
+    @Nonnull
+    public CompletableFuture<Void> deleteShopAsync(@Nonnull String ownerId, @Nonnull String name) {
+        return writeQueue.submit(() -> {
+            doDeleteShop(ownerId, name);
+            return null;
+        });
+    }
+
+    private void doDeleteShop(String ownerId, String name) {
         String sql = "DELETE FROM shops WHERE owner_id = ? AND name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, ownerId);
@@ -313,7 +301,7 @@ public class SqliteShopStorage implements ShopStorage {
     @Override
     public synchronized Shop getShop(@Nonnull String ownerId, @Nonnull String name) {
         String nameKey = normalizeName(name);
-        String sql = "SELECT owner_name, trader_uuid, display_name FROM shops WHERE owner_id = ? AND name = ?";
+        String sql = "SELECT id, owner_name, trader_uuid, display_name, next_trade_id FROM shops WHERE owner_id = ? AND name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, ownerId);
             pstmt.setString(2, nameKey);
@@ -325,10 +313,11 @@ public class SqliteShopStorage implements ShopStorage {
                 String ownerName = rs.getString("owner_name");
                 String traderUuid = rs.getString("trader_uuid");
                 String displayName = rs.getString("display_name");
+                int nextTradeId = rs.getInt("next_trade_id");
 
-                List<Trade> trades = loadTrades(ownerId, nameKey);
+                List<Trade> trades = loadTrades(rs.getLong("id"));
 
-                return new Shop(ownerId, ownerName, displayName == null ? nameKey : displayName, trades, traderUuid == null ? "" : traderUuid);
+                return new Shop(ownerId, ownerName, displayName == null ? nameKey : displayName, trades, traderUuid == null ? "" : traderUuid, nextTradeId);
             }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to get shop", e);
@@ -355,10 +344,28 @@ public class SqliteShopStorage implements ShopStorage {
     }
 
     @Override
-    public synchronized void setTraderUuid(@Nonnull String ownerId, @Nonnull String name, @Nonnull String traderUuid) {
+    public void setTraderUuid(@Nonnull String ownerId, @Nonnull String name, @Nonnull String traderUuid) {
+        await(setTraderUuidAsync(ownerId, name, traderUuid));
+    }
+
+    @Override
+    public boolean queuesWrites() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> setTraderUuidAsync(@Nonnull String ownerId, @Nonnull String name, @Nonnull String traderUuid) {
         if (traderUuid.isBlank()) {
-            throw new IllegalArgumentException("Trader uuid is required.");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Trader uuid is required."));
         }
+        return writeQueue.submit(() -> {
+            doSetTraderUuid(ownerId, name, traderUuid);
+            return null;
+        });
+    }
+
+    private void doSetTraderUuid(String ownerId, String name, String traderUuid) {
 
         String sql = "UPDATE shops SET trader_uuid = ? WHERE owner_id = ? AND name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -375,7 +382,20 @@ public class SqliteShopStorage implements ShopStorage {
     }
 
     @Override
-    public synchronized void clearTraderUuid(@Nonnull String ownerId, @Nonnull String name) {
+    public void clearTraderUuid(@Nonnull String ownerId, @Nonnull String name) {
+        await(clearTraderUuidAsync(ownerId, name));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> clearTraderUuidAsync(@Nonnull String ownerId, @Nonnull String name) {
+        return writeQueue.submit(() -> {
+            doClearTraderUuid(ownerId, name);
+            return null;
+        });
+    }
+
+    private void doClearTraderUuid(String ownerId, String name) {
         String sql = "UPDATE shops SET trader_uuid = NULL WHERE owner_id = ? AND name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, ownerId);
@@ -389,59 +409,178 @@ public class SqliteShopStorage implements ShopStorage {
         }
     }
 
+    @Override
+    public boolean clearTraderUuidIfMatches(@Nonnull String ownerId, @Nonnull String name, @Nonnull String expectedUuid) {
+        return await(writeQueue.submit(() -> doClearTraderUuidIfMatches(ownerId, name, expectedUuid)));
+    }
+
+    private boolean doClearTraderUuidIfMatches(String ownerId, String name, String expectedUuid) {
+        String sql = "UPDATE shops SET trader_uuid = NULL WHERE owner_id = ? AND name = ? AND trader_uuid = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, ownerId);
+            pstmt.setString(2, normalizeName(name));
+            pstmt.setString(3, expectedUuid);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to clear trader UUID", e);
+        }
+    }
+
     @Nonnull
     @Override
     public synchronized List<Shop> listShops(@Nonnull String ownerId) {
-        List<Shop> shops = new ArrayList<>();
-        String sql = "SELECT name, display_name, owner_name, trader_uuid FROM shops WHERE owner_id = ?";
+        String sql = SHOPS_WITH_TRADES + " WHERE s.owner_id = ? ORDER BY s.id, t.trade_id";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, ownerId);
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    String name = rs.getString("name");
-                    String displayName = rs.getString("display_name");
-                    String ownerName = rs.getString("owner_name");
-                    String traderUuid = rs.getString("trader_uuid");
-
-                    List<Trade> trades = loadTrades(ownerId, name);
-
-                    shops.add(new Shop(ownerId, ownerName, displayName == null ? name : displayName, trades, traderUuid == null ? "" : traderUuid));
-                }
+                return readShops(rs);
             }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to list shops", e);
         }
-
-        shops.sort(Comparator.comparing(Shop::name, String.CASE_INSENSITIVE_ORDER));
-        return shops;
     }
 
     @Nonnull
     @Override
     public synchronized List<Shop> listAllShops() {
-        List<Shop> shops = new ArrayList<>();
-        String sql = "SELECT owner_id, name, display_name, owner_name, trader_uuid FROM shops";
+        String sql = SHOPS_WITH_TRADES + " ORDER BY s.id, t.trade_id";
         try (Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                String ownerId = rs.getString("owner_id");
-                String name = rs.getString("name");
-                String displayName = rs.getString("display_name");
-                String ownerName = rs.getString("owner_name");
-                String traderUuid = rs.getString("trader_uuid");
+            return readShops(rs);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to list all shops", e);
+        }
+    }
 
-                List<Trade> trades = loadTrades(ownerId, name);
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listShopSummaries(@Nonnull String ownerId) {
+        try (PreparedStatement pstmt = connection.prepareStatement(SHOP_SUMMARIES + " WHERE s.owner_id = ? ORDER BY s.name")) {
+            pstmt.setString(1, ownerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return readSummaries(rs);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to list shops", e);
+        }
+    }
 
-                shops.add(new Shop(ownerId, ownerName, displayName == null ? name : displayName, trades, traderUuid == null ? "" : traderUuid));
+    /**
+     * Seeks past {@code afterName} in the {@code (owner_id, name)} unique index, so a page costs
+     * the same however deep into the list it is.
+     */
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listShopSummaries(@Nonnull String ownerId, @Nullable String afterName, int limit) {
+        String sql = SHOP_SUMMARIES + " WHERE s.owner_id = ? AND s.name > ? ORDER BY s.name LIMIT ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, ownerId);
+            pstmt.setString(2, afterName == null ? "" : normalizeName(afterName));
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return readSummaries(rs);
             }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to list shops", e);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<ShopSummary> listAllShopSummaries() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(SHOP_SUMMARIES + " ORDER BY s.name")) {
+            return readSummaries(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to list all shops", e);
         }
+    }
+
+    private static List<ShopSummary> readSummaries(ResultSet rs) throws SQLException {
+        List<ShopSummary> summaries = new ArrayList<>();
+        while (rs.next()) {
+            String displayName = rs.getString("display_name");
+            summaries.add(new ShopSummary(
+                rs.getString("owner_id"),
+                displayName == null ? rs.getString("name") : displayName,
+                rs.getInt("trade_count"),
+                rs.getString("trader_uuid")
+            ));
+        }
+        return summaries;
+    }
+
+    @Override
+    public synchronized int countShops() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM shops")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to count shops", e);
+        }
+    }
+
+    /**
+     * Streams the shops off one query, holding a single shop's rows at a time.
+     */
+    @Override
+    public synchronized void forEachShop(@Nonnull Consumer<Shop> consumer) {
+        String sql = SHOPS_WITH_TRADES + " ORDER BY s.id, t.trade_id";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            foldShops(rs, consumer);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to read shops", e);
+        }
+    }
 
+    /**
+     * Folds the rows of a {@link #SHOPS_WITH_TRADES} query, ordered by shop id, into shops
+     * sorted by name.
+     */
+    private static List<Shop> readShops(ResultSet rs) throws SQLException {
+        List<Shop> shops = new ArrayList<>();
+        foldShops(rs, shops::add);
         shops.sort(Comparator.comparing(Shop::name, String.CASE_INSENSITIVE_ORDER));
         return shops;
     }
 
+    private static void foldShops(ResultSet rs, Consumer<Shop> consumer) throws SQLException {
+        long currentId = -1;
+        String ownerId = null;
+        String ownerName = null;
+        String displayName = null;
+        String traderUuid = null;
+        int nextTradeId = 1;
+        List<Trade> trades = null;
+        while (rs.next()) {
+            long shopId = rs.getLong("shop_id");
+            if (shopId != currentId) {
+                if (trades != null) {
+                    consumer.accept(new Shop(ownerId, ownerName, displayName, trades, traderUuid, nextTradeId));
+                }
+                currentId = shopId;
+                ownerId = rs.getString("owner_id");
+                ownerName = rs.getString("owner_name");
+                String name = rs.getString("name");
+                displayName = rs.getString("display_name");
+                displayName = displayName == null ? name : displayName;
+                traderUuid = rs.getString("trader_uuid");
+                traderUuid = traderUuid == null ? "" : traderUuid;
+                nextTradeId = rs.getInt("next_trade_id");
+                trades = new ArrayList<>();
+            }
+            int tradeId = rs.getInt("trade_id");
+            if (!rs.wasNull()) {
+                trades.add(new Trade(tradeId, rs.getString("input_item_id"), rs.getInt("input_quantity"),
+                    rs.getString("output_item_id"), rs.getInt("output_quantity")));
+            }
+        }
+        if (trades != null) {
+            consumer.accept(new Shop(ownerId, ownerName, displayName, trades, traderUuid, nextTradeId));
+        }
+    }
+
     @Nullable
     @Override
     public synchronized Shop findShopByTraderUuid(@Nonnull String traderUuid) {
@@ -449,7 +588,7 @@ public class SqliteShopStorage implements ShopStorage {
             return null;
         }
 
-        String sql = "SELECT owner_id, name, display_name, owner_name FROM shops WHERE trader_uuid = ?";
+        String sql = "SELECT id, owner_id, name, display_name, owner_name, next_trade_id FROM shops WHERE trader_uuid = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, traderUuid);
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -461,10 +600,11 @@ public class SqliteShopStorage implements ShopStorage {
                 String name = rs.getString("name");
                 String displayName = rs.getString("display_name");
                 String ownerName = rs.getString("owner_name");
+                int nextTradeId = rs.getInt("next_trade_id");
 
-                List<Trade> trades = loadTrades(ownerId, name);
+                List<Trade> trades = loadTrades(rs.getLong("id"));
 
-                return new Shop(ownerId, ownerName, displayName == null ? name : displayName, trades, traderUuid);
+                return new Shop(ownerId, ownerName, displayName == null ? name : displayName, trades, traderUuid, nextTradeId);
             }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to find shop by trader UUID", e);
@@ -473,7 +613,20 @@ public class SqliteShopStorage implements ShopStorage {
 
     @Nonnull
     @Override
-    public synchronized Trade addTrade(
+    public Trade addTrade(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return await(addTradeAsync(ownerId, shopName, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Trade> addTradeAsync(
         @Nonnull String ownerId,
         @Nonnull String shopName,
         @Nonnull String inputItemId,
@@ -481,6 +634,10 @@ public class SqliteShopStorage implements ShopStorage {
         @Nonnull String outputItemId,
         int outputQuantity
     ) {
+        return writeQueue.submit(() -> doAddTrade(ownerId, shopName, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    private Trade doAddTrade(String ownerId, String shopName, String inputItemId, int inputQuantity, String outputItemId, int outputQuantity) {
         validateItem(inputItemId, "Input item");
         validateItem(outputItemId, "Output item");
         validateQuantity(inputQuantity);
@@ -488,41 +645,41 @@ public class SqliteShopStorage implements ShopStorage {
 
         String normalizedName = normalizeName(shopName);
 
-        String countSql = "SELECT COUNT(*) FROM trades WHERE owner_id = ? AND shop_name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(countSql)) {
-            pstmt.setString(1, ownerId);
-            pstmt.setString(2, normalizedName);
+        // Takes the id off the shop's high-water mark and enforces the trade limit in the insert
+        // itself; no row comes back when the shop is missing or full. The trades trigger moves
+        // the high-water mark past the new id within the same statement.
+        String sql = "INSERT INTO trades (shop_id, trade_id, input_item_id, input_quantity, output_item_id, output_quantity) " +
+                     "SELECT s.id, MAX(s.next_trade_id, " +
+                     "    (SELECT COALESCE(MAX(t.trade_id), 0) + 1 FROM trades t WHERE t.shop_id = s.id)), ?, ?, ?, ? " +
+                     "FROM shops s WHERE s.owner_id = ? AND s.name = ? " +
+                     "    AND (SELECT COUNT(*) FROM trades t WHERE t.shop_id = s.id) < ? " +
+                     "RETURNING trade_id";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, inputItemId);
+            pstmt.setInt(2, inputQuantity);
+            pstmt.setString(3, outputItemId);
+            pstmt.setInt(4, outputQuantity);
+            pstmt.setString(5, ownerId);
+            pstmt.setString(6, normalizedName);
+            pstmt.setInt(7, ShopRegistry.MAX_TRADES);
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next() && rs.getInt(1) >= ShopRegistry.MAX_TRADES) {
-                    throw new IllegalArgumentException("Shop already has the maximum of " + ShopRegistry.MAX_TRADES + " trades.");
+                if (rs.next()) {
+                    return new Trade(rs.getInt("trade_id"), inputItemId, inputQuantity, outputItemId, outputQuantity);
                 }
             }
         } catch (SQLException e) {
-            throw new RuntimeException("Failed to check trade count", e);
+            throw new RuntimeException("Failed to add trade", e);
         }
 
-        int tradeId = getNextTradeId(ownerId, normalizedName);
-
-        String sql = "INSERT INTO trades (owner_id, shop_name, trade_id, input_item_id, input_quantity, output_item_id, output_quantity) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, ownerId);
-            pstmt.setString(2, normalizedName);
-            pstmt.setInt(3, tradeId);
-            pstmt.setString(4, inputItemId);
-            pstmt.setInt(5, inputQuantity);
-            pstmt.setString(6, outputItemId);
-            pstmt.setInt(7, outputQuantity);
-            pstmt.executeUpdate();
-
-            return new Trade(tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity);
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to add trade", e);
+        // Only the rejected path pays for a second query, to explain why
+        if (!shopExists(ownerId, normalizedName)) {
+            throw new IllegalArgumentException("Shop not found: " + shopName);
         }
+        throw new IllegalArgumentException("Shop already has the maximum of " + ShopRegistry.MAX_TRADES + " trades.");
     }
 
     @Override
-    public synchronized void updateTrade(
+    public void updateTrade(
         @Nonnull String ownerId,
         @Nonnull String shopName,
         int tradeId,
@@ -530,6 +687,35 @@ public class SqliteShopStorage implements ShopStorage {
         int inputQuantity,
         @Nonnull String outputItemId,
         int outputQuantity
+    ) {
+        await(updateTradeAsync(ownerId, shopName, tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> updateTradeAsync(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        int tradeId,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return writeQueue.submit(() -> {
+            doUpdateTrade(ownerId, shopName, tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity);
+            return null;
+        });
+    }
+
+    private void doUpdateTrade(
+        String ownerId,
+        String shopName,
+        int tradeId,
+        String inputItemId,
+        int inputQuantity,
+        String outputItemId,
+        int outputQuantity
     ) {
         validateItem(inputItemId, "Input item");
         validateItem(outputItemId, "Output item");
@@ -537,7 +723,7 @@ public class SqliteShopStorage implements ShopStorage {
         validateQuantity(outputQuantity);
 
         String sql = "UPDATE trades SET input_item_id = ?, input_quantity = ?, output_item_id = ?, output_quantity = ? " +
-                     "WHERE owner_id = ? AND shop_name = ? AND trade_id = ?";
+                     "WHERE shop_id = (SELECT id FROM shops WHERE owner_id = ? AND name = ?) AND trade_id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, inputItemId);
             pstmt.setInt(2, inputQuantity);
@@ -557,8 +743,21 @@ public class SqliteShopStorage implements ShopStorage {
     }
 
     @Override
-    public synchronized void removeTrade(@Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
-        String sql = "DELETE FROM trades WHERE owner_id = ? AND shop_name = ? AND trade_id = ?";
+    public void removeTrade(@Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
+        await(removeTradeAsync(ownerId, shopName, tradeId));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> removeTradeAsync(@Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
+        return writeQueue.submit(() -> {
+            doRemoveTrade(ownerId, shopName, tradeId);
+            return null;
+        });
+    }
+
+    private void doRemoveTrade(String ownerId, String shopName, int tradeId) {
+        String sql = "DELETE FROM trades WHERE shop_id = (SELECT id FROM shops WHERE owner_id = ? AND name = ?) AND trade_id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, ownerId);
             pstmt.setString(2, normalizeName(shopName));
@@ -573,13 +772,40 @@ public class SqliteShopStorage implements ShopStorage {
         }
     }
 
-    private List<Trade> loadTrades(String ownerId, String shopName) throws SQLException {
+    @Nonnull
+    @Override
+    public synchronized TradePage listTrades(@Nonnull String ownerId, @Nonnull String shopName, int offset, int limit) {
+        String sql = "SELECT s.id, (SELECT COUNT(*) FROM trades t WHERE t.shop_id = s.id) AS trade_count " +
+                     "FROM shops s WHERE s.owner_id = ? AND s.name = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, ownerId);
+            pstmt.setString(2, normalizeName(shopName));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalArgumentException("Shop not found: " + shopName);
+                }
+                return new TradePage(loadTrades(rs.getLong("id"), Math.max(0, offset), Math.max(0, limit)), rs.getInt("trade_count"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to list trades", e);
+        }
+    }
+
+    private List<Trade> loadTrades(long shopId) throws SQLException {
+        return loadTrades(shopId, 0, -1);
+    }
+
+    /**
+     * The shop's trades in id order; a negative {@code limit} means all of them.
+     */
+    private List<Trade> loadTrades(long shopId, int offset, int limit) throws SQLException {
         List<Trade> trades = new ArrayList<>();
         String sql = "SELECT trade_id, input_item_id, input_quantity, output_item_id, output_quantity " +
-                     "FROM trades WHERE owner_id = ? AND shop_name = ? ORDER BY trade_id";
+                     "FROM trades WHERE shop_id = ? ORDER BY trade_id LIMIT ? OFFSET ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, ownerId);
-            pstmt.setString(2, shopName);
+            pstmt.setLong(1, shopId);
+            pstmt.setInt(2, limit);
+            pstmt.setInt(3, offset);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     int tradeId = rs.getInt("trade_id");
@@ -595,19 +821,16 @@ public class SqliteShopStorage implements ShopStorage {
         return trades;
     }
 
-    private int getNextTradeId(String ownerId, String shopName) {
-        String sql = "SELECT COALESCE(MAX(trade_id), 0) + 1 FROM trades WHERE owner_id = ? AND shop_name = ?";
+    private boolean shopExists(String ownerId, String shopName) {
+        String sql = "SELECT 1 FROM shops WHERE owner_id = ? AND name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, ownerId);
             pstmt.setString(2, shopName);
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-                return 1;
+                return rs.next();
             }
         } catch (SQLException e) {
-            throw new RuntimeException("Failed to get next trade ID", e);
+            throw new RuntimeException("Failed to check shop existence", e);
         }
     }
 
@@ -623,12 +846,169 @@ public class SqliteShopStorage implements ShopStorage {
         }
     }
 
+    private static boolean isDuplicateKey(SQLException e) {
+        if (e instanceof SQLiteException sqliteException) {
+            SQLiteErrorCode code = sqliteException.getResultCode();
+            if (code == SQLiteErrorCode.SQLITE_CONSTRAINT_PRIMARYKEY || code == SQLiteErrorCode.SQLITE_CONSTRAINT_UNIQUE) {
+                return true;
+            }
+        }
+        String message = e.getMessage();
+        return message != null && message.contains("UNIQUE constraint failed");
+    }
+
     private static String normalizeName(String name) {
         return name.trim().toLowerCase(Locale.ROOT);
     }
 
+    /**
+     * Waits for a queued write, rethrowing its exception as if the write ran on this thread.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the database with {@code VACUUM INTO} on a second connection. In WAL mode that
+     * connection reads one consistent snapshot while the writer queue keeps committing.
+     */
     @Override
-    public synchronized void close() {
+    public void backup(@Nonnull Path target) {
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Files.deleteIfExists(tempFile);
+            // VACUUM INTO on its own connection is a single WAL read transaction, so the writer
+            // never waits on it. The page-stepping backup API restarts whenever another
+            // connection writes, which a busy shop database does between every step.
+            try (Connection backupConnection = DriverManager.getConnection(databaseUrl);
+                 PreparedStatement pstmt = backupConnection.prepareStatement("VACUUM INTO ?")) {
+                pstmt.setString(1, tempFile.toAbsolutePath().toString());
+                pstmt.execute();
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | SQLException e) {
+            throw new RuntimeException("Failed to back up shop database", e);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public BulkLoad bulkLoad() {
+        return new SqliteBulkLoad();
+    }
+
+    /**
+     * Inserts shops and their trades with two prepared statements, committing every
+     * {@value #BULK_LOAD_BATCH} shops so a large load neither runs one transaction per shop nor
+     * holds everything in one.
+     */
+    private final class SqliteBulkLoad implements BulkLoad {
+        private PreparedStatement insertShop;
+        private PreparedStatement insertTrade;
+        private int uncommitted;
+
+        @Override
+        public void add(@Nonnull Shop shop) {
+            synchronized (SqliteShopStorage.this) {
+                try {
+                    if (insertShop == null) {
+                        connection.setAutoCommit(false);
+                        insertShop = connection.prepareStatement(
+                            "INSERT INTO shops (owner_id, name, display_name, owner_name, trader_uuid, next_trade_id) VALUES (?, ?, ?, ?, ?, ?) RETURNING id");
+                        insertTrade = connection.prepareStatement(
+                            "INSERT INTO trades (shop_id, trade_id, input_item_id, input_quantity, output_item_id, output_quantity) VALUES (?, ?, ?, ?, ?, ?)");
+                    }
+                    insertShop.setString(1, shop.ownerId());
+                    insertShop.setString(2, normalizeName(shop.name()));
+                    insertShop.setString(3, shop.name().trim());
+                    insertShop.setString(4, shop.ownerName() == null ? "" : shop.ownerName());
+                    insertShop.setString(5, shop.traderUuid().isEmpty() ? null : shop.traderUuid());
+                    insertShop.setInt(6, shop.nextTradeId());
+                    long shopId;
+                    try (ResultSet rs = insertShop.executeQuery()) {
+                        rs.next();
+                        shopId = rs.getLong(1);
+                    }
+                    for (Trade trade : shop.trades()) {
+                        insertTrade.setLong(1, shopId);
+                        insertTrade.setInt(2, trade.id());
+                        insertTrade.setString(3, trade.inputItemId());
+                        insertTrade.setInt(4, trade.inputQuantity());
+                        insertTrade.setString(5, trade.outputItemId());
+                        insertTrade.setInt(6, trade.outputQuantity());
+                        insertTrade.addBatch();
+                    }
+                    if (++uncommitted >= BULK_LOAD_BATCH) {
+                        commit();
+                    }
+                } catch (SQLException e) {
+                    abort();
+                    throw new RuntimeException("Failed to import shop " + shop.name(), e);
+                }
+            }
+        }
+
+        @Override
+        public void finish() {
+            synchronized (SqliteShopStorage.this) {
+                if (insertShop == null) {
+                    return;
+                }
+                try {
+                    commit();
+                } catch (SQLException e) {
+                    abort();
+                    throw new RuntimeException("Failed to import shops", e);
+                }
+                closeStatements();
+            }
+        }
+
+        private void commit() throws SQLException {
+            insertTrade.executeBatch();
+            connection.commit();
+            uncommitted = 0;
+        }
+
+        private void abort() {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                LOGGER.atWarning().log("Failed to roll back shop import: %s", e.getMessage());
+            }
+            closeStatements();
+        }
+
+        private void closeStatements() {
+            try {
+                insertShop.close();
+                insertTrade.close();
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOGGER.atWarning().log("Failed to end shop import: %s", e.getMessage());
+            }
+            insertShop = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        // Let queued writes commit before the connection goes away
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        closeConnection();
+    }
+
+    private synchronized void closeConnection() {
         if (connection != null) {
             try {
                 connection.close();
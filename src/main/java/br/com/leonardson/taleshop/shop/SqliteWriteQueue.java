@@ -0,0 +1,205 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Single writer for {@link SqliteShopStorage}.
+ * <p>
+ * Mutations are queued and applied by one thread. Everything that queued up while the previous
+ * commit was running goes into the next transaction (up to {@value #MAX_BATCH} writes), so a
+ * burst of edits or a batch of trader spawns costs one commit and one fsync instead of one each.
+ * A lone write is committed straight away. Each write runs inside its own savepoint, so a write
+ * that fails (shop not found, trade limit) is rolled back on its own and only its future fails.
+ * <p>
+ * Writes run while holding {@code lock}, the storage monitor, so readers never see a batch half
+ * applied. Futures complete on a separate virtual thread, never on the writer, so a callback may
+ * make a blocking storage call without waiting on the thread that would serve it.
+ */
+final class SqliteWriteQueue implements AutoCloseable {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    static final int MAX_BATCH = 64;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final Connection connection;
+    private final Object lock;
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final ExecutorService completer;
+    private volatile boolean closed;
+    // Set under lock once close() gives up waiting; the writer then fails what it picks up
+    private boolean stopped;
+
+    SqliteWriteQueue(@Nonnull Connection connection, @Nonnull Object lock) {
+        this.connection = connection;
+        this.lock = lock;
+        this.completer = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("TaleShop-SQLite-Completion-", 0).factory());
+        this.writer = new Thread(this::run, "TaleShop-SQLite-Writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues {@code write}; the future completes once the transaction containing it commits.
+     * Runtime exceptions thrown by the write fail the future with that exception.
+     */
+    @Nonnull
+    <T> CompletableFuture<T> submit(@Nonnull Supplier<T> write) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        // Checked and added together, so close() never misses a write it did not refuse
+        synchronized (queue) {
+            if (closed) {
+                future.completeExceptionally(new IllegalStateException("Shop storage is closed."));
+                return future;
+            }
+            queue.add(new Pending<>(write, future));
+        }
+        return future;
+    }
+
+    /**
+     * Stops accepting writes and waits for the queued ones to commit. If they take longer than
+     * {@value #CLOSE_TIMEOUT_SECONDS} seconds, the commit in progress is still allowed to finish,
+     * but everything after it fails, so the connection can be closed once this returns.
+     */
+    @Override
+    public void close() {
+        synchronized (queue) {
+            closed = true;
+        }
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            LOGGER.atWarning().log("Shop writes still running after %d seconds; failing the rest", CLOSE_TIMEOUT_SECONDS);
+            // Waits for the commit in progress, which holds the lock
+            synchronized (lock) {
+                stopped = true;
+            }
+            List<Pending<?>> leftover = new ArrayList<>();
+            queue.drainTo(leftover);
+            for (Pending<?> pending : leftover) {
+                pending.future().completeExceptionally(new IllegalStateException("Shop storage is closed."));
+            }
+        }
+        completer.shutdown();
+    }
+
+    private void run() {
+        List<Pending<?>> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                if (closed) {
+                    Pending<?> next = queue.poll();
+                    if (next == null) {
+                        return;
+                    }
+                    batch.add(next);
+                } else {
+                    batch.add(queue.take());
+                }
+            } catch (InterruptedException e) {
+                // close() interrupts to wake us; drain what is left before exiting
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Pending<?>> batch) {
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        synchronized (lock) {
+            if (stopped) {
+                failAll(batch, new IllegalStateException("Shop storage is closed."));
+                return;
+            }
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                failAll(batch, new RuntimeException("Failed to begin shop transaction", e));
+                return;
+            }
+            try {
+                for (Pending<?> pending : batch) {
+                    completions.add(apply(pending));
+                }
+                connection.commit();
+            } catch (Throwable e) {
+                // Errors too (an OutOfMemoryError mid-batch): the writer must outlive any one batch
+                rollback();
+                failAll(batch, new RuntimeException("Failed to commit shop changes", e));
+                return;
+            } finally {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LOGGER.atWarning().log("Failed to restore autocommit: %s", e.getMessage());
+                }
+            }
+        }
+        // Complete outside the lock so callbacks can read the storage right away
+        complete(() -> completions.forEach(Runnable::run));
+    }
+
+    private <T> Runnable apply(Pending<T> pending) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            T result = pending.write().get();
+            connection.releaseSavepoint(savepoint);
+            return () -> pending.future().complete(result);
+        } catch (RuntimeException e) {
+            connection.rollback(savepoint);
+            connection.releaseSavepoint(savepoint);
+            return () -> pending.future().completeExceptionally(e);
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            LOGGER.atWarning().log("Failed to roll back shop transaction: %s", e.getMessage());
+        }
+    }
+
+    private void failAll(List<Pending<?>> batch, RuntimeException error) {
+        List<Pending<?>> failed = List.copyOf(batch);
+        complete(() -> {
+            for (Pending<?> pending : failed) {
+                pending.future().completeExceptionally(error);
+            }
+        });
+    }
+
+    private void complete(Runnable completions) {
+        try {
+            completer.execute(completions);
+        } catch (RejectedExecutionException e) {
+            // Only after close() gave up on the writer; nobody else is left to run them
+            completions.run();
+        }
+    }
+
+    private record Pending<T>(Supplier<T> write, CompletableFuture<T> future) {
+    }
+}
@@ -0,0 +1,267 @@
+package br.com.leonardson.taleshop.shop;
+
+import br.com.leonardson.taleshop.metrics.ShopMetrics;
+import br.com.leonardson.taleshop.metrics.Timer;
+import br.com.leonardson.taleshop.shop.trade.Trade;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Records the latency of every {@link ShopStorage} call as {@code storage.<method>}. Async calls
+ * are timed until their future completes and share the timer of the blocking call.
+ */
+public class TimedShopStorage implements ShopStorage {
+    private final ShopStorage delegate;
+    private final Timer createShop;
+    private final Timer renameShop;
+    private final Timer deleteShop;
+    private final Timer getShop;
+    private final Timer getTraderUuid;
+    private final Timer setTraderUuid;
+    private final Timer clearTraderUuid;
+    private final Timer listShops;
+    private final Timer listAllShops;
+    private final Timer listShopSummaries;
+    private final Timer listAllShopSummaries;
+    private final Timer findShopByTraderUuid;
+    private final Timer addTrade;
+    private final Timer updateTrade;
+    private final Timer removeTrade;
+
+    public TimedShopStorage(@Nonnull ShopStorage delegate, @Nonnull ShopMetrics metrics) {
+        this.delegate = delegate;
+        this.createShop = metrics.timer("storage.createShop");
+        this.renameShop = metrics.timer("storage.renameShop");
+        this.deleteShop = metrics.timer("storage.deleteShop");
+        this.getShop = metrics.timer("storage.getShop");
+        this.getTraderUuid = metrics.timer("storage.getTraderUuid");
+        this.setTraderUuid = metrics.timer("storage.setTraderUuid");
+        this.clearTraderUuid = metrics.timer("storage.clearTraderUuid");
+        this.listShops = metrics.timer("storage.listShops");
+        this.listAllShops = metrics.timer("storage.listAllShops");
+        this.listShopSummaries = metrics.timer("storage.listShopSummaries");
+        this.listAllShopSummaries = metrics.timer("storage.listAllShopSummaries");
+        this.findShopByTraderUuid = metrics.timer("storage.findShopByTraderUuid");
+        this.addTrade = metrics.timer("storage.addTrade");
+        this.updateTrade = metrics.timer("storage.updateTrade");
+        this.removeTrade = metrics.timer("storage.removeTrade");
+    }
+
+    @Nonnull
+    public ShopStorage getDelegate() {
+        return delegate;
+    }
+
+    @Nonnull
+    @Override
+    public Shop createShop(@Nonnull String ownerId, @Nonnull String ownerName, @Nonnull String name) {
+        return createShop.time(() -> delegate.createShop(ownerId, ownerName, name));
+    }
+
+    @Nonnull
+    @Override
+    public Shop renameShop(@Nonnull String ownerId, @Nonnull String currentName, @Nonnull String newName) {
+        return renameShop.time(() -> delegate.renameShop(ownerId, currentName, newName));
+    }
+
+    @Override
+    public void deleteShop(@Nonnull String ownerId, @Nonnull String name) {
+        deleteShop.time(() -> delegate.deleteShop(ownerId, name));
+    }
+
+    @Nonnull
+    @Override
+    public Shop getShop(@Nonnull String ownerId, @Nonnull String name) {
+        return getShop.time(() -> delegate.getShop(ownerId, name));
+    }
+
+    @Nonnull
+    @Override
+    public String getTraderUuid(@Nonnull String ownerId, @Nonnull String name) {
+        return getTraderUuid.time(() -> delegate.getTraderUuid(ownerId, name));
+    }
+
+    @Override
+    public void setTraderUuid(@Nonnull String ownerId, @Nonnull String name, @Nonnull String traderUuid) {
+        setTraderUuid.time(() -> delegate.setTraderUuid(ownerId, name, traderUuid));
+    }
+
+    @Override
+    public void clearTraderUuid(@Nonnull String ownerId, @Nonnull String name) {
+        clearTraderUuid.time(() -> delegate.clearTraderUuid(ownerId, name));
+    }
+
+    @Override
+    public boolean clearTraderUuidIfMatches(@Nonnull String ownerId, @Nonnull String name, @Nonnull String expectedUuid) {
+        return clearTraderUuid.time(() -> delegate.clearTraderUuidIfMatches(ownerId, name, expectedUuid));
+    }
+
+    @Nonnull
+    @Override
+    public List<Shop> listShops(@Nonnull String ownerId) {
+        return listShops.time(() -> delegate.listShops(ownerId));
+    }
+
+    @Nonnull
+    @Override
+    public List<Shop> listAllShops() {
+        return listAllShops.time(delegate::listAllShops);
+    }
+
+    @Nonnull
+    @Override
+    public List<ShopSummary> listShopSummaries(@Nonnull String ownerId) {
+        return listShopSummaries.time(() -> delegate.listShopSummaries(ownerId));
+    }
+
+    @Nonnull
+    @Override
+    public List<ShopSummary> listShopSummaries(@Nonnull String ownerId, @Nullable String afterName, int limit) {
+        return listShopSummaries.time(() -> delegate.listShopSummaries(ownerId, afterName, limit));
+    }
+
+    @Nonnull
+    @Override
+    public List<ShopSummary> listAllShopSummaries() {
+        return listAllShopSummaries.time(delegate::listAllShopSummaries);
+    }
+
+    @Nonnull
+    @Override
+    public TradePage listTrades(@Nonnull String ownerId, @Nonnull String shopName, int offset, int limit) {
+        return getShop.time(() -> delegate.listTrades(ownerId, shopName, offset, limit));
+    }
+
+    @Nullable
+    @Override
+    public Shop findShopByTraderUuid(@Nonnull String traderUuid) {
+        return findShopByTraderUuid.time(() -> delegate.findShopByTraderUuid(traderUuid));
+    }
+
+    @Nonnull
+    @Override
+    public Trade addTrade(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return addTrade.time(() -> delegate.addTrade(ownerId, shopName, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Override
+    public void updateTrade(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        int tradeId,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        updateTrade.time(() -> delegate.updateTrade(ownerId, shopName, tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Override
+    public void removeTrade(@Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
+        removeTrade.time(() -> delegate.removeTrade(ownerId, shopName, tradeId));
+    }
+
+    @Override
+    public boolean queuesWrites() {
+        return delegate.queuesWrites();
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> setTraderUuidAsync(@Nonnull String ownerId, @Nonnull String name, @Nonnull String traderUuid) {
+        return timed(setTraderUuid, () -> delegate.setTraderUuidAsync(ownerId, name, traderUuid));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> clearTraderUuidAsync(@Nonnull String ownerId, @Nonnull String name) {
+        return timed(clearTraderUuid, () -> delegate.clearTraderUuidAsync(ownerId, name));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Trade> addTradeAsync(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return timed(addTrade, () -> delegate.addTradeAsync(ownerId, shopName, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> updateTradeAsync(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        int tradeId,
+        @Nonnull String inputItemId,
+        int inputQuantity,
+        @Nonnull String outputItemId,
+        int outputQuantity
+    ) {
+        return timed(updateTrade, () -> delegate.updateTradeAsync(ownerId, shopName, tradeId, inputItemId, inputQuantity, outputItemId, outputQuantity));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> removeTradeAsync(@Nonnull String ownerId, @Nonnull String shopName, int tradeId) {
+        return timed(removeTrade, () -> delegate.removeTradeAsync(ownerId, shopName, tradeId));
+    }
+
+    @Override
+    public int countShops() {
+        return delegate.countShops();
+    }
+
+    @Override
+    public void forEachShop(@Nonnull Consumer<Shop> consumer) {
+        delegate.forEachShop(consumer);
+    }
+
+    @Override
+    public void backup(@Nonnull Path target) {
+        delegate.backup(target);
+    }
+
+    @Nonnull
+    @Override
+    public BulkLoad bulkLoad() {
+        return delegate.bulkLoad();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static <T> CompletableFuture<T> timed(Timer timer, Supplier<CompletableFuture<T>> call) {
+        // Started before the call: backends without a write queue do all the work inside it
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            timer.recordSince(start);
+            throw e;
+        }
+        future.whenComplete((result, error) -> timer.recordSince(start));
+        return future;
+    }
+}
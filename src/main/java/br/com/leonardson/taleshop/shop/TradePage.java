@@ -0,0 +1,15 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.util.List;
+
+import br.com.leonardson.taleshop.shop.trade.Trade;
+
+/**
+ * One page of a shop's trades in id order, with how many trades the shop has in total so a
+ * pager can be drawn without loading the other pages.
+ */
+public record TradePage(List<Trade> trades, int tradeCount) {
+    public TradePage {
+        trades = List.copyOf(trades);
+    }
+}
@@ -0,0 +1,342 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.entity.Frozen;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.npc.entities.NPCEntity;
+
+/**
+ * Component types and handles needed to turn an NPC into a stationary, invulnerable trader.
+ * <p>
+ * The optional components (movement states, step, invulnerability) are not part of the public
+ * API, so they are discovered by class name. That discovery runs once from the plugin's
+ * {@code setup()}; spawning or loading a trader afterwards only uses the cached handles.
+ */
+public final class TraderComponentProfile {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final String MOVEMENT_STATES_COMPONENT = "com.hypixel.hytale.server.core.entity.movement.MovementStatesComponent";
+    private static final String STEP_COMPONENT = "com.hypixel.hytale.server.npc.components.StepComponent";
+    private static final String[] INVULNERABLE_COMPONENTS = new String[] {
+            "com.hypixel.hytale.server.core.modules.entity.component.Invulnerable",
+            "com.hypixel.hytale.server.core.modules.entity.component.InvulnerableComponent",
+            "com.hypixel.hytale.server.core.modules.entity.component.Invincibility",
+            "com.hypixel.hytale.server.core.modules.entity.component.Immortal",
+            "com.hypixel.hytale.server.core.modules.entity.component.ImmortalComponent"
+    };
+    private static final String[] INVULNERABLE_SETTERS = new String[] {
+            "setInvulnerable", "setInvincible", "setImmortal"
+    };
+    private static final String[] DAMAGEABLE_SETTERS = new String[] {
+            "setDamageable", "setCanBeDamaged"
+    };
+    private static final String[] IDLE_FIELDS = new String[] {"idle", "horizontalIdle"};
+    private static final String[] MOVING_FIELDS = new String[] {
+            "walking", "running", "sprinting", "jumping", "falling", "flying", "climbing", "swimming"
+    };
+
+    private static volatile TraderComponentProfile instance;
+
+    @Nullable
+    private final ComponentType<?, ?> movementStatesType;
+    @Nullable
+    private final MethodHandle getMovementStates;
+    private final MethodHandle[] idleSetters;
+    private final MethodHandle[] movingSetters;
+    @Nullable
+    private final ComponentType<?, ?> stepType;
+    @Nullable
+    private final ComponentType<?, ?> invulnerableType;
+    // Cloned for each trader; an entity's components must not be shared with another entity
+    @Nullable
+    private final Component<?> invulnerablePrototype;
+    @Nullable
+    private final MethodHandle npcInvulnerableSetter;
+    private final boolean npcSetterValue;
+
+    private TraderComponentProfile(
+            @Nullable ComponentType<?, ?> movementStatesType,
+            @Nullable MethodHandle getMovementStates,
+            MethodHandle[] idleSetters,
+            MethodHandle[] movingSetters,
+            @Nullable ComponentType<?, ?> stepType,
+            @Nullable ComponentType<?, ?> invulnerableType,
+            @Nullable Component<?> invulnerablePrototype,
+            @Nullable MethodHandle npcInvulnerableSetter,
+            boolean npcSetterValue) {
+        this.movementStatesType = movementStatesType;
+        this.getMovementStates = getMovementStates;
+        this.idleSetters = idleSetters;
+        this.movingSetters = movingSetters;
+        this.stepType = stepType;
+        this.invulnerableType = invulnerableType;
+        this.invulnerablePrototype = invulnerablePrototype;
+        this.npcInvulnerableSetter = npcInvulnerableSetter;
+        this.npcSetterValue = npcSetterValue;
+    }
+
+    /**
+     * Discovers the trader components and caches them. Called once from the plugin setup.
+     */
+    @Nonnull
+    public static synchronized TraderComponentProfile resolve() {
+        TraderComponentProfile profile = discover();
+        instance = profile;
+        LOGGER.atInfo().log("Trader profile resolved (movement states: %s, step: %s, invulnerable: %s)",
+                profile.movementStatesType != null,
+                profile.stepType != null,
+                profile.npcInvulnerableSetter != null || profile.invulnerableType != null);
+        return profile;
+    }
+
+    @Nonnull
+    public static TraderComponentProfile get() {
+        TraderComponentProfile profile = instance;
+        return profile != null ? profile : resolve();
+    }
+
+    /**
+     * Applies the full trader profile (invulnerable and frozen) to a freshly spawned NPC.
+     */
+    public void apply(@Nullable NPCEntity npc, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref) {
+        applyInvulnerable(npc, store, ref);
+        applyFreeze(store, ref);
+    }
+
+    public void applyInvulnerable(@Nullable NPCEntity npc, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref) {
+        if (npc != null && npcInvulnerableSetter != null) {
+            try {
+                npcInvulnerableSetter.invokeExact((Object) npc, npcSetterValue);
+                return;
+            } catch (Throwable ignored) {
+                // fall back to the component
+            }
+        }
+        if (invulnerableType != null && invulnerablePrototype != null) {
+            Component<?> component = invulnerablePrototype.clone();
+            if (component != null) {
+                putComponent(store, ref, invulnerableType, component);
+            }
+        }
+    }
+
+    /**
+     * Applies all freeze-related components and states. Safe to call repeatedly.
+     */
+    public void applyFreeze(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref) {
+        // 1. Apply Frozen component
+        store.ensureComponent(ref, Frozen.getComponentType());
+
+        // 2. Set MovementStates to idle to stop the walking animation
+        applyIdleMovement(store, ref);
+
+        // 3. Remove StepComponent to prevent ticking when frozen
+        removeStepComponent(store, ref);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void applyIdleMovement(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref) {
+        if (movementStatesType == null || getMovementStates == null) {
+            return;
+        }
+        try {
+            Object component = store.getComponent(ref, (ComponentType) movementStatesType);
+            if (component == null) {
+                return;
+            }
+            Object movementStates = (Object) getMovementStates.invokeExact(component);
+            if (movementStates == null) {
+                return;
+            }
+            for (MethodHandle setter : idleSetters) {
+                setter.invokeExact(movementStates, true);
+            }
+            for (MethodHandle setter : movingSetters) {
+                setter.invokeExact(movementStates, false);
+            }
+        } catch (Throwable ignored) {
+            // If we can't set movement states, that's okay - the Frozen component should still work
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void removeStepComponent(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref) {
+        // The StepComponent allows frozen NPCs to still tick at a special rate
+        // Removing it ensures the NPC completely stops ticking and moving
+        if (stepType == null) {
+            return;
+        }
+        try {
+            store.removeComponentIfExists(ref, (ComponentType) stepType);
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void putComponent(Store<EntityStore> store, Ref<EntityStore> ref, ComponentType<?, ?> type, Component<?> component) {
+        try {
+            store.putComponent(ref, (ComponentType) type, (Component) component);
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    private static TraderComponentProfile discover() {
+        Class<?> movementStatesClass = tryLoadClass(MOVEMENT_STATES_COMPONENT);
+        ComponentType<?, ?> movementStatesType = loadComponentType(movementStatesClass);
+        MethodHandle getMovementStates = null;
+        MethodHandle[] idleSetters = new MethodHandle[0];
+        MethodHandle[] movingSetters = new MethodHandle[0];
+        if (movementStatesType != null) {
+            Method getter = findMethod(movementStatesClass, "getMovementStates");
+            getMovementStates = toHandle(getter, MethodType.methodType(Object.class, Object.class));
+            if (getter != null) {
+                idleSetters = booleanSetters(getter.getReturnType(), IDLE_FIELDS);
+                movingSetters = booleanSetters(getter.getReturnType(), MOVING_FIELDS);
+            }
+        }
+
+        ComponentType<?, ?> stepType = loadComponentType(tryLoadClass(STEP_COMPONENT));
+
+        ComponentType<?, ?> invulnerableType = null;
+        Component<?> invulnerablePrototype = null;
+        for (String className : INVULNERABLE_COMPONENTS) {
+            Class<?> componentClass = tryLoadClass(className);
+            ComponentType<?, ?> type = loadComponentType(componentClass);
+            Component<?> component = createComponentInstance(componentClass);
+            if (type != null && component != null) {
+                invulnerableType = type;
+                invulnerablePrototype = component;
+                break;
+            }
+        }
+
+        MethodHandle npcSetter = findBooleanSetter(NPCEntity.class, INVULNERABLE_SETTERS);
+        boolean npcSetterValue = true;
+        if (npcSetter == null) {
+            npcSetter = findBooleanSetter(NPCEntity.class, DAMAGEABLE_SETTERS);
+            npcSetterValue = false;
+        }
+
+        return new TraderComponentProfile(movementStatesType, getMovementStates, idleSetters, movingSetters,
+                stepType, invulnerableType, invulnerablePrototype, npcSetter, npcSetterValue);
+    }
+
+    @Nullable
+    private static Class<?> tryLoadClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException | LinkageError ignored) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static ComponentType<?, ?> loadComponentType(@Nullable Class<?> componentClass) {
+        if (componentClass == null) {
+            return null;
+        }
+        Method method = findMethod(componentClass, "getComponentType");
+        if (method == null) {
+            return null;
+        }
+        try {
+            method.setAccessible(true);
+            return method.invoke(null) instanceof ComponentType<?, ?> type ? type : null;
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Component<?> createComponentInstance(@Nullable Class<?> componentClass) {
+        if (componentClass == null) {
+            return null;
+        }
+        try {
+            try {
+                Object instance = componentClass.getField("INSTANCE").get(null);
+                if (instance instanceof Component<?> component) {
+                    return component;
+                }
+            } catch (NoSuchFieldException | IllegalAccessException ignored) {
+                // fall through
+            }
+            return componentClass.getDeclaredConstructor().newInstance() instanceof Component<?> component ? component : null;
+        } catch (ReflectiveOperationException ignored) {
+            return null;
+        }
+    }
+
+    private static MethodHandle[] booleanSetters(Class<?> type, String[] fieldNames) {
+        List<MethodHandle> setters = new ArrayList<>();
+        for (String fieldName : fieldNames) {
+            try {
+                Field field = type.getField(fieldName);
+                field.setAccessible(true);
+                setters.add(LOOKUP.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, boolean.class)));
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Field not found or can't be set
+            }
+        }
+        return setters.toArray(new MethodHandle[0]);
+    }
+
+    @Nullable
+    private static MethodHandle findBooleanSetter(Class<?> type, String[] methodNames) {
+        for (String methodName : methodNames) {
+            Method method = findMethod(type, methodName, boolean.class);
+            MethodHandle handle = toHandle(method, MethodType.methodType(void.class, Object.class, boolean.class));
+            if (handle != null) {
+                return handle;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static MethodHandle toHandle(@Nullable Method method, MethodType type) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflect(method);
+            if (method.getReturnType() != void.class && type.returnType() == void.class) {
+                handle = MethodHandles.dropReturn(handle);
+            }
+            return handle.asType(type);
+        } catch (IllegalAccessException | RuntimeException ignored) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Method findMethod(@Nullable Class<?> type, String name, Class<?>... parameterTypes) {
+        Class<?> current = type;
+        while (current != null) {
+            try {
+                return current.getDeclaredMethod(name, parameterTypes);
+            } catch (NoSuchMethodException ignored) {
+                current = current.getSuperclass();
+            }
+        }
+        return null;
+    }
+}
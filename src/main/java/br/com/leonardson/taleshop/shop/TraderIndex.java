@@ -0,0 +1,133 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * In-memory UUID to Ref index of the trader entities currently loaded in any world.
+ * Maintained by {@link TraderInteractableSystem} as traders load and unload, and used
+ * by {@link TraderReconciler} to tell unloaded traders apart from removed ones.
+ * <p>
+ * Removal markers are saved to {@code removed-traders.txt} by {@link #saveRemoved}, so a trader
+ * removed shortly before a restart is still cleared from its shop after it.
+ */
+public class TraderIndex {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String REMOVED_FILE = "removed-traders.txt";
+
+    private final Map<String, Entry> liveTraders = new ConcurrentHashMap<>();
+    private final Set<String> removedTraders = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean removedChanged = new AtomicBoolean();
+    private final Path removedFile;
+
+    public TraderIndex(@Nonnull Path dataDirectory) {
+        this.removedFile = dataDirectory.resolve(REMOVED_FILE);
+        loadRemoved();
+    }
+
+    public void track(@Nonnull String traderUuid, @Nonnull Ref<EntityStore> ref, @Nullable World world) {
+        liveTraders.put(traderUuid, new Entry(ref, world));
+        if (removedTraders.remove(traderUuid)) {
+            removedChanged.set(true);
+        }
+    }
+
+    /**
+     * Drops a trader from the live index.
+     *
+     * @param removed true when the entity was removed from the world, false when it was only unloaded
+     */
+    public void untrack(@Nonnull String traderUuid, boolean removed) {
+        if (liveTraders.remove(traderUuid) != null && removed && removedTraders.add(traderUuid)) {
+            removedChanged.set(true);
+        }
+    }
+
+    public boolean isTracked(@Nonnull String traderUuid) {
+        return liveTraders.containsKey(traderUuid);
+    }
+
+    @Nullable
+    public Entry find(@Nonnull String traderUuid) {
+        return liveTraders.get(traderUuid);
+    }
+
+    public boolean wasRemoved(@Nonnull String traderUuid) {
+        return removedTraders.contains(traderUuid);
+    }
+
+    public void forget(@Nonnull String traderUuid) {
+        if (removedTraders.remove(traderUuid)) {
+            removedChanged.set(true);
+        }
+    }
+
+    /**
+     * Discards removal markers for traders no shop references anymore.
+     */
+    public void retainRemoved(@Nonnull Collection<String> referencedUuids) {
+        if (removedTraders.retainAll(referencedUuids)) {
+            removedChanged.set(true);
+        }
+    }
+
+    public int size() {
+        return liveTraders.size();
+    }
+
+    /**
+     * Writes the removal markers to disk if they changed since the last save. Call off the world
+     * threads.
+     */
+    public synchronized void saveRemoved() throws IOException {
+        if (!removedChanged.getAndSet(false)) {
+            return;
+        }
+        List<String> lines = new ArrayList<>(removedTraders);
+        Path tempFile = removedFile.resolveSibling(REMOVED_FILE + ".tmp");
+        try {
+            Files.createDirectories(removedFile.getParent());
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, removedFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            removedChanged.set(true);
+            throw e;
+        }
+    }
+
+    private void loadRemoved() {
+        if (!Files.exists(removedFile)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(removedFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    removedTraders.add(line.trim());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to read %s: %s", REMOVED_FILE, e.getMessage());
+        }
+    }
+
+    public record Entry(@Nonnull Ref<EntityStore> ref, @Nullable World world) {
+    }
+}
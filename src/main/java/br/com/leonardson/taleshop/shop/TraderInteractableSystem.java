@@ -1,7 +1,5 @@
 package br.com.leonardson.taleshop.shop;
 
-import java.lang.reflect.Method;
-
 import javax.annotation.Nonnull;
 
 import com.hypixel.hytale.component.AddReason;
@@ -17,16 +15,22 @@ import com.hypixel.hytale.server.core.entity.Frozen;
 import com.hypixel.hytale.server.core.entity.UUIDComponent;
 import com.hypixel.hytale.server.core.modules.entity.component.Interactable;
 import com.hypixel.hytale.server.core.modules.interaction.Interactions;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import br.com.leonardson.taleshop.interaction.TraderMessageInteraction;
+import br.com.leonardson.taleshop.metrics.TickProfiler;
 
 public class TraderInteractableSystem extends RefSystem<EntityStore> {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     private final ShopRegistry shopRegistry;
+    private final TraderIndex traderIndex;
+    private final TickProfiler tickProfiler;
 
-    public TraderInteractableSystem(ShopRegistry shopRegistry) {
+    public TraderInteractableSystem(ShopRegistry shopRegistry, TraderIndex traderIndex, TickProfiler tickProfiler) {
         this.shopRegistry = shopRegistry;
+        this.traderIndex = traderIndex;
+        this.tickProfiler = tickProfiler;
     }
 
     @Nonnull
@@ -51,10 +55,16 @@ public class TraderInteractableSystem extends RefSystem<EntityStore> {
         if (uuidComponent == null) {
             return;
         }
-        Shop shop = shopRegistry.findShopByTraderUuid(uuidComponent.getUuid().toString());
+        long startedAt = System.nanoTime();
+        String traderUuid = uuidComponent.getUuid().toString();
+        Shop shop = shopRegistry.findShopByTraderUuid(traderUuid);
+        World world = store.getExternalData().getWorld();
         if (shop == null) {
+            // Every UUID entity pays for this lookup, so misses count against the tick budget too
+            tickProfiler.record(world, TickProfiler.Operation.TRADER_ADDED, null, null, startedAt);
             return;
         }
+        traderIndex.track(traderUuid, ref, world);
 
         commandBuffer.putComponent(ref, Interactable.getComponentType(), Interactable.INSTANCE);
         Interactions interactions = commandBuffer.getComponent(ref, Interactions.getComponentType());
@@ -66,8 +76,12 @@ public class TraderInteractableSystem extends RefSystem<EntityStore> {
         commandBuffer.putComponent(ref, Interactions.getComponentType(), interactions);
         
         // Apply freeze immediately when trader is added
-        applyTraderFreeze(ref, store, commandBuffer);
+        commandBuffer.ensureComponent(ref, Frozen.getComponentType());
+        TraderComponentProfile profile = TraderComponentProfile.get();
+        profile.applyIdleMovement(store, ref);
+        profile.removeStepComponent(store, ref);
         
+        tickProfiler.record(world, TickProfiler.Operation.TRADER_ADDED, shop.ownerId(), shop.name(), startedAt);
         LOGGER.atInfo().log("Bound trader interaction and freeze for shop %s (%s)", shop.name(), shop.traderUuid());
     }
 
@@ -77,184 +91,16 @@ public class TraderInteractableSystem extends RefSystem<EntityStore> {
             @Nonnull RemoveReason reason,
             @Nonnull Store<EntityStore> store,
             @Nonnull CommandBuffer<EntityStore> commandBuffer) {
-    }
-    
-    /**
-     * Applies all freeze-related components and states to a trader NPC.
-     */
-    private void applyTraderFreeze(Ref<EntityStore> ref, Store<EntityStore> store, CommandBuffer<EntityStore> commandBuffer) {
-        // 1. Apply Frozen component
-        commandBuffer.ensureComponent(ref, Frozen.getComponentType());
-        
-        // 2. Set MovementStates to idle
-        setIdleMovementState(store, ref);
-        
-        // 3. Remove StepComponent if it exists
-        removeStepComponent(store, ref);
-    }
-    
-    private static void setIdleMovementState(Store<EntityStore> entityStore, Ref<EntityStore> npcRef) {
-        try {
-            // Load the MovementStatesComponent class
-            Class<?> movementStatesComponentClass = Class.forName("com.hypixel.hytale.server.core.entity.movement.MovementStatesComponent");
-            Object componentType = tryLoadComponentType("com.hypixel.hytale.server.core.entity.movement.MovementStatesComponent");
-            
-            if (componentType == null) {
-                return;
-            }
-            
-            // Get the current MovementStatesComponent
-            Object movementStatesComponent = tryInvokeForResult(entityStore, "getComponent", npcRef, componentType);
-            if (movementStatesComponent == null) {
-                return;
-            }
-            
-            // Get the MovementStates object from the component
-            Method getMovementStatesMethod = findMethod(movementStatesComponentClass, "getMovementStates");
-            if (getMovementStatesMethod == null) {
-                return;
-            }
-            getMovementStatesMethod.setAccessible(true);
-            Object movementStates = getMovementStatesMethod.invoke(movementStatesComponent);
-            
-            if (movementStates == null) {
-                return;
-            }
-            
-            // Set all movement states to false except idle
-            Class<?> movementStatesClass = movementStates.getClass();
-            setField(movementStatesClass, movementStates, "idle", true);
-            setField(movementStatesClass, movementStates, "horizontalIdle", true);
-            setField(movementStatesClass, movementStates, "walking", false);
-            setField(movementStatesClass, movementStates, "running", false);
-            setField(movementStatesClass, movementStates, "sprinting", false);
-            setField(movementStatesClass, movementStates, "jumping", false);
-            setField(movementStatesClass, movementStates, "falling", false);
-            setField(movementStatesClass, movementStates, "flying", false);
-            setField(movementStatesClass, movementStates, "climbing", false);
-            setField(movementStatesClass, movementStates, "swimming", false);
-            
-        } catch (Exception ignored) {
-            // If we can't set movement states, that's okay
-        }
-    }
-    
-    private static void setField(Class<?> clazz, Object instance, String fieldName, boolean value) {
-        try {
-            java.lang.reflect.Field field = clazz.getField(fieldName);
-            field.setAccessible(true);
-            field.setBoolean(instance, value);
-        } catch (Exception ignored) {
-        }
-    }
-    
-    private static void removeStepComponent(Store<EntityStore> entityStore, Ref<EntityStore> npcRef) {
-        Object componentType = tryLoadComponentType("com.hypixel.hytale.server.npc.components.StepComponent");
-        if (componentType != null) {
-            tryInvoke(entityStore, "removeComponentIfExists", npcRef, componentType);
-            tryInvoke(entityStore, "tryRemoveComponent", npcRef, componentType);
-        }
-    }
-    
-    // Helper reflection methods
-    private static Object tryLoadComponentType(String className) {
-        try {
-            Class<?> componentClass = Class.forName(className);
-            Method method = findMethod(componentClass, "getComponentType");
-            if (method == null) {
-                return null;
-            }
-            method.setAccessible(true);
-            return method.invoke(null);
-        } catch (Exception ignored) {
-            return null;
-        }
-    }
-    
-    private static Object tryInvokeForResult(Object target, String methodName, Object... args) {
-        if (target == null) {
-            return null;
-        }
-        Method method = findMethodByArgs(target.getClass(), methodName, args);
-        if (method == null) {
-            return null;
-        }
-        try {
-            method.setAccessible(true);
-            return method.invoke(target, args);
-        } catch (Exception ignored) {
-            return null;
-        }
-    }
-    
-    private static boolean tryInvoke(Object target, String methodName, Object... args) {
-        if (target == null) {
-            return false;
-        }
-        Method method = findMethodByArgs(target.getClass(), methodName, args);
-        if (method == null) {
-            return false;
-        }
-        try {
-            method.setAccessible(true);
-            method.invoke(target, args);
-            return true;
-        } catch (Exception ignored) {
-            return false;
+        if (UUIDComponent.getComponentType() == null) {
+            return;
         }
-    }
-    
-    private static Method findMethodByArgs(Class<?> type, String name, Object... args) {
-        Class<?> current = type;
-        while (current != null) {
-            for (Method method : current.getDeclaredMethods()) {
-                if (!method.getName().equals(name)) {
-                    continue;
-                }
-                Class<?>[] params = method.getParameterTypes();
-                if (params.length != args.length) {
-                    continue;
-                }
-                boolean matches = true;
-                for (int i = 0; i < params.length; i++) {
-                    Object arg = args[i];
-                    if (arg == null) {
-                        continue;
-                    }
-                    if (!params[i].isAssignableFrom(arg.getClass()) && !(params[i].isPrimitive() && isWrapper(params[i], arg.getClass()))) {
-                        matches = false;
-                        break;
-                    }
-                }
-                if (matches) {
-                    return method;
-                }
-            }
-            current = current.getSuperclass();
+        UUIDComponent uuidComponent = commandBuffer.getComponent(ref, UUIDComponent.getComponentType());
+        if (uuidComponent == null) {
+            return;
         }
-        return null;
-    }
-    
-    private static boolean isWrapper(Class<?> primitiveType, Class<?> wrapperType) {
-        return (primitiveType == boolean.class && wrapperType == Boolean.class)
-                || (primitiveType == int.class && wrapperType == Integer.class)
-                || (primitiveType == long.class && wrapperType == Long.class)
-                || (primitiveType == double.class && wrapperType == Double.class)
-                || (primitiveType == float.class && wrapperType == Float.class)
-                || (primitiveType == short.class && wrapperType == Short.class)
-                || (primitiveType == byte.class && wrapperType == Byte.class)
-                || (primitiveType == char.class && wrapperType == Character.class);
-    }
-    
-    private static Method findMethod(Class<?> type, String name) {
-        Class<?> current = type;
-        while (current != null) {
-            try {
-                return current.getDeclaredMethod(name);
-            } catch (NoSuchMethodException ignored) {
-                current = current.getSuperclass();
-            }
+        String traderUuid = uuidComponent.getUuid().toString();
+        if (traderIndex.isTracked(traderUuid)) {
+            traderIndex.untrack(traderUuid, reason == RemoveReason.REMOVE);
         }
-        return null;
     }
 }
@@ -13,7 +13,6 @@ import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
 import com.hypixel.hytale.protocol.InteractionType;
 import com.hypixel.hytale.server.core.Message;
-import com.hypixel.hytale.server.core.entity.Frozen;
 import com.hypixel.hytale.server.core.entity.UUIDComponent;
 import com.hypixel.hytale.server.core.entity.nameplate.Nameplate;
 import com.hypixel.hytale.server.core.modules.entity.component.DisplayNameComponent;
@@ -47,6 +46,22 @@ public class TraderNpc {
     @Nonnull
     public void spawn(@Nonnull Store<EntityStore> store,
             @Nonnull Ref<EntityStore> ref) {
+        int roleIndex = resolveRoleIndex(role);
+
+        TransformComponent transformComponent = store.getComponent(ref, TransformComponent.getComponentType());
+        if (transformComponent == null) {
+            throw new IllegalStateException("Could not determine spawn position. Shop created without a trader.");
+        }
+
+        spawnAt(store, roleIndex,
+                new Vector3d(transformComponent.getPosition()),
+                new Vector3f(transformComponent.getRotation()));
+    }
+
+    /**
+     * Resolves the NPC role index for a role name. Safe to call off the world thread.
+     */
+    public static int resolveRoleIndex(@Nonnull String role) {
         NPCPlugin npcPlugin = NPCPlugin.get();
         if (npcPlugin == null) {
             throw new IllegalStateException("NPC system is not available.");
@@ -56,18 +71,20 @@ public class TraderNpc {
         if (roleIndex < 0) {
             throw new IllegalStateException("Klops merchant role not found: " + role);
         }
+        return roleIndex;
+    }
 
-        TransformComponent transformComponent = store.getComponent(ref, TransformComponent.getComponentType());
-        if (transformComponent == null) {
-            throw new IllegalStateException("Could not determine spawn position. Shop created without a trader.");
+    /**
+     * Spawns the trader with an already resolved role at the given position.
+     * Must run on the world thread that owns {@code store}.
+     */
+    public void spawnAt(@Nonnull Store<EntityStore> store, int roleIndex,
+            @Nonnull Vector3d spawnPosition, @Nonnull Vector3f spawnRotation) {
+        NPCPlugin npcPlugin = NPCPlugin.get();
+        if (npcPlugin == null) {
+            throw new IllegalStateException("NPC system is not available.");
         }
 
-        TransformComponent spawnTransform = new TransformComponent(
-                new Vector3d(transformComponent.getPosition()),
-                new Vector3f(transformComponent.getRotation()));
-        Vector3d spawnPosition = new Vector3d(spawnTransform.getPosition());
-        Vector3f spawnRotation = new Vector3f(spawnTransform.getRotation());
-
         Pair<Ref<EntityStore>, NPCEntity> npcPair = npcPlugin.spawnEntity(
                 store,
                 roleIndex,
@@ -81,8 +98,7 @@ public class TraderNpc {
                     entityStore.putComponent(npcRef, DisplayNameComponent.getComponentType(),
                             new DisplayNameComponent(Message.raw(traderName)));
                     applyInteractable(entityStore);
-                    applyInvulnerable(npc, entityStore, npcRef);
-                    applyFreeze(npc, entityStore, npcRef);
+                    TraderComponentProfile.get().apply(npc, entityStore, npcRef);
                 });
 
         if (npcPair == null || npcPair.first() == null || !npcPair.first().isValid()) {
@@ -205,105 +221,6 @@ public class TraderNpc {
                 || tryInvoke(npcPlugin, "deleteEntity", store, uuid);
     }
 
-    private static void applyInvulnerable(Object npc, Store<EntityStore> entityStore, Ref<EntityStore> npcRef) {
-        if (npc != null) {
-            if (tryInvoke(npc, "setInvulnerable", true)
-                    || tryInvoke(npc, "setInvincible", true)
-                    || tryInvoke(npc, "setImmortal", true)
-                    || tryInvoke(npc, "setDamageable", false)
-                    || tryInvoke(npc, "setCanBeDamaged", false)) {
-                return;
-            }
-        }
-
-        applyInvulnerableComponent(entityStore, npcRef);
-    }
-
-    private static void applyFreeze(Object npc, Store<EntityStore> entityStore, Ref<EntityStore> npcRef) {
-        applyFreezeInternal(entityStore, npcRef);
-    }
-    
-    /**
-     * Internal method that applies all freeze-related components and states.
-     * This method can be called repeatedly to ensure the NPC stays frozen.
-     */
-    private static void applyFreezeInternal(Store<EntityStore> entityStore, Ref<EntityStore> npcRef) {
-        // 1. Apply Frozen component
-        entityStore.ensureComponent(npcRef, Frozen.getComponentType());
-        
-        // 2. Set MovementStates to idle to stop the walking animation
-        setIdleMovementState(entityStore, npcRef);
-        
-        // 3. Remove StepComponent to prevent ticking when frozen
-        removeStepComponent(entityStore, npcRef);
-    }
-    
-    private static void setIdleMovementState(Store<EntityStore> entityStore, Ref<EntityStore> npcRef) {
-        try {
-            // Load the MovementStatesComponent class
-            Class<?> movementStatesComponentClass = Class.forName("com.hypixel.hytale.server.core.entity.movement.MovementStatesComponent");
-            Object componentType = tryLoadComponentType("com.hypixel.hytale.server.core.entity.movement.MovementStatesComponent");
-            
-            if (componentType == null) {
-                return;
-            }
-            
-            // Get the current MovementStatesComponent
-            Object movementStatesComponent = tryInvokeForResult(entityStore, "getComponent", npcRef, componentType);
-            if (movementStatesComponent == null) {
-                return;
-            }
-            
-            // Get the MovementStates object from the component
-            Method getMovementStatesMethod = findMethod(movementStatesComponentClass, "getMovementStates");
-            if (getMovementStatesMethod == null) {
-                return;
-            }
-            getMovementStatesMethod.setAccessible(true);
-            Object movementStates = getMovementStatesMethod.invoke(movementStatesComponent);
-            
-            if (movementStates == null) {
-                return;
-            }
-            
-            // Set all movement states to false except idle
-            Class<?> movementStatesClass = movementStates.getClass();
-            setField(movementStatesClass, movementStates, "idle", true);
-            setField(movementStatesClass, movementStates, "horizontalIdle", true);
-            setField(movementStatesClass, movementStates, "walking", false);
-            setField(movementStatesClass, movementStates, "running", false);
-            setField(movementStatesClass, movementStates, "sprinting", false);
-            setField(movementStatesClass, movementStates, "jumping", false);
-            setField(movementStatesClass, movementStates, "falling", false);
-            setField(movementStatesClass, movementStates, "flying", false);
-            setField(movementStatesClass, movementStates, "climbing", false);
-            setField(movementStatesClass, movementStates, "swimming", false);
-            
-        } catch (Exception ignored) {
-            // If we can't set movement states, that's okay - the Frozen component should still work
-        }
-    }
-    
-    private static void setField(Class<?> clazz, Object instance, String fieldName, boolean value) {
-        try {
-            java.lang.reflect.Field field = clazz.getField(fieldName);
-            field.setAccessible(true);
-            field.setBoolean(instance, value);
-        } catch (Exception ignored) {
-            // Field not found or can't be set
-        }
-    }
-    
-    private static void removeStepComponent(Store<EntityStore> entityStore, Ref<EntityStore> npcRef) {
-        // The StepComponent allows frozen NPCs to still tick at a special rate
-        // Removing it ensures the NPC completely stops ticking and moving
-        Object componentType = tryLoadComponentType("com.hypixel.hytale.server.npc.components.StepComponent");
-        if (componentType != null) {
-            tryInvoke(entityStore, "removeComponentIfExists", npcRef, componentType);
-            tryInvoke(entityStore, "tryRemoveComponent", npcRef, componentType);
-        }
-    }
-
     public void applyInteractable(Store<EntityStore> entityStore) {
         if (this.ref == null) {
             return;
@@ -324,29 +241,6 @@ public class TraderNpc {
         entityStore.putComponent(this.ref, Interactions.getComponentType(), interactions);
     }
 
-    private static void applyInvulnerableComponent(Store<EntityStore> entityStore, Ref<EntityStore> npcRef) {
-        String[] componentCandidates = new String[] {
-                "com.hypixel.hytale.server.core.modules.entity.component.Invulnerable",
-                "com.hypixel.hytale.server.core.modules.entity.component.InvulnerableComponent",
-                "com.hypixel.hytale.server.core.modules.entity.component.Invincibility",
-                "com.hypixel.hytale.server.core.modules.entity.component.Immortal",
-                "com.hypixel.hytale.server.core.modules.entity.component.ImmortalComponent"
-        };
-        for (String className : componentCandidates) {
-            Object componentType = tryLoadComponentType(className);
-            if (componentType == null) {
-                continue;
-            }
-            Object componentInstance = tryCreateComponentInstance(className);
-            if (componentInstance == null) {
-                continue;
-            }
-            if (tryPutComponent(entityStore, npcRef, componentType, componentInstance)) {
-                return;
-            }
-        }
-    }
-
     private static String resolveUuid(UUIDComponent uuidComponent) {
         Object value = invokeFirst(uuidComponent, "getUuid", "getUUID", "getUniqueId", "getId");
         if (value instanceof UUID uuid) {
@@ -417,42 +311,6 @@ public class TraderNpc {
                 || tryInvoke(entityStore, "destroyEntity", ref));
     }
 
-    private static Object tryLoadComponentType(String className) {
-        try {
-            Class<?> componentClass = Class.forName(className);
-            Method method = findMethod(componentClass, "getComponentType");
-            if (method == null) {
-                return null;
-            }
-            method.setAccessible(true);
-            return method.invoke(null);
-        } catch (ClassNotFoundException | IllegalAccessException | InvocationTargetException ignored) {
-            return null;
-        }
-    }
-
-    private static Object tryCreateComponentInstance(String className) {
-        try {
-            Class<?> componentClass = Class.forName(className);
-            try {
-                Object instance = componentClass.getField("INSTANCE").get(null);
-                if (instance != null) {
-                    return instance;
-                }
-            } catch (NoSuchFieldException | IllegalAccessException ignored) {
-                // fall through
-            }
-            return componentClass.getDeclaredConstructor().newInstance();
-        } catch (ReflectiveOperationException ignored) {
-            return null;
-        }
-    }
-
-    private static boolean tryPutComponent(Store<EntityStore> store, Ref<EntityStore> ref, Object componentType,
-            Object component) {
-        return tryInvoke(store, "putComponent", ref, componentType, component);
-    }
-
     private static Object tryInvokeForResult(Object target, String methodName, Object... args) {
         if (target == null) {
             return null;
@@ -0,0 +1,184 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Periodically checks every shop that references a trader against the {@link TraderIndex}.
+ * <p>
+ * The shop snapshot is taken off the world threads. Traders that are loaded are re-validated
+ * on their own world in small batches, spaced out so a large server never checks more than
+ * {@link #BATCH_SIZE} traders per world per tick. Shops whose trader entity was removed from
+ * the world are cleared so the owner can spawn a new one, including removals seen before the
+ * last restart, which {@link TraderIndex} keeps on disk. Traders in unloaded chunks are left
+ * untouched.
+ */
+public class TraderReconciler {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long INITIAL_DELAY_SECONDS = 30;
+    private static final long INTERVAL_SECONDS = 300;
+    private static final int BATCH_SIZE = 32;
+    private static final long BATCH_DELAY_MILLIS = 50;
+    private static final long SAVE_REMOVED_INTERVAL_SECONDS = 10;
+
+    private final ShopRegistry shopRegistry;
+    private final TraderIndex traderIndex;
+    private final AtomicBoolean passRunning = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    public TraderReconciler(@Nonnull ShopRegistry shopRegistry, @Nonnull TraderIndex traderIndex) {
+        this.shopRegistry = shopRegistry;
+        this.traderIndex = traderIndex;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TaleShop-TraderReconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcile, INITIAL_DELAY_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::saveRemoved, SAVE_REMOVED_INTERVAL_SECONDS, SAVE_REMOVED_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        saveRemoved();
+    }
+
+    void reconcile() {
+        if (!passRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runPass();
+        } catch (RuntimeException ex) {
+            LOGGER.atWarning().log("Trader reconcile pass failed: %s", ex.getMessage());
+        } finally {
+            passRunning.set(false);
+        }
+        saveRemoved();
+    }
+
+    private void saveRemoved() {
+        try {
+            traderIndex.saveRemoved();
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to save removed traders: %s", e.getMessage());
+        }
+    }
+
+    private void runPass() {
+        List<ShopSummary> shops = shopRegistry.listAllShopSummaries();
+        Map<World, List<ShopSummary>> loadedByWorld = new IdentityHashMap<>();
+        Set<String> referenced = new HashSet<>();
+        int loaded = 0;
+        int cleared = 0;
+        int unloaded = 0;
+
+        for (ShopSummary shop : shops) {
+            String traderUuid = shop.traderUuid();
+            if (traderUuid.isBlank()) {
+                continue;
+            }
+            referenced.add(traderUuid);
+
+            TraderIndex.Entry entry = traderIndex.find(traderUuid);
+            if (entry != null && entry.world() != null) {
+                loadedByWorld.computeIfAbsent(entry.world(), key -> new ArrayList<>()).add(shop);
+                loaded++;
+            } else if (traderIndex.wasRemoved(traderUuid)) {
+                if (shopRegistry.clearTraderUuidIfMatches(shop.ownerId(), shop.name(), traderUuid)) {
+                    cleared++;
+                }
+                traderIndex.forget(traderUuid);
+            } else {
+                unloaded++;
+            }
+        }
+        traderIndex.retainRemoved(referenced);
+
+        for (Map.Entry<World, List<ShopSummary>> worldShops : loadedByWorld.entrySet()) {
+            submitBatch(worldShops.getKey(), worldShops.getValue(), 0);
+        }
+
+        if (cleared > 0 || !loadedByWorld.isEmpty()) {
+            LOGGER.atInfo().log("Trader reconcile: %d loaded across %d worlds, %d unloaded, %d stale cleared",
+                loaded, loadedByWorld.size(), unloaded, cleared);
+        }
+    }
+
+    private void submitBatch(@Nonnull World world, @Nonnull List<ShopSummary> shops, int offset) {
+        try {
+            world.execute(() -> {
+                int end = Math.min(offset + BATCH_SIZE, shops.size());
+                for (int i = offset; i < end; i++) {
+                    verifyLoaded(world, shops.get(i).traderUuid());
+                }
+                if (end < shops.size()) {
+                    scheduleNextBatch(world, shops, end);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // World is shutting down; the next pass picks the remaining traders up
+        }
+    }
+
+    private synchronized void scheduleNextBatch(@Nonnull World world, @Nonnull List<ShopSummary> shops, int offset) {
+        if (scheduler == null) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> submitBatch(world, shops, offset), BATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // Reconciler stopped
+        }
+    }
+
+    private void verifyLoaded(@Nonnull World world, @Nonnull String traderUuid) {
+        TraderIndex.Entry entry = traderIndex.find(traderUuid);
+        if (entry == null || entry.ref().isValid()) {
+            return;
+        }
+
+        Ref<EntityStore> current = resolveRef(world, traderUuid);
+        if (current != null && current.isValid()) {
+            traderIndex.track(traderUuid, current, world);
+        } else {
+            // The ref went stale without a remove callback; treat it as unloaded
+            traderIndex.untrack(traderUuid, false);
+        }
+    }
+
+    private static Ref<EntityStore> resolveRef(@Nonnull World world, @Nonnull String traderUuid) {
+        try {
+            return world.getEntityStore().getRefFromUUID(UUID.fromString(traderUuid));
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package br.com.leonardson.taleshop.shop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import br.com.leonardson.taleshop.metrics.TickProfiler;
+
+/**
+ * Spawns shop traders in two phases: orders are prepared off the world thread (role lookup,
+ * display name), then every prepared order for a world is applied in a single
+ * {@link World#execute(Runnable)} task. Spawning many traders therefore costs one world task
+ * instead of one synchronous spawn per trader inside the caller's tick. The trader links are
+ * saved asynchronously, so a storage with a write queue commits the whole batch at once.
+ */
+public class TraderSpawner {
+    public static final String DEFAULT_ROLE = "Klops_Merchant";
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final ShopRegistry shopRegistry;
+    private final TickProfiler tickProfiler;
+    private final Map<String, Integer> roleIndexCache = new ConcurrentHashMap<>();
+
+    public TraderSpawner(@Nonnull ShopRegistry shopRegistry, @Nonnull TickProfiler tickProfiler) {
+        this.shopRegistry = shopRegistry;
+        this.tickProfiler = tickProfiler;
+    }
+
+    /**
+     * Builds an order that spawns the trader where {@code ref} currently stands.
+     * Reads the entity transform, so it must be called on the entity's world thread.
+     */
+    @Nonnull
+    public static SpawnOrder orderAt(
+        @Nonnull Store<EntityStore> store,
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String role
+    ) {
+        TransformComponent transformComponent = store.getComponent(ref, TransformComponent.getComponentType());
+        if (transformComponent == null) {
+            throw new IllegalStateException("Could not determine spawn position. Shop created without a trader.");
+        }
+        return new SpawnOrder(ownerId, shopName, role,
+            new Vector3d(transformComponent.getPosition()),
+            new Vector3f(transformComponent.getRotation()));
+    }
+
+    @Nonnull
+    public CompletableFuture<SpawnResult> spawn(@Nonnull World world, @Nonnull SpawnOrder order) {
+        return spawnAll(world, List.of(order)).thenApply(results -> results.get(0));
+    }
+
+    /**
+     * Prepares every order off the world thread and applies them in one world task.
+     * The returned future completes on the world thread, in order, one result per order;
+     * a failed preparation completes it there too.
+     */
+    @Nonnull
+    public CompletableFuture<List<SpawnResult>> spawnAll(@Nonnull World world, @Nonnull List<SpawnOrder> orders) {
+        CompletableFuture<List<SpawnResult>> future = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> prepareAll(orders)).whenComplete((prepared, error) -> {
+            if (error == null) {
+                applyOnWorld(world, prepared, future);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            runOnWorld(world, future, () -> future.completeExceptionally(cause));
+        });
+        return future;
+    }
+
+    @Nonnull
+    private List<PreparedSpawn> prepareAll(@Nonnull List<SpawnOrder> orders) {
+        List<PreparedSpawn> prepared = new ArrayList<>(orders.size());
+        for (SpawnOrder order : orders) {
+            try {
+                int roleIndex = resolveRoleIndex(order.role());
+                prepared.add(new PreparedSpawn(order, roleIndex, new TraderNpc(order.shopName(), order.role()), null));
+            } catch (IllegalStateException ex) {
+                prepared.add(new PreparedSpawn(order, -1, null, ex.getMessage()));
+            }
+        }
+        return prepared;
+    }
+
+    private int resolveRoleIndex(@Nonnull String role) {
+        Integer cached = roleIndexCache.get(role);
+        if (cached != null) {
+            shopRegistry.getMetrics().counter("cache.roleIndex.hit").increment();
+            return cached;
+        }
+        shopRegistry.getMetrics().counter("cache.roleIndex.miss").increment();
+        return roleIndexCache.computeIfAbsent(role, TraderNpc::resolveRoleIndex);
+    }
+
+    private void applyOnWorld(
+        @Nonnull World world,
+        @Nonnull List<PreparedSpawn> prepared,
+        @Nonnull CompletableFuture<List<SpawnResult>> future
+    ) {
+        runOnWorld(world, future, () -> {
+            List<PendingSpawn> pending = applyAll(world, world.getEntityStore().getStore(), prepared);
+            CompletableFuture<?>[] saves = pending.stream()
+                .map(PendingSpawn::saved)
+                .filter(saved -> saved != null)
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture<Void> allSaved = CompletableFuture.allOf(saves);
+            if (allSaved.isDone()) {
+                future.complete(finish(world.getEntityStore().getStore(), pending));
+                return;
+            }
+            // The storage commits the trader links together; resolve the results back on the world thread
+            allSaved.whenComplete((ignored, error) ->
+                runOnWorld(world, future, () -> future.complete(finish(world.getEntityStore().getStore(), pending))));
+        });
+    }
+
+    private static void runOnWorld(@Nonnull World world, @Nonnull CompletableFuture<?> future, @Nonnull Runnable task) {
+        try {
+            world.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+    }
+
+    @Nonnull
+    private List<PendingSpawn> applyAll(@Nonnull World world, @Nonnull Store<EntityStore> store, @Nonnull List<PreparedSpawn> prepared) {
+        List<PendingSpawn> pending = new ArrayList<>(prepared.size());
+        for (PreparedSpawn spawn : prepared) {
+            if (spawn.error() != null) {
+                pending.add(PendingSpawn.failed(spawn.order(), spawn.error()));
+                continue;
+            }
+
+            SpawnOrder order = spawn.order();
+            long startedAt = System.nanoTime();
+            try {
+                pending.add(apply(store, spawn));
+            } finally {
+                tickProfiler.record(world, TickProfiler.Operation.TRADER_SPAWN, order.ownerId(), order.shopName(), startedAt);
+            }
+        }
+
+        if (prepared.size() > 1) {
+            LOGGER.atInfo().log("Spawned %d traders in one batch", prepared.size());
+        }
+        return pending;
+    }
+
+    @Nonnull
+    private PendingSpawn apply(@Nonnull Store<EntityStore> store, @Nonnull PreparedSpawn spawn) {
+        SpawnOrder order = spawn.order();
+        try {
+            spawn.trader().spawnAt(store, spawn.roleIndex(), order.position(), order.rotation());
+        } catch (IllegalStateException ex) {
+            return PendingSpawn.failed(order, ex.getMessage());
+        }
+
+        String traderUuid = spawn.trader().getUuid(store);
+        if (traderUuid == null || traderUuid.isBlank()) {
+            return PendingSpawn.failed(order, "Trader spawned, but UUID was not available.");
+        }
+        return new PendingSpawn(order, traderUuid, null,
+            shopRegistry.setTraderUuidAsync(order.ownerId(), order.shopName(), traderUuid));
+    }
+
+    @Nonnull
+    private List<SpawnResult> finish(@Nonnull Store<EntityStore> store, @Nonnull List<PendingSpawn> pending) {
+        List<SpawnResult> results = new ArrayList<>(pending.size());
+        for (PendingSpawn spawn : pending) {
+            if (spawn.saved() == null || !spawn.saved().isCompletedExceptionally()) {
+                results.add(new SpawnResult(spawn.order(), spawn.traderUuid(), spawn.error()));
+                continue;
+            }
+
+            // Shop vanished while the order was queued, or the link could not be saved;
+            // don't leave an orphan trader behind
+            TraderNpc.despawnByUuid(store, spawn.traderUuid());
+            Throwable error = spawn.saved().exceptionNow();
+            if (!(error instanceof IllegalArgumentException)) {
+                LOGGER.atWarning().log("Failed to link trader for shop %s: %s", spawn.order().shopName(), error.getMessage());
+            }
+            results.add(new SpawnResult(spawn.order(), null, error.getMessage()));
+        }
+        return results;
+    }
+
+    public record SpawnOrder(
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String role,
+        @Nonnull Vector3d position,
+        @Nonnull Vector3f rotation
+    ) {
+    }
+
+    public record SpawnResult(@Nonnull SpawnOrder order, @Nullable String traderUuid, @Nullable String error) {
+        public boolean isSuccess() {
+            return error == null && traderUuid != null;
+        }
+    }
+
+    private record PendingSpawn(
+        @Nonnull SpawnOrder order,
+        @Nullable String traderUuid,
+        @Nullable String error,
+        @Nullable CompletableFuture<Void> saved
+    ) {
+        static PendingSpawn failed(@Nonnull SpawnOrder order, @Nonnull String error) {
+            return new PendingSpawn(order, null, error, null);
+        }
+    }
+
+    private record PreparedSpawn(
+        @Nonnull SpawnOrder order,
+        int roleIndex,
+        @Nullable TraderNpc trader,
+        @Nullable String error
+    ) {
+    }
+}
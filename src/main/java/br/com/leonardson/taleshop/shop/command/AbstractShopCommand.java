@@ -1,13 +1,37 @@
 package br.com.leonardson.taleshop.shop.command;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
 
 public abstract class AbstractShopCommand extends AbstractPlayerCommand {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     public final ShopRegistry shopRegistry;
 
     public AbstractShopCommand(String command, String description, ShopRegistry shopRegistry) {
         this.shopRegistry = shopRegistry;
         super(command, description);
     }
+
+    /**
+     * Reports the outcome of a {@link ShopRegistry#async()} call to the sender once it is back on
+     * the world thread. Rejected input is shown as-is, like a thrown {@link IllegalArgumentException}.
+     */
+    protected static <T> void whenSaved(CommandContext ctx, CompletableFuture<T> future, Consumer<T> onSaved) {
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                onSaved.accept(result);
+            } else if (error instanceof IllegalArgumentException) {
+                ctx.sendMessage(Message.raw(error.getMessage()));
+            } else {
+                LOGGER.atWarning().log("Shop command failed: %s", error.getMessage());
+                ctx.sendMessage(Message.raw("Failed to save shop changes: " + error.getMessage()));
+            }
+        });
+    }
 }
@@ -0,0 +1,21 @@
+package br.com.leonardson.taleshop.shop.command;
+
+import br.com.leonardson.taleshop.metrics.MetricsReporter;
+import br.com.leonardson.taleshop.metrics.TickProfiler;
+import br.com.leonardson.taleshop.shop.ShopBackups;
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractCommandCollection;
+
+public class AdminCommands extends AbstractCommandCollection {
+    public AdminCommands(ShopRegistry shopRegistry, MetricsReporter metricsReporter, TickProfiler tickProfiler, ShopBackups shopBackups) {
+        super("admin", "Shop server administration");
+
+        this.requirePermission("taleshop.admin");
+
+        addSubCommand(new MetricsCommand(shopRegistry, metricsReporter));
+        addSubCommand(new PerfCommand(shopRegistry, tickProfiler));
+        addSubCommand(new ExportCommand(shopRegistry));
+        addSubCommand(new BackupCommand(shopRegistry, shopBackups));
+    }
+}
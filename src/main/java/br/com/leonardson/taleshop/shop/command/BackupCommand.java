@@ -0,0 +1,67 @@
+package br.com.leonardson.taleshop.shop.command;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import br.com.leonardson.taleshop.shop.ShopBackups;
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+
+public class BackupCommand extends AbstractShopCommand {
+    private static final String USAGE = "Usage: /shop admin backup [now|list|restore <name>]";
+
+    OptionalArg<String> argAction;
+    OptionalArg<String> argName;
+    private final ShopBackups shopBackups;
+
+    public BackupCommand(ShopRegistry shopRegistry, ShopBackups shopBackups) {
+        super("backup", "Back up shops, list backups or restore one", shopRegistry);
+        this.shopBackups = shopBackups;
+        this.requirePermission("taleshop.admin");
+
+        this.argAction = this.withOptionalArg("action", "now, list or restore (optional)", ArgTypes.STRING);
+        this.argName = this.withOptionalArg("name", "Backup file to restore", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void execute(@NotNull CommandContext ctx, @NotNull Store<EntityStore> store, @NotNull Ref<EntityStore> ref, @NotNull PlayerRef playerRef, @NotNull World world) {
+        String action = argAction.get(ctx);
+        switch (action == null || action.isBlank() ? "now" : action.toLowerCase(Locale.ROOT)) {
+            case "now" -> whenSaved(ctx, shopRegistry.async().supply(world, shopBackups::backupNow),
+                file -> ctx.sendMessage(Message.raw("Shops backed up to " + file.getFileName())));
+            case "list" -> whenSaved(ctx, shopRegistry.async().supply(world, shopBackups::list), backups -> sendList(ctx, backups));
+            case "restore" -> {
+                String name = argName.get(ctx);
+                if (name == null || name.isBlank()) {
+                    throw new IllegalArgumentException(USAGE);
+                }
+                whenSaved(ctx, shopRegistry.async().supply(world, () -> shopBackups.stageRestore(name.trim())),
+                    file -> ctx.sendMessage(Message.raw(file.getFileName() + " will be restored the next time the server starts.")));
+            }
+            default -> throw new IllegalArgumentException(USAGE);
+        }
+    }
+
+    private static void sendList(CommandContext ctx, List<Path> backups) {
+        if (backups.isEmpty()) {
+            ctx.sendMessage(Message.raw("No backups yet."));
+            return;
+        }
+        ctx.sendMessage(Message.raw("Backups, newest first:"));
+        for (Path backup : backups) {
+            ctx.sendMessage(Message.raw("- " + backup.getFileName()));
+        }
+    }
+}
@@ -14,7 +14,6 @@ import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import br.com.leonardson.taleshop.player.PlayerIdentity;
-import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
 
 public class CreateShopCommand extends AbstractShopCommand {
@@ -38,7 +37,7 @@ public class CreateShopCommand extends AbstractShopCommand {
         String ownerId = PlayerIdentity.resolveOwnerId(player);
         String ownerName = PlayerIdentity.resolveDisplayName(player);
 
-        Shop shop = shopRegistry.createShop(ownerId, ownerName, name);
-        ctx.sendMessage(Message.raw("Shop created: " + shop.name() + "."));
+        whenSaved(ctx, shopRegistry.async().createShop(world, ownerId, ownerName, name),
+            shop -> ctx.sendMessage(Message.raw("Shop created: " + shop.name() + ".")));
     }
 }
@@ -33,7 +33,7 @@ public class DeleteShopCommand extends AbstractShopCommand {
         Player player = ctx.senderAs(Player.class);
         String ownerId = PlayerIdentity.resolveOwnerId(player);
 
-        shopRegistry.deleteShop(ownerId, name);
-        ctx.sendMessage(Message.raw("Shop deleted: " + name + "."));
+        whenSaved(ctx, shopRegistry.async().deleteShop(world, ownerId, name),
+            ignored -> ctx.sendMessage(Message.raw("Shop deleted: " + name + ".")));
     }
 }
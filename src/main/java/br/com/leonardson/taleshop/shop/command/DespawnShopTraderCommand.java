@@ -24,6 +24,7 @@ import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import br.com.leonardson.taleshop.interaction.TraderMessageInteraction;
+import br.com.leonardson.taleshop.metrics.TickProfiler;
 import br.com.leonardson.taleshop.player.PlayerIdentity;
 import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
@@ -31,9 +32,11 @@ import br.com.leonardson.taleshop.shop.TraderNpc;
 
 public class DespawnShopTraderCommand extends AbstractShopCommand {
     RequiredArg<String> argName;
+    private final TickProfiler tickProfiler;
 
-    public DespawnShopTraderCommand(ShopRegistry shopRegistry) {
+    public DespawnShopTraderCommand(ShopRegistry shopRegistry, TickProfiler tickProfiler) {
         super("despawn", "Despawn shop trader", shopRegistry);
+        this.tickProfiler = tickProfiler;
         this.requirePermission("taleshop.shop.manage");
 
         this.argName = this.withRequiredArg("name", "shop name", ArgTypes.STRING);
@@ -50,6 +53,15 @@ public class DespawnShopTraderCommand extends AbstractShopCommand {
         Player player = ctx.senderAs(Player.class);
         String ownerId = PlayerIdentity.resolveOwnerId(player);
 
+        long startedAt = System.nanoTime();
+        try {
+            despawn(ctx, store, world, ownerId, name);
+        } finally {
+            tickProfiler.record(world, TickProfiler.Operation.TRADER_DESPAWN, ownerId, name, startedAt);
+        }
+    }
+
+    private void despawn(CommandContext ctx, Store<EntityStore> store, World world, String ownerId, String name) {
         Shop shop = shopRegistry.getShop(ownerId, name);
 
         boolean removed = false;
@@ -80,12 +92,15 @@ public class DespawnShopTraderCommand extends AbstractShopCommand {
         }
 
         if (attempted) {
-            shopRegistry.clearTraderUuid(ownerId, shop.name());
+            boolean despawned = removed;
+            whenSaved(ctx, shopRegistry.async().clearTraderUuid(world, ownerId, shop.name()), ignored -> {
+                if (despawned) {
+                    ctx.sendMessage(Message.raw("Trader despawned for " + shop.name() + "."));
+                }
+            });
         }
 
-        if (removed) {
-            ctx.sendMessage(Message.raw("Trader despawned for " + shop.name() + "."));
-        } else {
+        if (!removed) {
             String uuidInfo = existingTrader == null || existingTrader.isBlank()
                     ? "none"
                     : existingTrader;
@@ -0,0 +1,26 @@
+package br.com.leonardson.taleshop.shop.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+
+public class ExportCommand extends AbstractShopCommand {
+    public ExportCommand(ShopRegistry shopRegistry) {
+        super("export", "Write every shop to shops.json", shopRegistry);
+        this.requirePermission("taleshop.admin");
+    }
+
+    @Override
+    protected void execute(@NotNull CommandContext ctx, @NotNull Store<EntityStore> store, @NotNull Ref<EntityStore> ref, @NotNull PlayerRef playerRef, @NotNull World world) {
+        whenSaved(ctx, shopRegistry.async().supply(world, shopRegistry::exportJson),
+            file -> ctx.sendMessage(Message.raw("Shops exported to " + file)));
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.leonardson.taleshop.shop.command;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import br.com.leonardson.taleshop.player.PlayerIdentity;
+import br.com.leonardson.taleshop.shop.Shop;
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.journal.TradeJournal;
+import br.com.leonardson.taleshop.shop.journal.TradeRecord;
+
+public class HistoryShopCommand extends AbstractShopCommand {
+    private static final int DEFAULT_DAYS = 7;
+    private static final int MAX_DAYS = 365;
+    private static final int MAX_LINES = 20;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+    RequiredArg<String> argName;
+    OptionalArg<Integer> argDays;
+    private final TradeJournal tradeJournal;
+
+    public HistoryShopCommand(ShopRegistry shopRegistry, TradeJournal tradeJournal) {
+        super("history", "Show recent trades of a shop", shopRegistry);
+        this.tradeJournal = tradeJournal;
+        this.requirePermission("taleshop.shop.manage");
+
+        this.argName = this.withRequiredArg("name", "shop name", ArgTypes.STRING);
+        this.argDays = this.withOptionalArg("days", "days to look back (default " + DEFAULT_DAYS + ")", ArgTypes.INTEGER);
+    }
+
+    @Override
+    protected void execute(@NotNull CommandContext ctx, @NotNull Store<EntityStore> store, @NotNull Ref<EntityStore> ref, @NotNull PlayerRef playerRef, @NotNull World world) {
+        String name = argName.get(ctx);
+        Integer days = argDays.get(ctx);
+        if (name.isBlank() || (days != null && (days < 1 || days > MAX_DAYS))) {
+            throw new IllegalArgumentException("Usage: /shop history <shop name> [days 1-" + MAX_DAYS + "]");
+        }
+        int lookBack = days == null ? DEFAULT_DAYS : days;
+
+        Player player = ctx.senderAs(Player.class);
+        String ownerId = PlayerIdentity.resolveOwnerId(player);
+
+        // The journal scan reads segment files, so it runs off the world thread
+        long since = System.currentTimeMillis() - lookBack * DAY_MILLIS;
+        whenSaved(ctx, shopRegistry.async().supply(world, () -> {
+            Shop shop = shopRegistry.getShop(ownerId, name);
+            return new History(shop.name(), tradeJournal.history(ownerId, shop.name(), since, MAX_LINES + 1));
+        }), history -> {
+            if (history.trades().isEmpty()) {
+                ctx.sendMessage(Message.raw("No trades at " + history.shopName() + " in the last " + lookBack + " days."));
+                return;
+            }
+            boolean more = history.trades().size() > MAX_LINES;
+            ctx.sendMessage(Message.raw("Trades at " + history.shopName() + " in the last " + lookBack + " days"
+                + (more ? ", newest " + MAX_LINES + ":" : ":")));
+            for (TradeRecord trade : history.trades().subList(0, Math.min(MAX_LINES, history.trades().size()))) {
+                ctx.sendMessage(Message.raw("- " + TIME_FORMAT.format(Instant.ofEpochMilli(trade.timestampMillis()))
+                    + " #" + trade.tradeId() + ": "
+                    + trade.inputQuantity() + "x " + trade.inputItemId() + " -> "
+                    + trade.outputQuantity() + "x " + trade.outputItemId()));
+            }
+        });
+    }
+
+    private record History(String shopName, List<TradeRecord> trades) {
+    }
+}
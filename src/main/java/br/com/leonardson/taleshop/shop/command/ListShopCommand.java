@@ -14,8 +14,8 @@ import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import br.com.leonardson.taleshop.player.PlayerIdentity;
-import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.ShopSummary;
 
 public class ListShopCommand extends AbstractShopCommand {
     public ListShopCommand(ShopRegistry shopRegistry) {
@@ -28,15 +28,15 @@ public class ListShopCommand extends AbstractShopCommand {
         Player player = ctx.senderAs(Player.class);
         String ownerId = PlayerIdentity.resolveOwnerId(player);
 
-        List<Shop> shops = shopRegistry.listShops(ownerId);
+        List<ShopSummary> shops = shopRegistry.listShopSummaries(ownerId);
         if (shops.isEmpty()) {
             ctx.sendMessage(Message.raw("You do not have any shops."));
             return;
         }
 
         ctx.sendMessage(Message.raw("Your shops: " + shops.size()));
-        for (Shop shop : shops) {
-            ctx.sendMessage(Message.raw("- " + shop.name() + " (" + shop.trades().size() + " trades)"));
+        for (ShopSummary shop : shops) {
+            ctx.sendMessage(Message.raw("- " + shop.name() + " (" + shop.tradeCount() + " trades)"));
         }
     }
 }
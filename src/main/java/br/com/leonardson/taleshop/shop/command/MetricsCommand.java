@@ -0,0 +1,73 @@
+package br.com.leonardson.taleshop.shop.command;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import br.com.leonardson.taleshop.metrics.MetricsReporter;
+import br.com.leonardson.taleshop.metrics.ShopMetrics;
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+
+public class MetricsCommand extends AbstractShopCommand {
+    private static final int TOP_SHOPS = 5;
+
+    OptionalArg<String> argAction;
+    private final MetricsReporter metricsReporter;
+
+    public MetricsCommand(ShopRegistry shopRegistry, MetricsReporter metricsReporter) {
+        super("metrics", "Show TaleShop metrics", shopRegistry);
+        this.metricsReporter = metricsReporter;
+        this.requirePermission("taleshop.admin");
+
+        this.argAction = this.withOptionalArg("action", "dump or reset (optional)", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void execute(@NotNull CommandContext ctx, @NotNull Store<EntityStore> store, @NotNull Ref<EntityStore> ref, @NotNull PlayerRef playerRef, @NotNull World world) {
+        String action = argAction.get(ctx);
+        ShopMetrics metrics = shopRegistry.getMetrics();
+
+        if (action == null || action.isBlank()) {
+            for (String line : MetricsReporter.formatLines(metrics.snapshot(TOP_SHOPS))) {
+                ctx.sendMessage(Message.raw(line));
+            }
+            return;
+        }
+
+        switch (action.toLowerCase(Locale.ROOT)) {
+            case "dump" -> {
+                // Writing the file can stall on a slow disk, so it runs off the world thread
+                shopRegistry.async().supply(world, () -> {
+                    try {
+                        return metricsReporter.dump();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e.getMessage(), e);
+                    }
+                }).whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        ctx.sendMessage(Message.raw("Metrics written to " + metricsReporter.getDumpFile()));
+                    } else {
+                        ctx.sendMessage(Message.raw("Failed to write metrics: " + error.getMessage()));
+                    }
+                });
+            }
+            case "reset" -> {
+                metrics.reset();
+                ctx.sendMessage(Message.raw("Metrics reset."));
+            }
+            default -> throw new IllegalArgumentException("Usage: /shop admin metrics [dump|reset]");
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package br.com.leonardson.taleshop.shop.command;
 
+import br.com.leonardson.taleshop.metrics.TickProfiler;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.TraderSpawner;
 
 import com.hypixel.hytale.protocol.GameMode;
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractCommandCollection;
 
 public class NpcCommands extends AbstractCommandCollection {
-    public NpcCommands(ShopRegistry shopRegistry) {
+    public NpcCommands(ShopRegistry shopRegistry, TraderSpawner traderSpawner, TickProfiler tickProfiler) {
         super("npc", "Shop NPC commands");
 
         this.requirePermission("taleshop.shop.manage");
 
-        addSubCommand(new SpawnShopTraderCommand(shopRegistry));
-        addSubCommand(new DespawnShopTraderCommand(shopRegistry));
+        addSubCommand(new SpawnShopTraderCommand(shopRegistry, traderSpawner));
+        addSubCommand(new DespawnShopTraderCommand(shopRegistry, tickProfiler));
     }
 }
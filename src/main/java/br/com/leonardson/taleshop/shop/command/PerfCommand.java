@@ -0,0 +1,87 @@
+package br.com.leonardson.taleshop.shop.command;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.jetbrains.annotations.NotNull;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import br.com.leonardson.taleshop.metrics.RollingHistogram;
+import br.com.leonardson.taleshop.metrics.TickProfiler;
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+
+public class PerfCommand extends AbstractShopCommand {
+    private static final int TOP_OFFENDERS = 10;
+
+    OptionalArg<String> argAction;
+    private final TickProfiler tickProfiler;
+
+    public PerfCommand(ShopRegistry shopRegistry, TickProfiler tickProfiler) {
+        super("perf", "Show TaleShop world-thread time", shopRegistry);
+        this.tickProfiler = tickProfiler;
+        this.requirePermission("taleshop.admin");
+
+        this.argAction = this.withOptionalArg("action", "reset (optional)", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void execute(@NotNull CommandContext ctx, @NotNull Store<EntityStore> store, @NotNull Ref<EntityStore> ref, @NotNull PlayerRef playerRef, @NotNull World world) {
+        String action = argAction.get(ctx);
+        if (action != null && !action.isBlank()) {
+            if (!"reset".equals(action.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("Usage: /shop admin perf [reset]");
+            }
+            tickProfiler.reset();
+            ctx.sendMessage(Message.raw("Profiler reset."));
+            return;
+        }
+
+        List<TickProfiler.WorldSummary> worlds = tickProfiler.worlds();
+        if (worlds.isEmpty()) {
+            ctx.sendMessage(Message.raw("No TaleShop world-thread work recorded in the last minute."));
+        } else {
+            ctx.sendMessage(Message.raw("TaleShop world-thread time over the last minute:"));
+            for (TickProfiler.WorldSummary summary : worlds) {
+                RollingHistogram.Snapshot snapshot = summary.snapshot();
+                ctx.sendMessage(Message.raw(String.format(Locale.ROOT,
+                    "  %s: %d ops, %.1fms total (%.2f%% of the thread), p50 %s, p99 %s, p99.9 %s",
+                    summary.world(), snapshot.count(), snapshot.totalNanos() / 1_000_000.0, snapshot.busyPercent(),
+                    formatMicros(snapshot.percentileMicros(50)),
+                    formatMicros(snapshot.percentileMicros(99)),
+                    formatMicros(snapshot.percentileMicros(99.9)))));
+            }
+        }
+
+        List<TickProfiler.Offender> offenders = tickProfiler.topOffenders(TOP_OFFENDERS);
+        if (!offenders.isEmpty()) {
+            ctx.sendMessage(Message.raw("Top offenders since reset:"));
+            for (TickProfiler.Offender offender : offenders) {
+                ctx.sendMessage(Message.raw(String.format(Locale.ROOT,
+                    "  %s %s (%s): %.1fms over %d ops, max %.2fms",
+                    offender.shop(), offender.operation().label(), offender.world(),
+                    offender.totalNanos() / 1_000_000.0, offender.count(), offender.maxNanos() / 1_000_000.0)));
+            }
+        }
+
+        long threshold = tickProfiler.getSlowThresholdMillis();
+        ctx.sendMessage(Message.raw(threshold > 0
+            ? "Operations over " + threshold + "ms are logged."
+            : "Slow operation logging is disabled."));
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1_000) {
+            return micros + "us";
+        }
+        return String.format(Locale.ROOT, "%.2fms", micros / 1_000.0);
+    }
+}
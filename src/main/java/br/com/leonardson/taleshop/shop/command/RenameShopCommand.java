@@ -14,7 +14,6 @@ import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import br.com.leonardson.taleshop.player.PlayerIdentity;
-import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
 
 public class RenameShopCommand extends AbstractShopCommand {
@@ -37,7 +36,7 @@ public class RenameShopCommand extends AbstractShopCommand {
         Player player = ctx.senderAs(Player.class);
         String ownerId = PlayerIdentity.resolveOwnerId(player);
 
-        Shop shop = shopRegistry.renameShop(ownerId, name, newName);
-        ctx.sendMessage(Message.raw("Shop renamed to: " + shop.name() + "."));
+        whenSaved(ctx, shopRegistry.async().renameShop(world, ownerId, name, newName),
+            shop -> ctx.sendMessage(Message.raw("Shop renamed to: " + shop.name() + ".")));
     }
 }
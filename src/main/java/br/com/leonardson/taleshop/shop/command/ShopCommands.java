@@ -2,11 +2,16 @@ package br.com.leonardson.taleshop.shop.command;
 
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractCommandCollection;
 
+import br.com.leonardson.taleshop.metrics.MetricsReporter;
+import br.com.leonardson.taleshop.metrics.TickProfiler;
+import br.com.leonardson.taleshop.shop.ShopBackups;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.TraderSpawner;
+import br.com.leonardson.taleshop.shop.journal.TradeJournal;
 import br.com.leonardson.taleshop.shop.trade.command.TradeCommands;
 
 public class ShopCommands extends AbstractCommandCollection {
-  public ShopCommands(ShopRegistry shopRegistry) {
+  public ShopCommands(ShopRegistry shopRegistry, TraderSpawner traderSpawner, MetricsReporter metricsReporter, TickProfiler tickProfiler, ShopBackups shopBackups, TradeJournal tradeJournal) {
     super("taleshop", "Shop commands");
 
     this.requirePermission("taleshop.shop.manage");
@@ -18,10 +23,12 @@ public class ShopCommands extends AbstractCommandCollection {
     addSubCommand(new DeleteShopCommand(shopRegistry));
     addSubCommand(new GetShopCommand(shopRegistry));
     addSubCommand(new ListShopCommand(shopRegistry));
+    addSubCommand(new HistoryShopCommand(shopRegistry, tradeJournal));
     addSubCommand(new ShopEditorCommand(shopRegistry));
     addSubCommand(new OpenShopCommand(shopRegistry));
-    addSubCommand(new NpcCommands(shopRegistry));
+    addSubCommand(new NpcCommands(shopRegistry, traderSpawner, tickProfiler));
 
     addSubCommand(new TradeCommands(shopRegistry));
+    addSubCommand(new AdminCommands(shopRegistry, metricsReporter, tickProfiler, shopBackups));
   }
 }
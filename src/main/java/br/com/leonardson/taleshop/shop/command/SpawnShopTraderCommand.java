@@ -1,5 +1,7 @@
 package br.com.leonardson.taleshop.shop.command;
 
+import java.util.concurrent.CompletionException;
+
 import org.jetbrains.annotations.NotNull;
 
 import com.hypixel.hytale.component.Ref;
@@ -19,14 +21,17 @@ import br.com.leonardson.taleshop.player.PlayerIdentity;
 import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
 import br.com.leonardson.taleshop.shop.TraderNpc;
+import br.com.leonardson.taleshop.shop.TraderSpawner;
 import br.com.leonardson.taleshop.shop.ui.EntitySelectionPage;
 
 public class SpawnShopTraderCommand extends AbstractShopCommand {
     RequiredArg<String> argName;
     OptionalArg<String> argEntityRole;
+    private final TraderSpawner traderSpawner;
 
-    public SpawnShopTraderCommand(ShopRegistry shopRegistry) {
+    public SpawnShopTraderCommand(ShopRegistry shopRegistry, TraderSpawner traderSpawner) {
         super("spawn", "Spawn shop trader", shopRegistry);
+        this.traderSpawner = traderSpawner;
         this.requirePermission("taleshop.shop.manage");
 
         this.argName = this.withRequiredArg("name", "shop name", ArgTypes.STRING);
@@ -62,28 +67,32 @@ public class SpawnShopTraderCommand extends AbstractShopCommand {
         if (entityRole != null && !entityRole.isBlank()) {
             if (!PermissionUtil.hasEntitySelectionPermission(player)) {
                 ctx.sendMessage(Message.raw("You don't have permission to select custom entity types. Using default entity."));
-                entityRole = "Klops_Merchant";
+                entityRole = TraderSpawner.DEFAULT_ROLE;
             }
         } else {
             // Use default entity role
-            entityRole = "Klops_Merchant";
+            entityRole = TraderSpawner.DEFAULT_ROLE;
         }
 
-        TraderNpc traderNpc = new TraderNpc(shop.name(), entityRole);
+        TraderSpawner.SpawnOrder order;
         try {
-            traderNpc.spawn(store, ref);
+            order = TraderSpawner.orderAt(store, ref, ownerId, shop.name(), entityRole);
         } catch (IllegalStateException ex) {
             ctx.sendMessage(Message.raw(ex.getMessage()));
             return;
         }
 
-        String traderUuid = traderNpc.getUuid(store);
-        if (traderUuid == null || traderUuid.isBlank()) {
-            ctx.sendMessage(Message.raw("Trader spawned, but UUID was not available."));
-            return;
-        }
-
-        shopRegistry.setTraderUuid(ownerId, shop.name(), traderUuid);
-        ctx.sendMessage(Message.raw("Trader spawned as " + entityRole + " for " + shop.name() + "."));
+        String spawnedRole = entityRole;
+        traderSpawner.spawn(world, order).whenComplete((result, error) -> {
+            if (error != null) {
+                // spawn() completes on the world thread either way; only the wrapping needs undoing
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                ctx.sendMessage(Message.raw("Failed to spawn trader: " + cause.getMessage()));
+            } else if (!result.isSuccess()) {
+                ctx.sendMessage(Message.raw(result.error()));
+            } else {
+                ctx.sendMessage(Message.raw("Trader spawned as " + spawnedRole + " for " + shop.name() + "."));
+            }
+        });
     }
 }
@@ -0,0 +1,161 @@
+package br.com.leonardson.taleshop.shop.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Append-only string table for the trade journal. Journal records store owner ids, shop names,
+ * buyer ids and item ids as indexes into this table so every record has the same size.
+ * <p>
+ * New entries only live in memory until {@link #flush()}, which the journal calls before writing
+ * the records that reference them, so {@link #idOf} never touches the disk. {@link #flush()}
+ * also syncs the file, so an entry is on disk before any record that uses its id. A failed flush
+ * cuts the file back to its last complete entry and keeps the entries for the next one.
+ */
+final class JournalDictionary implements AutoCloseable {
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final FileChannel channel;
+    private final Object writeLock = new Object();
+    // Entries below this index are on disk, ending at fileBytes
+    private int written;
+    private long fileBytes;
+
+    JournalDictionary(@Nonnull Path file) throws IOException {
+        long validBytes = load(file);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Drop a torn trailing entry left by a crash so new entries line up again
+        if (channel.size() > validBytes) {
+            channel.truncate(validBytes);
+        }
+        this.written = values.size();
+        this.fileBytes = validBytes;
+    }
+
+    synchronized int idOf(@Nonnull String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        int created = values.size();
+        values.add(value);
+        ids.put(value, created);
+        return created;
+    }
+
+    /**
+     * Id of {@code value}, or -1 if it was never written.
+     */
+    synchronized int find(@Nonnull String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Ids of every value that trims and lower-cases to the same string as {@code value}.
+     */
+    synchronized List<Integer> findIgnoringCase(@Nonnull String value) {
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        List<Integer> found = new ArrayList<>();
+        for (int id = 0; id < values.size(); id++) {
+            if (values.get(id).trim().toLowerCase(Locale.ROOT).equals(normalized)) {
+                found.add(id);
+            }
+        }
+        return found;
+    }
+
+    @Nullable
+    synchronized String valueOf(int id) {
+        return id >= 0 && id < values.size() ? values.get(id) : null;
+    }
+
+    void flush() throws IOException {
+        synchronized (writeLock) {
+            List<String> pending;
+            synchronized (this) {
+                if (written == values.size()) {
+                    return;
+                }
+                pending = List.copyOf(values.subList(written, values.size()));
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (String value : pending) {
+                out.writeUTF(value);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            try {
+                channel.position(fileBytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                try {
+                    channel.truncate(fileBytes);
+                } catch (IOException ignored) {
+                    // The next flush writes from fileBytes again, over the torn entry
+                }
+                throw e;
+            }
+            synchronized (this) {
+                written += pending.size();
+                fileBytes += bytes.size();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long validBytes = 0;
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file));
+             DataInputStream in = new DataInputStream(raw)) {
+            while (true) {
+                in.mark(2);
+                int length;
+                try {
+                    length = in.readUnsignedShort();
+                } catch (EOFException end) {
+                    break;
+                }
+                in.reset();
+                String value;
+                try {
+                    value = in.readUTF();
+                } catch (EOFException torn) {
+                    break;
+                }
+                ids.putIfAbsent(value, values.size());
+                values.add(value);
+                validBytes += 2 + length;
+            }
+        }
+        return validBytes;
+    }
+}
@@ -0,0 +1,230 @@
+package br.com.leonardson.taleshop.shop.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Stable shop keys for the trade journal. A shop gets a key the first time it trades and keeps it
+ * across renames, so its history survives a rename; a deleted shop's key is retired, so a new
+ * shop with the same name starts with an empty history.
+ * <p>
+ * Shops are matched by owner and trimmed, lower-cased name, like storage does. Every change is an
+ * entry appended to the file: a new shop, a rename or a delete. As with {@link JournalDictionary},
+ * entries live in memory until {@link #flush()}, which the journal calls before writing the
+ * records that use them, and a failed flush cuts the file back and keeps the entries.
+ */
+final class JournalShops implements AutoCloseable {
+    private static final byte SHOP = 1;
+    private static final byte RENAME = 2;
+    private static final byte DELETE = 3;
+
+    private final Map<ShopName, Integer> keys = new HashMap<>();
+    private final List<ShopName> names = new ArrayList<>();
+    private final List<Boolean> deleted = new ArrayList<>();
+    private final List<Entry> pending = new ArrayList<>();
+    private final FileChannel channel;
+    private final Object writeLock = new Object();
+    private long fileBytes;
+
+    JournalShops(@Nonnull Path file) throws IOException {
+        long validBytes = load(file);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Drop a torn trailing entry left by a crash so new entries line up again
+        if (channel.size() > validBytes) {
+            channel.truncate(validBytes);
+        }
+        this.fileBytes = validBytes;
+    }
+
+    /**
+     * Key of the live shop, created if it has none yet.
+     */
+    synchronized int keyOf(@Nonnull String ownerId, @Nonnull String shopName) {
+        Integer key = keys.get(new ShopName(ownerId, shopName));
+        if (key != null) {
+            return key;
+        }
+        int created = names.size();
+        apply(new Entry(SHOP, created, ownerId, shopName));
+        return created;
+    }
+
+    /**
+     * Key of the live shop, or -1 if it never traded.
+     */
+    synchronized int find(@Nonnull String ownerId, @Nonnull String shopName) {
+        Integer key = keys.get(new ShopName(ownerId, shopName));
+        return key == null ? -1 : key;
+    }
+
+    synchronized void renamed(@Nonnull String ownerId, @Nonnull String oldName, @Nonnull String newName) {
+        Integer key = keys.get(new ShopName(ownerId, oldName));
+        if (key != null) {
+            apply(new Entry(RENAME, key, ownerId, newName));
+        }
+    }
+
+    synchronized void deleted(@Nonnull String ownerId, @Nonnull String name) {
+        Integer key = keys.get(new ShopName(ownerId, name));
+        if (key != null) {
+            apply(new Entry(DELETE, key, ownerId, name));
+        }
+    }
+
+    synchronized boolean isDeleted(int key) {
+        return key >= 0 && key < deleted.size() && deleted.get(key);
+    }
+
+    /**
+     * Current display name of the shop, or its last one if it was deleted.
+     */
+    @Nullable
+    synchronized String nameOf(int key) {
+        return key >= 0 && key < names.size() ? names.get(key).displayName() : null;
+    }
+
+    void flush() throws IOException {
+        synchronized (writeLock) {
+            List<Entry> entries;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                entries = List.copyOf(pending);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (Entry entry : entries) {
+                out.writeByte(entry.kind());
+                out.writeInt(entry.key());
+                out.writeUTF(entry.ownerId());
+                out.writeUTF(entry.name());
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            try {
+                channel.position(fileBytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                try {
+                    channel.truncate(fileBytes);
+                } catch (IOException ignored) {
+                    // The next flush writes from fileBytes again, over the torn entry
+                }
+                throw e;
+            }
+            synchronized (this) {
+                pending.subList(0, entries.size()).clear();
+                fileBytes += bytes.size();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void apply(Entry entry) {
+        replay(entry);
+        pending.add(entry);
+    }
+
+    private void replay(Entry entry) {
+        ShopName name = new ShopName(entry.ownerId(), entry.name());
+        switch (entry.kind()) {
+            case SHOP -> {
+                names.add(name);
+                deleted.add(false);
+                keys.put(name, entry.key());
+            }
+            case RENAME -> {
+                keys.remove(names.get(entry.key()), entry.key());
+                names.set(entry.key(), name);
+                keys.put(name, entry.key());
+            }
+            case DELETE -> {
+                keys.remove(names.get(entry.key()), entry.key());
+                deleted.set(entry.key(), true);
+            }
+            default -> throw new IllegalStateException("Unknown journal shop entry " + entry.kind());
+        }
+    }
+
+    private long load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long validBytes = 0;
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file));
+             DataInputStream in = new DataInputStream(raw)) {
+            while (true) {
+                Entry entry;
+                try {
+                    byte kind = in.readByte();
+                    int key = in.readInt();
+                    String ownerId = in.readUTF();
+                    String name = in.readUTF();
+                    entry = new Entry(kind, key, ownerId, name);
+                } catch (EOFException torn) {
+                    break;
+                }
+                boolean known = entry.kind() == SHOP ? entry.key() == names.size() : entry.key() >= 0 && entry.key() < names.size();
+                if (!known || entry.kind() < SHOP || entry.kind() > DELETE) {
+                    // Anything after a damaged entry cannot be trusted to line up
+                    break;
+                }
+                replay(entry);
+                validBytes += 1 + 4 + encodedLength(entry.ownerId()) + encodedLength(entry.name());
+            }
+        }
+        return validBytes;
+    }
+
+    private static int encodedLength(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(value);
+        return bytes.size();
+    }
+
+    private record Entry(byte kind, int key, String ownerId, String name) {
+    }
+
+    private record ShopName(String ownerId, String displayName, String normalizedName) {
+        private ShopName(String ownerId, String displayName) {
+            this(ownerId, displayName, displayName.trim().toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ShopName name
+                && ownerId.equals(name.ownerId)
+                && normalizedName.equals(name.normalizedName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * ownerId.hashCode() + normalizedName.hashCode();
+        }
+    }
+}
@@ -0,0 +1,553 @@
+package br.com.leonardson.taleshop.shop.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+
+/**
+ * Append-only journal of executed trades.
+ * <p>
+ * {@link #append} only copies a fixed-size record into an in-memory buffer, so it is cheap enough
+ * to call from a world thread right after a trade. It never writes to disk and never throws: a
+ * full buffer is queued for the background flusher, which writes the buffers to the current
+ * segment file once a second or as soon as one fills up. Segments roll over at
+ * {@value #SEGMENT_BYTES} bytes. If the disk keeps failing, at most {@value #MAX_QUEUED_BUFFERS}
+ * full buffers are kept, after which new trades are counted and dropped.
+ * <p>
+ * Every trade gets a position, one more than the trade before it, so a reader can pick up exactly
+ * where it left off even when several trades share a millisecond.
+ * {@link Listener Listeners} see each trade, with its position, in position order.
+ * <p>
+ * Layout, all big endian: each {@code trades-<createdMillis>.seg} file starts with a
+ * {@value #HEADER_BYTES}-byte header (magic, version, record size, created millis, position of
+ * the first record) followed by {@value #RECORD_BYTES}-byte records:
+ * <pre>
+ * long timestamp, int owner, int shop, int buyer, int tradeId,
+ * int inputItem, int inputQuantity, int outputItem, int outputQuantity
+ * </pre>
+ * The shop is a key from {@code shops.dat} (see {@link JournalShops}) that survives renames;
+ * the other strings are ids into {@code strings.dat} (see {@link JournalDictionary}). Version 1
+ * and 2 segments store the shop name as a string id instead. A record cut short by
+ * a crash is ignored on read; the writer always starts a fresh segment on open. A failed write is
+ * cut off the segment, which is then abandoned, and its records are kept for the next flush.
+ * Version 1 segments have a 16-byte header without the first position; their records are
+ * numbered on from the segments before them.
+ */
+public class TradeJournal implements ShopRegistry.Listener, AutoCloseable {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String DIRECTORY = "journal";
+    private static final String DICTIONARY_FILE = "strings.dat";
+    private static final String SHOPS_FILE = "shops.dat";
+    private static final String SEGMENT_PREFIX = "trades-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MAGIC = 0x54534A31; // "TSJ1"
+    private static final short VERSION = 3;
+    static final int HEADER_BYTES = 24;
+    private static final int V1_HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 40;
+    static final long SEGMENT_BYTES = 4L * 1024 * 1024;
+    private static final int BUFFER_BYTES = RECORD_BYTES * 1024;
+    private static final int MAX_QUEUED_BUFFERS = 64;
+    private static final long FLUSH_INTERVAL_MILLIS = 1_000;
+
+    private final Path directory;
+    private final JournalDictionary dictionary;
+    private final JournalShops shops;
+    private final Object bufferLock = new Object();
+    private final Object writeLock = new Object();
+    // Guarded by bufferLock: the buffer being filled, full ones waiting for the flusher (oldest
+    // first) and cleared ones to reuse
+    private ByteBuffer active = ByteBuffer.allocate(BUFFER_BYTES);
+    private final Deque<ByteBuffer> full = new ArrayDeque<>();
+    private final Deque<ByteBuffer> free = new ArrayDeque<>();
+    private long dropped;
+    private long nextPosition;
+    // Guarded by writeLock: position of the next record to reach the disk
+    private long writtenPosition;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private FileChannel segment;
+    private ScheduledExecutorService flusher;
+    private boolean closed;
+
+    public TradeJournal(@Nonnull Path dataDirectory) {
+        this.directory = dataDirectory.resolve(DIRECTORY);
+        try {
+            Files.createDirectories(directory);
+            this.dictionary = new JournalDictionary(directory.resolve(DICTIONARY_FILE));
+            this.shops = new JournalShops(directory.resolve(SHOPS_FILE));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open trade journal", e);
+        }
+        List<SegmentView> segments = readSegments();
+        SegmentView last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        this.nextPosition = last == null ? 0 : last.firstPosition() + last.records();
+        this.writtenPosition = nextPosition;
+    }
+
+    /**
+     * The position the next appended trade will get.
+     */
+    public long nextPosition() {
+        synchronized (bufferLock) {
+            return nextPosition;
+        }
+    }
+
+    /**
+     * Registers a listener that sees every appended trade, for state rebuilt from the journal
+     * such as sales counters.
+     */
+    public void addListener(@Nonnull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TaleShop-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::periodicFlush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a trade for the journal. Never blocks on disk or throws into the trade. A missing
+     * item id (a trade whose item is no longer known) is journaled as an empty string, which is
+     * also what unknown ids read back as.
+     */
+    public void append(
+        long timestampMillis,
+        @Nonnull String ownerId,
+        @Nonnull String shopName,
+        @Nonnull String buyerId,
+        int tradeId,
+        @Nullable String inputItemId,
+        int inputQuantity,
+        @Nullable String outputItemId,
+        int outputQuantity
+    ) {
+        int owner = dictionary.idOf(ownerId);
+        int shop = shops.keyOf(ownerId, shopName);
+        int buyer = dictionary.idOf(buyerId);
+        int inputItem = dictionary.idOf(inputItemId == null ? "" : inputItemId);
+        int outputItem = dictionary.idOf(outputItemId == null ? "" : outputItemId);
+        boolean wakeFlusher = false;
+        synchronized (bufferLock) {
+            long position = -1;
+            if (!closed && active.remaining() < RECORD_BYTES) {
+                if (full.size() < MAX_QUEUED_BUFFERS) {
+                    full.addLast(active);
+                    ByteBuffer reused = free.pollFirst();
+                    active = reused != null ? reused : ByteBuffer.allocate(BUFFER_BYTES);
+                    wakeFlusher = true;
+                } else {
+                    dropped++;
+                }
+            }
+            if (!closed && active.remaining() >= RECORD_BYTES) {
+                active.putLong(timestampMillis)
+                    .putInt(owner)
+                    .putInt(shop)
+                    .putInt(buyer)
+                    .putInt(tradeId)
+                    .putInt(inputItem)
+                    .putInt(inputQuantity)
+                    .putInt(outputItem)
+                    .putInt(outputQuantity);
+                position = nextPosition++;
+            }
+            // Still under the lock, so listeners see trades in position order
+            if (!listeners.isEmpty()) {
+                TradeRecord trade = new TradeRecord(position, timestampMillis, ownerId, shopName, buyerId, tradeId,
+                    inputItemId == null ? "" : inputItemId, inputQuantity, outputItemId == null ? "" : outputItemId, outputQuantity);
+                for (Listener listener : listeners) {
+                    listener.onTrade(trade);
+                }
+            }
+        }
+        if (wakeFlusher) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Writes every queued record to disk. If a write fails, the records it could not write stay
+     * queued, in order, for the next flush.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            while (true) {
+                ByteBuffer next;
+                synchronized (bufferLock) {
+                    next = full.peekFirst();
+                    if (next == null) {
+                        if (active.position() == 0) {
+                            break;
+                        }
+                        next = active;
+                        full.addLast(next);
+                        ByteBuffer reused = free.pollFirst();
+                        active = reused != null ? reused : ByteBuffer.allocate(BUFFER_BYTES);
+                    }
+                }
+                write(next);
+                synchronized (bufferLock) {
+                    full.removeFirst();
+                    if (free.isEmpty()) {
+                        free.addLast(next);
+                    }
+                }
+            }
+            long lost;
+            synchronized (bufferLock) {
+                lost = dropped;
+                dropped = 0;
+            }
+            if (lost > 0) {
+                LOGGER.atWarning().log("Dropped %d trades from the trade journal while it could not be written", lost);
+            }
+        }
+    }
+
+    private void write(ByteBuffer pending) {
+        int filled = pending.position();
+        long goodBytes = -1;
+        FileChannel channel;
+        try {
+            dictionary.flush();
+            shops.flush();
+            channel = currentSegment();
+            goodBytes = channel.position();
+            pending.flip();
+            while (pending.hasRemaining()) {
+                channel.write(pending);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            pending.limit(pending.capacity()).position(filled);
+            abandonSegment(goodBytes);
+            throw new RuntimeException("Failed to write trade journal", e);
+        }
+        writtenPosition += filled / RECORD_BYTES;
+        pending.clear();
+        try {
+            if (channel.size() >= SEGMENT_BYTES) {
+                channel.close();
+                segment = null;
+            }
+        } catch (IOException e) {
+            abandonSegment(-1);
+        }
+    }
+
+    /**
+     * Cuts a partly written flush off the current segment and stops writing to it, so a torn
+     * record never shifts the records written after it.
+     */
+    private void abandonSegment(long goodBytes) {
+        if (segment == null) {
+            return;
+        }
+        try {
+            if (goodBytes >= 0) {
+                segment.truncate(goodBytes);
+            }
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to cut a partial write off the trade journal: %s", e.getMessage());
+        }
+        try {
+            segment.close();
+        } catch (IOException ignored) {
+            // Abandoned either way
+        }
+        segment = null;
+    }
+
+    /**
+     * Trades of one shop since {@code sinceMillis}, newest first, at most {@code limit}, including
+     * those made before it was renamed. Segments created before the one holding
+     * {@code sinceMillis} are not read.
+     */
+    @Nonnull
+    public List<TradeRecord> history(@Nonnull String ownerId, @Nonnull String shopName, long sinceMillis, int limit) {
+        List<TradeRecord> result = new ArrayList<>();
+        int shop = shops.find(ownerId, shopName);
+        int owner = dictionary.find(ownerId);
+        // Version 1 and 2 records name the shop as it was called then
+        List<Integer> legacyNames = owner < 0 ? List.of() : dictionary.findIgnoringCase(shopName);
+        if ((shop < 0 && legacyNames.isEmpty()) || limit <= 0) {
+            return result;
+        }
+        flush();
+
+        List<SegmentView> segments = readSegments();
+        for (int s = segments.size() - 1; s >= 0 && result.size() < limit; s--) {
+            SegmentView segment = segments.get(s);
+            boolean keyed = segment.version() >= 3;
+            if (keyed ? shop < 0 : legacyNames.isEmpty()) {
+                continue;
+            }
+            ByteBuffer records = mapRecords(segment);
+            for (int offset = records.limit() - RECORD_BYTES; offset >= 0 && result.size() < limit; offset -= RECORD_BYTES) {
+                int recordShop = records.getInt(offset + 12);
+                boolean matches = keyed
+                    ? recordShop == shop
+                    : records.getInt(offset + 8) == owner && legacyNames.contains(recordShop);
+                if (!matches || records.getLong(offset) < sinceMillis) {
+                    continue;
+                }
+                result.add(decode(segment, records, offset));
+            }
+            if (segment.createdMillis() < sinceMillis) {
+                // Everything in older segments was written before this one was created
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Feeds every trade since {@code sinceMillis} and after position {@code afterPosition} to
+     * {@code consumer}, oldest first, under the shop's current name. Trades of deleted shops are
+     * skipped. Segments entirely before either bound are not read.
+     */
+    public void scan(long sinceMillis, long afterPosition, @Nonnull Consumer<TradeRecord> consumer) {
+        flush();
+        List<SegmentView> segments = readSegments();
+        for (int s = 0; s < segments.size(); s++) {
+            SegmentView segment = segments.get(s);
+            if (segment.firstPosition() + segment.records() - 1 <= afterPosition) {
+                continue;
+            }
+            if (s + 1 < segments.size() && segments.get(s + 1).createdMillis() < sinceMillis) {
+                continue;
+            }
+            ByteBuffer records = mapRecords(segment);
+            for (int offset = 0; offset + RECORD_BYTES <= records.limit(); offset += RECORD_BYTES) {
+                long position = segment.firstPosition() + offset / RECORD_BYTES;
+                if (position <= afterPosition || records.getLong(offset) < sinceMillis) {
+                    continue;
+                }
+                if (segment.version() >= 3 && shops.isDeleted(records.getInt(offset + 12))) {
+                    continue;
+                }
+                consumer.accept(decode(segment, records, offset));
+            }
+        }
+    }
+
+    @Override
+    public void onShopRenamed(@Nonnull String ownerId, @Nonnull String oldName, @Nonnull String newName) {
+        shops.renamed(ownerId, oldName, newName);
+        requestFlush();
+    }
+
+    @Override
+    public void onShopDeleted(@Nonnull String ownerId, @Nonnull String name) {
+        shops.deleted(ownerId, name);
+        requestFlush();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (flusher != null) {
+                flusher.shutdownNow();
+                flusher = null;
+            }
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Failed to flush trade journal on close: %s", e.getMessage());
+        }
+        synchronized (writeLock) {
+            synchronized (bufferLock) {
+                closed = true;
+            }
+            try {
+                if (segment != null) {
+                    segment.close();
+                    segment = null;
+                }
+                dictionary.close();
+                shops.close();
+            } catch (IOException e) {
+                LOGGER.atWarning().log("Failed to close trade journal: %s", e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void requestFlush() {
+        if (flusher != null) {
+            flusher.execute(this::periodicFlush);
+        }
+    }
+
+    private void periodicFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Trade journal flush failed: %s", e.getMessage());
+        }
+    }
+
+    private FileChannel currentSegment() throws IOException {
+        if (segment == null) {
+            long created = System.currentTimeMillis();
+            Path path = directory.resolve(segmentName(created));
+            while (Files.exists(path)) {
+                path = directory.resolve(segmentName(++created));
+            }
+            segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) RECORD_BYTES)
+                .putLong(created)
+                .putLong(writtenPosition)
+                .flip();
+            while (header.hasRemaining()) {
+                segment.write(header);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * The readable segments, oldest first, from their headers alone.
+     */
+    private List<SegmentView> readSegments() {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted(Comparator.comparingLong(TradeJournal::createdMillis))
+                .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list trade journal segments", e);
+        }
+        List<SegmentView> segments = new ArrayList<>(paths.size());
+        long nextV1Position = 0;
+        for (Path path : paths) {
+            SegmentView segment = readHeader(path, nextV1Position);
+            if (segment != null) {
+                segments.add(segment);
+                nextV1Position = segment.firstPosition() + segment.records();
+            }
+        }
+        return segments;
+    }
+
+    @Nullable
+    private SegmentView readHeader(Path path, long nextV1Position) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Short files stop at end of file
+            }
+            if (header.position() < V1_HEADER_BYTES) {
+                return null;
+            }
+            short version = header.getShort(4);
+            if (header.getInt(0) != MAGIC || header.getShort(6) != RECORD_BYTES || version < 1 || version > VERSION
+                || (version > 1 && header.position() < HEADER_BYTES)) {
+                LOGGER.atWarning().log("Skipping unreadable trade journal segment %s", path.getFileName());
+                return null;
+            }
+            int headerBytes = version == 1 ? V1_HEADER_BYTES : HEADER_BYTES;
+            long firstPosition = version == 1 ? nextV1Position : header.getLong(16);
+            return new SegmentView(path, version, header.getLong(8), headerBytes, firstPosition, (size - headerBytes) / RECORD_BYTES);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read trade journal segment " + path.getFileName(), e);
+        }
+    }
+
+    /**
+     * Maps the complete records of a segment, skipping the header and any torn tail.
+     */
+    private ByteBuffer mapRecords(SegmentView segment) {
+        if (segment.records() == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, segment.headerBytes(), segment.records() * RECORD_BYTES);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read trade journal segment " + segment.path().getFileName(), e);
+        }
+    }
+
+    private TradeRecord decode(SegmentView segment, ByteBuffer records, int offset) {
+        int shop = records.getInt(offset + 12);
+        String shopName = segment.version() >= 3 ? shops.nameOf(shop) : dictionary.valueOf(shop);
+        return new TradeRecord(
+            segment.firstPosition() + offset / RECORD_BYTES,
+            records.getLong(offset),
+            string(records.getInt(offset + 8)),
+            shopName == null ? "" : shopName,
+            string(records.getInt(offset + 16)),
+            records.getInt(offset + 20),
+            string(records.getInt(offset + 24)),
+            records.getInt(offset + 28),
+            string(records.getInt(offset + 32)),
+            records.getInt(offset + 36)
+        );
+    }
+
+    private String string(int id) {
+        String value = dictionary.valueOf(id);
+        return value == null ? "" : value;
+    }
+
+    private static String segmentName(long createdMillis) {
+        return String.format("%s%013d%s", SEGMENT_PREFIX, createdMillis, SEGMENT_SUFFIX);
+    }
+
+    private static long createdMillis(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called for every appended trade, on the trading thread and in position order. The
+         * position is -1 if the journal dropped the trade.
+         */
+        void onTrade(@Nonnull TradeRecord trade);
+    }
+
+    private record SegmentView(Path path, short version, long createdMillis, int headerBytes, long firstPosition, long records) {
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.leonardson.taleshop.shop.journal;
+
+import javax.annotation.Nonnull;
+
+/**
+ * One executed trade, as read back from the {@link TradeJournal}.
+ *
+ * @param position the trade's place in the journal, or -1 if it was never written
+ */
+public record TradeRecord(
+    long position,
+    long timestampMillis,
+    @Nonnull String ownerId,
+    @Nonnull String shopName,
+    @Nonnull String buyerId,
+    int tradeId,
+    @Nonnull String inputItemId,
+    int inputQuantity,
+    @Nonnull String outputItemId,
+    int outputQuantity
+) {
+}
@@ -0,0 +1,71 @@
+package br.com.leonardson.taleshop.shop.sales;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed number of counters for consecutive time periods (minutes, hours or days). A slot is
+ * reused once its period falls out of the ring, so memory stays constant however long the
+ * server runs. Not thread-safe; {@link SalesRollups} guards each shop's rings.
+ */
+final class BucketRing {
+    private final long[] periods;
+    private final long[] counts;
+
+    BucketRing(int size) {
+        this.periods = new long[size];
+        this.counts = new long[size];
+        Arrays.fill(periods, Long.MIN_VALUE);
+    }
+
+    void add(long period, long amount) {
+        int slot = (int) Math.floorMod(period, (long) periods.length);
+        if (periods[slot] != period) {
+            if (periods[slot] > period) {
+                // Older than anything the ring still holds
+                return;
+            }
+            periods[slot] = period;
+            counts[slot] = 0;
+        }
+        counts[slot] += amount;
+    }
+
+    long get(long period) {
+        int slot = (int) Math.floorMod(period, (long) periods.length);
+        return periods[slot] == period ? counts[slot] : 0;
+    }
+
+    /**
+     * Sum of the periods {@code from..to}, both inclusive; at most the ring size is read.
+     */
+    long sum(long from, long to) {
+        long total = 0;
+        for (long period = Math.max(from, to - periods.length + 1); period <= to; period++) {
+            total += get(period);
+        }
+        return total;
+    }
+
+    void merge(BucketRing other) {
+        for (int i = 0; i < other.periods.length; i++) {
+            if (other.periods[i] != Long.MIN_VALUE) {
+                add(other.periods[i], other.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Live {@code [period, count]} pairs, for persisting.
+     */
+    List<long[]> entries() {
+        List<long[]> entries = new ArrayList<>();
+        for (int i = 0; i < periods.length; i++) {
+            if (periods[i] != Long.MIN_VALUE && counts[i] != 0) {
+                entries.add(new long[] { periods[i], counts[i] });
+            }
+        }
+        return entries;
+    }
+}
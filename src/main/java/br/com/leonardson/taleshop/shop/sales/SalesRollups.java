@@ -0,0 +1,372 @@
+package br.com.leonardson.taleshop.shop.sales;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.journal.TradeJournal;
+import br.com.leonardson.taleshop.shop.journal.TradeRecord;
+
+/**
+ * Per-shop, per-trade sales counters bucketed by minute, hour and day.
+ * <p>
+ * Every trade bumps one bucket at each granularity for the trade and for the shop total, so the
+ * owner pages read "last hour", "today" and "this week" without touching the trade journal. The
+ * buckets are saved to {@code sales.json} every minute together with the journal position of
+ * the last trade they count; on startup the journal is replayed from the next position, and if
+ * the file is missing the last month is rebuilt from the journal. With a journal, trades arrive
+ * through {@link #onTrade}.
+ * <p>
+ * Shops are keyed by owner and trimmed, lower-cased name, the same way storage matches them, so
+ * a rename or delete typed in any case finds the counters recorded under the display name.
+ */
+public class SalesRollups implements ShopRegistry.Listener, TradeJournal.Listener {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final String FILE_NAME = "sales.json";
+    private static final int MINUTES = 60;
+    private static final int HOURS = 24;
+    private static final int DAYS = 31;
+    private static final int WEEK_DAYS = 7;
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long SAVE_INTERVAL_SECONDS = 60;
+
+    private final Path file;
+    private final ZoneId zone;
+    private final Map<ShopKey, ShopSales> shops = new ConcurrentHashMap<>();
+    // Position of the newest journal trade counted, or -1
+    private final AtomicLong watermarkPosition = new AtomicLong(-1);
+    // Counting takes the read lock; save takes the write lock so buckets and watermark match
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ScheduledExecutorService saver;
+
+    public SalesRollups(@Nonnull Path dataDirectory) {
+        this(dataDirectory, ZoneId.systemDefault());
+    }
+
+    public SalesRollups(@Nonnull Path dataDirectory, @Nonnull ZoneId zone) {
+        this.file = dataDirectory.resolve(FILE_NAME);
+        this.zone = zone;
+    }
+
+    public void record(@Nonnull String ownerId, @Nonnull String shopName, int tradeId, long timestampMillis) {
+        record(-1, ownerId, shopName, tradeId, timestampMillis);
+    }
+
+    @Override
+    public void onTrade(@Nonnull TradeRecord trade) {
+        record(trade.position(), trade.ownerId(), trade.shopName(), trade.tradeId(), trade.timestampMillis());
+    }
+
+    private void record(long position, String ownerId, String shopName, int tradeId, long timestampMillis) {
+        lock.readLock().lock();
+        try {
+            shops.computeIfAbsent(new ShopKey(ownerId, shopName), ignored -> new ShopSales())
+                .record(tradeId, timestampMillis / MINUTE_MILLIS, timestampMillis / HOUR_MILLIS, dayOf(timestampMillis));
+            if (position >= 0) {
+                watermarkPosition.accumulateAndGet(position, Math::max);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Nonnull
+    public SalesSummary summary(@Nonnull String ownerId, @Nonnull String shopName, int topTrades) {
+        ShopSales sales = shops.get(new ShopKey(ownerId, shopName));
+        if (sales == null) {
+            return SalesSummary.EMPTY;
+        }
+        long now = System.currentTimeMillis();
+        return sales.summary(now / MINUTE_MILLIS, now / HOUR_MILLIS, dayOf(now), topTrades);
+    }
+
+    @Override
+    public void onShopRenamed(@Nonnull String ownerId, @Nonnull String oldName, @Nonnull String newName) {
+        lock.readLock().lock();
+        try {
+            ShopSales sales = shops.remove(new ShopKey(ownerId, oldName));
+            if (sales != null) {
+                shops.put(new ShopKey(ownerId, newName), sales);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onShopDeleted(@Nonnull String ownerId, @Nonnull String name) {
+        lock.readLock().lock();
+        try {
+            shops.remove(new ShopKey(ownerId, name));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the saved rollups and replays journal entries written after them.
+     */
+    public void load(@Nullable TradeJournal journal) {
+        boolean restored = false;
+        long legacyWatermarkMillis = 0;
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                SavedRollups saved = GSON.fromJson(reader, SavedRollups.class);
+                if (saved != null) {
+                    restore(saved);
+                    restored = true;
+                    legacyWatermarkMillis = saved.watermarkPosition < 0 ? saved.watermarkMillis : 0;
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.atWarning().log("Failed to read %s, rebuilding from the trade journal: %s", FILE_NAME, e.getMessage());
+                shops.clear();
+                watermarkPosition.set(-1);
+            }
+        }
+        if (journal == null) {
+            return;
+        }
+
+        // Trades counted before a crash may not have reached the journal; positions after it are reused
+        long afterPosition = Math.min(watermarkPosition.get(), journal.nextPosition() - 1);
+        watermarkPosition.set(afterPosition);
+        long since = System.currentTimeMillis() - DAYS * 24 * HOUR_MILLIS;
+        if (restored && legacyWatermarkMillis > 0) {
+            // Saved before rollups tracked journal positions
+            since = Math.max(since, legacyWatermarkMillis + 1);
+        }
+        int[] replayed = { 0 };
+        journal.scan(since, afterPosition, trade -> {
+            onTrade(trade);
+            replayed[0]++;
+        });
+        if (replayed[0] > 0) {
+            LOGGER.atInfo().log("Replayed %d trades from the journal into sales rollups", replayed[0]);
+        }
+    }
+
+    public void save() throws IOException {
+        SavedRollups saved = new SavedRollups();
+        saved.shops = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            saved.watermarkPosition = watermarkPosition.get();
+            shops.forEach((key, sales) -> saved.shops.add(sales.save(key)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Files.createDirectories(file.getParent());
+        Path tempFile = file.resolveSibling(FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile)) {
+            GSON.toJson(saved, writer);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public synchronized void start() {
+        if (saver != null) {
+            return;
+        }
+        saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TaleShop-Sales");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(this::periodicSave, SAVE_INTERVAL_SECONDS, SAVE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (saver != null) {
+            saver.shutdownNow();
+            saver = null;
+        }
+        periodicSave();
+    }
+
+    private void periodicSave() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.atWarning().log("Failed to save sales rollups: %s", e.getMessage());
+        }
+    }
+
+    private void restore(SavedRollups saved) {
+        watermarkPosition.set(saved.watermarkPosition);
+        if (saved.shops == null) {
+            return;
+        }
+        for (SavedShop shop : saved.shops) {
+            if (shop == null || shop.ownerId == null || shop.shopName == null) {
+                continue;
+            }
+            shops.put(new ShopKey(shop.ownerId, shop.shopName), ShopSales.restore(shop));
+        }
+    }
+
+    private long dayOf(long timestampMillis) {
+        return Instant.ofEpochMilli(timestampMillis).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    private record ShopKey(String ownerId, String shopName) {
+        private ShopKey {
+            shopName = shopName.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final class Rollup {
+        private final BucketRing minutes = new BucketRing(MINUTES);
+        private final BucketRing hours = new BucketRing(HOURS);
+        private final BucketRing days = new BucketRing(DAYS);
+
+        void add(long minute, long hour, long day, long amount) {
+            minutes.add(minute, amount);
+            hours.add(hour, amount);
+            days.add(day, amount);
+        }
+
+        void merge(Rollup other) {
+            minutes.merge(other.minutes);
+            hours.merge(other.hours);
+            days.merge(other.days);
+        }
+
+        long lastHour(long minute) {
+            return minutes.sum(minute - MINUTES + 1, minute);
+        }
+
+        long last24Hours(long hour) {
+            return hours.sum(hour - HOURS + 1, hour);
+        }
+
+        long week(long day) {
+            return days.sum(day - WEEK_DAYS + 1, day);
+        }
+    }
+
+    private static final class ShopSales {
+        private final Rollup total = new Rollup();
+        private final Map<Integer, Rollup> trades = new HashMap<>();
+
+        synchronized void record(int tradeId, long minute, long hour, long day) {
+            total.add(minute, hour, day, 1);
+            trades.computeIfAbsent(tradeId, ignored -> new Rollup()).add(minute, hour, day, 1);
+        }
+
+        synchronized SalesSummary summary(long minute, long hour, long day, int topTrades) {
+            List<SalesSummary.TradeSales> best = new ArrayList<>();
+            if (topTrades > 0) {
+                trades.forEach((tradeId, rollup) -> {
+                    long week = rollup.week(day);
+                    if (week > 0) {
+                        best.add(new SalesSummary.TradeSales(tradeId, rollup.days.get(day), week));
+                    }
+                });
+                best.sort(Comparator.comparingLong(SalesSummary.TradeSales::thisWeek).reversed()
+                    .thenComparingInt(SalesSummary.TradeSales::tradeId));
+            }
+            return new SalesSummary(
+                total.lastHour(minute),
+                total.last24Hours(hour),
+                total.days.get(day),
+                total.week(day),
+                best.size() > topTrades ? List.copyOf(best.subList(0, topTrades)) : List.copyOf(best)
+            );
+        }
+
+        synchronized SavedShop save(ShopKey key) {
+            SavedShop shop = new SavedShop();
+            shop.ownerId = key.ownerId();
+            shop.shopName = key.shopName();
+            shop.trades = new ArrayList<>();
+            trades.forEach((tradeId, rollup) -> {
+                SavedTrade trade = new SavedTrade();
+                trade.tradeId = tradeId;
+                trade.minutes = rollup.minutes.entries();
+                trade.hours = rollup.hours.entries();
+                trade.days = rollup.days.entries();
+                shop.trades.add(trade);
+            });
+            return shop;
+        }
+
+        static ShopSales restore(SavedShop saved) {
+            ShopSales sales = new ShopSales();
+            if (saved.trades == null) {
+                return sales;
+            }
+            for (SavedTrade trade : saved.trades) {
+                if (trade == null) {
+                    continue;
+                }
+                Rollup rollup = new Rollup();
+                restore(rollup.minutes, trade.minutes);
+                restore(rollup.hours, trade.hours);
+                restore(rollup.days, trade.days);
+                sales.trades.put(trade.tradeId, rollup);
+                sales.total.merge(rollup);
+            }
+            return sales;
+        }
+
+        private static void restore(BucketRing ring, @Nullable List<long[]> entries) {
+            if (entries == null) {
+                return;
+            }
+            for (long[] entry : entries) {
+                if (entry != null && entry.length == 2) {
+                    ring.add(entry[0], entry[1]);
+                }
+            }
+        }
+    }
+
+    private static final class SavedRollups {
+        long watermarkPosition = -1;
+        // Written by older versions instead of the position
+        long watermarkMillis;
+        List<SavedShop> shops;
+    }
+
+    private static final class SavedShop {
+        String ownerId;
+        String shopName;
+        List<SavedTrade> trades;
+    }
+
+    private static final class SavedTrade {
+        int tradeId;
+        List<long[]> minutes;
+        List<long[]> hours;
+        List<long[]> days;
+    }
+}
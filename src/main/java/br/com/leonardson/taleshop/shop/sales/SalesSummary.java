@@ -0,0 +1,21 @@
+package br.com.leonardson.taleshop.shop.sales;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Precomputed sales numbers for one shop, counted in executed trades.
+ *
+ * @param lastHour    trades in the last 60 minutes
+ * @param last24Hours trades in the last 24 hours
+ * @param today       trades since local midnight
+ * @param thisWeek    trades today and the six days before
+ * @param topTrades   the shop's best sellers this week, best first
+ */
+public record SalesSummary(long lastHour, long last24Hours, long today, long thisWeek, @Nonnull List<TradeSales> topTrades) {
+    public static final SalesSummary EMPTY = new SalesSummary(0, 0, 0, 0, List.of());
+
+    public record TradeSales(int tradeId, long today, long thisWeek) {
+    }
+}
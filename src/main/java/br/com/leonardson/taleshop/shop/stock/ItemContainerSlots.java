@@ -0,0 +1,69 @@
+package br.com.leonardson.taleshop.shop.stock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.transaction.ItemStackTransaction;
+
+/**
+ * {@link StockSlots} backed by a live {@link ItemContainer}.
+ */
+public final class ItemContainerSlots implements StockSlots {
+    private final ItemContainer container;
+
+    public ItemContainerSlots(@Nonnull ItemContainer container) {
+        this.container = container;
+    }
+
+    @Nonnull
+    public static List<StockSlots> wrap(@Nonnull List<? extends ItemContainer> containers) {
+        List<StockSlots> slots = new ArrayList<>(containers.size());
+        for (ItemContainer container : containers) {
+            slots.add(new ItemContainerSlots(container));
+        }
+        return slots;
+    }
+
+    @Override
+    public int capacity() {
+        return container.getCapacity();
+    }
+
+    @Nullable
+    @Override
+    public String itemId(short slot) {
+        ItemStack itemStack = container.getItemStack(slot);
+        return ItemStack.isEmpty(itemStack) ? null : itemStack.getItemId();
+    }
+
+    @Override
+    public int quantity(short slot) {
+        ItemStack itemStack = container.getItemStack(slot);
+        return ItemStack.isEmpty(itemStack) ? 0 : itemStack.getQuantity();
+    }
+
+    @Override
+    public void remove(short slot, int quantity) {
+        ItemStack itemStack = container.getItemStack(slot);
+        if (!ItemStack.isEmpty(itemStack)) {
+            container.removeItemStackFromSlot(slot, itemStack, Math.min(quantity, itemStack.getQuantity()));
+        }
+    }
+
+    @Override
+    public int add(@Nonnull String itemId, int quantity) {
+        ItemStackTransaction transaction;
+        try {
+            transaction = container.addItemStack(new ItemStack(itemId, quantity));
+        } catch (RuntimeException ex) {
+            return quantity;
+        }
+        ItemStack remainder = transaction.getRemainder();
+        return remainder == null ? 0 : remainder.getQuantity();
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.leonardson.taleshop.shop.stock;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Counting, space estimation and item moves over shop stock and player inventories.
+ * <p>
+ * This is the per-trade hot path of the buyer page. It only sees containers through
+ * {@link StockSlots}, so it can be measured and exercised without a server.
+ */
+public final class StockMath {
+    public static final int DEFAULT_MAX_STACK = 64;
+
+    private final ToIntFunction<String> maxStackSize;
+
+    /**
+     * @param maxStackSize resolves the max stack size for an item id
+     */
+    public StockMath(@Nonnull ToIntFunction<String> maxStackSize) {
+        this.maxStackSize = maxStackSize;
+    }
+
+    public int count(@Nonnull StockSlots container, @Nonnull String itemId) {
+        int count = 0;
+        int capacity = container.capacity();
+        for (short slot = 0; slot < capacity; slot++) {
+            if (itemId.equals(container.itemId(slot))) {
+                count += container.quantity(slot);
+            }
+        }
+        return count;
+    }
+
+    public int count(@Nonnull List<? extends StockSlots> containers, @Nonnull String itemId) {
+        int total = 0;
+        for (StockSlots container : containers) {
+            total += count(container, itemId);
+        }
+        return total;
+    }
+
+    public int estimateFreeSpace(@Nonnull StockSlots container, @Nonnull String itemId, int maxStack) {
+        int free = 0;
+        int capacity = container.capacity();
+        for (short slot = 0; slot < capacity; slot++) {
+            String slotItem = container.itemId(slot);
+            if (slotItem == null) {
+                free += maxStack;
+            } else if (itemId.equals(slotItem)) {
+                free += Math.max(0, maxStack - container.quantity(slot));
+            }
+        }
+        return free;
+    }
+
+    public boolean hasSpaceFor(@Nonnull List<? extends StockSlots> containers, @Nonnull String itemId, int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        int maxStack = maxStackSize.applyAsInt(itemId);
+        int remaining = quantity;
+        for (StockSlots container : containers) {
+            if (remaining <= 0) {
+                return true;
+            }
+            remaining -= estimateFreeSpace(container, itemId, maxStack);
+        }
+        return remaining <= 0;
+    }
+
+    public void remove(@Nonnull StockSlots container, @Nonnull String itemId, int quantity) {
+        int remaining = quantity;
+        int capacity = container.capacity();
+        for (short slot = 0; slot < capacity; slot++) {
+            if (remaining <= 0) {
+                return;
+            }
+            if (!itemId.equals(container.itemId(slot))) {
+                continue;
+            }
+            int toRemove = Math.min(remaining, container.quantity(slot));
+            container.remove(slot, toRemove);
+            remaining -= toRemove;
+        }
+    }
+
+    public void remove(@Nonnull List<? extends StockSlots> containers, @Nonnull String itemId, int quantity) {
+        int remaining = quantity;
+        for (StockSlots container : containers) {
+            if (remaining <= 0) {
+                return;
+            }
+            int before = count(container, itemId);
+            if (before <= 0) {
+                continue;
+            }
+            int toRemove = Math.min(before, remaining);
+            remove(container, itemId, toRemove);
+            remaining -= toRemove;
+        }
+    }
+
+    /**
+     * @return the quantity that did not fit in any container
+     */
+    public int add(@Nonnull List<? extends StockSlots> containers, @Nonnull String itemId, int quantity) {
+        int remaining = quantity;
+        for (StockSlots container : containers) {
+            if (remaining <= 0) {
+                return 0;
+            }
+            remaining = container.add(itemId, remaining);
+        }
+        return Math.max(0, remaining);
+    }
+}
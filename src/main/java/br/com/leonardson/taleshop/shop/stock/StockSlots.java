@@ -0,0 +1,33 @@
+package br.com.leonardson.taleshop.shop.stock;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Slot-level view of an item container, as used by {@link StockMath}.
+ * Live containers are wrapped by {@link ItemContainerSlots}; anything else (benchmarks, tools)
+ * can provide its own implementation without a running server.
+ */
+public interface StockSlots {
+    int capacity();
+
+    /**
+     * @return the item id in the slot, or null if the slot is empty
+     */
+    @Nullable
+    String itemId(short slot);
+
+    int quantity(short slot);
+
+    /**
+     * Removes up to {@code quantity} items from a non-empty slot.
+     */
+    void remove(short slot, int quantity);
+
+    /**
+     * Adds items wherever they fit.
+     *
+     * @return the quantity that did not fit
+     */
+    int add(@Nonnull String itemId, int quantity);
+}
@@ -0,0 +1,57 @@
+package br.com.leonardson.taleshop.shop.trade;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.annotation.Nonnull;
+
+import br.com.leonardson.taleshop.shop.stock.StockSlots;
+
+/**
+ * Item quantities of one or more containers, keyed by {@link ItemIds} handle.
+ * Built with a single pass over the slots, after which any number of trades can read their
+ * counts without rescanning the containers.
+ */
+public final class ItemHistogram {
+    private int[] counts = new int[ItemIds.size()];
+
+    @Nonnull
+    public static ItemHistogram of(@Nonnull StockSlots container) {
+        ItemHistogram histogram = new ItemHistogram();
+        histogram.addContainer(container);
+        return histogram;
+    }
+
+    @Nonnull
+    public static ItemHistogram of(@Nonnull Collection<? extends StockSlots> containers) {
+        ItemHistogram histogram = new ItemHistogram();
+        for (StockSlots container : containers) {
+            histogram.addContainer(container);
+        }
+        return histogram;
+    }
+
+    public void addContainer(@Nonnull StockSlots container) {
+        int capacity = container.capacity();
+        for (short slot = 0; slot < capacity; slot++) {
+            String itemId = container.itemId(slot);
+            if (itemId != null) {
+                add(ItemIds.handle(itemId), container.quantity(slot));
+            }
+        }
+    }
+
+    public void add(int itemHandle, int quantity) {
+        if (itemHandle == ItemIds.NONE) {
+            return;
+        }
+        if (itemHandle >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(itemHandle + 1, counts.length * 2));
+        }
+        counts[itemHandle] += quantity;
+    }
+
+    public int count(int itemHandle) {
+        return itemHandle > ItemIds.NONE && itemHandle < counts.length ? counts[itemHandle] : 0;
+    }
+}
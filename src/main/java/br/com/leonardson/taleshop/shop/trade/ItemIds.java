@@ -0,0 +1,93 @@
+package br.com.leonardson.taleshop.shop.trade;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Process-wide interning table for item ids.
+ * <p>
+ * Every distinct item id gets a small, stable int handle the first time it is seen. Trades and
+ * inventory histograms store handles instead of strings, so a few hundred distinct ids are
+ * shared by any number of trades and comparing two ids is an int compare. Handle {@link #NONE}
+ * stands for a missing id.
+ */
+public final class ItemIds {
+    public static final int NONE = 0;
+
+    private static final Map<String, Integer> HANDLES = new ConcurrentHashMap<>();
+    private static volatile String[] ids = new String[64];
+    private static int nextHandle = 1;
+
+    private ItemIds() {
+    }
+
+    /**
+     * Returns the handle for an item id, assigning a new one if the id was not seen before.
+     */
+    public static int handle(@Nullable String itemId) {
+        if (itemId == null || itemId.isEmpty()) {
+            return NONE;
+        }
+        Integer handle = HANDLES.get(itemId);
+        if (handle != null) {
+            return handle;
+        }
+        return register(itemId);
+    }
+
+    /**
+     * Returns the handle for an item id, or {@link #NONE} if the id was never interned.
+     * Does not grow the table.
+     */
+    public static int find(@Nullable String itemId) {
+        if (itemId == null || itemId.isEmpty()) {
+            return NONE;
+        }
+        Integer handle = HANDLES.get(itemId);
+        return handle == null ? NONE : handle;
+    }
+
+    @Nullable
+    public static String id(int handle) {
+        String[] current = ids;
+        return handle > NONE && handle < current.length ? current[handle] : null;
+    }
+
+    /**
+     * Returns the shared instance of an item id string.
+     */
+    @Nullable
+    public static String canonical(@Nullable String itemId) {
+        int handle = handle(itemId);
+        return handle == NONE ? itemId : id(handle);
+    }
+
+    /**
+     * Number of handles assigned so far, including {@link #NONE}.
+     */
+    public static int size() {
+        synchronized (ItemIds.class) {
+            return nextHandle;
+        }
+    }
+
+    private static synchronized int register(String itemId) {
+        Integer existing = HANDLES.get(itemId);
+        if (existing != null) {
+            return existing;
+        }
+        int handle = nextHandle++;
+        String[] current = ids;
+        if (handle >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[handle] = itemId;
+        // Publish the array before the handle becomes visible through the map
+        ids = current;
+        HANDLES.put(itemId, handle);
+        return handle;
+    }
+}
@@ -1,4 +1,19 @@
 package br.com.leonardson.taleshop.shop.trade;
 
-public record Trade(int id, String inputItemId, int inputQuantity, String outputItemId, int outputQuantity) {
+/**
+ * A single trade. Item ids are stored as {@link ItemIds} handles; {@link #inputItemId()} and
+ * {@link #outputItemId()} return the shared id strings.
+ */
+public record Trade(int id, int inputItem, int inputQuantity, int outputItem, int outputQuantity) {
+    public Trade(int id, String inputItemId, int inputQuantity, String outputItemId, int outputQuantity) {
+        this(id, ItemIds.handle(inputItemId), inputQuantity, ItemIds.handle(outputItemId), outputQuantity);
+    }
+
+    public String inputItemId() {
+        return ItemIds.id(inputItem);
+    }
+
+    public String outputItemId() {
+        return ItemIds.id(outputItem);
+    }
 }
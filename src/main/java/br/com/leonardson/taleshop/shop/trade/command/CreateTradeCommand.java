@@ -16,7 +16,6 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import br.com.leonardson.taleshop.player.PlayerIdentity;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
 import br.com.leonardson.taleshop.shop.command.AbstractShopCommand;
-import br.com.leonardson.taleshop.shop.trade.Trade;
 
 public class CreateTradeCommand extends AbstractShopCommand {
     RequiredArg<String> argName;
@@ -47,7 +46,7 @@ public class CreateTradeCommand extends AbstractShopCommand {
         Player player = ctx.senderAs(Player.class);
         String ownerId = PlayerIdentity.resolveOwnerId(player);
 
-        Trade trade = shopRegistry.addTrade(ownerId, shopName, inputItem, inputQty, outputItem, outputQty);
-        ctx.sendMessage(Message.raw("Trade added (#" + trade.id() + ")."));
+        whenSaved(ctx, shopRegistry.async().addTrade(world, ownerId, shopName, inputItem, inputQty, outputItem, outputQty),
+            trade -> ctx.sendMessage(Message.raw("Trade added (#" + trade.id() + ").")));
     }
 }
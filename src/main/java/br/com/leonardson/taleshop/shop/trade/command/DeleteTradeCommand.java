@@ -37,7 +37,7 @@ public class DeleteTradeCommand extends AbstractShopCommand {
         Player player = ctx.senderAs(Player.class);
         String ownerId = PlayerIdentity.resolveOwnerId(player);
         
-        shopRegistry.removeTrade(ownerId, shopName, tradeId);
-        ctx.sendMessage(Message.raw("Trade removed (#" + tradeId + ")."));
+        whenSaved(ctx, shopRegistry.async().removeTrade(world, ownerId, shopName, tradeId),
+            ignored -> ctx.sendMessage(Message.raw("Trade removed (#" + tradeId + ").")));
     }
 }
@@ -49,7 +49,7 @@ public class UpdateTradeCommand extends AbstractShopCommand {
         Player player = ctx.senderAs(Player.class);
         String ownerId = PlayerIdentity.resolveOwnerId(player);
         
-        shopRegistry.updateTrade(ownerId, shopName, tradeId, inputItem, inputQty, outputItem, outputQty);
-        ctx.sendMessage(Message.raw("Trade updated (#" + tradeId + ")."));
+        whenSaved(ctx, shopRegistry.async().updateTrade(world, ownerId, shopName, tradeId, inputItem, inputQty, outputItem, outputQty),
+            ignored -> ctx.sendMessage(Message.raw("Trade updated (#" + tradeId + ").")));
     }
 }
@@ -4,6 +4,7 @@ import br.com.leonardson.taleshop.TaleShop;
 import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
 import br.com.leonardson.taleshop.shop.TraderNpc;
+import br.com.leonardson.taleshop.shop.TraderSpawner;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -52,6 +53,7 @@ import javax.annotation.Nullable;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -288,24 +290,39 @@ public class EntitySelectionPage extends InteractiveCustomUIPage<EntitySelection
         this.clearPreview(store);
 
         // Spawn NPC with selected entity role
-        TraderNpc traderNpc = new TraderNpc(shop.name(), this.selectedNpcRole);
+        TraderSpawner spawner = resolveSpawner();
+        if (spawner == null) {
+            player.sendMessage(Message.raw("Failed to spawn trader: trader spawner not available."));
+            return;
+        }
+        TraderSpawner.SpawnOrder order;
         try {
-            traderNpc.spawn(store, ref);
-            String traderUuid = traderNpc.getUuid(store);
-            if (traderUuid != null && !traderUuid.isBlank()) {
-                registry.setTraderUuid(ownerId, shop.name(), traderUuid);
-                player.sendMessage(Message.raw("Trader spawned as " + this.selectedNpcRole + " for " + shop.name()));
-            } else {
-                player.sendMessage(Message.raw("Trader spawned but UUID not available."));
-            }
+            order = TraderSpawner.orderAt(store, ref, ownerId, shop.name(), this.selectedNpcRole);
         } catch (IllegalStateException ex) {
             player.sendMessage(Message.raw("Failed to spawn trader: " + ex.getMessage()));
             return;
         }
-        
-        // Close page and go back to shop list
-        player.getPageManager().setPage(ref, store, Page.None);
-        player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+
+        String spawnedRole = this.selectedNpcRole;
+        World world = store.getExternalData().getWorld();
+        spawner.spawn(world, order).whenComplete((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                player.sendMessage(Message.raw("Failed to spawn trader: " + cause.getMessage()));
+                return;
+            }
+            if (!result.isSuccess()) {
+                player.sendMessage(Message.raw("Failed to spawn trader: " + result.error()));
+                return;
+            }
+            player.sendMessage(Message.raw("Trader spawned as " + spawnedRole + " for " + shop.name()));
+
+            // Close page and go back to shop list
+            if (ref.isValid()) {
+                player.getPageManager().setPage(ref, store, Page.None);
+                player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+            }
+        });
     }
 
     private void clearPreview(@Nonnull Store<EntityStore> store) {
@@ -426,6 +443,14 @@ public class EntitySelectionPage extends InteractiveCustomUIPage<EntitySelection
         }
     }
 
+    private TraderSpawner resolveSpawner() {
+        TaleShop plugin = TaleShop.getInstance();
+        if (plugin == null) {
+            return null;
+        }
+        return plugin.getTraderSpawner();
+    }
+
     private ShopRegistry resolveRegistry() {
         TaleShop plugin = TaleShop.getInstance();
         if (plugin == null) {
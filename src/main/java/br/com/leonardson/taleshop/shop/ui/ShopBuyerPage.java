@@ -2,8 +2,17 @@ package br.com.leonardson.taleshop.shop.ui;
 
 import br.com.leonardson.taleshop.TaleShop;
 import br.com.leonardson.taleshop.config.PluginConfig;
+import br.com.leonardson.taleshop.metrics.ShopMetrics;
+import br.com.leonardson.taleshop.metrics.TickProfiler;
+import br.com.leonardson.taleshop.player.PlayerIdentity;
 import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.journal.TradeJournal;
+import br.com.leonardson.taleshop.shop.sales.SalesRollups;
+import br.com.leonardson.taleshop.shop.stock.ItemContainerSlots;
+import br.com.leonardson.taleshop.shop.stock.StockMath;
+import br.com.leonardson.taleshop.shop.stock.StockSlots;
+import br.com.leonardson.taleshop.shop.trade.ItemHistogram;
 import br.com.leonardson.taleshop.shop.trade.Trade;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
@@ -49,11 +58,17 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
     private static final int MAX_ENTITY_SCAN = 512;
     private final String ownerId;
     private final String shopName;
+    private final int page;
 
     public ShopBuyerPage(@Nonnull PlayerRef playerRef, @Nonnull String ownerId, @Nonnull String shopName) {
+        this(playerRef, ownerId, shopName, 0);
+    }
+
+    public ShopBuyerPage(@Nonnull PlayerRef playerRef, @Nonnull String ownerId, @Nonnull String shopName, int page) {
         super(playerRef, CustomPageLifetime.CanDismissOrCloseThroughInteraction, ShopBuyerEventData.CODEC);
         this.ownerId = ownerId;
         this.shopName = shopName;
+        this.page = page;
     }
 
     @Override
@@ -63,6 +78,7 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
         @Nonnull UIEventBuilder eventBuilder,
         @Nonnull Store<EntityStore> store
     ) {
+        long startedAt = System.nanoTime();
         commandBuilder.append("Pages/BarterPage.ui");
         commandBuilder.set("#ShopTitle.Text", shopName);
 
@@ -73,10 +89,15 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
             playerInventory = playerComponent.getInventory().getCombinedHotbarFirst();
         }
         Shop shop = resolveShop();
-        List<ItemContainer> stockContainers = shop == null
+        List<StockSlots> stockContainers = shop == null
             ? Collections.emptyList()
-            : resolveNearbyContainers(store, shop);
-        List<Trade> trades = shop == null ? new ArrayList<>() : new ArrayList<>(shop.trades());
+            : ItemContainerSlots.wrap(resolveNearbyContainers(store, shop));
+        List<Trade> allTrades = shop == null ? List.of() : shop.trades();
+        // Only the rows of the current page are built, however many trades the shop has
+        List<Trade> trades = TradePaging.slice(allTrades, page);
+        // One pass over each inventory; every trade row then reads its counts by item handle
+        ItemHistogram playerItems = playerInventory != null ? ItemHistogram.of(new ItemContainerSlots(playerInventory)) : null;
+        ItemHistogram stockItems = ItemHistogram.of(stockContainers);
 
         for (int i = 0; i < trades.size(); i++) {
             Trade trade = trades.get(i);
@@ -91,14 +112,14 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
             int playerHas = 0;
             boolean canAfford = false;
             if (ItemModule.exists(trade.inputItemId())) {
-                playerHas = playerInventory != null ? countItemsInContainer(playerInventory, trade.inputItemId()) : 0;
+                playerHas = playerItems != null ? playerItems.count(trade.inputItem()) : 0;
                 canAfford = playerHas >= trade.inputQuantity();
             }
             commandBuilder.set(selector + " #InputSlotBorder.Background", canAfford ? "#2a5a3a" : "#5a2a2a");
             commandBuilder.set(selector + " #HaveNeedLabel.Text", "Have: " + playerHas);
             commandBuilder.set(selector + " #HaveNeedLabel.Style.TextColor", canAfford ? "#3d913f" : "#962f2f");
 
-            int availableStock = countItemsInContainers(stockContainers, trade.outputItemId());
+            int availableStock = stockItems.count(trade.outputItem());
             boolean outOfStock = availableStock < trade.outputQuantity();
             commandBuilder.set(selector + " #Stock.Visible", true);
             commandBuilder.set(selector + " #Stock.Text", String.valueOf(Math.max(0, availableStock)));
@@ -108,15 +129,59 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
             eventBuilder.addEventBinding(
                 CustomUIEventBindingType.Activating,
                 selector + " #TradeButton",
-                EventData.of("TradeIndex", String.valueOf(i)),
+                EventData.of("TradeId", String.valueOf(trade.id())),
                 false
             );
         }
+        if (TradePaging.pageCount(allTrades.size()) > 1) {
+            appendPager(commandBuilder, eventBuilder, trades.size(), allTrades.size());
+        }
+
+        ShopMetrics metrics = resolveMetrics();
+        if (metrics != null) {
+            long elapsed = System.nanoTime() - startedAt;
+            metrics.timer("page.build.buyer").record(elapsed);
+            metrics.recordShopTime(ownerId, shopName, elapsed);
+        }
+        recordTick(store, TickProfiler.Operation.BUYER_PAGE_BUILD, startedAt);
+    }
+
+    /**
+     * Adds page buttons as the last cell of the trade grid, which belongs to the game's barter
+     * page and has no room of its own for them.
+     */
+    private void appendPager(@Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder, int index, int tradeCount) {
+        int current = TradePaging.clamp(page, tradeCount);
+        String selector = "#TradeGrid[" + index + "]";
+        commandBuilder.append("#TradeGrid", "Pages/BarterPager.ui");
+        commandBuilder.set(selector + " #PageLabel.Text", TradePaging.label(current, tradeCount));
+        commandBuilder.set(selector + " #PrevPageButton.Disabled", current == 0);
+        commandBuilder.set(selector + " #NextPageButton.Disabled", current >= TradePaging.pageCount(tradeCount) - 1);
+        eventBuilder.addEventBinding(
+            CustomUIEventBindingType.Activating,
+            selector + " #PrevPageButton",
+            EventData.of("Page", String.valueOf(current - 1)),
+            false
+        );
+        eventBuilder.addEventBinding(
+            CustomUIEventBindingType.Activating,
+            selector + " #NextPageButton",
+            EventData.of("Page", String.valueOf(current + 1)),
+            false
+        );
     }
 
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull ShopBuyerEventData data) {
-        if (data.tradeIndex < 0) {
+        if (data.page >= 0) {
+            Player player = store.getComponent(ref, Player.getComponentType());
+            PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+            if (player != null && playerRef != null) {
+                player.getPageManager().openCustomPage(ref, store, new ShopBuyerPage(playerRef, ownerId, shopName, data.page));
+            }
+            return;
+        }
+        if (data.tradeId <= 0) {
             return;
         }
 
@@ -124,8 +189,9 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
         if (shop == null) {
             return;
         }
-        List<Trade> trades = new ArrayList<>(shop.trades());
-        if (data.tradeIndex >= trades.size()) {
+        // Look the trade up by id so a trade added or removed since build() can't shift the click
+        Trade trade = shop.findTrade(data.tradeId);
+        if (trade == null) {
             return;
         }
 
@@ -134,34 +200,67 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
             return;
         }
 
-        Trade trade = trades.get(data.tradeIndex);
+        long startedAt = System.nanoTime();
+        try {
+            String failure = executeTrade(ref, store, shop, trade, playerComponent);
+            ShopMetrics metrics = resolveMetrics();
+            if (metrics != null) {
+                metrics.counter(failure == null ? "trade.executed" : "trade.failed." + failure).increment();
+            }
+        } finally {
+            ShopMetrics metrics = resolveMetrics();
+            if (metrics != null) {
+                long elapsed = System.nanoTime() - startedAt;
+                metrics.timer("trade.execute").record(elapsed);
+                metrics.recordShopTime(ownerId, shopName, elapsed);
+            }
+            recordTick(store, TickProfiler.Operation.BUYER_TRADE, startedAt);
+        }
+    }
+
+    /**
+     * Runs one trade for the player.
+     *
+     * @return {@code null} when the trade went through, otherwise the failure reason used as the
+     *     {@code trade.failed.*} counter suffix
+     */
+    @Nullable
+    private String executeTrade(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull Shop shop,
+        @Nonnull Trade trade,
+        @Nonnull Player playerComponent
+    ) {
         if (!ItemModule.exists(trade.inputItemId()) || !ItemModule.exists(trade.outputItemId())) {
             playerComponent.sendMessage(Message.raw("This trade is invalid."));
-            return;
+            return "invalid";
         }
 
-        List<ItemContainer> stockContainers = resolveNearbyContainers(store, shop);
-        int availableStock = countItemsInContainers(stockContainers, trade.outputItemId());
+        StockMath stockMath = new StockMath(this::resolveMaxStackSize);
+        List<StockSlots> stockContainers = ItemContainerSlots.wrap(resolveNearbyContainers(store, shop));
+        int availableStock = stockMath.count(stockContainers, trade.outputItemId());
         if (availableStock < trade.outputQuantity()) {
             playerComponent.sendMessage(Message.raw("Shop is out of stock."));
-            return;
+            return "out_of_stock";
         }
-        if (!hasSpaceForItems(stockContainers, trade.inputItemId(), trade.inputQuantity())) {
+        if (!stockMath.hasSpaceFor(stockContainers, trade.inputItemId(), trade.inputQuantity())) {
             playerComponent.sendMessage(Message.raw("Shop has no space for that trade."));
-            return;
+            return "no_space";
         }
 
         Inventory inventory = playerComponent.getInventory();
         CombinedItemContainer container = inventory.getCombinedHotbarFirst();
-        int playerHas = countItemsInContainer(container, trade.inputItemId());
+        StockSlots playerSlots = new ItemContainerSlots(container);
+        int playerHas = stockMath.count(playerSlots, trade.inputItemId());
         if (playerHas < trade.inputQuantity()) {
             playerComponent.sendMessage(Message.raw("You don't have enough items."));
-            return;
+            return "cant_afford";
         }
 
-        removeItemsFromContainer(container, trade.inputItemId(), trade.inputQuantity());
-        removeItemsFromContainers(stockContainers, trade.outputItemId(), trade.outputQuantity());
-        addItemsToContainers(stockContainers, trade.inputItemId(), trade.inputQuantity());
+        stockMath.remove(playerSlots, trade.inputItemId(), trade.inputQuantity());
+        stockMath.remove(stockContainers, trade.outputItemId(), trade.outputQuantity());
+        stockMath.add(stockContainers, trade.inputItemId(), trade.inputQuantity());
 
         ItemStack outputStack = new ItemStack(trade.outputItemId(), trade.outputQuantity());
         ItemStackTransaction transaction = container.addItemStack(outputStack);
@@ -175,11 +274,13 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
         } else {
             playerComponent.notifyPickupItem(ref, outputStack, null, store);
         }
+        recordSale(shop, trade, playerComponent);
 
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
         if (playerRef != null) {
-            playerComponent.getPageManager().openCustomPage(ref, store, new ShopBuyerPage(playerRef, shop.ownerId(), shop.name()));
+            playerComponent.getPageManager().openCustomPage(ref, store, new ShopBuyerPage(playerRef, shop.ownerId(), shop.name(), page));
         }
+        return null;
     }
 
     @Nullable
@@ -203,7 +304,66 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
         return plugin.getShopRegistry();
     }
 
+    @Nullable
+    private ShopMetrics resolveMetrics() {
+        TaleShop plugin = TaleShop.getInstance();
+        if (plugin == null) {
+            return null;
+        }
+        return plugin.getMetrics();
+    }
+
+    private void recordSale(@Nonnull Shop shop, @Nonnull Trade trade, @Nonnull Player buyer) {
+        TaleShop plugin = TaleShop.getInstance();
+        if (plugin == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        TradeJournal journal = plugin.getTradeJournal();
+        if (journal == null) {
+            SalesRollups rollups = plugin.getSalesRollups();
+            if (rollups != null) {
+                rollups.record(shop.ownerId(), shop.name(), trade.id(), now);
+            }
+            return;
+        }
+        // The sales rollups listen to the journal
+        journal.append(
+            now,
+            shop.ownerId(),
+            shop.name(),
+            PlayerIdentity.resolveOwnerId(buyer),
+            trade.id(),
+            trade.inputItemId(),
+            trade.inputQuantity(),
+            trade.outputItemId(),
+            trade.outputQuantity()
+        );
+    }
+
+    private void recordTick(@Nonnull Store<EntityStore> store, @Nonnull TickProfiler.Operation operation, long startedAt) {
+        TaleShop plugin = TaleShop.getInstance();
+        TickProfiler profiler = plugin == null ? null : plugin.getTickProfiler();
+        if (profiler == null) {
+            return;
+        }
+        EntityStore entityStore = store.getExternalData();
+        profiler.record(entityStore == null ? null : entityStore.getWorld(), operation, ownerId, shopName, startedAt);
+    }
+
     private List<ItemContainer> resolveNearbyContainers(@Nonnull Store<EntityStore> store, @Nonnull Shop shop) {
+        long startedAt = System.nanoTime();
+        try {
+            return discoverNearbyContainers(store, shop);
+        } finally {
+            ShopMetrics metrics = resolveMetrics();
+            if (metrics != null) {
+                metrics.timer("containers.discover").recordSince(startedAt);
+            }
+        }
+    }
+
+    private List<ItemContainer> discoverNearbyContainers(@Nonnull Store<EntityStore> store, @Nonnull Shop shop) {
         Ref<EntityStore> traderRef = resolveTraderRef(store, shop);
         if (traderRef == null || !isRefValid(traderRef)) {
             return Collections.emptyList();
@@ -671,83 +831,6 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
         return null;
     }
 
-    private int countItemsInContainers(@Nonnull List<ItemContainer> containers, @Nonnull String itemId) {
-        int total = 0;
-        for (ItemContainer container : containers) {
-            total += countItemsInContainer(container, itemId);
-        }
-        return total;
-    }
-
-    private void removeItemsFromContainers(@Nonnull List<ItemContainer> containers, @Nonnull String itemId, int quantity) {
-        int remaining = quantity;
-        for (ItemContainer container : containers) {
-            if (remaining <= 0) {
-                return;
-            }
-            int before = countItemsInContainer(container, itemId);
-            if (before <= 0) {
-                continue;
-            }
-            int toRemove = Math.min(before, remaining);
-            removeItemsFromContainer(container, itemId, toRemove);
-            remaining -= toRemove;
-        }
-    }
-
-    private boolean hasSpaceForItems(@Nonnull List<ItemContainer> containers, @Nonnull String itemId, int quantity) {
-        if (quantity <= 0) {
-            return true;
-        }
-        int maxStack = resolveMaxStackSize(itemId);
-        int remaining = quantity;
-        for (ItemContainer container : containers) {
-            if (remaining <= 0) {
-                return true;
-            }
-            remaining -= estimateFreeSpace(container, itemId, maxStack);
-        }
-        return remaining <= 0;
-    }
-
-    private int estimateFreeSpace(@Nonnull ItemContainer container, @Nonnull String itemId, int maxStack) {
-        int free = 0;
-        for (short slot = 0; slot < container.getCapacity(); slot++) {
-            ItemStack itemStack = container.getItemStack(slot);
-            if (ItemStack.isEmpty(itemStack)) {
-                free += maxStack;
-                continue;
-            }
-            if (itemId.equals(itemStack.getItemId())) {
-                free += Math.max(0, maxStack - itemStack.getQuantity());
-            }
-        }
-        return free;
-    }
-
-    private void addItemsToContainers(@Nonnull List<ItemContainer> containers, @Nonnull String itemId, int quantity) {
-        int remaining = quantity;
-        for (ItemContainer container : containers) {
-            if (remaining <= 0) {
-                return;
-            }
-            ItemStack stack = new ItemStack(itemId, remaining);
-            ItemStackTransaction transaction;
-            try {
-                transaction = container.addItemStack(stack);
-            } catch (RuntimeException ex) {
-                Object result = tryInvokeForResult(container, "addItemStack", stack);
-                if (result instanceof ItemStackTransaction tx) {
-                    transaction = tx;
-                } else {
-                    continue;
-                }
-            }
-            ItemStack remainder = transaction.getRemainder();
-            remaining = remainder == null ? 0 : remainder.getQuantity();
-        }
-    }
-
     private int resolveMaxStackSize(@Nonnull String itemId) {
         try {
             ItemStack stack = new ItemStack(itemId, 1);
@@ -759,11 +842,11 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
             );
             if (value instanceof Number number) {
                 int max = number.intValue();
-                return max > 0 ? max : 64;
+                return max > 0 ? max : StockMath.DEFAULT_MAX_STACK;
             }
         } catch (RuntimeException ignored) {
         }
-        return 64;
+        return StockMath.DEFAULT_MAX_STACK;
     }
 
     private boolean isRefValid(@Nonnull Ref<EntityStore> ref) {
@@ -870,42 +953,18 @@ public class ShopBuyerPage extends InteractiveCustomUIPage<ShopBuyerPage.ShopBuy
         return null;
     }
 
-    private int countItemsInContainer(@Nonnull ItemContainer container, @Nonnull String itemId) {
-        int count = 0;
-        for (short slot = 0; slot < container.getCapacity(); slot++) {
-            ItemStack itemStack = container.getItemStack(slot);
-            if (!ItemStack.isEmpty(itemStack) && itemId.equals(itemStack.getItemId())) {
-                count += itemStack.getQuantity();
-            }
-        }
-        return count;
-    }
-
-    private void removeItemsFromContainer(@Nonnull ItemContainer container, @Nonnull String itemId, int quantity) {
-        int remaining = quantity;
-        for (short slot = 0; slot < container.getCapacity(); slot++) {
-            if (remaining <= 0) {
-                return;
-            }
-            ItemStack itemStack = container.getItemStack(slot);
-            if (ItemStack.isEmpty(itemStack) || !itemId.equals(itemStack.getItemId())) {
-                continue;
-            }
-            int toRemove = Math.min(remaining, itemStack.getQuantity());
-            container.removeItemStackFromSlot(slot, itemStack, toRemove);
-            remaining -= toRemove;
-        }
-    }
-
     public static class ShopBuyerEventData {
         public static final com.hypixel.hytale.codec.builder.BuilderCodec<ShopBuyerEventData> CODEC = com.hypixel.hytale.codec.builder.BuilderCodec.builder(
                 ShopBuyerEventData.class, ShopBuyerEventData::new
         )
-            .append(new com.hypixel.hytale.codec.KeyedCodec<>("TradeIndex", com.hypixel.hytale.codec.Codec.STRING), (entry, s) -> entry.tradeIndex = Integer.parseInt(s), entry -> String.valueOf(entry.tradeIndex))
+            .append(new com.hypixel.hytale.codec.KeyedCodec<>("TradeId", com.hypixel.hytale.codec.Codec.STRING), (entry, s) -> entry.tradeId = Integer.parseInt(s), entry -> String.valueOf(entry.tradeId))
+            .add()
+            .append(new com.hypixel.hytale.codec.KeyedCodec<>("Page", com.hypixel.hytale.codec.Codec.STRING), (entry, s) -> entry.page = Integer.parseInt(s), entry -> String.valueOf(entry.page))
             .add()
             .build();
 
-        private int tradeIndex = -1;
+        private int tradeId = -1;
+        private int page = -1;
 
         public ShopBuyerEventData() {
         }
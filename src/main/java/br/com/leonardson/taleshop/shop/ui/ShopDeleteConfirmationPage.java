@@ -17,6 +17,7 @@ import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import javax.annotation.Nonnull;
 
@@ -104,26 +105,32 @@ public class ShopDeleteConfirmationPage extends InteractiveCustomUIPage<ShopDele
             return;
         }
 
+        // First, despawn any associated NPC
         try {
-            // First, despawn any associated NPC
             String traderUuid = registry.getTraderUuid(ownerId, shopName);
             if (traderUuid != null && !traderUuid.isBlank()) {
                 TraderNpc.despawnByUuid(store, traderUuid);
             }
-            
-            // Delete the shop
-            registry.deleteShop(ownerId, shopName);
-            player.sendMessage(Message.raw("Shop '" + shopName + "' has been deleted."));
-            
-            // Always redirect to shop list after delete
-            player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
-        } catch (IllegalArgumentException ex) {
-            player.sendMessage(Message.raw("Error: " + ex.getMessage()));
-            player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
-        } catch (Exception ex) {
-            player.sendMessage(Message.raw("An unexpected error occurred: " + ex.getMessage()));
-            player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+        } catch (IllegalArgumentException ignored) {
+            // Shop is already gone; the delete below reports it
         }
+
+        // Delete the shop
+        World world = store.getExternalData().getWorld();
+        registry.async().deleteShop(world, ownerId, shopName).whenComplete((ignored, error) -> {
+            if (error == null) {
+                player.sendMessage(Message.raw("Shop '" + shopName + "' has been deleted."));
+            } else if (error instanceof IllegalArgumentException) {
+                player.sendMessage(Message.raw("Error: " + error.getMessage()));
+            } else {
+                player.sendMessage(Message.raw("An unexpected error occurred: " + error.getMessage()));
+            }
+
+            // Always redirect to shop list after delete
+            if (ref.isValid()) {
+                player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+            }
+        });
     }
 
     private ShopRegistry resolveRegistry() {
@@ -4,6 +4,8 @@ import br.com.leonardson.taleshop.TaleShop;
 import br.com.leonardson.taleshop.player.PlayerIdentity;
 import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.sales.SalesRollups;
+import br.com.leonardson.taleshop.shop.sales.SalesSummary;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.codec.Codec;
@@ -18,7 +20,9 @@ import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -78,6 +82,17 @@ public class ShopEditorPage extends InteractiveCustomUIPage<ShopEditorPage.ShopE
         
         // Hide error label initially
         commandBuilder.set("#ErrorLabel.Visible", false);
+
+        // Show how the shop is selling when editing an existing one
+        TaleShop plugin = TaleShop.getInstance();
+        SalesRollups rollups = plugin != null ? plugin.getSalesRollups() : null;
+        if (isEditMode && rollups != null) {
+            SalesSummary summary = rollups.summary(ownerId, currentShopName, 0);
+            commandBuilder.set("#SalesLabel.Text", "Sold today: " + summary.today() + ", this week: " + summary.thisWeek());
+            commandBuilder.set("#SalesLabel.Visible", true);
+        } else {
+            commandBuilder.set("#SalesLabel.Visible", false);
+        }
     }
 
     @Override
@@ -127,33 +142,45 @@ public class ShopEditorPage extends InteractiveCustomUIPage<ShopEditorPage.ShopE
             return;
         }
 
-        try {
+        World world = store.getExternalData().getWorld();
+        CompletableFuture<Shop> saved;
+        if (isEditMode) {
+            // Rename existing shop
+            saved = registry.async().renameShop(world, ownerId, currentShopName, trimmedName);
+        } else {
+            // Create new shop
+            String ownerName = PlayerIdentity.resolveDisplayName(player);
+            saved = registry.async().createShop(world, ownerId, ownerName, trimmedName);
+        }
+
+        saved.whenComplete((shop, error) -> {
+            if (error != null) {
+                if (error instanceof IllegalArgumentException) {
+                    player.sendMessage(Message.raw("Error: " + error.getMessage()));
+                } else {
+                    player.sendMessage(Message.raw("An unexpected error occurred: " + error.getMessage()));
+                }
+                return;
+            }
+
             if (isEditMode) {
-                // Rename existing shop
-                registry.renameShop(ownerId, currentShopName, trimmedName);
-                player.sendMessage(Message.raw("Shop renamed to '" + trimmedName + "'."));
+                player.sendMessage(Message.raw("Shop renamed to '" + shop.name() + "'."));
             } else {
-                // Create new shop
-                String ownerName = PlayerIdentity.resolveDisplayName(player);
-                Shop shop = registry.createShop(ownerId, ownerName, trimmedName);
                 player.sendMessage(Message.raw("Shop '" + shop.name() + "' created successfully."));
             }
-            
+            if (!ref.isValid()) {
+                return;
+            }
+
             // Return to appropriate page
             if (returnToTrader && isEditMode) {
                 // Return to trader menu with the new shop name
-                player.getPageManager().openCustomPage(ref, store, new TraderMenuPage(playerRef, ownerId, trimmedName));
+                player.getPageManager().openCustomPage(ref, store, new TraderMenuPage(playerRef, ownerId, shop.name()));
             } else {
                 // Return to shop list
                 player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
             }
-        } catch (IllegalArgumentException ex) {
-            player.sendMessage(Message.raw("Error: " + ex.getMessage()));
-            ex.printStackTrace();
-        } catch (Exception ex) {
-            player.sendMessage(Message.raw("An unexpected error occurred: " + ex.getMessage()));
-            ex.printStackTrace();
-        }
+        });
     }
 
     private ShopRegistry resolveRegistry() {
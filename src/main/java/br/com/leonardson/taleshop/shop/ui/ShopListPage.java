@@ -2,9 +2,10 @@ package br.com.leonardson.taleshop.shop.ui;
 
 import br.com.leonardson.taleshop.TaleShop;
 import br.com.leonardson.taleshop.permission.PermissionUtil;
-import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.ShopSummary;
 import br.com.leonardson.taleshop.shop.TraderNpc;
+import br.com.leonardson.taleshop.shop.TraderSpawner;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.codec.Codec;
@@ -19,17 +20,28 @@ import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public class ShopListPage extends InteractiveCustomUIPage<ShopListPage.ShopListEventData> {
     private static final String PAGE_PATH = "Pages/ShopListPage.ui";
     private static final String SHOP_ROWS_SELECTOR = "#ShopRows";
     private static final String ROW_TEMPLATE_PATH = "Pages/ShopRow.ui";
+    private static final int PAGE_SIZE = 25;
     
     private final String ownerId;
+    // Start cursors of the pages before this one; "" stands for the first page
+    private final Deque<String> previousPages = new ArrayDeque<>();
+    @Nullable
+    private String afterName;
+    private List<ShopSummary> rows = List.of();
+    private boolean hasNextPage;
 
     public ShopListPage(@Nonnull PlayerRef playerRef, @Nonnull String ownerId) {
         super(playerRef, CustomPageLifetime.CanDismiss, ShopListEventData.CODEC);
@@ -52,20 +64,42 @@ public class ShopListPage extends InteractiveCustomUIPage<ShopListPage.ShopListE
             EventData.of("Action", "Create"),
             false
         );
+        eventBuilder.addEventBinding(
+            CustomUIEventBindingType.Activating,
+            "#PrevPageButton",
+            EventData.of("Action", "PrevPage"),
+            false
+        );
+        eventBuilder.addEventBinding(
+            CustomUIEventBindingType.Activating,
+            "#NextPageButton",
+            EventData.of("Action", "NextPage"),
+            false
+        );
 
         ShopRegistry registry = resolveRegistry();
         if (registry == null) {
             return;
         }
 
-        List<Shop> shops = loadShops(registry);
+        buildRows(registry, commandBuilder, eventBuilder);
+    }
+
+    /**
+     * Fetches and renders the current page only, so the rows sent never exceed
+     * {@value #PAGE_SIZE} however many shops the owner has.
+     */
+    private void buildRows(@Nonnull ShopRegistry registry, @Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder) {
+        List<ShopSummary> shops = loadPage(registry);
         
         // Clear the list first
         commandBuilder.clear(SHOP_ROWS_SELECTOR);
+        commandBuilder.set("#PrevPageButton.Disabled", afterName == null);
+        commandBuilder.set("#NextPageButton.Disabled", !hasNextPage);
         
         // Dynamically append shop rows
         for (int i = 0; i < shops.size(); i++) {
-            Shop shop = shops.get(i);
+            ShopSummary shop = shops.get(i);
             
             // Append the template
             commandBuilder.append(SHOP_ROWS_SELECTOR, ROW_TEMPLATE_PATH);
@@ -73,13 +107,10 @@ public class ShopListPage extends InteractiveCustomUIPage<ShopListPage.ShopListE
             // Build the selector for this row using array notation
             String rowSelector = SHOP_ROWS_SELECTOR + "[" + i + "]";
             
-            boolean hasNpc = shop.traderUuid() != null && !shop.traderUuid().isBlank();
-            int tradeCount = shop.trades().size();
-            
             // Set data for this row
             commandBuilder.set(rowSelector + " #ShopName.Text", shop.name());
-            commandBuilder.set(rowSelector + " #ShopTrades.Text", tradeCount + "/" + ShopRegistry.MAX_TRADES);
-            commandBuilder.set(rowSelector + " #ShopNpcButton.Text", hasNpc ? "Despawn" : "Spawn NPC");
+            commandBuilder.set(rowSelector + " #ShopTrades.Text", shop.tradeCount() + "/" + ShopRegistry.MAX_TRADES);
+            commandBuilder.set(rowSelector + " #ShopNpcButton.Text", shop.hasTrader() ? "Despawn" : "Spawn NPC");
             
             // Bind events for this row's buttons
             eventBuilder.addEventBinding(
@@ -125,7 +156,25 @@ public class ShopListPage extends InteractiveCustomUIPage<ShopListPage.ShopListE
             return;
         }
 
-        List<Shop> shops = loadShops(registry);
+        if ("PrevPage".equals(data.action)) {
+            if (afterName != null) {
+                String previous = previousPages.poll();
+                afterName = previous == null || previous.isEmpty() ? null : previous;
+                refreshRows(registry);
+            }
+            return;
+        }
+
+        if ("NextPage".equals(data.action)) {
+            if (hasNextPage && !rows.isEmpty()) {
+                previousPages.push(afterName == null ? "" : afterName);
+                afterName = rows.get(rows.size() - 1).name();
+                refreshRows(registry);
+            }
+            return;
+        }
+
+        List<ShopSummary> shops = loadPage(registry);
         
         // Parse shop index from event data
         int shopIndex = -1;
@@ -141,7 +190,7 @@ public class ShopListPage extends InteractiveCustomUIPage<ShopListPage.ShopListE
             return;
         }
         
-        Shop shop = shops.get(shopIndex);
+        ShopSummary shop = shops.get(shopIndex);
 
         if ("Edit".equals(data.action)) {
             player.getPageManager().openCustomPage(ref, store, new ShopEditorPage(playerRef, ownerId, shop.name()));
@@ -164,7 +213,7 @@ public class ShopListPage extends InteractiveCustomUIPage<ShopListPage.ShopListE
         @Nonnull Store<EntityStore> store,
         @Nonnull Player player,
         @Nonnull PlayerRef playerRef,
-        @Nonnull Shop shop
+        @Nonnull ShopSummary shop
     ) {
         ShopRegistry registry = resolveRegistry();
         if (registry == null) {
@@ -172,14 +221,23 @@ public class ShopListPage extends InteractiveCustomUIPage<ShopListPage.ShopListE
             return;
         }
 
-        boolean hasNpc = shop.traderUuid() != null && !shop.traderUuid().isBlank();
-        
-        if (hasNpc) {
+        if (shop.hasTrader()) {
             // Despawn NPC
             boolean despawned = TraderNpc.despawnByUuid(store, shop.traderUuid());
             if (despawned) {
-                registry.clearTraderUuid(ownerId, shop.name());
-                player.sendMessage(Message.raw("NPC despawned for " + shop.name()));
+                World world = store.getExternalData().getWorld();
+                registry.async().clearTraderUuid(world, ownerId, shop.name()).whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        player.sendMessage(Message.raw("NPC despawned for " + shop.name()));
+                    } else {
+                        player.sendMessage(Message.raw("NPC despawned for " + shop.name() + ", but the shop could not be saved: " + error.getMessage()));
+                    }
+                    // Refresh once the shop no longer lists the trader
+                    if (ref.isValid()) {
+                        refreshRows(registry);
+                    }
+                });
+                return;
             } else {
                 player.sendMessage(Message.raw("Failed to despawn NPC. It may have already been removed."));
             }
@@ -191,33 +249,71 @@ public class ShopListPage extends InteractiveCustomUIPage<ShopListPage.ShopListE
                 return;
             } else {
                 // Spawn default NPC (Klops_Merchant)
-                TraderNpc traderNpc = new TraderNpc(shop.name(), "Klops_Merchant");
+                TraderSpawner spawner = resolveSpawner();
+                if (spawner == null) {
+                    player.sendMessage(Message.raw("Failed to spawn NPC: trader spawner not available."));
+                    return;
+                }
+                TraderSpawner.SpawnOrder order;
                 try {
-                    traderNpc.spawn(store, ref);
-                    String traderUuid = traderNpc.getUuid(store);
-                    if (traderUuid != null && !traderUuid.isBlank()) {
-                        registry.setTraderUuid(ownerId, shop.name(), traderUuid);
-                        player.sendMessage(Message.raw("NPC spawned for " + shop.name()));
-                    } else {
-                        player.sendMessage(Message.raw("NPC spawned but UUID not available."));
-                    }
+                    order = TraderSpawner.orderAt(store, ref, ownerId, shop.name(), TraderSpawner.DEFAULT_ROLE);
                 } catch (IllegalStateException ex) {
                     player.sendMessage(Message.raw("Failed to spawn NPC: " + ex.getMessage()));
                     return;
                 }
+                World world = store.getExternalData().getWorld();
+                spawner.spawn(world, order).whenComplete((result, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        player.sendMessage(Message.raw("Failed to spawn NPC: " + cause.getMessage()));
+                        return;
+                    }
+                    if (result.isSuccess()) {
+                        player.sendMessage(Message.raw("NPC spawned for " + shop.name()));
+                    } else {
+                        player.sendMessage(Message.raw("Failed to spawn NPC: " + result.error()));
+                    }
+                    // Refresh once the spawn has been applied on the world thread
+                    if (ref.isValid()) {
+                        player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+                    }
+                });
+                return;
             }
         }
         
-        // Refresh the page to update button states
-        player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+        // Refresh the rows in place to update button states and stay on this page
+        refreshRows(registry);
     }
 
-    private List<Shop> loadShops(@Nonnull ShopRegistry registry) {
+    /**
+     * Loads the current page, fetching one extra row to tell whether a next page exists.
+     */
+    private List<ShopSummary> loadPage(@Nonnull ShopRegistry registry) {
+        List<ShopSummary> page;
         try {
-            return new ArrayList<>(registry.listShops(ownerId));
+            page = registry.listShopSummaries(ownerId, afterName, PAGE_SIZE + 1);
         } catch (Exception ex) {
-            return new ArrayList<>();
+            page = List.of();
+        }
+        hasNextPage = page.size() > PAGE_SIZE;
+        rows = hasNextPage ? page.subList(0, PAGE_SIZE) : page;
+        return rows;
+    }
+
+    private void refreshRows(@Nonnull ShopRegistry registry) {
+        UICommandBuilder commandBuilder = new UICommandBuilder();
+        UIEventBuilder eventBuilder = new UIEventBuilder();
+        buildRows(registry, commandBuilder, eventBuilder);
+        this.sendUpdate(commandBuilder, eventBuilder, false);
+    }
+
+    private TraderSpawner resolveSpawner() {
+        TaleShop plugin = TaleShop.getInstance();
+        if (plugin == null) {
+            return null;
         }
+        return plugin.getTraderSpawner();
     }
 
     private ShopRegistry resolveRegistry() {
@@ -24,9 +24,12 @@ import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -213,15 +216,10 @@ public class TradeEditorPage extends InteractiveCustomUIPage<TradeEditorPage.Tra
     private Trade resolveTrade(@Nonnull ShopRegistry registry) {
         try {
             Shop shop = registry.getShop(ownerId, shopName);
-            for (Trade trade : shop.trades()) {
-                if (trade.id() == tradeId) {
-                    return trade;
-                }
-            }
+            return shop.findTrade(tradeId);
         } catch (IllegalArgumentException ignored) {
             return null;
         }
-        return null;
     }
 
     private int findSlotByItemId(@Nonnull Inventory inventory, @Nonnull String itemId) {
@@ -379,20 +377,24 @@ public class TradeEditorPage extends InteractiveCustomUIPage<TradeEditorPage.Tra
             return;
         }
 
-        try {
-            if (tradeId == null) {
-                Trade trade = registry.addTrade(ownerId, shopName, inputItem, inputQuantity, outputItem, outputQuantity);
-                playerRef.sendMessage(Message.raw("Trade added (#" + trade.id() + ")."));
-            } else {
-                registry.updateTrade(ownerId, shopName, tradeId, inputItem, inputQuantity, outputItem, outputQuantity);
-                playerRef.sendMessage(Message.raw("Trade updated (#" + tradeId + ")."));
+        World world = store.getExternalData().getWorld();
+        CompletableFuture<String> saved = tradeId == null
+            ? registry.async().addTrade(world, ownerId, shopName, inputItem, inputQuantity, outputItem, outputQuantity)
+                .thenApply(trade -> "Trade added (#" + trade.id() + ").")
+            : registry.async().updateTrade(world, ownerId, shopName, tradeId, inputItem, inputQuantity, outputItem, outputQuantity)
+                .thenApply(ignored -> "Trade updated (#" + tradeId + ").");
+        saved.whenComplete((message, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                playerRef.sendMessage(Message.raw(cause.getMessage()));
+                return;
             }
-        } catch (IllegalArgumentException ex) {
-            playerRef.sendMessage(Message.raw(ex.getMessage()));
-            return;
-        }
 
-        player.getPageManager().openCustomPage(ref, store, new TradeListPage(playerRef, ownerId, shopName));
+            playerRef.sendMessage(Message.raw(message));
+            if (ref.isValid()) {
+                player.getPageManager().openCustomPage(ref, store, new TradeListPage(playerRef, ownerId, shopName));
+            }
+        });
     }
 
     private ShopRegistry resolveRegistry() {
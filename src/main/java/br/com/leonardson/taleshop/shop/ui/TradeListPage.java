@@ -1,8 +1,8 @@
 package br.com.leonardson.taleshop.shop.ui;
 
 import br.com.leonardson.taleshop.TaleShop;
-import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
+import br.com.leonardson.taleshop.shop.TradePage;
 import br.com.leonardson.taleshop.shop.trade.Trade;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
@@ -11,6 +11,7 @@ import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
 import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
+import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
@@ -19,11 +20,12 @@ import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -34,11 +36,17 @@ public class TradeListPage extends InteractiveCustomUIPage<TradeListPage.TradeLi
     
     private final String ownerId;
     private final String shopName;
+    private int page;
 
     public TradeListPage(@Nonnull PlayerRef playerRef, @Nonnull String ownerId, @Nonnull String shopName) {
+        this(playerRef, ownerId, shopName, 0);
+    }
+
+    public TradeListPage(@Nonnull PlayerRef playerRef, @Nonnull String ownerId, @Nonnull String shopName, int page) {
         super(playerRef, CustomPageLifetime.CanDismiss, TradeListEventData.CODEC);
         this.ownerId = ownerId;
         this.shopName = shopName;
+        this.page = page;
     }
 
     @Override
@@ -61,6 +69,18 @@ public class TradeListPage extends InteractiveCustomUIPage<TradeListPage.TradeLi
             EventData.of("Action", "Back"),
             false
         );
+        eventBuilder.addEventBinding(
+            CustomUIEventBindingType.Activating,
+            "#PrevPageButton",
+            EventData.of("Action", "PrevPage"),
+            false
+        );
+        eventBuilder.addEventBinding(
+            CustomUIEventBindingType.Activating,
+            "#NextPageButton",
+            EventData.of("Action", "NextPage"),
+            false
+        );
 
         commandBuilder.set("#TitleLabel.Text", shopName + " Trades");
 
@@ -69,10 +89,21 @@ public class TradeListPage extends InteractiveCustomUIPage<TradeListPage.TradeLi
             return;
         }
 
-        List<Trade> trades = loadTrades(registry);
+        buildRows(registry, commandBuilder, eventBuilder);
+    }
+
+    /**
+     * Renders the rows of the current page only.
+     */
+    private void buildRows(@Nonnull ShopRegistry registry, @Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder) {
+        TradePage tradePage = loadPage(registry);
+        List<Trade> trades = tradePage.trades();
         
         // Clear the list first
         commandBuilder.clear(TRADE_ROWS_SELECTOR);
+        commandBuilder.set("#PageLabel.Text", TradePaging.label(page, tradePage.tradeCount()));
+        commandBuilder.set("#PrevPageButton.Disabled", page == 0);
+        commandBuilder.set("#NextPageButton.Disabled", page >= TradePaging.pageCount(tradePage.tradeCount()) - 1);
         
         // Dynamically append trade rows
         for (int i = 0; i < trades.size(); i++) {
@@ -94,13 +125,13 @@ public class TradeListPage extends InteractiveCustomUIPage<TradeListPage.TradeLi
             eventBuilder.addEventBinding(
                 CustomUIEventBindingType.Activating,
                 rowSelector + " #TradeEditButton",
-                new EventData().append("Action", "Edit").append("TradeIndex", String.valueOf(i)),
+                new EventData().append("Action", "Edit").append("TradeId", String.valueOf(trade.id())),
                 false
             );
             eventBuilder.addEventBinding(
                 CustomUIEventBindingType.Activating,
                 rowSelector + " #TradeDeleteButton",
-                new EventData().append("Action", "Delete").append("TradeIndex", String.valueOf(i)),
+                new EventData().append("Action", "Delete").append("TradeId", String.valueOf(trade.id())),
                 false
             );
         }
@@ -133,45 +164,65 @@ public class TradeListPage extends InteractiveCustomUIPage<TradeListPage.TradeLi
             return;
         }
 
-        List<Trade> trades = loadTrades(registry);
-        
-        // Parse trade index from event data
-        int tradeIndex = -1;
-        if (data.tradeIndex != null) {
+        if ("PrevPage".equals(data.action) || "NextPage".equals(data.action)) {
+            page += "NextPage".equals(data.action) ? 1 : -1;
+            UICommandBuilder commandBuilder = new UICommandBuilder();
+            UIEventBuilder eventBuilder = new UIEventBuilder();
+            buildRows(registry, commandBuilder, eventBuilder);
+            this.sendUpdate(commandBuilder, eventBuilder, false);
+            return;
+        }
+
+        // Parse trade id from event data; ids stay stable if the list changes after build
+        int tradeId = -1;
+        if (data.tradeId != null) {
             try {
-                tradeIndex = Integer.parseInt(data.tradeIndex);
+                tradeId = Integer.parseInt(data.tradeId);
             } catch (NumberFormatException ignored) {
                 return;
             }
         }
         
-        if (tradeIndex < 0 || tradeIndex >= trades.size()) {
+        if (tradeId <= 0) {
             return;
         }
-        
-        Trade trade = trades.get(tradeIndex);
 
         if ("Edit".equals(data.action)) {
-            player.getPageManager().openCustomPage(ref, store, new TradeEditorPage(playerRef, ownerId, shopName, trade.id()));
+            player.getPageManager().openCustomPage(ref, store, new TradeEditorPage(playerRef, ownerId, shopName, tradeId));
             return;
         }
 
         if ("Delete".equals(data.action)) {
-            try {
-                registry.removeTrade(ownerId, shopName, trade.id());
-            } catch (IllegalArgumentException ignored) {
-                return;
-            }
-            player.getPageManager().openCustomPage(ref, store, new TradeListPage(playerRef, ownerId, shopName));
+            World world = store.getExternalData().getWorld();
+            registry.async().removeTrade(world, ownerId, shopName, tradeId).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    player.sendMessage(Message.raw("Failed to delete trade: " + cause.getMessage()));
+                    return;
+                }
+                if (ref.isValid()) {
+                    player.getPageManager().openCustomPage(ref, store, new TradeListPage(playerRef, ownerId, shopName, page));
+                }
+            });
         }
     }
 
-    private List<Trade> loadTrades(@Nonnull ShopRegistry registry) {
+    /**
+     * Loads only the trades of the current page, moving the page back into range if trades were
+     * removed since it was opened.
+     */
+    private TradePage loadPage(@Nonnull ShopRegistry registry) {
         try {
-            Shop shop = registry.getShop(ownerId, shopName);
-            return new ArrayList<>(shop.trades());
+            TradePage tradePage = registry.listTrades(ownerId, shopName, page * TradePaging.PAGE_SIZE, TradePaging.PAGE_SIZE);
+            int clamped = TradePaging.clamp(page, tradePage.tradeCount());
+            if (clamped == page) {
+                return tradePage;
+            }
+            page = clamped;
+            return registry.listTrades(ownerId, shopName, page * TradePaging.PAGE_SIZE, TradePaging.PAGE_SIZE);
         } catch (IllegalArgumentException ex) {
-            return new ArrayList<>();
+            page = 0;
+            return new TradePage(List.of(), 0);
         }
     }
 
@@ -464,10 +515,10 @@ public class TradeListPage extends InteractiveCustomUIPage<TradeListPage.TradeLi
     public static class TradeListEventData {
         public static final BuilderCodec<TradeListEventData> CODEC = BuilderCodec.builder(TradeListEventData.class, TradeListEventData::new)
             .append(new KeyedCodec<>("Action", Codec.STRING), (data, s) -> data.action = s, data -> data.action).add()
-            .append(new KeyedCodec<>("TradeIndex", Codec.STRING), (data, s) -> data.tradeIndex = s, data -> data.tradeIndex).add()
+            .append(new KeyedCodec<>("TradeId", Codec.STRING), (data, s) -> data.tradeId = s, data -> data.tradeId).add()
             .build();
         private String action;
-        private String tradeIndex;
+        private String tradeId;
 
         public TradeListEventData() {
         }
@@ -0,0 +1,37 @@
+package br.com.leonardson.taleshop.shop.ui;
+
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Splits a shop's trades into fixed-size pages, so trade pages only build the rows in view
+ * however large the catalog is.
+ */
+final class TradePaging {
+    static final int PAGE_SIZE = 20;
+
+    private TradePaging() {
+    }
+
+    static int pageCount(int tradeCount) {
+        return Math.max(1, (tradeCount + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    /**
+     * {@code page} moved into range, for a page index kept across a change that removed trades.
+     */
+    static int clamp(int page, int tradeCount) {
+        return Math.max(0, Math.min(page, pageCount(tradeCount) - 1));
+    }
+
+    @Nonnull
+    static <T> List<T> slice(@Nonnull List<T> trades, int page) {
+        int from = clamp(page, trades.size()) * PAGE_SIZE;
+        return trades.subList(from, Math.min(from + PAGE_SIZE, trades.size()));
+    }
+
+    @Nonnull
+    static String label(int page, int tradeCount) {
+        return (clamp(page, tradeCount) + 1) + "/" + pageCount(tradeCount);
+    }
+}
@@ -5,6 +5,9 @@ import br.com.leonardson.taleshop.player.PlayerIdentity;
 import br.com.leonardson.taleshop.shop.Shop;
 import br.com.leonardson.taleshop.shop.ShopRegistry;
 import br.com.leonardson.taleshop.shop.TraderNpc;
+import br.com.leonardson.taleshop.shop.sales.SalesRollups;
+import br.com.leonardson.taleshop.shop.sales.SalesSummary;
+import br.com.leonardson.taleshop.shop.trade.Trade;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.codec.Codec;
@@ -19,11 +22,15 @@ import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.List;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public class TraderMenuPage extends InteractiveCustomUIPage<TraderMenuPage.MenuEventData> {
     private static final String PAGE_PATH = "Pages/TraderMenuPage.ui";
+    private static final int TOP_TRADES = 3;
     private final String ownerId;
     private final String shopName;
 
@@ -77,6 +84,53 @@ public class TraderMenuPage extends InteractiveCustomUIPage<TraderMenuPage.MenuE
         );
 
         commandBuilder.set("#TitleLabel.Text", shopName);
+        applySales(commandBuilder);
+    }
+
+    private void applySales(@Nonnull UICommandBuilder commandBuilder) {
+        TaleShop plugin = TaleShop.getInstance();
+        SalesRollups rollups = plugin == null ? null : plugin.getSalesRollups();
+        SalesSummary summary = rollups == null ? SalesSummary.EMPTY : rollups.summary(ownerId, shopName, TOP_TRADES);
+        commandBuilder.set("#SalesTotalsLabel.Text",
+            "Today: " + summary.today() + "   This week: " + summary.thisWeek() + "   Last hour: " + summary.lastHour());
+
+        List<SalesSummary.TradeSales> topTrades = summary.topTrades();
+        Shop shop = topTrades.isEmpty() ? null : resolveShop();
+        for (int i = 0; i < TOP_TRADES; i++) {
+            String selector = "#TopTrade" + i;
+            if (i < topTrades.size()) {
+                SalesSummary.TradeSales sales = topTrades.get(i);
+                commandBuilder.set(selector + ".Text",
+                    (i + 1) + ". " + describeTrade(shop, sales.tradeId()) + " - " + sales.thisWeek() + " this week");
+                commandBuilder.set(selector + ".Visible", true);
+            } else if (i == 0) {
+                commandBuilder.set(selector + ".Text", "No sales this week yet.");
+                commandBuilder.set(selector + ".Visible", true);
+            } else {
+                commandBuilder.set(selector + ".Visible", false);
+            }
+        }
+    }
+
+    private static String describeTrade(@Nullable Shop shop, int tradeId) {
+        Trade trade = shop == null ? null : shop.findTrade(tradeId);
+        if (trade == null) {
+            return "Trade #" + tradeId + " (removed)";
+        }
+        return trade.inputQuantity() + "x " + trade.inputItemId() + " -> " + trade.outputQuantity() + "x " + trade.outputItemId();
+    }
+
+    @Nullable
+    private Shop resolveShop() {
+        ShopRegistry registry = resolveRegistry();
+        if (registry == null) {
+            return null;
+        }
+        try {
+            return registry.getShop(ownerId, shopName);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
     }
 
     @Override
@@ -148,15 +202,24 @@ public class TraderMenuPage extends InteractiveCustomUIPage<TraderMenuPage.MenuE
         }
 
         boolean despawned = TraderNpc.despawnByUuid(store, traderUuid);
-        if (despawned) {
-            registry.clearTraderUuid(ownerId, shopName);
-            player.sendMessage(Message.raw("Trader despawned successfully."));
-        } else {
+        if (!despawned) {
             player.sendMessage(Message.raw("Failed to despawn trader."));
+            player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+            return;
         }
-        
-        // Redirect to shop list
-        player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+
+        World world = store.getExternalData().getWorld();
+        registry.async().clearTraderUuid(world, ownerId, shopName).whenComplete((ignored, error) -> {
+            if (error == null) {
+                player.sendMessage(Message.raw("Trader despawned successfully."));
+            } else {
+                player.sendMessage(Message.raw("Trader despawned, but the shop could not be saved: " + error.getMessage()));
+            }
+            // Redirect to shop list once the shop no longer lists the trader
+            if (ref.isValid()) {
+                player.getPageManager().openCustomPage(ref, store, new ShopListPage(playerRef, ownerId));
+            }
+        });
     }
 
     private ShopRegistry resolveRegistry() {
@@ -0,0 +1,112 @@
+package br.com.leonardson.taleshop.shop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import br.com.leonardson.taleshop.shop.trade.Trade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonShopStorageTest {
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void unreadableSnapshotFallsBackToThePreviousOne() throws IOException {
+        JsonShopStorage storage = new JsonShopStorage(dataDirectory);
+        storage.createShop("owner", "Owner", "First");
+        storage.close();
+        storage = new JsonShopStorage(dataDirectory);
+        storage.createShop("owner", "Owner", "Second");
+        storage.close();
+        corruptSnapshot();
+
+        storage = new JsonShopStorage(dataDirectory);
+
+        assertEquals(List.of("First"), names(storage));
+        assertTrue(Files.exists(dataDirectory.resolve(JsonShopStorage.SNAPSHOT_FILE + ".corrupt")));
+        storage.close();
+        assertEquals(List.of("First"), names(new JsonShopStorage(dataDirectory)));
+    }
+
+    @Test
+    void unreadableSnapshotFallsBackToJson() throws IOException {
+        JsonShopStorage storage = new JsonShopStorage(dataDirectory);
+        storage.createShop("owner", "Owner", "Exported");
+        JsonShopStorage.exportJson(storage.listAllShops(), dataDirectory.resolve(JsonShopStorage.JSON_FILE));
+        storage.close();
+        Files.deleteIfExists(dataDirectory.resolve(JsonShopStorage.SNAPSHOT_FILE + ".prev"));
+        corruptSnapshot();
+
+        assertEquals(List.of("Exported"), names(new JsonShopStorage(dataDirectory)));
+    }
+
+    @Test
+    void changesAreSavedOnClose() {
+        JsonShopStorage storage = new JsonShopStorage(dataDirectory);
+        storage.createShop("owner", "Owner", "First");
+        storage.renameShop("owner", "First", "Renamed");
+        storage.createShop("owner", "Owner", "Second");
+        storage.close();
+
+        assertEquals(List.of("Renamed", "Second"), names(new JsonShopStorage(dataDirectory)));
+    }
+
+    @Test
+    void unreadableSnapshotWithNothingToFallBackToFails() throws IOException {
+        Files.write(dataDirectory.resolve(JsonShopStorage.SNAPSHOT_FILE), new byte[] { 1, 2, 3 });
+
+        assertThrows(RuntimeException.class, () -> new JsonShopStorage(dataDirectory));
+    }
+
+    @Test
+    void listTradesReturnsOnePageAndTheTotal() {
+        JsonShopStorage storage = new JsonShopStorage(dataDirectory);
+        storage.createShop("owner", "Owner", "Big");
+        for (int i = 0; i < 5; i++) {
+            storage.addTrade("owner", "big", "Rock", i + 1, "Gem", 1);
+        }
+
+        TradePage page = storage.listTrades("owner", "Big", 2, 2);
+
+        assertEquals(List.of(3, 4), page.trades().stream().map(Trade::id).toList());
+        assertEquals(5, page.tradeCount());
+        assertEquals(List.of(), storage.listTrades("owner", "Big", 10, 2).trades());
+        assertThrows(IllegalArgumentException.class, () -> storage.listTrades("owner", "Missing", 0, 2));
+        storage.close();
+    }
+
+    @Test
+    void summariesAreOrderedByNormalizedNameLikeSqlite() {
+        JsonShopStorage storage = new JsonShopStorage(dataDirectory);
+        storage.createShop("owner", "Owner", "banana");
+        storage.createShop("owner", "Owner", "_Zed");
+        storage.createShop("owner", "Owner", "Apple");
+        storage.addTrade("owner", "apple", "Rock", 1, "Gem", 1);
+
+        List<ShopSummary> summaries = storage.listShopSummaries("owner");
+
+        assertEquals(List.of("_Zed", "Apple", "banana"), summaries.stream().map(ShopSummary::name).toList());
+        assertEquals(List.of(0, 1, 0), summaries.stream().map(ShopSummary::tradeCount).toList());
+        assertEquals(summaries, storage.listShopSummaries("owner", null, 10));
+        assertEquals(summaries, storage.listAllShopSummaries());
+        storage.close();
+    }
+
+    private void corruptSnapshot() throws IOException {
+        Path snapshot = dataDirectory.resolve(JsonShopStorage.SNAPSHOT_FILE);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(snapshot, bytes);
+    }
+
+    private static List<String> names(JsonShopStorage storage) {
+        return storage.listAllShops().stream().map(Shop::name).toList();
+    }
+}
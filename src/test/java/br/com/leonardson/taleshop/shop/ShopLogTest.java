@@ -0,0 +1,82 @@
+package br.com.leonardson.taleshop.shop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShopLogTest {
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void recordsAfterATornFrameAreReplayed() throws IOException {
+        ShopLog log = open();
+        append(log, "first");
+        log.close();
+
+        // A frame header promising more bytes than made it to disk
+        Path segment = ShopLog.segments(dataDirectory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(11).putInt(64).putInt(0).put(new byte[] { 1, 2, 3 }).flip());
+        }
+
+        log = open();
+        append(log, "second");
+        log.close();
+
+        assertEquals(List.of("first", "second"), replay());
+    }
+
+    @Test
+    void appendAfterAFailedWriteIsReplayed() throws IOException {
+        ShopLog log = open();
+        append(log, "first");
+        log.close();
+
+        // Something already sitting where the next segment goes makes the next append fail
+        Path first = ShopLog.segments(dataDirectory).get(0);
+        Path blocked = first.resolveSibling(first.getFileName().toString().replace("0001.log", "0002.log"));
+        ShopLog reopened = open();
+        Files.createDirectory(blocked);
+
+        assertThrows(RuntimeException.class, () -> append(reopened, "lost"));
+        append(reopened, "third");
+        reopened.close();
+        Files.delete(blocked);
+
+        assertEquals(List.of("first", "third"), replay());
+    }
+
+    private ShopLog open() {
+        ShopLog log = new ShopLog(dataDirectory);
+        log.replay(record -> { });
+        return log;
+    }
+
+    private List<String> replay() {
+        List<String> values = new ArrayList<>();
+        ShopLog log = new ShopLog(dataDirectory);
+        log.replay(record -> values.add(record.readUTF()));
+        log.close();
+        return values;
+    }
+
+    private static void append(ShopLog log, String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(value);
+        log.append(bytes.toByteArray(), bytes.size());
+    }
+}
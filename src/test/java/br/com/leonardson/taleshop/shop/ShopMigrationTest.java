@@ -0,0 +1,61 @@
+package br.com.leonardson.taleshop.shop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.leonardson.taleshop.config.PluginConfig.StorageBackend;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShopMigrationTest {
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void switchingBackToABackendReplacesItsOldShops() throws IOException {
+        ShopStorage storage = ShopMigration.openStorage(dataDirectory, StorageBackend.JSON);
+        storage.createShop("owner", "Owner", "First");
+        storage.close();
+
+        storage = ShopMigration.openStorage(dataDirectory, StorageBackend.LOG);
+        storage.createShop("owner", "Owner", "Second");
+        storage.close();
+
+        storage = ShopMigration.openStorage(dataDirectory, StorageBackend.JSON);
+        assertEquals(List.of("First", "Second"), names(storage));
+        storage.close();
+
+        try (Stream<Path> backups = Files.list(dataDirectory.resolve("backups"))) {
+            assertTrue(backups.anyMatch(file -> file.getFileName().toString().endsWith("-replaced.bin")));
+        }
+    }
+
+    @Test
+    void exportedJsonIsNotTakenForTheJsonBackend() {
+        ShopStorage storage = ShopMigration.openStorage(dataDirectory, StorageBackend.LOG);
+        storage.createShop("owner", "Owner", "Exported");
+        JsonShopStorage.exportJson(storage.listAllShops(), dataDirectory.resolve(JsonShopStorage.JSON_FILE));
+        storage.deleteShop("owner", "Exported");
+        storage.createShop("owner", "Owner", "Current");
+        storage.close();
+
+        storage = ShopMigration.openStorage(dataDirectory, StorageBackend.JSON);
+        assertEquals(List.of("Current"), names(storage));
+        storage.close();
+
+        storage = ShopMigration.openStorage(dataDirectory, StorageBackend.LOG);
+        assertEquals(List.of("Current"), names(storage));
+        storage.close();
+    }
+
+    private static List<String> names(ShopStorage storage) {
+        return storage.listAllShops().stream().map(Shop::name).sorted().toList();
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.leonardson.taleshop.shop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import br.com.leonardson.taleshop.shop.trade.Trade;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShopRegistryTest {
+    @TempDir
+    Path dataDirectory;
+
+    private ShopRegistry registry;
+
+    @AfterEach
+    void close() {
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    @Test
+    void asyncTradeWritesDoNotRunOnTheCallersThread() throws Exception {
+        registry = new ShopRegistry(dataDirectory);
+        registry.createShop("owner", "Owner", "Shop");
+
+        CompletableFuture<Trade> added;
+        synchronized (registry) {
+            // A write on this thread would get the lock and finish before returning
+            added = registry.addTradeAsync("owner", "Shop", "Ingredient_Stick", 1, "Ingredient_Fibre", 2);
+            Thread.sleep(50);
+            assertFalse(added.isDone());
+        }
+        Trade trade = added.join();
+
+        CompletableFuture<Void> removed;
+        synchronized (registry) {
+            removed = registry.removeTradeAsync("owner", "Shop", trade.id());
+            assertFalse(removed.isDone());
+        }
+        removed.join();
+
+        assertEquals(0, registry.getShop("owner", "Shop").trades().size());
+    }
+
+    @Test
+    void exportedJsonImportsBackIntoAnEmptyStorage() throws Exception {
+        registry = new ShopRegistry(dataDirectory);
+        registry.createShop("owner", "Owner", "Armory");
+        registry.createShop("other", "Other", "Bakery");
+        Trade trade = registry.addTradeAsync("owner", "Armory", "Ingredient_Stick", 1, "Ingredient_Fibre", 2).join();
+
+        Path exported = registry.exportJson();
+        Path importDirectory = Files.createDirectories(dataDirectory.resolve("import"));
+        Files.copy(exported, importDirectory.resolve(JsonShopStorage.JSON_FILE));
+        JsonShopStorage imported = new JsonShopStorage(importDirectory);
+
+        assertEquals(2, imported.countShops());
+        Shop armory = imported.getShop("owner", "Armory");
+        assertEquals(1, armory.trades().size());
+        assertEquals("Ingredient_Fibre", armory.findTrade(trade.id()).outputItemId());
+        assertEquals("Bakery", imported.getShop("other", "bakery").name());
+        imported.close();
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.leonardson.taleshop.shop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.leonardson.taleshop.shop.trade.Trade;
+
+class ShopSnapshotTest {
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void shopsReadBackAsWritten() throws IOException {
+        Path file = dataDirectory.resolve("shops.bin");
+        List<Shop> written = List.of(
+            new Shop("owner", "Owner", "Armory", List.of(
+                new Trade(1, "Ore", 3, "Sword", 1),
+                new Trade(4, "Ore", 5, "Shield", 1)
+            ), "trader-uuid", 9),
+            new Shop("other", "Other", "Empty", List.of(), "")
+        );
+
+        ShopSnapshot.write(file, written);
+        List<Shop> read = new ArrayList<>();
+        int count = ShopSnapshot.read(file, read::add);
+
+        assertEquals(2, count);
+        Shop armory = read.get(0);
+        assertEquals("owner", armory.ownerId());
+        assertEquals("Owner", armory.ownerName());
+        assertEquals("Armory", armory.name());
+        assertEquals("trader-uuid", armory.traderUuid());
+        assertEquals(9, armory.nextTradeId());
+        assertEquals(written.get(0).trades(), armory.trades());
+        assertEquals("Shield", armory.findTrade(4).outputItemId());
+        assertEquals("Empty", read.get(1).name());
+        assertEquals(0, read.get(1).trades().size());
+    }
+
+    @Test
+    void damagedFileFailsItsChecksum() throws IOException {
+        Path file = dataDirectory.resolve("shops.bin");
+        ShopSnapshot.write(file, List.of(new Shop("owner", "Owner", "Armory", List.of(new Trade(1, "Ore", 3, "Sword", 1)), "")));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> ShopSnapshot.read(file, shop -> { }));
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = dataDirectory.resolve("shops.bin");
+        ShopSnapshot.write(file, List.of(new Shop("owner", "Owner", "Armory", List.of(), "")));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+
+        assertThrows(IOException.class, () -> ShopSnapshot.read(file, shop -> { }));
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.leonardson.taleshop.shop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShopSummaryPagingTest {
+    private static final int PAGE_SIZE = 2;
+
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void jsonStoragePagesByNormalizedName() {
+        pagesByNormalizedName(new JsonShopStorage(dataDirectory));
+    }
+
+    @Test
+    void logStoragePagesByNormalizedName() {
+        pagesByNormalizedName(new LogShopStorage(dataDirectory));
+    }
+
+    @Test
+    void sqliteStoragePagesByNormalizedName() {
+        pagesByNormalizedName(new SqliteShopStorage(dataDirectory));
+    }
+
+    @Test
+    void jsonStorageKeepsItsPlaceAcrossRenames() {
+        keepsItsPlaceAcrossRenames(new JsonShopStorage(dataDirectory));
+    }
+
+    @Test
+    void logStorageKeepsItsPlaceAcrossRenames() {
+        keepsItsPlaceAcrossRenames(new LogShopStorage(dataDirectory));
+    }
+
+    @Test
+    void sqliteStorageKeepsItsPlaceAcrossRenames() {
+        keepsItsPlaceAcrossRenames(new SqliteShopStorage(dataDirectory));
+    }
+
+    /**
+     * Names that only differ in case from their neighbours, and another owner with the very same
+     * names, must neither repeat nor drop a row at a page boundary.
+     */
+    private static void pagesByNormalizedName(ShopStorage storage) {
+        try {
+            for (String name : List.of("apex", "Apple", "APRICOT", "_Bazaar", "banana")) {
+                storage.createShop("owner", "Owner", name);
+                storage.createShop("other", "Other", name);
+            }
+
+            List<String> names = new ArrayList<>();
+            String cursor = null;
+            List<ShopSummary> page;
+            do {
+                page = storage.listShopSummaries("owner", cursor, PAGE_SIZE);
+                for (ShopSummary summary : page) {
+                    assertEquals("owner", summary.ownerId());
+                    names.add(summary.name());
+                }
+                cursor = page.isEmpty() ? cursor : page.get(page.size() - 1).name();
+            } while (page.size() == PAGE_SIZE);
+
+            assertEquals(List.of("_Bazaar", "apex", "Apple", "APRICOT", "banana"), names);
+            assertEquals(names, storage.listShopSummaries("owner").stream().map(ShopSummary::name).toList());
+        } finally {
+            storage.close();
+        }
+    }
+
+    /**
+     * A shop renamed to before the cursor has already been passed; one renamed to after it still
+     * comes up, once, under its new name.
+     */
+    private static void keepsItsPlaceAcrossRenames(ShopStorage storage) {
+        try {
+            for (String name : List.of("Armory", "Bakery", "Cellar", "Dock", "Forge")) {
+                storage.createShop("owner", "Owner", name);
+            }
+
+            List<ShopSummary> first = storage.listShopSummaries("owner", null, PAGE_SIZE);
+            assertEquals(List.of("Armory", "Bakery"), names(first));
+            storage.renameShop("owner", "Cellar", "Attic");
+            storage.renameShop("owner", "Armory", "Emporium");
+
+            List<String> rest = new ArrayList<>();
+            String cursor = first.get(first.size() - 1).name();
+            List<ShopSummary> page;
+            do {
+                page = storage.listShopSummaries("owner", cursor, PAGE_SIZE);
+                rest.addAll(names(page));
+                cursor = page.isEmpty() ? cursor : page.get(page.size() - 1).name();
+            } while (page.size() == PAGE_SIZE);
+
+            assertEquals(List.of("Dock", "Emporium", "Forge"), rest);
+        } finally {
+            storage.close();
+        }
+    }
+
+    private static List<String> names(List<ShopSummary> summaries) {
+        return summaries.stream().map(ShopSummary::name).toList();
+    }
+}
@@ -0,0 +1,180 @@
+package br.com.leonardson.taleshop.shop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.leonardson.taleshop.shop.trade.Trade;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SqliteMigrationsTest {
+    // More than one copy chunk, so the chunked trade copy is exercised
+    private static final int ARMORY_TRADES = SqliteMigrations.COPY_BATCH * 2 + 7;
+
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void firstVersionDatabaseKeepsItsShopsAndTradesOnIntegerIds() throws SQLException {
+        createFirstVersionDatabase();
+
+        SqliteShopStorage storage = new SqliteShopStorage(dataDirectory);
+        try {
+            assertEquals(3, storage.countShops());
+            Shop armory = storage.getShop("owner", "Armory");
+            assertEquals("armory", armory.name());
+            assertEquals(ARMORY_TRADES, armory.trades().size());
+            assertEquals(ARMORY_TRADES, armory.trades().get(ARMORY_TRADES - 1).id());
+            assertEquals(List.of(1, 2, 5), storage.getShop("owner", "bakery").trades().stream().map(Trade::id).toList());
+            assertEquals("bakery", storage.findShopByTraderUuid("trader-1").name());
+            assertEquals(1, storage.getShop("other", "armory").trades().size());
+
+            // New ids carry on after the highest one that was copied
+            assertEquals(6, storage.addTrade("owner", "bakery", "Ingredient_Stick", 1, "Ingredient_Fibre", 2).id());
+        } finally {
+            storage.close();
+        }
+
+        try (Connection connection = open();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name LIKE '%_v1'")) {
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    void newDatabaseStartsAtTheLatestVersion() throws SQLException {
+        new SqliteShopStorage(dataDirectory).close();
+
+        assertEquals(SqliteMigrations.LATEST_VERSION, userVersion());
+        assertTrue(triggerExists());
+    }
+
+    @Test
+    void upgradeRecordsTheVersionAndReopeningChangesNothing() throws SQLException {
+        createFirstVersionDatabase();
+        new SqliteShopStorage(dataDirectory).close();
+        assertEquals(SqliteMigrations.LATEST_VERSION, userVersion());
+        assertTrue(triggerExists());
+
+        SqliteShopStorage storage = new SqliteShopStorage(dataDirectory);
+        try {
+            assertEquals(3, storage.countShops());
+            assertEquals(ARMORY_TRADES, storage.getShop("owner", "armory").trades().size());
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    void stepInterruptedBeforeItsVersionWasRecordedIsRepeated() throws SQLException {
+        SqliteShopStorage storage = new SqliteShopStorage(dataDirectory);
+        storage.createShop("owner", "Owner", "Armory");
+        storage.addTrade("owner", "Armory", "Ingredient_Stick", 1, "Ingredient_Fibre", 2);
+        storage.close();
+        // As if the server stopped after v3 added its column but before the version moved on
+        try (Connection connection = open(); Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TRIGGER trg_trades_next_trade_id");
+            stmt.execute("PRAGMA user_version = 2");
+        }
+
+        storage = new SqliteShopStorage(dataDirectory);
+        try {
+            assertEquals(2, storage.addTrade("owner", "Armory", "Ingredient_Stick", 1, "Ingredient_Fibre", 2).id());
+            assertEquals(3, storage.getShop("owner", "Armory").nextTradeId());
+        } finally {
+            storage.close();
+        }
+        assertEquals(SqliteMigrations.LATEST_VERSION, userVersion());
+        assertTrue(triggerExists());
+    }
+
+    private int userVersion() throws SQLException {
+        try (Connection connection = open();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private boolean triggerExists() throws SQLException {
+        try (Connection connection = open();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'trigger' AND name = 'trg_trades_next_trade_id'")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * The layout before schema versions: shops keyed by owner and name text, trades pointing at
+     * them by both, and no display name column yet.
+     */
+    private void createFirstVersionDatabase() throws SQLException {
+        try (Connection connection = open(); Statement stmt = connection.createStatement()) {
+            stmt.execute(
+                "CREATE TABLE shops (" +
+                "    owner_id TEXT NOT NULL," +
+                "    name TEXT NOT NULL," +
+                "    owner_name TEXT NOT NULL," +
+                "    trader_uuid TEXT," +
+                "    PRIMARY KEY (owner_id, name)" +
+                ")"
+            );
+            stmt.execute(
+                "CREATE TABLE trades (" +
+                "    id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "    owner_id TEXT NOT NULL," +
+                "    shop_name TEXT NOT NULL," +
+                "    trade_id INTEGER NOT NULL," +
+                "    input_item_id TEXT NOT NULL," +
+                "    input_quantity INTEGER NOT NULL," +
+                "    output_item_id TEXT NOT NULL," +
+                "    output_quantity INTEGER NOT NULL," +
+                "    FOREIGN KEY (owner_id, shop_name) REFERENCES shops(owner_id, name) ON DELETE CASCADE," +
+                "    UNIQUE (owner_id, shop_name, trade_id)" +
+                ")"
+            );
+            stmt.execute("CREATE INDEX idx_shops_trader_uuid ON shops(trader_uuid)");
+            stmt.execute("INSERT INTO shops VALUES ('owner', 'armory', 'Owner', NULL)");
+            stmt.execute("INSERT INTO shops VALUES ('owner', 'bakery', 'Owner', 'trader-1')");
+            stmt.execute("INSERT INTO shops VALUES ('other', 'armory', 'Other', NULL)");
+
+            connection.setAutoCommit(false);
+            String insert = "INSERT INTO trades (owner_id, shop_name, trade_id, input_item_id, input_quantity, output_item_id, output_quantity) " +
+                            "VALUES (?, ?, ?, 'Ingredient_Stick', 1, 'Ingredient_Fibre', 2)";
+            try (PreparedStatement pstmt = connection.prepareStatement(insert)) {
+                for (int id = 1; id <= ARMORY_TRADES; id++) {
+                    addTrade(pstmt, "owner", "armory", id);
+                }
+                addTrade(pstmt, "owner", "bakery", 1);
+                addTrade(pstmt, "owner", "bakery", 2);
+                addTrade(pstmt, "owner", "bakery", 5);
+                addTrade(pstmt, "other", "armory", 1);
+                pstmt.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    private static void addTrade(PreparedStatement pstmt, String ownerId, String shopName, int tradeId) throws SQLException {
+        pstmt.setString(1, ownerId);
+        pstmt.setString(2, shopName);
+        pstmt.setInt(3, tradeId);
+        pstmt.addBatch();
+    }
+
+    private Connection open() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dataDirectory.resolve("shops.db").toAbsolutePath());
+    }
+}
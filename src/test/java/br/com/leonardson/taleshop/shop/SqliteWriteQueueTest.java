@@ -0,0 +1,96 @@
+package br.com.leonardson.taleshop.shop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+
+class SqliteWriteQueueTest {
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    private final Object lock = new Object();
+
+    @Test
+    void writesQueuedDuringACommitShareTheNextOneAndAFailedWriteRollsBackAlone() throws Exception {
+        try (SqliteWriteQueue queue = new SqliteWriteQueue(recordingConnection(), lock)) {
+            CompletableFuture<String> first;
+            CompletableFuture<String> second;
+            CompletableFuture<String> failed;
+            CompletableFuture<String> third;
+            synchronized (lock) {
+                first = queue.submit(() -> write("first"));
+                awaitWriterBlocked();
+                // These queue up behind the batch that is waiting for the lock
+                second = queue.submit(() -> write("second"));
+                failed = queue.submit(() -> {
+                    write("failed");
+                    throw new IllegalArgumentException("Shop not found: Missing");
+                });
+                third = queue.submit(() -> write("third"));
+            }
+
+            assertEquals("first", first.join());
+            assertEquals("second", second.join());
+            assertEquals("third", third.join());
+            CompletionException error = assertThrows(CompletionException.class, failed::join);
+            assertEquals(IllegalArgumentException.class, error.getCause().getClass());
+        }
+
+        assertEquals(List.of(
+            "begin", "savepoint", "first", "release",
+            "commit", "end",
+            "begin", "savepoint", "second", "release",
+            "savepoint", "failed", "rollback to savepoint", "release",
+            "savepoint", "third", "release",
+            "commit", "end"
+        ), calls);
+    }
+
+    private String write(String name) {
+        calls.add(name);
+        return name;
+    }
+
+    private static void awaitWriterBlocked() throws InterruptedException {
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("TaleShop-SQLite-Writer"))
+            .findFirst()
+            .orElseThrow();
+        while (writer.getState() != Thread.State.BLOCKED) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Records the transaction calls the queue makes; nothing is stored.
+     */
+    private Connection recordingConnection() {
+        Savepoint savepoint = (Savepoint) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Savepoint.class },
+            (proxy, method, args) -> method.getName().equals("getSavepointId") ? 1 : null);
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "setAutoCommit" -> calls.add((Boolean) args[0] ? "end" : "begin");
+                    case "setSavepoint" -> {
+                        calls.add("savepoint");
+                        return savepoint;
+                    }
+                    case "releaseSavepoint" -> calls.add("release");
+                    case "rollback" -> calls.add(args == null ? "rollback" : "rollback to savepoint");
+                    case "commit" -> calls.add("commit");
+                    default -> {
+                        // Not used by the queue
+                    }
+                }
+                return method.getReturnType() == boolean.class ? false : null;
+            });
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.leonardson.taleshop.shop.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TradeJournalTest {
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void appendedTradesReadBackAfterReopen() {
+        long now = System.currentTimeMillis();
+        try (TradeJournal journal = new TradeJournal(dataDirectory)) {
+            journal.append(now, "owner", "My Shop", "buyer", 1, "Ore", 2, "Gem", 1);
+            journal.append(now + 1, "owner", "My Shop", "buyer", 2, null, 0, "Gem", 3);
+        }
+
+        try (TradeJournal journal = new TradeJournal(dataDirectory)) {
+            List<TradeRecord> history = journal.history("owner", "my shop", 0, 10);
+            assertEquals(2, history.size());
+            assertEquals(2, history.get(0).tradeId());
+            assertEquals("", history.get(0).inputItemId());
+            assertEquals(1, history.get(1).tradeId());
+            assertEquals("Ore", history.get(1).inputItemId());
+            assertEquals(2, journal.nextPosition());
+        }
+    }
+
+    @Test
+    void historyFollowsTheShopAcrossRenames() {
+        long now = System.currentTimeMillis();
+        try (TradeJournal journal = new TradeJournal(dataDirectory)) {
+            journal.append(now, "owner", "My Shop", "buyer", 1, "Ore", 1, "Gem", 1);
+            journal.onShopRenamed("owner", "MY SHOP", "Corner Store");
+            journal.append(now, "owner", "Corner Store", "buyer", 1, "Ore", 1, "Gem", 1);
+        }
+
+        try (TradeJournal journal = new TradeJournal(dataDirectory)) {
+            List<TradeRecord> history = journal.history("owner", "Corner Store", 0, 10);
+            assertEquals(2, history.size());
+            assertEquals("Corner Store", history.get(1).shopName());
+            assertTrue(journal.history("owner", "My Shop", 0, 10).isEmpty());
+        }
+    }
+
+    @Test
+    void aShopCreatedUnderADeletedNameStartsEmpty() {
+        long now = System.currentTimeMillis();
+        try (TradeJournal journal = new TradeJournal(dataDirectory)) {
+            journal.append(now, "owner", "My Shop", "buyer", 1, "Ore", 1, "Gem", 1);
+            journal.onShopDeleted("owner", "My Shop");
+            journal.append(now, "owner", "My Shop", "buyer", 7, "Ore", 1, "Gem", 1);
+
+            List<TradeRecord> history = journal.history("owner", "My Shop", 0, 10);
+            assertEquals(1, history.size());
+            assertEquals(7, history.get(0).tradeId());
+
+            List<TradeRecord> scanned = new ArrayList<>();
+            journal.scan(0, -1, scanned::add);
+            assertEquals(1, scanned.size());
+            assertEquals(1, scanned.get(0).position());
+        }
+    }
+
+    @Test
+    void scanResumesAfterAPosition() {
+        long now = System.currentTimeMillis();
+        try (TradeJournal journal = new TradeJournal(dataDirectory)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(now, "owner", "My Shop", "buyer", i, "Ore", 1, "Gem", 1);
+            }
+            List<Integer> tradeIds = new ArrayList<>();
+            journal.scan(0, 2, trade -> tradeIds.add(trade.tradeId()));
+            assertEquals(List.of(3, 4), tradeIds);
+
+            tradeIds.clear();
+            journal.scan(now + 1, -1, trade -> tradeIds.add(trade.tradeId()));
+            assertTrue(tradeIds.isEmpty());
+        }
+    }
+
+    @Test
+    void listenersSeeTradesWithTheirPositions() {
+        List<Long> positions = new ArrayList<>();
+        try (TradeJournal journal = new TradeJournal(dataDirectory)) {
+            journal.addListener(trade -> positions.add(trade.position()));
+            journal.append(1, "owner", "My Shop", "buyer", 1, "Ore", 1, "Gem", 1);
+            journal.append(1, "owner", "My Shop", "buyer", 1, "Ore", 1, "Gem", 1);
+        }
+        assertEquals(List.of(0L, 1L), positions);
+    }
+}
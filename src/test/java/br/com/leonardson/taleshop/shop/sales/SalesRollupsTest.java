@@ -0,0 +1,76 @@
+package br.com.leonardson.taleshop.shop.sales;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.leonardson.taleshop.shop.journal.TradeJournal;
+
+class SalesRollupsTest {
+    @TempDir
+    Path dataDirectory;
+
+    @Test
+    void renameTypedInAnotherCaseMovesTheCounters() {
+        SalesRollups rollups = new SalesRollups(dataDirectory, ZoneOffset.UTC);
+        long now = System.currentTimeMillis();
+        rollups.record("owner", "My Shop", 1, now);
+        rollups.record("owner", "My Shop", 1, now);
+
+        rollups.onShopRenamed("owner", "my shop", "Corner Store");
+
+        assertEquals(2, rollups.summary("owner", "Corner Store", 5).lastHour());
+        assertEquals(0, rollups.summary("owner", "My Shop", 5).lastHour());
+    }
+
+    @Test
+    void deleteTypedInAnotherCaseDropsTheCounters() {
+        SalesRollups rollups = new SalesRollups(dataDirectory, ZoneOffset.UTC);
+        rollups.record("owner", "My Shop", 1, System.currentTimeMillis());
+
+        rollups.onShopDeleted("owner", " MY SHOP ");
+        rollups.record("owner", "my shop", 2, System.currentTimeMillis());
+
+        SalesSummary summary = rollups.summary("owner", "My Shop", 5);
+        assertEquals(1, summary.lastHour());
+        assertEquals(2, summary.topTrades().get(0).tradeId());
+    }
+
+    @Test
+    void savedCountersAreFoundInAnyCase() throws Exception {
+        SalesRollups rollups = new SalesRollups(dataDirectory, ZoneOffset.UTC);
+        rollups.record("owner", "My Shop", 1, System.currentTimeMillis());
+        rollups.save();
+
+        SalesRollups reloaded = new SalesRollups(dataDirectory, ZoneOffset.UTC);
+        reloaded.load(null);
+
+        assertEquals(1, reloaded.summary("owner", "MY SHOP", 5).lastHour());
+    }
+
+    @Test
+    void reloadReplaysExactlyTheTradesAfterTheSave() throws Exception {
+        long now = System.currentTimeMillis();
+        TradeJournal journal = new TradeJournal(dataDirectory);
+        SalesRollups rollups = new SalesRollups(dataDirectory, ZoneOffset.UTC);
+        rollups.load(journal);
+        journal.addListener(rollups);
+        journal.append(now, "owner", "My Shop", "buyer", 1, "Ore", 1, "Gem", 1);
+        journal.append(now, "owner", "My Shop", "buyer", 1, "Ore", 1, "Gem", 1);
+        rollups.save();
+        // Same millisecond as the saved trades
+        journal.append(now, "owner", "My Shop", "buyer", 1, "Ore", 1, "Gem", 1);
+        journal.close();
+
+        TradeJournal reopened = new TradeJournal(dataDirectory);
+        SalesRollups reloaded = new SalesRollups(dataDirectory, ZoneOffset.UTC);
+        reloaded.load(reopened);
+        reopened.close();
+
+        assertEquals(3, reloaded.summary("owner", "My Shop", 5).lastHour());
+    }
+}